@@ -10,7 +10,7 @@ from src.crew import run_hierarchical_travel_crew
 from src.models import FinalItinerary
 
 # --- RabbitMQ Publisher Helper ---
-def publish_message(config, queue_name, message_body, correlation_id=None):
+def publish_message(config, queue_name, message_body, correlation_id=None, headers=None):
     """Publishes a message to a specified RabbitMQ queue."""
     connection = None
     try:
@@ -30,7 +30,8 @@ def publish_message(config, queue_name, message_body, correlation_id=None):
         # Set message properties (make message persistent, set correlation_id)
         properties = pika.BasicProperties(
             delivery_mode=2, # Make message persistent
-            correlation_id=correlation_id
+            correlation_id=correlation_id,
+            headers=headers
         )
 
         channel.basic_publish(
@@ -49,11 +50,26 @@ def publish_message(config, queue_name, message_body, correlation_id=None):
             connection.close()
             print("Publisher: Connection closed.")
 
+def timing_headers(request_properties, received_at_ms):
+    """Timestamps (epoch millis) the backend uses for its per-stage planning metrics.
+
+    The request's publish time is echoed back so the backend can time the whole round trip.
+    """
+    headers = {
+        'x-agent-received-at': received_at_ms,
+        'x-agent-completed-at': int(time.time() * 1000),
+    }
+    published_at = (request_properties.headers or {}).get('x-published-at')
+    if published_at is not None:
+        headers['x-published-at'] = published_at
+    return headers
+
 # --- RabbitMQ Consumer Callback ---
 def planning_request_callback(ch, method, properties, body, llm_instance):
     """Callback function when a message is received from PLANNING_REQUEST_QUEUE."""
     thread_id = threading.get_ident()
     correlation_id = properties.correlation_id # Get correlation ID if sent
+    received_at_ms = int(time.time() * 1000)
     print(f"\n------------------- New Request (CorrID: {correlation_id}) -------------------")
     print(f" [x] Received planning request on thread {thread_id}")
     print(f"     Delivery Tag: {method.delivery_tag}")
@@ -126,7 +142,8 @@ def planning_request_callback(ch, method, properties, body, llm_instance):
         print(f"     Publishing result to queue '{mq_config['RESULTS_QUEUE']}' (CorrID: {correlation_id})...")
         # Pass necessary config items to publisher
         publish_config = {k: mq_config[k] for k in ['RABBITMQ_HOST', 'RABBITMQ_PORT', 'RABBITMQ_USER', 'RABBITMQ_PASS']}
-        publish_message(publish_config, mq_config['RESULTS_QUEUE'], result_json, correlation_id)
+        publish_message(publish_config, mq_config['RESULTS_QUEUE'], result_json, correlation_id,
+                        timing_headers(properties, received_at_ms))
     except Exception as pub_e:
         print(f" [!] CRITICAL: Failed to publish result to queue: {pub_e}")
 
@@ -0,0 +1,109 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Synthetic itineraries shaped like agent output: every day has a mix of sights, meals and
+ * transit, with the punctuation-heavy text (prices, times, URLs) that MarkdownV2 must escape.
+ * Days differ in length and wording, but the same arguments always produce the same itinerary,
+ * so results stay comparable between runs.
+ */
+final class ItineraryFixtures {
+
+    static final DateTimeFormatter AGENT_TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+
+    private static final String[] TYPES = {"attraction", "food", "transport", "activity", "food", "attraction", "transport", "food"};
+
+    private static final String[] PLACES = {
+            "Kiyomizu-dera (Pure Water Temple)", "Fushimi Inari-taisha: 1,000 torii gates!", "Nishiki Market - \"Kyoto's Kitchen\"",
+            "Arashiyama Bamboo Grove", "Kinkaku-ji [Golden Pavilion]", "Gion & Hanami-koji (evening walk)",
+            "Philosopher's Path", "Nara Park + Todai-ji (day trip)", "Kyoto Station -> Nara (JR Nara Line)"};
+    private static final String[] LOCATIONS = {
+            "1-294 Kiyomizu, Higashiyama-ku, Kyoto 605-0862", "68 Fukakusa Yabunouchicho, Fushimi-ku",
+            "Nakagyo-ku, Kyoto 604-8054", "Sagaogurayama Tabuchiyamacho, Ukyo-ku", "1 Kinkakujicho, Kita-ku"};
+    private static final String[] COSTS = {"¥500 (~$3.50)", "Free", "¥1,200-¥2,500 per person", "$15.00", "¥720 (IC card)"};
+
+    private ItineraryFixtures() {
+    }
+
+    /**
+     * An itinerary of {@code days} days with five to eight events per day.
+     */
+    static FinalItineraryDto itinerary(int days) {
+        return build(days, 0);
+    }
+
+    /**
+     * An itinerary of {@code days} days with exactly {@code eventsPerDay} events per day.
+     */
+    static FinalItineraryDto itinerary(int days, int eventsPerDay) {
+        return build(days, eventsPerDay);
+    }
+
+    private static FinalItineraryDto build(int days, int fixedEventsPerDay) {
+        LocalDate start = LocalDate.of(2025, 6, 1);
+        FinalItineraryDto dto = new FinalItineraryDto();
+        dto.setDestination("Kyoto, Japan");
+        dto.setDurationDays(days);
+        dto.setStartDate(start.toString());
+        dto.setEndDate(start.plusDays(days - 1L).toString());
+        dto.setBudget("Mid-range (~$2,500)");
+        dto.setInterests(List.of("temples", "food", "gardens", "photography"));
+        dto.setSummary("A " + days + "-day trip through Kyoto's temples, markets & gardens (with a day trip to Nara!)");
+        dto.setEstimatedTotalCost(2450.75);
+        dto.setGeneral_notes(List.of(
+                "Get an ICOCA card for buses & trains.",
+                "Most temples open 8:30 - 17:00; arrive early to avoid crowds.",
+                "Carry cash: many small restaurants don't take cards."));
+
+        List<ItineraryDayDto> dayDtos = new ArrayList<>(days);
+        for (int d = 1; d <= days; d++) {
+            ItineraryDayDto day = new ItineraryDayDto();
+            day.setDay(d);
+            day.setDate(start.plusDays(d - 1L).toString());
+            day.setTheme("Day " + d + ": " + PLACES[d % PLACES.length].split(" [(\\[:-]")[0] + " & around (old town)");
+            int eventsPerDay = fixedEventsPerDay > 0 ? fixedEventsPerDay : 5 + (d * 7) % 4;
+            List<ItineraryEventDto> events = new ArrayList<>(eventsPerDay);
+            for (int e = 0; e < eventsPerDay; e++) {
+                events.add(event(TYPES[e % TYPES.length], d, e));
+            }
+            day.setEvents(events);
+            dayDtos.add(day);
+        }
+        dto.setDays(dayDtos);
+        return dto;
+    }
+
+    private static ItineraryEventDto event(String type, int day, int index) {
+        int variant = day * 31 + index;
+        LocalTime startTime = LocalTime.of(8 + index * 3 / 2, index % 2 == 0 ? 0 : 30);
+
+        ItineraryEventDto event = new ItineraryEventDto();
+        event.setType(type);
+        event.setDescription("Visit #" + index + " on day " + day + ": " + PLACES[variant % PLACES.length]);
+        event.setStartTime(AGENT_TIME_FORMAT.format(startTime));
+        event.setEndTime(AGENT_TIME_FORMAT.format(startTime.plusMinutes(75)));
+        event.setLocation(LOCATIONS[variant % LOCATIONS.length]);
+        event.setCost(COSTS[variant % COSTS.length]);
+        event.setBookingInfo(variant % 3 == 0 ? "Reserve online 2 weeks ahead." : "No booking needed. Tickets at the gate.");
+        event.setOpeningHours("6:00 - 18:00");
+        event.setWebsite(variant % 2 == 0 ? "https://www.kiyomizudera.or.jp/en/(info)" : "https://inari.jp/en/");
+        event.setDetails("Famous wooden stage 13m above the hillside.\nBest views at sunset; expect crowds!");
+        event.setNotes(variant % 4 == 0 ? null : "Wear comfortable shoes - steep slopes.");
+        if ("transport".equals(type)) {
+            event.setTravelTime((15 + variant % 40) + " min");
+            event.setDistance((2 + variant % 9) + "." + variant % 10 + " km");
+            event.setTransportMode(variant % 2 == 0 ? "Bus #206" : "JR Nara Line (rapid)");
+        }
+        return event;
+    }
+}
@@ -0,0 +1,109 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.model.entity.Activity;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.model.entity.ItineraryDay;
+import org.sjsu.travelswarm.service.ItineraryEntityMapper;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping an itinerary to the entity graph (what storing does before the insert) and back
+ * (what /view does for relational itineraries): the per-call formatters and exception-driven parsing
+ * of LegacyItineraryMapper against ItineraryEntityMapper. {@code timeFormat} picks how the agent
+ * wrote the event times; only the first legacy formatter parses 12-hour times without throwing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItineraryMappingBenchmark {
+
+    @Param({"1", "7", "14", "30"})
+    public int days;
+
+    @Param({"12h", "24h", "iso"})
+    public String timeFormat;
+
+    private final ItineraryEntityMapper mapper = new ItineraryEntityMapper();
+    private FinalItineraryDto itinerary;
+    private List<ItineraryDay> storedDays;
+
+    @Setup
+    public void setUp() {
+        itinerary = ItineraryFixtures.itinerary(days);
+        for (ItineraryDayDto day : itinerary.getDays()) {
+            for (ItineraryEventDto event : day.getEvents()) {
+                event.setStartTime(time(event.getStartTime()));
+                event.setEndTime(time(event.getEndTime()));
+            }
+        }
+        storedDays = mapper.toDays(itinerary.getDays(), new Itinerary());
+    }
+
+    // The fixtures use "08:00 AM"-style times
+    private String time(String twelveHour) {
+        LocalTime time = LocalTime.parse(twelveHour, ItineraryFixtures.AGENT_TIME_FORMAT);
+        return switch (timeFormat) {
+            case "24h" -> time.format(DateTimeFormatter.ofPattern("H:mm"));
+            case "iso" -> time.format(DateTimeFormatter.ISO_LOCAL_TIME);
+            default -> twelveHour;
+        };
+    }
+
+    @Benchmark
+    public List<ItineraryDay> legacyToEntities() {
+        Itinerary owner = new Itinerary();
+        List<ItineraryDay> dayEntities = new ArrayList<>();
+        for (ItineraryDayDto dayDto : itinerary.getDays()) {
+            ItineraryDay day = new ItineraryDay();
+            day.setDayNumber(dayDto.getDay());
+            day.setTheme(dayDto.getTheme());
+            day.setDate(LocalDate.parse(dayDto.getDate()));
+            day.setItinerary(owner);
+            List<Activity> activities = new ArrayList<>();
+            for (ItineraryEventDto event : dayDto.getEvents()) {
+                Activity activity = LegacyItineraryMapper.toActivity(event, day.getDate());
+                activity.setItineraryDay(day);
+                activities.add(activity);
+            }
+            day.setActivities(activities);
+            dayEntities.add(day);
+        }
+        return dayEntities;
+    }
+
+    @Benchmark
+    public List<ItineraryDay> mapperToEntities() {
+        return mapper.toDays(itinerary.getDays(), new Itinerary());
+    }
+
+    @Benchmark
+    public List<ItineraryDayDto> legacyToDtos() {
+        List<ItineraryDayDto> dtos = new ArrayList<>(storedDays.size());
+        for (ItineraryDay day : storedDays) {
+            dtos.add(LegacyItineraryMapper.toDayDto(day));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<ItineraryDayDto> mapperToDtos() {
+        return mapper.toDayDtos(storedDays);
+    }
+}
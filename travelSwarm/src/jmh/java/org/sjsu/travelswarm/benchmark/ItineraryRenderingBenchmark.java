@@ -0,0 +1,47 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.service.ItineraryFormatter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering an itinerary into Telegram messages: the old path (render everything into one
+ * string, then re-split it with LegacyMessageSplitter) against streaming sections into a
+ * TelegramChunkSink. Run with {@code -prof gc} to compare allocation per render as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItineraryRenderingBenchmark {
+
+    @Param({"1", "7", "14", "30"})
+    public int days;
+
+    private final ItineraryFormatter formatter = new ItineraryFormatter();
+    private FinalItineraryDto itinerary;
+
+    @Setup
+    public void setUp() {
+        itinerary = ItineraryFixtures.itinerary(days);
+    }
+
+    @Benchmark
+    public List<String> formatThenSplit() {
+        return LegacyMessageSplitter.split(formatter.format(itinerary));
+    }
+
+    @Benchmark
+    public List<String> streamIntoChunkSink() {
+        return formatter.render(itinerary);
+    }
+}
@@ -0,0 +1,80 @@
+package org.sjsu.travelswarm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.model.enums.ItineraryStorageMode;
+import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.sjsu.travelswarm.service.ItineraryEntityMapper;
+import org.sjsu.travelswarm.service.ItineraryFormatter;
+import org.sjsu.travelswarm.service.ItineraryService;
+import org.sjsu.travelswarm.service.RenderedItineraryCache;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The CPU side of ItineraryService: {@code storeItinerary} (entity mapping, rendering the Telegram
+ * messages and copying the document, with a repository that only hands the entity back) and
+ * {@code convertEntityToDto} for the stored result. {@code storageMode} decides whether the
+ * document copy is made and whether the DTO is read from the document or from days and activities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ItineraryStorageBenchmark {
+
+    @Param({"1", "7", "14", "30"})
+    public int days;
+
+    @Param({"BOTH", "RELATIONAL", "DOCUMENT"})
+    public ItineraryStorageMode storageMode;
+
+    private ItineraryService itineraryService;
+    private FinalItineraryDto itinerary;
+    private Itinerary stored;
+
+    @Setup
+    public void setUp() {
+        ItineraryRepository repository = (ItineraryRepository) Proxy.newProxyInstance(
+                ItineraryRepository.class.getClassLoader(), new Class<?>[]{ItineraryRepository.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("save")) {
+                        return args[0];
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        itineraryService = new ItineraryService(repository, new ObjectMapper(), new ItineraryFormatter(),
+                new RenderedItineraryCache(DataSize.ofMegabytes(32), new SimpleMeterRegistry()), new ItineraryEntityMapper(),
+                null, new SimpleMeterRegistry()); // No transaction manager: only /view re-rendering uses one
+        // Bound from app.itinerary.storage-mode in the application
+        Field field = ReflectionUtils.findField(ItineraryService.class, "storageMode");
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, itineraryService, storageMode);
+
+        itinerary = ItineraryFixtures.itinerary(days);
+        stored = itineraryService.storeItinerary(itinerary, "42");
+    }
+
+    @Benchmark
+    public Itinerary storeItinerary() {
+        return itineraryService.storeItinerary(itinerary, "42");
+    }
+
+    @Benchmark
+    public FinalItineraryDto convertEntityToDto() {
+        return itineraryService.convertEntityToDto(stored);
+    }
+}
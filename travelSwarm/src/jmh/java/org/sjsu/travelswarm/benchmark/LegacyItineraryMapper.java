@@ -0,0 +1,124 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.model.entity.Activity;
+import org.sjsu.travelswarm.model.entity.ItineraryDay;
+import org.sjsu.travelswarm.model.enums.ActivityType;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The event mapping ItineraryService did before ItineraryEntityMapper: formatters built per call,
+ * parse exceptions as control flow and a switch over the upper-cased type. Logging is left out.
+ * Kept only as a benchmark baseline.
+ */
+final class LegacyItineraryMapper {
+
+    private LegacyItineraryMapper() {
+    }
+
+    static Activity toActivity(ItineraryEventDto eventDto, LocalDate dayDate) {
+        Activity activity = new Activity();
+        activity.setName(eventDto.getDescription());
+        activity.setStartTime(parseToLocalDateTime(eventDto.getStartTime(), dayDate));
+        activity.setEndTime(parseToLocalDateTime(eventDto.getEndTime(), dayDate));
+
+        String eventTypeStr = eventDto.getType() != null ? eventDto.getType().trim().toUpperCase(Locale.ROOT) : "OTHER";
+        switch (eventTypeStr) {
+            case "ATTRACTION": case "SIGHTSEEING":
+                activity.setType(ActivityType.ATTRACTION);
+                break;
+            case "ACTIVITY":
+                activity.setType(ActivityType.ACTIVITY);
+                break;
+            case "MEAL": case "FOOD": case "BREAKFAST": case "LUNCH": case "DINNER": case "CAFE":
+                activity.setType(ActivityType.FOOD);
+                break;
+            case "TRANSIT": case "TRANSPORT": case "TRANSPORTATION":
+                activity.setType(ActivityType.TRANSPORTATION);
+                break;
+            case "STAY": case "HOTEL": case "ACCOMMODATION":
+                activity.setType(ActivityType.ACCOMMODATION);
+                break;
+            default:
+                activity.setType(ActivityType.OTHER);
+                break;
+        }
+
+        activity.setLocation(eventDto.getLocation());
+        activity.setCost(eventDto.getCost());
+        activity.setBookingInfo(eventDto.getBookingInfo());
+        activity.setWebsite(eventDto.getWebsite());
+        activity.setNotes(eventDto.getNotes());
+        activity.setOpeningHours(eventDto.getOpeningHours());
+        activity.setDetails(eventDto.getDetails());
+        if (activity.getType() == ActivityType.TRANSPORTATION) {
+            activity.setTravelTime(eventDto.getTravelTime());
+            activity.setTransportMode(eventDto.getTransportMode());
+            activity.setDistance(eventDto.getDistance());
+        }
+        return activity;
+    }
+
+    static LocalDateTime parseToLocalDateTime(String timeStr, LocalDate dayDate) {
+        if (!StringUtils.hasText(timeStr) || dayDate == null) {
+            return null;
+        }
+        DateTimeFormatter[] formatters = {
+                DateTimeFormatter.ofPattern("h:mm a", Locale.US),
+                DateTimeFormatter.ofPattern("HH:mm"),
+                DateTimeFormatter.ISO_LOCAL_TIME
+        };
+        for (DateTimeFormatter formatter : formatters) {
+            try {
+                LocalTime time = LocalTime.parse(timeStr.trim().toUpperCase(Locale.US), formatter);
+                return LocalDateTime.of(dayDate, time);
+            } catch (DateTimeParseException e) {
+                // Try next formatter
+            }
+        }
+        return null;
+    }
+
+    static ItineraryDayDto toDayDto(ItineraryDay dayEntity) {
+        ItineraryDayDto dayDto = new ItineraryDayDto();
+        dayDto.setDay(dayEntity.getDayNumber());
+        dayDto.setDate(dayEntity.getDate() != null ? dayEntity.getDate().toString() : null);
+        dayDto.setTheme(dayEntity.getTheme());
+        List<ItineraryEventDto> events = new ArrayList<>();
+        for (Activity activity : dayEntity.getActivities()) {
+            events.add(toEventDto(activity));
+        }
+        dayDto.setEvents(events);
+        return dayDto;
+    }
+
+    static ItineraryEventDto toEventDto(Activity activity) {
+        ItineraryEventDto eventDto = new ItineraryEventDto();
+        eventDto.setType(activity.getType() != null ? activity.getType().name().toLowerCase() : "other");
+        eventDto.setDescription(activity.getName());
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+        eventDto.setStartTime(activity.getStartTime() != null ? activity.getStartTime().format(timeFormatter) : null);
+        eventDto.setEndTime(activity.getEndTime() != null ? activity.getEndTime().format(timeFormatter) : null);
+        eventDto.setDetails(activity.getDetails());
+        eventDto.setLocation(activity.getLocation());
+        eventDto.setCost(activity.getCost());
+        eventDto.setBookingInfo(activity.getBookingInfo());
+        eventDto.setTravelTime(activity.getTravelTime());
+        eventDto.setDistance(activity.getDistance());
+        eventDto.setTransportMode(activity.getTransportMode());
+        eventDto.setWebsite(activity.getWebsite());
+        eventDto.setNotes(activity.getNotes());
+        eventDto.setOpeningHours(activity.getOpeningHours());
+        return eventDto;
+    }
+}
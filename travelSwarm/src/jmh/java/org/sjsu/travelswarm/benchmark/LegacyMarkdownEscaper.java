@@ -0,0 +1,28 @@
+package org.sjsu.travelswarm.benchmark;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex-based escaping MarkdownUtil used before it became table-driven. Kept only as a benchmark baseline.
+ */
+final class LegacyMarkdownEscaper {
+
+    private static final Pattern MARKDOWN_V2_ESCAPE_PATTERN = Pattern.compile("([_*()\\[\\]~`>#+\\-=|{}.!])");
+
+    private LegacyMarkdownEscaper() {
+    }
+
+    static String escapeMarkdownV2(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        Matcher matcher = MARKDOWN_V2_ESCAPE_PATTERN.matcher(text);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, Matcher.quoteReplacement("\\" + matcher.group(1)));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package org.sjsu.travelswarm.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The splitting that TelegramBotService used before messages were packed by TelegramChunkSink:
+ * nested String.split passes over the fully rendered text. Kept only as a benchmark baseline.
+ */
+final class LegacyMessageSplitter {
+
+    private static final int MAX_MESSAGE_LENGTH = 4000;
+
+    private LegacyMessageSplitter() {
+    }
+
+    static List<String> split(String text) {
+        List<String> parts = new ArrayList<>();
+        int maxLength = MAX_MESSAGE_LENGTH;
+        
+        // Split by double newlines to preserve formatting
+        String[] sections = text.split("\\n\\n");
+        StringBuilder currentPart = new StringBuilder();
+        
+        for (String section : sections) {
+            if (currentPart.length() + section.length() + 2 > maxLength) {
+                if (currentPart.length() > 0) {
+                    parts.add(currentPart.toString());
+                    currentPart = new StringBuilder();
+                }
+                // If a single section is too long, split it by single newlines
+                if (section.length() > maxLength) {
+                    String[] lines = section.split("\\n");
+                    StringBuilder currentLine = new StringBuilder();
+                    for (String line : lines) {
+                        if (currentLine.length() + line.length() + 1 > maxLength) {
+                            if (currentLine.length() > 0) {
+                                parts.add(currentLine.toString());
+                                currentLine = new StringBuilder();
+                            }
+                            // If a single line is too long, split it by words
+                            if (line.length() > maxLength) {
+                                String[] words = line.split(" ");
+                                StringBuilder currentWord = new StringBuilder();
+                                for (String word : words) {
+                                    if (currentWord.length() + word.length() + 1 > maxLength) {
+                                        if (currentWord.length() > 0) {
+                                            parts.add(currentWord.toString());
+                                            currentWord = new StringBuilder();
+                                        }
+                                        // If a single word is too long, split it by characters
+                                        if (word.length() > maxLength) {
+                                            for (int i = 0; i < word.length(); i += maxLength) {
+                                                parts.add(word.substring(i, Math.min(i + maxLength, word.length())));
+                                            }
+                                        } else {
+                                            currentWord.append(word);
+                                        }
+                                    } else {
+                                        if (currentWord.length() > 0) currentWord.append(" ");
+                                        currentWord.append(word);
+                                    }
+                                }
+                                if (currentWord.length() > 0) {
+                                    parts.add(currentWord.toString());
+                                }
+                            } else {
+                                currentLine.append(line);
+                            }
+                        } else {
+                            if (currentLine.length() > 0) currentLine.append("\n");
+                            currentLine.append(line);
+                        }
+                    }
+                    if (currentLine.length() > 0) {
+                        parts.add(currentLine.toString());
+                    }
+                } else {
+                    currentPart.append(section);
+                }
+            } else {
+                if (currentPart.length() > 0) currentPart.append("\n\n");
+                currentPart.append(section);
+            }
+        }
+        
+        if (currentPart.length() > 0) {
+            parts.add(currentPart.toString());
+        }
+        
+        return parts;
+    }
+}
@@ -0,0 +1,81 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.util.MarkdownUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Escaping every text field of a one-day itinerary, as ItineraryFormatter does: the old regex
+ * escaper, the table-driven one returning strings, and the table-driven one appending into a
+ * reused builder. The corpus mixes fields that need escaping with ones that don't (times,
+ * interests, transport modes), which take the no-copy path. Run with {@code -prof gc} to
+ * compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarkdownEscapeBenchmark {
+
+    private String[] texts;
+    private final StringBuilder out = new StringBuilder(4096);
+
+    @Setup
+    public void setUp() {
+        FinalItineraryDto dto = ItineraryFixtures.itinerary(1);
+        List<String> corpus = new ArrayList<>(List.of(dto.getDestination(), dto.getSummary(), dto.getBudget()));
+        corpus.addAll(dto.getInterests());
+        corpus.addAll(dto.getGeneral_notes());
+        for (ItineraryDayDto day : dto.getDays()) {
+            corpus.add(day.getTheme());
+            for (ItineraryEventDto event : day.getEvents()) {
+                Stream.of(event.getType(), event.getDescription(), event.getStartTime(), event.getEndTime(),
+                                event.getLocation(), event.getCost(), event.getBookingInfo(), event.getOpeningHours(),
+                                event.getDetails(), event.getNotes(), event.getTravelTime(), event.getDistance(),
+                                event.getTransportMode())
+                        .filter(text -> text != null)
+                        .forEach(corpus::add);
+            }
+        }
+        texts = corpus.toArray(String[]::new);
+    }
+
+    @Benchmark
+    public int legacyRegex() {
+        out.setLength(0);
+        for (String text : texts) {
+            out.append(LegacyMarkdownEscaper.escapeMarkdownV2(text));
+        }
+        return out.length();
+    }
+
+    @Benchmark
+    public int tableToString() {
+        out.setLength(0);
+        for (String text : texts) {
+            out.append(MarkdownUtil.escapeMarkdownV2(text));
+        }
+        return out.length();
+    }
+
+    @Benchmark
+    public int tableAppend() {
+        out.setLength(0);
+        for (String text : texts) {
+            MarkdownUtil.appendEscaped(out, text);
+        }
+        return out.length();
+    }
+}
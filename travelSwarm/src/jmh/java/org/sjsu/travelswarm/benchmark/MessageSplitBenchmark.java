@@ -0,0 +1,46 @@
+package org.sjsu.travelswarm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.service.ItineraryFormatter;
+import org.sjsu.travelswarm.util.TelegramMessageSplitter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting an already rendered MarkdownV2 text into Telegram messages, which is what
+ * TelegramBotService does for long texts that were not rendered section by section:
+ * the old String.split passes against TelegramMessageSplitter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MessageSplitBenchmark {
+
+    @Param({"1", "7", "14", "30"})
+    public int days;
+
+    private String text;
+
+    @Setup
+    public void setUp() {
+        text = new ItineraryFormatter().format(ItineraryFixtures.itinerary(days));
+    }
+
+    @Benchmark
+    public List<String> legacySplit() {
+        return LegacyMessageSplitter.split(text);
+    }
+
+    @Benchmark
+    public List<String> messageSplitter() {
+        return TelegramMessageSplitter.split(text);
+    }
+}
@@ -0,0 +1,59 @@
+package org.sjsu.travelswarm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading an agent result off the results queue: {@code Jackson2JsonMessageConverter} as configured
+ * in RabbitMQConfig, fed a message the way the agent publishes it (pretty-printed JSON, no content
+ * type or type header, so the listener infers the target type), against a bare ObjectMapper read of
+ * the same bytes as the floor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultDeserializationBenchmark {
+
+    @Param({"1", "7", "14", "30"})
+    public int days;
+
+    private final Jackson2JsonMessageConverter converter = new Jackson2JsonMessageConverter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The agent publishes json.dumps(result, indent=2)
+        body = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsBytes(ItineraryFixtures.itinerary(days));
+    }
+
+    @Benchmark
+    public Object messageConverter() {
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(null);
+        properties.setCorrelationId("benchmark");
+        properties.setInferredArgumentType(FinalItineraryDto.class);
+        return converter.fromMessage(new Message(body, properties));
+    }
+
+    @Benchmark
+    public FinalItineraryDto objectMapper() throws IOException {
+        return objectMapper.readValue(body, FinalItineraryDto.class);
+    }
+}
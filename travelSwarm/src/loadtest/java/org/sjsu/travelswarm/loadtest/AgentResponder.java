@@ -0,0 +1,245 @@
+package org.sjsu.travelswarm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.rabbitmq.client.Channel;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+import org.sjsu.travelswarm.service.PlanningPipelineMetrics;
+import org.sjsu.travelswarm.service.PlanningResultBatchListener;
+import org.sjsu.travelswarm.service.PlanningResultListener;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stands in for the Python agent and the results queue. {@code loadtest.agent.workers} workers take
+ * published requests in order and answer each with a synthetic itinerary after a latency drawn from
+ * {@code loadtest.agent.latency}, published the way mq_consumer.py does it (pretty-printed JSON, no
+ * content type, the timing headers). Results are consumed by {@code app.rabbitmq.results.concurrency}
+ * threads calling the application's result listener directly, in batches when
+ * {@code app.rabbitmq.results.batch-enabled} is set, with a channel that counts acks and nacks and puts
+ * results nacked with requeue back on the queue.
+ */
+@Component
+@Slf4j
+public class AgentResponder implements DisposableBean {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter resultWriter = new ObjectMapper().writerWithDefaultPrettyPrinter();
+    private final LatencyDistribution latency;
+    private final MessageConverter messageConverter;
+    private final ObjectProvider<PlanningResultListener> listener;
+    private final ObjectProvider<PlanningResultBatchListener> batchListener;
+    private final String resultsQueue;
+    private final int batchSize;
+    private final Duration batchReceiveTimeout;
+
+    private final ExecutorService workers;
+    private final ExecutorService consumers;
+    private final BlockingQueue<Message> results = new LinkedBlockingQueue<>();
+    private final ConcurrentNavigableMap<Long, Message> unacked = new ConcurrentSkipListMap<>();
+    private final Channel channel;
+    private final AtomicLong deliveryTags = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong acked = new AtomicLong();
+    private final AtomicLong nacked = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile boolean running = true;
+
+    public AgentResponder(LoadTestSettings settings,
+                          MessageConverter jsonMessageConverter,
+                          ObjectProvider<PlanningResultListener> listener,
+                          ObjectProvider<PlanningResultBatchListener> batchListener,
+                          @Value("${app.rabbitmq.results-queue}") String resultsQueue,
+                          @Value("${app.rabbitmq.results.concurrency:4}") int concurrency,
+                          @Value("${app.rabbitmq.results.batch-enabled:false}") boolean batchEnabled,
+                          @Value("${app.rabbitmq.results.batch-size:20}") int batchSize,
+                          @Value("${app.rabbitmq.results.batch-receive-timeout:200ms}") Duration batchReceiveTimeout) {
+        this.latency = settings.getAgent().getLatency();
+        this.messageConverter = jsonMessageConverter;
+        this.listener = listener;
+        this.batchListener = batchListener;
+        this.resultsQueue = resultsQueue;
+        this.batchSize = batchEnabled ? Math.max(1, batchSize) : 1;
+        this.batchReceiveTimeout = batchReceiveTimeout;
+        this.workers = Executors.newFixedThreadPool(settings.getAgent().getWorkers(), LoadTestThreads.named("agent-worker"));
+        this.consumers = Executors.newFixedThreadPool(concurrency, LoadTestThreads.named("results-consumer"));
+        this.channel = loopbackChannel();
+        for (int i = 0; i < concurrency; i++) {
+            consumers.execute(this::consume);
+        }
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long acked() {
+        return acked.get();
+    }
+
+    public long nacked() {
+        return nacked.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    /**
+     * A planning request was published to the request queue.
+     */
+    void requestPublished(Message request) {
+        requests.incrementAndGet();
+        workers.execute(() -> answer(request));
+    }
+
+    private void answer(Message request) {
+        long receivedAt = System.currentTimeMillis();
+        MessageProperties requestProperties = request.getMessageProperties();
+        try {
+            PlanningRequestDto requestDto = objectMapper.readValue(request.getBody(), PlanningRequestDto.class);
+            long delay = latency.sampleMillis();
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            byte[] body = resultWriter.writeValueAsBytes(SyntheticItineraries.itinerary(requestDto));
+
+            MessageProperties properties = new MessageProperties();
+            properties.setContentType(null);
+            properties.setCorrelationId(requestProperties.getCorrelationId());
+            properties.setConsumerQueue(resultsQueue);
+            Object publishedAt = requestProperties.getHeader(PlanningPipelineMetrics.PUBLISHED_AT_HEADER);
+            if (publishedAt != null) {
+                properties.setHeader(PlanningPipelineMetrics.PUBLISHED_AT_HEADER, publishedAt);
+            }
+            properties.setHeader(PlanningPipelineMetrics.AGENT_RECEIVED_AT_HEADER, receivedAt);
+            properties.setHeader(PlanningPipelineMetrics.AGENT_COMPLETED_AT_HEADER, System.currentTimeMillis());
+            deliver(new Message(body, properties));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.error("Agent stand-in could not answer Correlation ID {}: {}", requestProperties.getCorrelationId(), e.getMessage(), e);
+        }
+    }
+
+    private void deliver(Message result) {
+        long deliveryTag = deliveryTags.incrementAndGet();
+        result.getMessageProperties().setDeliveryTag(deliveryTag);
+        unacked.put(deliveryTag, result);
+        results.add(result);
+    }
+
+    private void consume() {
+        while (running) {
+            try {
+                List<Message> batch = new ArrayList<>(batchSize);
+                batch.add(results.take());
+                while (batch.size() < batchSize) {
+                    Message next = results.poll(batchReceiveTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                handle(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void handle(List<Message> batch) {
+        try {
+            PlanningResultBatchListener batchConsumer = batchListener.getIfAvailable();
+            if (batchConsumer != null) {
+                batchConsumer.handlePlanningResults(batch, channel);
+                return;
+            }
+            Message message = batch.get(0);
+            MessageProperties properties = message.getMessageProperties();
+            // As the listener container converts it for the FinalItineraryDto parameter
+            properties.setInferredArgumentType(FinalItineraryDto.class);
+            FinalItineraryDto itineraryDto = (FinalItineraryDto) messageConverter.fromMessage(message);
+            listener.getObject().handlePlanningResult(itineraryDto, message, channel,
+                    properties.getDeliveryTag(), properties.getCorrelationId());
+        } catch (Exception e) {
+            // The container would log this and leave the message unacked until the channel closes
+            failed.incrementAndGet();
+            log.error("Result listener failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void acknowledge(long deliveryTag, boolean multiple, boolean ack, boolean requeue) {
+        List<Message> messages = new ArrayList<>();
+        if (multiple) {
+            Map<Long, Message> settled = unacked.headMap(deliveryTag, true);
+            messages.addAll(settled.values());
+            settled.clear();
+        } else {
+            Message message = unacked.remove(deliveryTag);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        (ack ? acked : nacked).addAndGet(messages.size());
+        if (!ack && requeue) {
+            for (Message message : messages) {
+                message.getMessageProperties().setRedelivered(true);
+                deliver(message);
+            }
+        }
+    }
+
+    private Channel loopbackChannel() {
+        return (Channel) Proxy.newProxyInstance(Channel.class.getClassLoader(), new Class<?>[]{Channel.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "basicAck" -> {
+                        acknowledge((long) args[0], (boolean) args[1], true, false);
+                        yield null;
+                    }
+                    case "basicNack" -> {
+                        acknowledge((long) args[0], (boolean) args[1], false, (boolean) args[2]);
+                        yield null;
+                    }
+                    case "basicReject" -> {
+                        acknowledge((long) args[0], false, false, (boolean) args[1]);
+                        yield null;
+                    }
+                    case "isOpen" -> true;
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "loopback channel";
+                    default -> throw new UnsupportedOperationException("Channel." + method.getName() + " in the load test");
+                });
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        workers.shutdownNow();
+        consumers.shutdownNow();
+    }
+}
@@ -0,0 +1,70 @@
+package org.sjsu.travelswarm.loadtest;
+
+import org.sjsu.travelswarm.service.TelegramTransport;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces the Bot API: every message "sent" succeeds after a latency drawn from
+ * {@code loadtest.telegram.latency}, at which point it is handed to the listener as if the user had
+ * received it. Sends still go through TelegramSendQueue, so its rate limits apply as in production.
+ */
+@Component
+@Primary
+public class CapturingTelegramTransport implements TelegramTransport {
+
+    /**
+     * Receives the messages the bot sent, in the order they arrive.
+     */
+    public interface Listener {
+        void received(long chatId, String text);
+    }
+
+    private final LatencyDistribution latency;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(LoadTestThreads.named("telegram-capture"));
+    private final AtomicInteger messageIds = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private volatile Listener listener = (chatId, text) -> { };
+
+    public CapturingTelegramTransport(LoadTestSettings settings) {
+        this.latency = settings.getTelegram().getLatency();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public long sent() {
+        return sent.get();
+    }
+
+    @Override
+    public CompletableFuture<Message> send(SendMessage message) {
+        CompletableFuture<Message> result = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            long chatId = Long.parseLong(message.getChatId());
+            Message delivered = new Message();
+            delivered.setMessageId(messageIds.incrementAndGet());
+            Chat chat = new Chat();
+            chat.setId(chatId);
+            chat.setType("private");
+            delivered.setChat(chat);
+            delivered.setDate((int) (System.currentTimeMillis() / 1000));
+            delivered.setText(message.getText());
+            sent.incrementAndGet();
+            result.complete(delivered);
+            listener.received(chatId, message.getText());
+        }, latency.sampleMillis(), TimeUnit.MILLISECONDS);
+        return result;
+    }
+}
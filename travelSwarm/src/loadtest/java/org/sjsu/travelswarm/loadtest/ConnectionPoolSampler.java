@@ -0,0 +1,63 @@
+package org.sjsu.travelswarm.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Samples the Hikari pool during the measurement window: how many connections are in use and how many
+ * threads wait for one. The pool is saturated while every connection is in use; threads then queue for
+ * a connection, which shows up in {@code hikaricp.connections.acquire}.
+ */
+final class ConnectionPoolSampler {
+
+    private final HikariDataSource dataSource;
+    private long samples;
+    private long saturatedSamples;
+    private long activeTotal;
+    private int peakActive;
+    private long awaitingTotal;
+    private int peakAwaiting;
+
+    ConnectionPoolSampler(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    synchronized void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return;
+        }
+        int active = pool.getActiveConnections();
+        int awaiting = pool.getThreadsAwaitingConnection();
+        samples++;
+        activeTotal += active;
+        awaitingTotal += awaiting;
+        peakActive = Math.max(peakActive, active);
+        peakAwaiting = Math.max(peakAwaiting, awaiting);
+        if (active >= dataSource.getMaximumPoolSize()) {
+            saturatedSamples++;
+        }
+    }
+
+    synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("maxPoolSize", dataSource.getMaximumPoolSize());
+        summary.put("samples", samples);
+        if (samples == 0) {
+            return summary;
+        }
+        summary.put("meanActive", round((double) activeTotal / samples));
+        summary.put("peakActive", peakActive);
+        summary.put("saturatedPercent", round(100.0 * saturatedSamples / samples));
+        summary.put("meanThreadsAwaiting", round((double) awaitingTotal / samples));
+        summary.put("peakThreadsAwaiting", peakAwaiting);
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
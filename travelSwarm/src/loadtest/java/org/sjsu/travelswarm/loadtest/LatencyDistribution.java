@@ -0,0 +1,97 @@
+package org.sjsu.travelswarm.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A latency to simulate, written as a property value:
+ * <ul>
+ *   <li>{@code none} (or {@code 0}): no delay.</li>
+ *   <li>{@code fixed:200ms}: always the same.</li>
+ *   <li>{@code uniform:100ms-500ms}: evenly spread over the range.</li>
+ *   <li>{@code lognormal:300ms,2s}: median and 99th percentile of a log-normal distribution, the usual
+ *       shape of service latencies (most calls fast, a long tail).</li>
+ * </ul>
+ * Bound from strings through {@link #valueOf(String)}.
+ */
+public final class LatencyDistribution {
+
+    // Standard normal quantile of the 99th percentile
+    private static final double Z_99 = 2.3263;
+
+    private final String spec;
+    private final Kind kind;
+    private final double first;
+    private final double second;
+
+    private enum Kind { NONE, FIXED, UNIFORM, LOGNORMAL }
+
+    private LatencyDistribution(String spec, Kind kind, double first, double second) {
+        this.spec = spec;
+        this.kind = kind;
+        this.first = first;
+        this.second = second;
+    }
+
+    public static LatencyDistribution valueOf(String spec) {
+        String value = spec.trim();
+        if (value.equalsIgnoreCase("none") || value.equals("0")) {
+            return new LatencyDistribution(value, Kind.NONE, 0, 0);
+        }
+        int colon = value.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Latency '" + spec + "' is not none, fixed:<d>, uniform:<min>-<max> or lognormal:<median>,<p99>");
+        }
+        String kind = value.substring(0, colon).trim().toLowerCase();
+        String arguments = value.substring(colon + 1);
+        switch (kind) {
+            case "fixed":
+                return new LatencyDistribution(value, Kind.FIXED, millis(arguments), 0);
+            case "uniform": {
+                String[] range = arguments.split("-", 2);
+                double min = millis(range[0]);
+                double max = range.length > 1 ? millis(range[1]) : min;
+                if (max < min) {
+                    throw new IllegalArgumentException("Latency '" + spec + "' has its maximum below its minimum");
+                }
+                return new LatencyDistribution(value, Kind.UNIFORM, min, max);
+            }
+            case "lognormal": {
+                String[] points = arguments.split(",", 2);
+                double median = millis(points[0]);
+                double p99 = points.length > 1 ? millis(points[1]) : median;
+                if (median <= 0 || p99 < median) {
+                    throw new IllegalArgumentException("Latency '" + spec + "' needs a positive median and a 99th percentile above it");
+                }
+                // mu and sigma of the underlying normal distribution
+                return new LatencyDistribution(value, Kind.LOGNORMAL, Math.log(median), Math.log(p99 / median) / Z_99);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution '" + kind + "' in '" + spec + "'");
+        }
+    }
+
+    /**
+     * @return A random latency in milliseconds.
+     */
+    public long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis = switch (kind) {
+            case NONE -> 0;
+            case FIXED -> first;
+            case UNIFORM -> first + random.nextDouble() * (second - first);
+            case LOGNORMAL -> Math.exp(first + second * random.nextGaussian());
+        };
+        return Math.round(millis);
+    }
+
+    private static double millis(String duration) {
+        return DurationStyle.detectAndParse(duration.trim()).toNanos() / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,55 @@
+package org.sjsu.travelswarm.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps every latency recorded during the measurement window, so percentiles are exact rather than
+ * read off histogram buckets. A run records at most a few hundred thousand values.
+ */
+final class LatencyRecorder {
+
+    private long[] values = new long[1024];
+    private int count;
+
+    synchronized void record(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @return Count, mean, p50, p90, p99 and max in milliseconds.
+     */
+    synchronized Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        if (count == 0) {
+            return summary;
+        }
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        summary.put("meanMs", millis(Arrays.stream(sorted).average().orElse(0)));
+        summary.put("p50Ms", millis(percentile(sorted, 0.50)));
+        summary.put("p90Ms", millis(percentile(sorted, 0.90)));
+        summary.put("p99Ms", millis(percentile(sorted, 0.99)));
+        summary.put("maxMs", millis(sorted[sorted.length - 1]));
+        return summary;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        // Nearest rank
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    static double millis(double nanos) {
+        return Math.round(nanos / 10_000.0) / 100.0;
+    }
+}
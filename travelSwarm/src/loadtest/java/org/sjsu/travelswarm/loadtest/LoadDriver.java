@@ -0,0 +1,307 @@
+package org.sjsu.travelswarm.loadtest;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.service.TelegramBotService;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.api.objects.User;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@code loadtest.chats} {@link SyntheticChat}s against the application, each handing its messages
+ * to {@link TelegramBotService#onUpdateReceived} the way the long-polling session does and reading the
+ * replies off {@link CapturingTelegramTransport}. Chats start spread over {@code loadtest.ramp-up}; what
+ * happens in the {@code loadtest.warmup} after the first one starts is not measured, and no chat starts
+ * a new trip once {@code loadtest.duration} has been measured. Turns and itineraries count towards
+ * throughput when they complete inside the measurement window and towards latency when they start in it.
+ * <p>
+ * With {@code loadtest.distinct-trips=0} every trip goes somewhere new, so each one runs the agent;
+ * otherwise trips are drawn from that many distinct requests and repeated ones are coalesced with an
+ * in-flight request or served from a stored itinerary, as they would be in production.
+ */
+@Component
+@Slf4j
+public class LoadDriver {
+
+    private static final long FIRST_CHAT_ID = 100_000;
+    private static final String[] CITIES = {"Lisbon", "Kyoto", "Mexico City", "Reykjavik", "Cape Town", "Hanoi", "Vienna",
+            "Buenos Aires", "Istanbul", "Vancouver", "Marrakesh", "Seoul", "Edinburgh", "Lima", "Prague", "Sydney"};
+    private static final String[] BUDGETS = {"low", "mid-range", "luxury"};
+    private static final int MAX_UNEXPECTED_REPLY_KINDS = 20;
+    private static final Duration DRAIN_MARGIN = Duration.ofSeconds(30);
+
+    /**
+     * A trip a chat asks for; equal trips make equal planning requests.
+     */
+    record Trip(String destination, int days, String budget) {
+
+        String utterance(boolean withBudget) {
+            return "Plan a " + days + "-day trip to " + destination + (withBudget ? " on a " + budget + " budget" : "");
+        }
+    }
+
+    private final TelegramBotService botService;
+    private final CapturingTelegramTransport transport;
+    private final LoadTestSettings settings;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+    private final NluStubServer nluStub;
+    private final AgentResponder agent;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, LoadTestThreads.named("load-driver"));
+    private final Map<Long, SyntheticChat> chats = new ConcurrentHashMap<>();
+    private final AtomicInteger updateIds = new AtomicInteger();
+    private final AtomicInteger uniqueTrips = new AtomicInteger();
+    private final LatencyRecorder turnLatency = new LatencyRecorder();
+    private final LatencyRecorder itineraryLatency = new LatencyRecorder();
+    private final LongAdder tripsStarted = new LongAdder();
+    private final LongAdder turnsCompleted = new LongAdder();
+    private final LongAdder itinerariesDelivered = new LongAdder();
+    private final LongAdder reusedItineraries = new LongAdder();
+    private final LongAdder replyTimeouts = new LongAdder();
+    private final LongAdder itineraryTimeouts = new LongAdder();
+    private final Map<String, LongAdder> unexpectedReplies = new ConcurrentHashMap<>();
+
+    private CountDownLatch chatsDone;
+    private long warmupEndsAt;
+    private long endsAt;
+
+    public LoadDriver(TelegramBotService botService, CapturingTelegramTransport transport, LoadTestSettings settings,
+                      DataSource dataSource, MeterRegistry meterRegistry, NluStubServer nluStub, AgentResponder agent) {
+        this.botService = botService;
+        this.transport = transport;
+        this.settings = settings;
+        this.dataSource = dataSource;
+        this.meterRegistry = meterRegistry;
+        this.nluStub = nluStub;
+        this.agent = agent;
+    }
+
+    /**
+     * Runs the load test and waits for the chats to finish their last trip.
+     */
+    public LoadTestReport run() throws InterruptedException {
+        int chatCount = settings.getChats();
+        long startedAt = System.nanoTime();
+        warmupEndsAt = startedAt + settings.getWarmup().toNanos();
+        endsAt = warmupEndsAt + settings.getDuration().toNanos();
+        chatsDone = new CountDownLatch(chatCount);
+        transport.setListener(this::received);
+
+        ConnectionPoolSampler poolSampler = dataSource instanceof HikariDataSource hikari ? new ConnectionPoolSampler(hikari) : null;
+        ScheduledFuture<?> sampling = poolSampler == null ? null : scheduler.scheduleAtFixedRate(() -> {
+            if (inWindow(System.nanoTime())) {
+                poolSampler.sample();
+            }
+        }, 0, settings.getPoolSampleInterval().toMillis(), TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> progress = scheduler.scheduleAtFixedRate(this::logProgress, 10, 10, TimeUnit.SECONDS);
+
+        log.info("Starting {} chats over {}; measuring {} after a {} warm-up", chatCount,
+                DurationStyle.SIMPLE.print(settings.getRampUp()), DurationStyle.SIMPLE.print(settings.getDuration()),
+                DurationStyle.SIMPLE.print(settings.getWarmup()));
+        long rampUpMillis = settings.getRampUp().toMillis();
+        for (int i = 0; i < chatCount; i++) {
+            SyntheticChat chat = new SyntheticChat(FIRST_CHAT_ID + i, this);
+            chats.put(chat.chatId(), chat);
+            schedule(chat::startTrip, rampUpMillis * i / chatCount);
+        }
+
+        TimeUnit.NANOSECONDS.sleep(endsAt - System.nanoTime());
+        // A trip started just before the end: a clarification turn, the planning turn and the itinerary
+        long drainTimeout = settings.getItineraryTimeout().plus(settings.getReplyTimeout().multipliedBy(2))
+                .plus(settings.getQuietPeriod()).plus(DRAIN_MARGIN).toMillis();
+        log.info("Measurement window over; waiting up to {} s for chats to finish their trips", drainTimeout / 1000);
+        boolean drained = chatsDone.await(drainTimeout, TimeUnit.MILLISECONDS);
+        if (sampling != null) {
+            sampling.cancel(false);
+        }
+        progress.cancel(false);
+        scheduler.shutdownNow();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        double seconds = settings.getDuration().toMillis() / 1000.0;
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("turns", turnsCompleted.sum());
+        throughput.put("turnsPerSecond", round(turnsCompleted.sum() / seconds));
+        throughput.put("itineraries", itinerariesDelivered.sum());
+        throughput.put("itinerariesPerSecond", round(itinerariesDelivered.sum() / seconds));
+        throughput.put("reusedItineraries", reusedItineraries.sum());
+        throughput.put("tripsStarted", tripsStarted.sum());
+        results.put("throughput", throughput);
+        results.put("turnLatency", turnLatency.summary());
+        results.put("itineraryLatency", itineraryLatency.summary());
+
+        Map<String, Object> failures = new LinkedHashMap<>();
+        failures.put("replyTimeouts", replyTimeouts.sum());
+        failures.put("itineraryTimeouts", itineraryTimeouts.sum());
+        Map<String, Long> unexpected = new LinkedHashMap<>();
+        unexpectedReplies.forEach((reply, count) -> unexpected.put(reply, count.sum()));
+        failures.put("unexpectedReplies", unexpected);
+        failures.put("chatsNotFinished", drained ? 0 : chatsDone.getCount());
+        failures.put("agentFailures", agent.failed());
+        failures.put("resultsNacked", agent.nacked());
+        results.put("failures", failures);
+
+        Map<String, Object> pool = poolSampler != null ? poolSampler.summary() : new LinkedHashMap<>();
+        results.put("connectionPool", pool);
+
+        Map<String, Object> standIns = new LinkedHashMap<>();
+        standIns.put("nluRequests", nluStub.requests());
+        standIns.put("agentRequests", agent.requests());
+        standIns.put("resultsAcked", agent.acked());
+        standIns.put("telegramMessages", transport.sent());
+        results.put("standIns", standIns);
+
+        return new LoadTestReport(settings, results, meterRegistry);
+    }
+
+    private void received(long chatId, String text) {
+        SyntheticChat chat = chats.get(chatId);
+        if (chat != null) {
+            chat.received(text);
+        }
+    }
+
+    private void logProgress() {
+        log.info("{} turns, {} itineraries, {} messages sent; {} chats finished", turnsCompleted.sum(),
+                itinerariesDelivered.sum(), transport.sent(), settings.getChats() - chatsDone.getCount());
+    }
+
+    LoadTestSettings settings() {
+        return settings;
+    }
+
+    boolean accepting() {
+        return System.nanoTime() < endsAt;
+    }
+
+    private boolean inWindow(long nanos) {
+        return nanos >= warmupEndsAt && nanos < endsAt;
+    }
+
+    Trip nextTrip() {
+        int distinct = settings.getDistinctTrips();
+        int index = distinct > 0 ? ThreadLocalRandom.current().nextInt(distinct) : uniqueTrips.getAndIncrement();
+        String destination = CITIES[index % CITIES.length] + (index >= CITIES.length ? " " + (index / CITIES.length + 1) : "");
+        int dayRange = Math.max(1, settings.getMaxTripDays() - settings.getMinTripDays() + 1);
+        return new Trip(destination, settings.getMinTripDays() + index % dayRange, BUDGETS[index % BUDGETS.length]);
+    }
+
+    boolean clarifies() {
+        return ThreadLocalRandom.current().nextDouble() < settings.getClarificationRate();
+    }
+
+    long thinkMillis() {
+        return settings.getThinkTime().sampleMillis();
+    }
+
+    void schedule(Runnable task, long delayMillis) {
+        scheduler.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Load driver task failed: {}", e.getMessage(), e);
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hands a user message to the bot as a long-polling session would.
+     */
+    void sendUpdate(long chatId, String text) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        User user = new User();
+        user.setId(chatId);
+        user.setFirstName("Load test " + chatId);
+        user.setIsBot(false);
+
+        Message message = new Message();
+        message.setMessageId(updateIds.incrementAndGet());
+        message.setChat(chat);
+        message.setFrom(user);
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        message.setText(text);
+
+        Update update = new Update();
+        update.setUpdateId(message.getMessageId());
+        update.setMessage(message);
+        botService.onUpdateReceived(update);
+    }
+
+    void tripStarted() {
+        if (inWindow(System.nanoTime())) {
+            tripsStarted.increment();
+        }
+    }
+
+    void turnCompleted(long startedAt, long completedAt) {
+        if (inWindow(startedAt)) {
+            turnLatency.record(completedAt - startedAt);
+        }
+        if (inWindow(completedAt)) {
+            turnsCompleted.increment();
+        }
+    }
+
+    void itineraryDelivered(long requestedAt, long deliveredAt, boolean reused) {
+        if (inWindow(requestedAt)) {
+            itineraryLatency.record(deliveredAt - requestedAt);
+        }
+        if (inWindow(deliveredAt)) {
+            itinerariesDelivered.increment();
+            if (reused) {
+                reusedItineraries.increment();
+            }
+        }
+    }
+
+    void replyTimedOut(long startedAt) {
+        if (inWindow(startedAt)) {
+            replyTimeouts.increment();
+        }
+    }
+
+    void itineraryTimedOut(long requestedAt) {
+        if (inWindow(requestedAt)) {
+            itineraryTimeouts.increment();
+        }
+    }
+
+    void unexpectedReply(long chatId, String text) {
+        log.debug("Unexpected reply to chat {}: {}", chatId, text);
+        String kind = text.lines().findFirst().orElse("");
+        kind = kind.length() > 60 ? kind.substring(0, 60) : kind;
+        if (unexpectedReplies.size() >= MAX_UNEXPECTED_REPLY_KINDS && !unexpectedReplies.containsKey(kind)) {
+            kind = "(other)";
+        }
+        unexpectedReplies.computeIfAbsent(kind, ignored -> new LongAdder()).increment();
+    }
+
+    void chatDone() {
+        chatsDone.countDown();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,37 @@
+package org.sjsu.travelswarm.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.TravelSwarmApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the application with the {@code loadtest} profile against local stand-ins for everything it
+ * talks to (see {@link LoadTestEnvironment} and {@link LoadTestConfiguration}), runs the
+ * {@link LoadDriver}, prints the report and writes it to {@code loadtest.report-file}.
+ * Run it with {@code ./gradlew loadTest}; the exit code is non-zero when no turn completed.
+ */
+@Slf4j
+public final class LoadTestApplication {
+
+    private LoadTestApplication() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        SpringApplication application = new SpringApplication(TravelSwarmApplication.class);
+        application.setAdditionalProfiles("loadtest");
+        boolean passed;
+        try (LoadTestEnvironment environment = new LoadTestEnvironment()) {
+            application.addInitializers(environment);
+            try (ConfigurableApplicationContext context = application.run(args)) {
+                LoadTestReport report = context.getBean(LoadDriver.class).run();
+                report.print(System.out);
+                LoadTestSettings settings = context.getBean(LoadTestSettings.class);
+                report.write(settings.getReportFile());
+                log.info("Report written to {}", settings.getReportFile().getAbsolutePath());
+                passed = report.hasResults();
+            }
+        }
+        System.exit(passed ? 0 : 1);
+    }
+}
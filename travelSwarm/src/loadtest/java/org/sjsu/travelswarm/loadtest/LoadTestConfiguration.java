@@ -0,0 +1,42 @@
+package org.sjsu.travelswarm.loadtest;
+
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * Takes RabbitMQ out of the application: the publisher gets a {@link LoopbackRabbitTemplate}, and the
+ * listener containers are never started because {@link AgentResponder} calls the result listener itself.
+ * Telegram is replaced by {@link CapturingTelegramTransport} and the NLU service by {@link NluStubServer}.
+ */
+@Configuration
+public class LoadTestConfiguration {
+
+    @Bean
+    @Primary
+    public RabbitTemplate loopbackRabbitTemplate(ConnectionFactory connectionFactory,
+                                                 MessageConverter jsonMessageConverter,
+                                                 @Value("${app.rabbitmq.planning-request-queue}") String planningRequestQueue,
+                                                 AgentResponder agentResponder) {
+        return new LoopbackRabbitTemplate(connectionFactory, jsonMessageConverter, planningRequestQueue, agentResponder);
+    }
+
+    @Bean
+    public static BeanPostProcessor listenerContainersNotStarted() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof AbstractRabbitListenerContainerFactory<?> factory) {
+                    factory.setAutoStartup(false);
+                }
+                return bean;
+            }
+        };
+    }
+}
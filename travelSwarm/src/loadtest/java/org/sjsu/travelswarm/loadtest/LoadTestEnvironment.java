@@ -0,0 +1,83 @@
+package org.sjsu.travelswarm.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts what the application connects to before its beans are created: a throwaway PostgreSQL (unless
+ * {@code loadtest.database.url} names one) and the {@link NluStubServer}, and points the datasource and
+ * {@code agent.service.nlu.url} at them. Both are stopped by {@link #close()}, after the application.
+ * <p>
+ * PostgreSQL refuses to run as root, so the embedded database needs an unprivileged user; as root, set
+ * {@code loadtest.database.url} to a scratch database instead.
+ */
+@Slf4j
+public class LoadTestEnvironment implements ApplicationContextInitializer<ConfigurableApplicationContext>, AutoCloseable {
+
+    static final String SETTINGS_BEAN = "loadTestSettings";
+    static final String NLU_STUB_BEAN = "nluStubServer";
+
+    private EmbeddedPostgres postgres;
+    private NluStubServer nluStub;
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        ConfigurableEnvironment environment = context.getEnvironment();
+        LoadTestSettings settings = Binder.get(environment).bindOrCreate("loadtest", LoadTestSettings.class);
+
+        Map<String, Object> properties = new HashMap<>();
+        LoadTestSettings.Database database = settings.getDatabase();
+        try {
+            if (StringUtils.hasText(database.getUrl())) {
+                log.info("Using the database at {}", database.getUrl());
+                properties.put("spring.datasource.url", database.getUrl());
+                properties.put("spring.datasource.username", database.getUsername());
+                properties.put("spring.datasource.password", database.getPassword());
+            } else {
+                postgres = EmbeddedPostgres.builder()
+                        .setServerConfig("max_connections", "200")
+                        .start();
+                log.info("Started embedded PostgreSQL on port {}", postgres.getPort());
+                properties.put("spring.datasource.url", postgres.getJdbcUrl("postgres", "postgres"));
+                properties.put("spring.datasource.username", "postgres");
+                properties.put("spring.datasource.password", "");
+            }
+            nluStub = new NluStubServer(settings.getNlu().getLatency(), settings.getNlu().getThreads());
+        } catch (IOException e) {
+            close();
+            throw new UncheckedIOException("Could not start the load test environment", e);
+        }
+        properties.put("agent.service.nlu.url", nluStub.baseUrl());
+        environment.getPropertySources().addFirst(new MapPropertySource("loadTestEnvironment", properties));
+
+        context.getBeanFactory().registerSingleton(SETTINGS_BEAN, settings);
+        context.getBeanFactory().registerSingleton(NLU_STUB_BEAN, nluStub);
+    }
+
+    @Override
+    public void close() {
+        if (nluStub != null) {
+            nluStub.close();
+            nluStub = null;
+        }
+        if (postgres != null) {
+            try {
+                postgres.close();
+            } catch (IOException e) {
+                log.warn("Could not stop embedded PostgreSQL: {}", e.getMessage());
+            }
+            postgres = null;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package org.sjsu.travelswarm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * What a load test run measured: the driver's own numbers for the measurement window, plus the
+ * application's planning and connection pool timers. Those come from the meter registry and cover the
+ * whole run including the warm-up; application-loadtest.properties gives them p50/p99 over the run.
+ */
+public class LoadTestReport {
+
+    private final Map<String, Object> report = new LinkedHashMap<>();
+
+    LoadTestReport(LoadTestSettings settings, Map<String, Object> results, MeterRegistry meterRegistry) {
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("chats", settings.getChats());
+        run.put("duration", DurationStyle.SIMPLE.print(settings.getDuration()));
+        run.put("warmup", DurationStyle.SIMPLE.print(settings.getWarmup()));
+        run.put("thinkTime", settings.getThinkTime().toString());
+        run.put("clarificationRate", settings.getClarificationRate());
+        run.put("distinctTrips", settings.getDistinctTrips());
+        run.put("nluLatency", settings.getNlu().getLatency().toString());
+        run.put("agentLatency", settings.getAgent().getLatency().toString());
+        run.put("agentWorkers", settings.getAgent().getWorkers());
+        run.put("telegramLatency", settings.getTelegram().getLatency().toString());
+        report.put("settings", run);
+        report.putAll(results);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> pool = (Map<String, Object>) report.computeIfAbsent("connectionPool", key -> new LinkedHashMap<>());
+        Timer acquire = meterRegistry.find("hikaricp.connections.acquire").timer();
+        if (acquire != null) {
+            pool.put("acquire", timer(acquire));
+        }
+        Timer usage = meterRegistry.find("hikaricp.connections.usage").timer();
+        if (usage != null) {
+            pool.put("usage", timer(usage));
+        }
+        Counter timeouts = meterRegistry.find("hikaricp.connections.timeout").counter();
+        if (timeouts != null) {
+            pool.put("acquireTimeouts", (long) timeouts.count());
+        }
+
+        Map<String, Object> application = new LinkedHashMap<>();
+        Timer endToEnd = meterRegistry.find("planning.end.to.end").timer();
+        if (endToEnd != null) {
+            application.put("planning.end.to.end", timer(endToEnd));
+        }
+        Map<String, Object> stages = new TreeMap<>();
+        for (Timer stage : meterRegistry.find("planning.stage").timers()) {
+            // The stage, then any further tags (result, priority)
+            String name = stage.getId().getTag("stage") + stage.getId().getTags().stream()
+                    .filter(tag -> !"stage".equals(tag.getKey()))
+                    .map(tag -> " " + tag.getKey() + "=" + tag.getValue())
+                    .collect(Collectors.joining());
+            stages.put(name, timer(stage));
+        }
+        application.put("planning.stage", stages);
+        report.put("application", application);
+    }
+
+    /**
+     * @return Whether any turn completed in the measurement window.
+     */
+    public boolean hasResults() {
+        return section("throughput").get("turns") instanceof Long turns && turns > 0;
+    }
+
+    public void write(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+    }
+
+    public void print(PrintStream out) {
+        Map<String, Object> run = section("settings");
+        Map<String, Object> throughput = section("throughput");
+        Map<String, Object> failures = section("failures");
+        Map<String, Object> pool = section("connectionPool");
+
+        out.println();
+        out.printf("Load test: %s chats, %s measured after %s warm-up%n", run.get("chats"), run.get("duration"), run.get("warmup"));
+        out.printf("  Turns              %6s  %8s/s   %s%n", throughput.get("turns"), throughput.get("turnsPerSecond"),
+                latency(section("turnLatency")));
+        out.printf("  Itineraries        %6s  %8s/s   %s (%s reused)%n", throughput.get("itineraries"),
+                throughput.get("itinerariesPerSecond"), latency(section("itineraryLatency")), throughput.get("reusedItineraries"));
+        out.printf("  Timeouts           replies %s, itineraries %s; unexpected replies %s%n", failures.get("replyTimeouts"),
+                failures.get("itineraryTimeouts"), failures.get("unexpectedReplies"));
+        out.printf("  Connection pool    %s of %s in use on average, peak %s; saturated %s%% of the time; peak %s threads waiting%n",
+                pool.get("meanActive"), pool.get("maxPoolSize"), pool.get("peakActive"), pool.get("saturatedPercent"),
+                pool.get("peakThreadsAwaiting"));
+        if (pool.get("acquire") instanceof Map<?, ?> acquire) {
+            out.printf("  Connection acquire p50 %s ms, p99 %s ms, max %s ms; %s timeouts%n", acquire.get("p50Ms"),
+                    acquire.get("p99Ms"), acquire.get("maxMs"), pool.get("acquireTimeouts"));
+        }
+        Map<String, Object> application = section("application");
+        if (application.get("planning.end.to.end") instanceof Map<?, ?> endToEnd) {
+            out.printf("  Planning end to end p50 %s ms, p99 %s ms%n", endToEnd.get("p50Ms"), endToEnd.get("p99Ms"));
+        }
+        out.println();
+    }
+
+    private static String latency(Map<String, Object> summary) {
+        if (!summary.containsKey("p50Ms")) {
+            return "no samples";
+        }
+        return String.format("p50 %s ms, p90 %s ms, p99 %s ms, max %s ms",
+                summary.get("p50Ms"), summary.get("p90Ms"), summary.get("p99Ms"), summary.get("maxMs"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> section(String name) {
+        Object section = report.get(name);
+        return section instanceof Map<?, ?> ? (Map<String, Object>) section : Map.of();
+    }
+
+    private static Map<String, Object> timer(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        summary.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(percentile.percentile() * 100) + "Ms", round(percentile.value(TimeUnit.MILLISECONDS)));
+        }
+        summary.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+        return summary;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
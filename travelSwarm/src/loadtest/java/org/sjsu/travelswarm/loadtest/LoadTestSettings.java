@@ -0,0 +1,57 @@
+package org.sjsu.travelswarm.loadtest;
+
+import lombok.Data;
+
+import java.io.File;
+import java.time.Duration;
+
+/**
+ * The {@code loadtest.*} properties; see application-loadtest.properties for what each one does.
+ */
+@Data
+public class LoadTestSettings {
+
+    private int chats = 200;
+    private Duration duration = Duration.ofMinutes(1);
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration rampUp = Duration.ofSeconds(10);
+    private LatencyDistribution thinkTime = LatencyDistribution.valueOf("uniform:500ms-2s");
+    private double clarificationRate = 0.3;
+    private int distinctTrips = 0;
+    private int minTripDays = 1;
+    private int maxTripDays = 7;
+    private Duration replyTimeout = Duration.ofSeconds(30);
+    private Duration itineraryTimeout = Duration.ofMinutes(2);
+    private Duration quietPeriod = Duration.ofSeconds(2);
+    private Duration poolSampleInterval = Duration.ofMillis(50);
+    private File reportFile = new File("build/reports/loadtest/report.json");
+
+    private final Database database = new Database();
+    private final Nlu nlu = new Nlu();
+    private final Agent agent = new Agent();
+    private final Telegram telegram = new Telegram();
+
+    @Data
+    public static class Database {
+        private String url = "";
+        private String username = "postgres";
+        private String password = "";
+    }
+
+    @Data
+    public static class Nlu {
+        private LatencyDistribution latency = LatencyDistribution.valueOf("lognormal:400ms,2s");
+        private int threads = 64;
+    }
+
+    @Data
+    public static class Agent {
+        private LatencyDistribution latency = LatencyDistribution.valueOf("lognormal:8s,30s");
+        private int workers = 16;
+    }
+
+    @Data
+    public static class Telegram {
+        private LatencyDistribution latency = LatencyDistribution.valueOf("lognormal:80ms,400ms");
+    }
+}
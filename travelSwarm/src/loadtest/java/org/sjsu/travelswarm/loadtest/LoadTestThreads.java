@@ -0,0 +1,22 @@
+package org.sjsu.travelswarm.loadtest;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Threads of the load test's stand-ins; daemons, so a stuck stand-in cannot keep the JVM alive.
+ */
+final class LoadTestThreads {
+
+    private LoadTestThreads() {
+    }
+
+    static ThreadFactory named(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package org.sjsu.travelswarm.loadtest;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * A RabbitTemplate that never opens a connection: planning requests published to the request queue go
+ * straight to the {@link AgentResponder} and are confirmed at once; anything else is dropped.
+ * PlanningRequestPublisher sends through {@link #invoke}, which runs the callback against this template.
+ */
+public class LoopbackRabbitTemplate extends RabbitTemplate {
+
+    private final String planningRequestQueue;
+    private final AgentResponder agent;
+
+    /**
+     * @param connectionFactory Required by the template, never used.
+     */
+    public LoopbackRabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter,
+                                  String planningRequestQueue, AgentResponder agent) {
+        super(connectionFactory);
+        this.planningRequestQueue = planningRequestQueue;
+        this.agent = agent;
+        setMessageConverter(messageConverter);
+    }
+
+    @Override
+    public <T> T invoke(OperationsCallback<T> action, com.rabbitmq.client.ConfirmCallback acks,
+                        com.rabbitmq.client.ConfirmCallback nacks) {
+        return action.doInRabbit(this);
+    }
+
+    @Override
+    public void send(String exchange, String routingKey, Message message, CorrelationData correlationData) {
+        if ((exchange == null || exchange.isEmpty()) && planningRequestQueue.equals(routingKey)) {
+            agent.requestPublished(message);
+        }
+        if (correlationData != null) {
+            correlationData.getFuture().complete(new CorrelationData.Confirm(true, null));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.sjsu.travelswarm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.nlu.NLURequestDto;
+import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Stands in for the agent service's {@code /parse_request} endpoint on a local port. Understands the
+ * utterances {@link SyntheticChat} sends, "Plan a N-day trip to X" optionally followed by "on a B
+ * budget": without a budget it asks for one, and the answer completes the request. Every response
+ * takes a latency drawn from {@code loadtest.nlu.latency}, on a pool of {@code loadtest.nlu.threads}.
+ */
+@Slf4j
+public class NluStubServer implements AutoCloseable {
+
+    static final String BUDGET_QUESTION = "What is your budget for this trip?";
+
+    private static final Pattern TRIP_REQUEST = Pattern.compile("Plan a (\\d+)-day trip to (.+?)(?: on a (.+) budget)?");
+    private static final List<String> INTERESTS = List.of("food", "museums", "walking tours");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyDistribution latency;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+
+    public NluStubServer(LatencyDistribution latency, int threads) throws IOException {
+        this.latency = latency;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        this.executor = Executors.newFixedThreadPool(threads, LoadTestThreads.named("nlu-stub"));
+        server.setExecutor(executor);
+        server.createContext("/parse_request", this::handle);
+        server.start();
+        log.info("NLU stub listening on {} with latency {}", baseUrl(), latency);
+    }
+
+    public String baseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            NLURequestDto request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = objectMapper.readValue(body, NLURequestDto.class);
+            }
+            requests.incrementAndGet();
+            NLUResultDto result = parse(request);
+
+            long delay = latency.sampleMillis();
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            byte[] response = objectMapper.writeValueAsBytes(result);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.warn("NLU stub failed to answer: {}", e.getMessage());
+        }
+    }
+
+    static NLUResultDto parse(NLURequestDto request) {
+        String text = request.getUserText() != null ? request.getUserText().trim() : "";
+        NLUResultDto result = new NLUResultDto();
+
+        if ("WAITING_FOR_CLARIFICATION".equals(request.getCurrentStatus()) && request.getCurrentDestination() != null) {
+            // The answer to the budget question; the session already holds the rest
+            result.setBudget(text);
+            result.setStatus("COMPLETE");
+            return result;
+        }
+
+        Matcher matcher = TRIP_REQUEST.matcher(text);
+        if (!matcher.matches()) {
+            result.setStatus("NEEDS_CLARIFICATION");
+            result.setClarificationQuestion("Where would you like to go, and for how many days?");
+            return result;
+        }
+        result.setDurationDays(Integer.parseInt(matcher.group(1)));
+        result.setDestination(matcher.group(2));
+        result.setInterests(INTERESTS);
+        if (matcher.group(3) == null) {
+            result.setStatus("NEEDS_CLARIFICATION");
+            result.setClarificationQuestion(BUDGET_QUESTION);
+        } else {
+            result.setBudget(matcher.group(3));
+            result.setStatus("COMPLETE");
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
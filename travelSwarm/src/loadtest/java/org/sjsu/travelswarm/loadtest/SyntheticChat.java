@@ -0,0 +1,147 @@
+package org.sjsu.travelswarm.loadtest;
+
+/**
+ * One user planning trips back to back: asks for a trip, answers the budget question when the request
+ * left the budget out, waits for the itinerary and, once the chat has been quiet for
+ * {@code loadtest.quiet-period} (all parts received), thinks for a moment and asks for the next one.
+ * <p>
+ * A turn lasts from the update being handed to the bot until the bot's first reply arrives. Replies
+ * come in on the transport's thread and timers fire on the driver's, so the state is guarded by the
+ * chat's monitor; every state change bumps {@code generation} so that timers set for an earlier state
+ * do nothing.
+ */
+final class SyntheticChat {
+
+    private static final String ITINERARY_PREFIX = "✈️ *Trip to ";
+    private static final String PLANNING_PREFIX = "Okay, planning your trip";
+
+    private enum Phase { THINKING, AWAITING_REPLY, AWAITING_ITINERARY, DRAINING, DONE }
+
+    private final long chatId;
+    private final LoadDriver driver;
+
+    private Phase phase = Phase.THINKING;
+    private int generation;
+    private String budgetAnswer;
+    private long turnStartedAt;
+    private long lastMessageAt;
+
+    SyntheticChat(long chatId, LoadDriver driver) {
+        this.chatId = chatId;
+        this.driver = driver;
+    }
+
+    long chatId() {
+        return chatId;
+    }
+
+    synchronized void startTrip() {
+        if (!driver.accepting()) {
+            phase = Phase.DONE;
+            generation++;
+            driver.chatDone();
+            return;
+        }
+        LoadDriver.Trip trip = driver.nextTrip();
+        boolean withBudget = !driver.clarifies();
+        budgetAnswer = withBudget ? null : trip.budget();
+        driver.tripStarted();
+        send(trip.utterance(withBudget));
+    }
+
+    synchronized void received(String text) {
+        long now = System.nanoTime();
+        switch (phase) {
+            case AWAITING_REPLY -> {
+                driver.turnCompleted(turnStartedAt, now);
+                if (text.startsWith(ITINERARY_PREFIX)) {
+                    // Served from a stored itinerary without an agent run
+                    driver.itineraryDelivered(turnStartedAt, now, true);
+                    drain(now);
+                } else if (text.startsWith(PLANNING_PREFIX)) {
+                    phase = Phase.AWAITING_ITINERARY;
+                    int expected = ++generation;
+                    driver.schedule(() -> itineraryTimedOut(expected), driver.settings().getItineraryTimeout().toMillis());
+                } else if (budgetAnswer != null && text.equals(NluStubServer.BUDGET_QUESTION)) {
+                    String answer = budgetAnswer;
+                    budgetAnswer = null;
+                    phase = Phase.THINKING;
+                    int expected = ++generation;
+                    driver.schedule(() -> answer(expected, answer), driver.thinkMillis());
+                } else {
+                    driver.unexpectedReply(chatId, text);
+                    drain(now);
+                }
+            }
+            case AWAITING_ITINERARY -> {
+                if (text.startsWith(ITINERARY_PREFIX)) {
+                    driver.itineraryDelivered(turnStartedAt, now, false);
+                } else {
+                    driver.unexpectedReply(chatId, text);
+                }
+                drain(now);
+            }
+            case DRAINING -> lastMessageAt = now;
+            default -> driver.unexpectedReply(chatId, text);
+        }
+    }
+
+    private synchronized void answer(int expected, String text) {
+        if (expected == generation) {
+            send(text);
+        }
+    }
+
+    private void send(String text) {
+        phase = Phase.AWAITING_REPLY;
+        int expected = ++generation;
+        turnStartedAt = System.nanoTime();
+        driver.sendUpdate(chatId, text);
+        driver.schedule(() -> replyTimedOut(expected), driver.settings().getReplyTimeout().toMillis());
+    }
+
+    private synchronized void replyTimedOut(int expected) {
+        if (expected == generation) {
+            driver.replyTimedOut(turnStartedAt);
+            drain(System.nanoTime());
+        }
+    }
+
+    private synchronized void itineraryTimedOut(int expected) {
+        if (expected == generation) {
+            driver.itineraryTimedOut(turnStartedAt);
+            drain(System.nanoTime());
+        }
+    }
+
+    /**
+     * Waits until the rest of the itinerary (or a late reply) has arrived before the next trip.
+     */
+    private void drain(long now) {
+        phase = Phase.DRAINING;
+        lastMessageAt = now;
+        int expected = ++generation;
+        driver.schedule(() -> quietCheck(expected), driver.settings().getQuietPeriod().toMillis());
+    }
+
+    private synchronized void quietCheck(int expected) {
+        if (expected != generation) {
+            return;
+        }
+        long quietPeriod = driver.settings().getQuietPeriod().toNanos();
+        long quietFor = System.nanoTime() - lastMessageAt;
+        if (quietFor < quietPeriod) {
+            driver.schedule(() -> quietCheck(expected), (quietPeriod - quietFor) / 1_000_000 + 1);
+            return;
+        }
+        phase = Phase.THINKING;
+        int next = ++generation;
+        driver.schedule(() -> nextTrip(next), driver.thinkMillis());
+    }
+
+    private synchronized void nextTrip(int expected) {
+        if (expected == generation) {
+            startTrip();
+        }
+    }
+}
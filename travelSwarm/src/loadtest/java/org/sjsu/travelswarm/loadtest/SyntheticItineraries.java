@@ -0,0 +1,99 @@
+package org.sjsu.travelswarm.loadtest;
+
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Itineraries shaped like agent output for a planning request: the requested destination and number
+ * of days, five to eight events a day with the usual mix of sights, meals and transit, and the
+ * punctuation MarkdownV2 has to escape.
+ */
+final class SyntheticItineraries {
+
+    private static final DateTimeFormatter AGENT_TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+    private static final String[] TYPES = {"attraction", "food", "transport", "activity", "food", "attraction", "transport", "food"};
+    private static final String[] PLACES = {
+            "Old Town walking tour (2.5 km)", "Central Market - \"the city's kitchen\"", "Cathedral & bell tower [closed Mon]",
+            "Riverside promenade + sunset cruise", "National Museum: ancient collections!", "Hilltop viewpoint (cable car)"};
+    private static final String[] COSTS = {"Free", "$12.50", "€8-€15 per person", "$35.00 (incl. guide)"};
+
+    private SyntheticItineraries() {
+    }
+
+    static FinalItineraryDto itinerary(PlanningRequestDto request) {
+        int days = request.getDurationDays() != null && request.getDurationDays() > 0 ? request.getDurationDays() : 3;
+        LocalDate start = startDate(request.getStartDate());
+
+        FinalItineraryDto dto = new FinalItineraryDto();
+        dto.setDestination(request.getDestination());
+        dto.setDurationDays(days);
+        dto.setStartDate(start.toString());
+        dto.setEndDate(start.plusDays(days - 1L).toString());
+        dto.setBudget(request.getBudget());
+        dto.setInterests(request.getInterests());
+        dto.setSummary(days + " days in " + request.getDestination() + ": markets, museums & the old town");
+        dto.setEstimatedTotalCost(180.0 * days);
+        dto.setGeneral_notes(List.of("Buy a day pass for public transport.", "Most museums close at 17:00; book ahead!"));
+
+        List<ItineraryDayDto> dayDtos = new ArrayList<>(days);
+        for (int d = 1; d <= days; d++) {
+            ItineraryDayDto day = new ItineraryDayDto();
+            day.setDay(d);
+            day.setDate(start.plusDays(d - 1L).toString());
+            day.setTheme("Day " + d + ": " + PLACES[d % PLACES.length]);
+            int eventsPerDay = 5 + (d * 7) % 4;
+            List<ItineraryEventDto> events = new ArrayList<>(eventsPerDay);
+            for (int e = 0; e < eventsPerDay; e++) {
+                events.add(event(d, e));
+            }
+            day.setEvents(events);
+            dayDtos.add(day);
+        }
+        dto.setDays(dayDtos);
+        return dto;
+    }
+
+    private static LocalDate startDate(String requested) {
+        if (requested != null) {
+            try {
+                return LocalDate.parse(requested);
+            } catch (DateTimeParseException e) {
+                // Free text from the NLU; any date will do
+            }
+        }
+        return LocalDate.now().plusDays(30);
+    }
+
+    private static ItineraryEventDto event(int day, int index) {
+        int variant = day * 31 + index;
+        String type = TYPES[index % TYPES.length];
+        LocalTime startTime = LocalTime.of(8 + index * 3 / 2, index % 2 == 0 ? 0 : 30);
+
+        ItineraryEventDto event = new ItineraryEventDto();
+        event.setType(type);
+        event.setDescription(PLACES[variant % PLACES.length]);
+        event.setStartTime(AGENT_TIME_FORMAT.format(startTime));
+        event.setEndTime(AGENT_TIME_FORMAT.format(startTime.plusMinutes(75)));
+        event.setLocation((10 + variant) + " Main St., District " + (1 + variant % 9));
+        event.setCost(COSTS[variant % COSTS.length]);
+        event.setBookingInfo(variant % 3 == 0 ? "Reserve online 2 weeks ahead." : null);
+        event.setWebsite(variant % 2 == 0 ? "https://example.org/visit?id=" + variant : null);
+        event.setDetails("Allow about an hour; expect queues at weekends.");
+        if ("transport".equals(type)) {
+            event.setTravelTime((15 + variant % 40) + " min");
+            event.setDistance((2 + variant % 9) + "." + variant % 10 + " km");
+            event.setTransportMode(variant % 2 == 0 ? "Metro line 2" : "Bus #14");
+        }
+        return event;
+    }
+}
@@ -1,21 +1,48 @@
 package org.sjsu.travelswarm;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @SpringBootApplication
+@EnableScheduling
 public class TravelSwarmApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(TravelSwarmApplication.class, args);
     }
 
+    /**
+     * Shared HTTP client for calls to the Python agent service. The JDK client keeps
+     * connections alive and pools them per host, and supports non-blocking sends.
+     */
+    @Bean
+    public HttpClient agentHttpClient(@Value("${agent.service.nlu.connect-timeout:2s}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1) // Flask speaks HTTP/1.1 only; skip the h2c upgrade attempt
+                .connectTimeout(connectTimeout)
+                .build();
+    }
+
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     HttpClient agentHttpClient,
+                                     @Value("${agent.service.nlu.timeout:20s}") Duration readTimeout) {
+        return builder
+                .requestFactory(() -> {
+                    JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(agentHttpClient);
+                    requestFactory.setReadTimeout(readTimeout);
+                    return requestFactory;
+                })
+                .build();
     }
 
 }
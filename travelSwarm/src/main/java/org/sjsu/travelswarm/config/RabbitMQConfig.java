@@ -1,13 +1,25 @@
 package org.sjsu.travelswarm.config;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
+@Slf4j
 public class RabbitMQConfig {
 
     @Bean
@@ -19,6 +31,68 @@ public class RabbitMQConfig {
     public RabbitTemplate rabbitTemplate(final ConnectionFactory connectionFactory) {
         final RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
         rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        // Unroutable messages come back to us instead of being dropped; the publisher retries them
+        rabbitTemplate.setMandatory(true);
+        rabbitTemplate.setReturnsCallback(returned -> log.warn("Message returned by broker (routing key '{}'): {} {}",
+                returned.getRoutingKey(), returned.getReplyCode(), returned.getReplyText()));
         return rabbitTemplate;
     }
-}
\ No newline at end of file
+
+    /**
+     * Container factory for the planning results queue. Listeners acknowledge manually, after the
+     * transaction that stores the result has committed. In batch mode up to {@code batch-size}
+     * results (or whatever arrived within {@code batch-receive-timeout}) are handed over as one list.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory planningResultContainerFactory(
+            final ConnectionFactory connectionFactory,
+            @Value("${app.rabbitmq.results.concurrency:4}") int concurrency,
+            @Value("${app.rabbitmq.results.max-concurrency:8}") int maxConcurrency,
+            @Value("${app.rabbitmq.results.prefetch:20}") int prefetch,
+            @Value("${app.rabbitmq.results.batch-enabled:false}") boolean batchEnabled,
+            @Value("${app.rabbitmq.results.batch-size:20}") int batchSize,
+            @Value("${app.rabbitmq.results.batch-receive-timeout:200ms}") Duration batchReceiveTimeout) {
+        final SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setMessageConverter(jsonMessageConverter());
+        factory.setConcurrentConsumers(concurrency);
+        factory.setMaxConcurrentConsumers(Math.max(concurrency, maxConcurrency));
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        if (batchEnabled) {
+            factory.setBatchListener(true);
+            factory.setConsumerBatchEnabled(true);
+            factory.setBatchSize(batchSize);
+            factory.setReceiveTimeout(batchReceiveTimeout.toMillis());
+            // The whole batch must be in flight at once
+            factory.setPrefetchCount(Math.max(prefetch, batchSize));
+        } else {
+            factory.setPrefetchCount(prefetch);
+        }
+        log.info("Planning result listener: {}-{} consumers, prefetch {}, batching {}", concurrency, maxConcurrency, prefetch,
+                batchEnabled ? batchSize + " messages / " + batchReceiveTimeout : "disabled");
+        return factory;
+    }
+
+    /**
+     * Fanout exchange and a per-instance queue for planning session cache invalidation
+     * (see {@code PlanningSessionCacheInvalidation}). The queue goes away with the instance.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.session-cache.invalidation.enabled", havingValue = "true")
+    public FanoutExchange sessionCacheInvalidationExchange(@Value("${app.session-cache.invalidation.exchange}") String exchange) {
+        return new FanoutExchange(exchange, true, false);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.session-cache.invalidation.enabled", havingValue = "true")
+    public AnonymousQueue sessionCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.session-cache.invalidation.enabled", havingValue = "true")
+    public Binding sessionCacheInvalidationBinding(FanoutExchange sessionCacheInvalidationExchange,
+                                                   AnonymousQueue sessionCacheInvalidationQueue) {
+        return BindingBuilder.bind(sessionCacheInvalidationQueue).to(sessionCacheInvalidationExchange);
+    }
+}
@@ -0,0 +1,45 @@
+package org.sjsu.travelswarm.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@Slf4j
+public class TelegramBotConfig {
+
+    // Headroom on top of the long-poll timeout before a getUpdates call counts as hung
+    private static final Duration POLL_SOCKET_TIMEOUT_MARGIN = Duration.ofSeconds(15);
+
+    /**
+     * Options for the bot's own Bot API client and its long-polling session: how many updates a
+     * getUpdates call may return, how long it may wait for one, and which update types Telegram
+     * should send at all (everything else is filtered out server-side).
+     */
+    @Bean
+    public DefaultBotOptions telegramBotOptions(
+            @Value("${telegram.bot.polling.limit:100}") int getUpdatesLimit,
+            @Value("${telegram.bot.polling.timeout:50s}") Duration getUpdatesTimeout,
+            @Value("${telegram.bot.polling.allowed-updates:message}") List<String> allowedUpdates,
+            @Value("${telegram.bot.http.connect-timeout:5s}") Duration connectTimeout) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setGetUpdatesLimit(getUpdatesLimit);
+        options.setGetUpdatesTimeout((int) getUpdatesTimeout.toSeconds());
+        options.setAllowedUpdates(allowedUpdates);
+        int socketTimeout = (int) getUpdatesTimeout.plus(POLL_SOCKET_TIMEOUT_MARGIN).toMillis();
+        options.setRequestConfig(RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout(socketTimeout)
+                .build());
+        log.info("Telegram polling: up to {} updates per call, {} s long-poll timeout, allowed updates {}",
+                getUpdatesLimit, getUpdatesTimeout.toSeconds(), allowedUpdates);
+        return options;
+    }
+}
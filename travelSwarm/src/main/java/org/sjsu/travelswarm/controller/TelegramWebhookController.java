@@ -0,0 +1,106 @@
+package org.sjsu.travelswarm.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.service.TelegramUpdateInbox;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Receives Telegram updates pushed to the bot's webhook ({@code telegram.bot.mode=webhook}).
+ * <p>
+ * Requests must carry the secret token the webhook was registered with. Each update is stored in the
+ * {@link TelegramUpdateInbox} shared by all instances, which drops redeliveries and keeps the updates
+ * of a chat in order, and Telegram gets its 200 as soon as the update is stored. If it cannot be
+ * stored the answer is 503, so Telegram delivers the update again later.
+ */
+@RestController
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+@Slf4j
+public class TelegramWebhookController {
+
+    static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    private final TelegramUpdateInbox updateInbox;
+    private final byte[] secretToken;
+
+    private final Counter acceptedCounter;
+    private final Counter duplicateCounter;
+    private final Counter rejectedCounter;
+    private final Counter unavailableCounter;
+
+    public TelegramWebhookController(TelegramUpdateInbox updateInbox,
+                                     @Value("${telegram.bot.webhook.secret-token:}") String secretToken,
+                                     MeterRegistry meterRegistry) {
+        this.updateInbox = updateInbox;
+        this.secretToken = StringUtils.hasText(secretToken) ? secretToken.getBytes(StandardCharsets.UTF_8) : null;
+
+        this.acceptedCounter = Counter.builder("telegram.webhook.updates")
+                .description("Updates received on the webhook by outcome")
+                .tag("result", "accepted")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("telegram.webhook.updates")
+                .description("Updates received on the webhook by outcome")
+                .tag("result", "duplicate")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("telegram.webhook.updates")
+                .description("Updates received on the webhook by outcome")
+                .tag("result", "rejected")
+                .register(meterRegistry);
+        this.unavailableCounter = Counter.builder("telegram.webhook.updates")
+                .description("Updates received on the webhook by outcome")
+                .tag("result", "unavailable")
+                .register(meterRegistry);
+
+        // With a public URL TelegramBotService refuses to start without a secret; this is a webhook registered elsewhere
+        if (this.secretToken == null) {
+            log.warn("telegram.bot.webhook.secret-token is not set; webhook requests are not authenticated.");
+        }
+    }
+
+    @PostMapping("${telegram.bot.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> onUpdate(@RequestHeader(value = SECRET_TOKEN_HEADER, required = false) String secretTokenHeader,
+                                         @RequestBody Update update) {
+        if (!isAuthorized(secretTokenHeader)) {
+            rejectedCounter.increment();
+            log.warn("Rejected webhook request with missing or wrong secret token.");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        boolean received;
+        try {
+            received = updateInbox.receive(update);
+        } catch (Exception e) {
+            unavailableCounter.increment();
+            log.error("Could not store update {}: {}", update.getUpdateId(), e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        if (received) {
+            acceptedCounter.increment();
+        } else {
+            duplicateCounter.increment();
+            log.info("Ignoring redelivered update {}", update.getUpdateId());
+        }
+        return ResponseEntity.ok().build();
+    }
+
+    private boolean isAuthorized(String secretTokenHeader) {
+        if (secretToken == null) {
+            return true;
+        }
+        return secretTokenHeader != null
+                && MessageDigest.isEqual(secretToken, secretTokenHeader.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,47 @@
+package org.sjsu.travelswarm.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One user message handled by ConversationService, from receiving it to the session being saved.
+ * <p>
+ * Turns that run NLU asynchronously end on the thread that completes the NLU call, so the
+ * event thread is that thread rather than the one that started the turn.
+ */
+@Name("org.sjsu.travelswarm.ConversationTurn")
+@Label("Conversation Turn")
+@Category({"TravelSwarm", "Conversation"})
+@Description("A user message handled by the conversation service")
+@StackTrace(false)
+public class ConversationTurnEvent extends Event {
+
+    @Label("Chat ID")
+    public long chatId;
+
+    @Label("Outcome")
+    @Description("message, command, busy (a request was still processing) or error")
+    public String outcome;
+
+    @Label("Status Before")
+    @Description("Session status when the message arrived; empty for a new session")
+    public String statusBefore;
+
+    @Label("Status After")
+    @Description("Session status once the turn was handled")
+    public String statusAfter;
+
+    @Label("NLU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long nluDuration;
+
+    @Label("DB Time")
+    @Description("Time spent in the turn's two transactions, before and after the NLU call")
+    @Timespan(Timespan.NANOSECONDS)
+    public long dbDuration;
+}
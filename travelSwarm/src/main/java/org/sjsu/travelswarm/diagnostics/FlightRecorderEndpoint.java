@@ -0,0 +1,172 @@
+package org.sjsu.travelswarm.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts and dumps a JDK Flight Recorder recording on demand ({@code /actuator/flightrecorder}).
+ * <ul>
+ *   <li>{@code GET} shows the recording's state.</li>
+ *   <li>{@code POST} starts a recording with the {@code app.diagnostics.jfr.settings} profile, optionally
+ *       stopping by itself after {@code duration}.</li>
+ *   <li>{@code GET /dump} downloads what has been recorded so far; the recording keeps running.</li>
+ *   <li>{@code DELETE} stops the recording and discards it.</li>
+ * </ul>
+ * Recordings can contain message texts and chat ids, so the endpoint is not exposed over the web
+ * by default; add it to {@code management.endpoints.web.exposure.include} where it is needed.
+ */
+@Component
+@WebEndpoint(id = "flightrecorder")
+@Slf4j
+public class FlightRecorderEndpoint {
+
+    private static final String RECORDING_NAME = "travelswarm";
+
+    private final Resource settings;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+
+    private Recording recording;
+
+    public FlightRecorderEndpoint(@Value("${app.diagnostics.jfr.settings:classpath:jfr/travelswarm.jfc}") Resource settings,
+                                  @Value("${app.diagnostics.jfr.max-age:15m}") Duration maxAge,
+                                  @Value("${app.diagnostics.jfr.max-size:100MB}") DataSize maxSize) {
+        this.settings = settings;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        if (recording == null) {
+            status.put("state", "NONE");
+            return status;
+        }
+        status.put("state", recording.getState());
+        status.put("name", recording.getName());
+        status.put("startTime", recording.getStartTime());
+        status.put("duration", recording.getDuration());
+        status.put("maxAge", recording.getMaxAge());
+        status.put("maxSize", recording.getMaxSize());
+        status.put("size", recording.getSize());
+        return status;
+    }
+
+    @WriteOperation
+    public synchronized WebEndpointResponse<Map<String, Object>> start(@Nullable Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            return new WebEndpointResponse<>(status(), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+        Configuration configuration;
+        try (Reader reader = new InputStreamReader(settings.getInputStream(), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        } catch (IOException | ParseException e) {
+            log.error("Could not load JFR settings from {}: {}", settings, e.getMessage());
+            return new WebEndpointResponse<>(Map.of("error", "Invalid JFR settings: " + e.getMessage()),
+                    WebEndpointResponse.STATUS_INTERNAL_SERVER_ERROR);
+        }
+        closeRecording();
+
+        recording = new Recording(configuration);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        if (duration != null) {
+            recording.setDuration(duration);
+        }
+        recording.start();
+        log.info("Started flight recording with {} settings (max age {}, max size {}, duration {})",
+                configuration.getName(), maxAge, maxSize, duration != null ? duration : "unlimited");
+        return new WebEndpointResponse<>(status());
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public synchronized WebEndpointResponse<Resource> dump(@Selector String action) throws IOException {
+        if (!"dump".equals(action) || recording == null || recording.getState() == RecordingState.NEW) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = Files.createTempFile(RECORDING_NAME + "-", ".jfr");
+        try {
+            recording.dump(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.info("Dumped flight recording ({} bytes)", Files.size(file));
+        return new WebEndpointResponse<>(new TemporaryFileResource(file));
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        closeRecording();
+        return status();
+    }
+
+    private void closeRecording() {
+        if (recording != null) {
+            // close() also stops a running recording
+            recording.close();
+            recording = null;
+            log.info("Closed flight recording");
+        }
+    }
+
+    /**
+     * A dump that is deleted once it has been streamed. Not reported as a file, so it is always read
+     * through {@link #getInputStream()}.
+     */
+    private static final class TemporaryFileResource extends FileSystemResource {
+
+        private TemporaryFileResource(Path file) {
+            super(file);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return new FilterInputStream(super.getInputStream()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        Files.deleteIfExists(getFile().toPath());
+                    }
+                }
+            };
+        }
+
+        @Override
+        public boolean isFile() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.sjsu.travelswarm.diagnostics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Collects a {@link PlanningRoundTripEvent} across the code that handles one planning result.
+ * <p>
+ * The result listener opens a round trip per result with {@link #begin} and closes it with {@link #end}
+ * once handling returned. In between, ConversationService activates the round trip of the result it is
+ * delivering, so ItineraryService can add its store and render times without knowing about correlation
+ * ids, and attaches the itinerary sends. The event is committed when it has been closed and every send
+ * has completed. Nothing is tracked while the event is disabled in the running recording (or no
+ * recording runs), so the static helpers then cost a thread-local read.
+ */
+public final class PlanningRoundTrip {
+
+    // Round trips opened by the listener on this thread; a batch listener opens several at once
+    private static final ThreadLocal<Map<String, PlanningRoundTrip>> OPEN = new ThreadLocal<>();
+    private static final ThreadLocal<PlanningRoundTrip> ACTIVE = new ThreadLocal<>();
+
+    private final PlanningRoundTripEvent event;
+    private int pendingSends;
+    private boolean ended;
+    private boolean committed;
+
+    private PlanningRoundTrip(PlanningRoundTripEvent event) {
+        this.event = event;
+    }
+
+    /**
+     * Opens a round trip for a result received on this thread.
+     */
+    public static void begin(String correlationId, long payloadSize) {
+        PlanningRoundTripEvent event = new PlanningRoundTripEvent();
+        if (correlationId == null || !event.isEnabled()) {
+            return;
+        }
+        event.begin();
+        event.correlationId = correlationId;
+        event.payloadSize = payloadSize;
+        Map<String, PlanningRoundTrip> open = OPEN.get();
+        if (open == null) {
+            open = new HashMap<>();
+            OPEN.set(open);
+        }
+        open.put(correlationId, new PlanningRoundTrip(event));
+    }
+
+    /**
+     * Closes the round trip opened on this thread for the result; it is committed once its sends are done.
+     */
+    public static void end(String correlationId) {
+        Map<String, PlanningRoundTrip> open = OPEN.get();
+        if (open == null) {
+            return;
+        }
+        PlanningRoundTrip roundTrip = open.remove(correlationId);
+        if (open.isEmpty()) {
+            OPEN.remove();
+        }
+        if (roundTrip != null) {
+            roundTrip.ended();
+        }
+    }
+
+    /**
+     * Makes the result's round trip, if one is open on this thread, the target of the static helpers
+     * until {@link #deactivate()}.
+     *
+     * @return The round trip, or null if none is open.
+     */
+    public static PlanningRoundTrip activate(String correlationId) {
+        Map<String, PlanningRoundTrip> open = OPEN.get();
+        PlanningRoundTrip roundTrip = open != null ? open.get(correlationId) : null;
+        if (roundTrip != null) {
+            ACTIVE.set(roundTrip);
+        }
+        return roundTrip;
+    }
+
+    public static void deactivate() {
+        ACTIVE.remove();
+    }
+
+    /**
+     * @return The round trip activated on this thread, or null.
+     */
+    public static PlanningRoundTrip active() {
+        return ACTIVE.get();
+    }
+
+    public static void addStoreTime(long nanos) {
+        PlanningRoundTrip roundTrip = ACTIVE.get();
+        if (roundTrip != null) {
+            synchronized (roundTrip) {
+                roundTrip.event.storeDuration += nanos;
+            }
+        }
+    }
+
+    public static void addRenderTime(long nanos) {
+        PlanningRoundTrip roundTrip = ACTIVE.get();
+        if (roundTrip != null) {
+            synchronized (roundTrip) {
+                roundTrip.event.renderDuration += nanos;
+            }
+        }
+    }
+
+    public synchronized void recipients(int recipients) {
+        event.recipients = recipients;
+    }
+
+    /**
+     * Counts the chunks once they have all been sent. Must be called before the round trip is ended,
+     * which holds for sends registered to run after the result's transaction commits.
+     */
+    public synchronized void sending(CompletableFuture<?> sent, int chunks) {
+        pendingSends++;
+        sent.whenComplete((ignored, error) -> sent(error == null ? chunks : 0));
+    }
+
+    private synchronized void sent(int chunks) {
+        event.chunksSent += chunks;
+        pendingSends--;
+        commitIfDone();
+    }
+
+    private synchronized void ended() {
+        ended = true;
+        commitIfDone();
+    }
+
+    private void commitIfDone() {
+        if (ended && pendingSends == 0 && !committed) {
+            committed = true;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.sjsu.travelswarm.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One planning result, from the listener receiving it to every itinerary chunk having been sent.
+ * Emitted through {@link PlanningRoundTrip}.
+ */
+@Name("org.sjsu.travelswarm.PlanningRoundTrip")
+@Label("Planning Round Trip")
+@Category({"TravelSwarm", "Planning"})
+@Description("A planning result being stored and delivered to the waiting sessions")
+@StackTrace(false)
+public class PlanningRoundTripEvent extends Event {
+
+    @Label("Correlation ID")
+    public String correlationId;
+
+    @Label("Payload Size")
+    @DataAmount(DataAmount.BYTES)
+    public long payloadSize;
+
+    @Label("Recipients")
+    @Description("Sessions the result was delivered to, including coalesced ones")
+    public int recipients;
+
+    @Label("Store Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long storeDuration;
+
+    @Label("Render Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long renderDuration;
+
+    @Label("Chunks Sent")
+    public int chunksSent;
+}
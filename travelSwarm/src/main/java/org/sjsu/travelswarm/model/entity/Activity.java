@@ -9,14 +9,17 @@ import org.sjsu.travelswarm.model.enums.ActivityType;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activity")
+@Table(name = "activity", indexes = {
+        @Index(name = "idx_activity_itinerary_day_id", columnList = "itinerary_day_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Activity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "activity_seq")
+    @SequenceGenerator(name = "activity_seq", sequenceName = "activity_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -0,0 +1,37 @@
+package org.sjsu.travelswarm.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * An update pushed to the webhook, shared by all instances. The primary key drops redeliveries;
+ * unprocessed rows are handed out oldest first per chat, one at a time, by claiming them until
+ * {@link #claimedUntil}. Processed rows are kept for a day so redeliveries are still recognised.
+ */
+@Entity
+@Table(name = "telegram_update", indexes = {
+        @Index(name = "idx_telegram_update_chat_id", columnList = "chatId, updateId")
+})
+@Data
+@NoArgsConstructor
+public class InboundTelegramUpdate {
+
+    @Id
+    private Long updateId;
+
+    private Long chatId;
+
+    // The update as Telegram sent it; rows are only ever inserted by InboundTelegramUpdateRepository.insertIfAbsent
+    @Column(columnDefinition = "jsonb", nullable = false, insertable = false, updatable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant receivedAt;
+
+    private Instant claimedUntil;
+
+    private Instant processedAt;
+}
@@ -6,20 +6,27 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "itinerary")
+@Table(name = "itinerary", indexes = {
+        @Index(name = "idx_itinerary_request_key", columnList = "request_key, created_at"),
+        @Index(name = "idx_itinerary_user_id_id", columnList = "user_id, id DESC")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Itinerary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequence ids (pooled, 50 per call) instead of IDENTITY so inserts of the whole itinerary graph can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itinerary_seq")
+    @SequenceGenerator(name = "itinerary_seq", sequenceName = "itinerary_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -51,7 +58,41 @@ public class Itinerary {
     @Column(name = "estimated_total_cost")
     private Double estimatedTotalCost;
 
+    // Full itinerary as received, so it can be read back from this row alone (see ItineraryStorageMode)
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "document", columnDefinition = "jsonb")
+    private FinalItineraryDto document;
+
+    // Telegram messages rendered by ItineraryFormatter; only valid while render_version matches ItineraryFormatter.RENDER_VERSION
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "rendered_chunks", columnDefinition = "jsonb")
+    private List<String> renderedChunks;
+
+    @Column(name = "render_version")
+    private Integer renderVersion;
+
     @OneToMany(mappedBy = "itinerary", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("dayNumber ASC")
     private List<ItineraryDay> days = new ArrayList<>();
 
+    // Canonical planning request this itinerary answers (see PlanningRequestKey). Only set for agent-generated itineraries.
+    @Column(name = "request_key", length = 1024)
+    private String requestKey;
+
+    // How long the agent took to generate this itinerary
+    @Column(name = "agent_duration_ms")
+    private Long agentDurationMs;
+
+    // Set when this itinerary is a copy of another user's itinerary instead of a fresh agent run
+    @Column(name = "source_itinerary_id")
+    private Long sourceItineraryId;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+    }
+
 }
\ No newline at end of file
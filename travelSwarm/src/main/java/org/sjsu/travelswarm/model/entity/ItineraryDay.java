@@ -10,14 +10,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "itinerary_day")
+@Table(name = "itinerary_day", indexes = {
+        @Index(name = "idx_itinerary_day_itinerary_id", columnList = "itinerary_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ItineraryDay {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itinerary_day_seq")
+    @SequenceGenerator(name = "itinerary_day_seq", sequenceName = "itinerary_day_seq", allocationSize = 50)
     private Long id;
 
     private int dayNumber;
@@ -29,5 +32,6 @@ public class ItineraryDay {
     private Itinerary itinerary;
 
     @OneToMany(mappedBy = "itineraryDay", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("startTime ASC, id ASC")
     private List<Activity> activities = new ArrayList<>();
 }
\ No newline at end of file
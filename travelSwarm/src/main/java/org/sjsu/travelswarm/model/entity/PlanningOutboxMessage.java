@@ -0,0 +1,58 @@
+package org.sjsu.travelswarm.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+
+import java.time.Instant;
+
+/**
+ * A planning request waiting to be published. Written in the same transaction that moves the
+ * session to PROCESSING and deleted by the relay once the broker has confirmed it.
+ */
+@Entity
+@Table(name = "planning_outbox", indexes = {
+        @Index(name = "idx_planning_outbox_chat_id", columnList = "chatId, id")
+})
+@Data
+@NoArgsConstructor
+public class PlanningOutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String correlationId;
+
+    @Column(nullable = false)
+    private Long chatId;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    private PlanningRequestDto payload;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    private Instant nextAttemptAt;
+
+    private Instant createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = Instant.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+
+    public PlanningOutboxMessage(Long chatId, String correlationId, PlanningRequestDto payload) {
+        this.chatId = chatId;
+        this.correlationId = correlationId;
+        this.payload = payload;
+    }
+}
@@ -12,7 +12,10 @@ import java.util.List;
 import java.util.Map;
 
 @Entity
-@Table(name = "planning_session")
+@Table(name = "planning_session", indexes = {
+        @Index(name = "idx_planning_session_coalesced_correlation_id", columnList = "coalescedCorrelationId"),
+        @Index(name = "idx_planning_session_status_deadline", columnList = "status, processingDeadline")
+})
 @Data
 @NoArgsConstructor
 public class PlanningSession {
@@ -31,6 +34,18 @@ public class PlanningSession {
     @Column(unique = true, nullable = true) // Should be unique once set
     private String correlationId; // Links MQ request and result
 
+    @Column(nullable = true)
+    private String coalescedCorrelationId; // Set when this session waits on another session's in-flight request
+
+    @Column(nullable = true)
+    private Instant processingDeadline; // When the timeout sweeper gives up on the agent's result
+
+    @Column(nullable = true)
+    private Instant timedOutAt; // Set when the sweeper failed this session; a result arriving later is a late result
+
+    @Column(nullable = true)
+    private Integer timeoutRepublishes; // How often the request was published again after its deadline
+
     // --- Store gathered NLU parameters ---
     private String destination;
     private Integer durationDays;
@@ -54,6 +69,10 @@ public class PlanningSession {
     private Instant createdAt;
     private Instant updatedAt;
 
+    @Version
+    @Column(nullable = false)
+    private Long version; // Keeps a stale copy (e.g. from the session cache) from overwriting a newer row
+
     @PrePersist
     protected void onCreate() {
         createdAt = Instant.now();
@@ -1,10 +1,38 @@
 package org.sjsu.travelswarm.model.enums;
 
+import java.util.Locale;
+import java.util.Map;
+
 public enum ActivityType {
     ATTRACTION,      // For visiting landmarks, museums, parks, points of interest
     ACTIVITY,        // For other general scheduled activities (e.g., "Relax at cafe", "Shopping")
     FOOD,            // For specific meal events (breakfast, lunch, dinner, snacks)
     TRANSPORTATION,  // For travel segments between locations (metro, bus, walking, taxi)
     ACCOMMODATION,   // For events related to lodging (e.g., "Check into Hotel", "Hotel details")
-    OTHER
+    OTHER;
+
+    // Event type strings the agent uses, lower case
+    private static final Map<String, ActivityType> BY_EVENT_TYPE = Map.ofEntries(
+            Map.entry("attraction", ATTRACTION), Map.entry("sightseeing", ATTRACTION),
+            Map.entry("activity", ACTIVITY),
+            Map.entry("meal", FOOD), Map.entry("food", FOOD), Map.entry("breakfast", FOOD),
+            Map.entry("lunch", FOOD), Map.entry("dinner", FOOD), Map.entry("cafe", FOOD),
+            Map.entry("transit", TRANSPORTATION), Map.entry("transport", TRANSPORTATION),
+            Map.entry("transportation", TRANSPORTATION),
+            Map.entry("stay", ACCOMMODATION), Map.entry("hotel", ACCOMMODATION),
+            Map.entry("accommodation", ACCOMMODATION),
+            Map.entry("other", OTHER));
+
+    /**
+     * Maps an event type string from the agent, ignoring case and surrounding whitespace.
+     * Strings that are already lower case and trimmed (the usual case) are looked up without copying.
+     *
+     * @return The activity type, or null if the string is not a known event type.
+     */
+    public static ActivityType fromEventType(String eventType) {
+        if (eventType == null) {
+            return null;
+        }
+        return BY_EVENT_TYPE.get(eventType.strip().toLowerCase(Locale.ROOT));
+    }
 }
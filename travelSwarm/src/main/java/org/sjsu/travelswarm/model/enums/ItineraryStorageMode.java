@@ -0,0 +1,7 @@
+package org.sjsu.travelswarm.model.enums;
+
+public enum ItineraryStorageMode {
+    RELATIONAL, // Days and activities in their own tables only
+    BOTH,       // Relational rows plus the full DTO as a jsonb document on the itinerary row
+    DOCUMENT    // Only the jsonb document; itinerary_day/activity stay empty
+}
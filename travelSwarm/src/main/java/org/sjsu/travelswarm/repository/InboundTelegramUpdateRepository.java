@@ -0,0 +1,57 @@
+package org.sjsu.travelswarm.repository;
+
+import org.sjsu.travelswarm.model.entity.InboundTelegramUpdate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface InboundTelegramUpdateRepository extends JpaRepository<InboundTelegramUpdate, Long> {
+
+    /**
+     * @return 1 if the update was stored, 0 if an update with that id already exists.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO telegram_update (update_id, chat_id, payload, received_at, processed_at)
+            VALUES (:updateId, :chatId, CAST(:payload AS jsonb), :receivedAt, :processedAt)
+            ON CONFLICT (update_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("updateId") Long updateId, @Param("chatId") Long chatId, @Param("payload") String payload,
+                       @Param("receivedAt") Instant receivedAt, @Param("processedAt") Instant processedAt);
+
+    // Locks the chat's oldest unprocessed update, claimed or not. FOR UPDATE rather than SKIP LOCKED:
+    // an instance claiming at the same time waits for the other claim to commit and then sees it.
+    @Query(value = """
+            SELECT * FROM telegram_update u
+            WHERE u.chat_id = :chatId AND u.processed_at IS NULL
+            ORDER BY u.update_id
+            LIMIT 1
+            FOR UPDATE
+            """, nativeQuery = true)
+    Optional<InboundTelegramUpdate> lockOldestUnprocessed(@Param("chatId") Long chatId);
+
+    // Chats whose oldest unprocessed update is unclaimed, e.g. because the instance working on it went away
+    @Query(value = """
+            SELECT u.chat_id FROM telegram_update u
+            WHERE u.processed_at IS NULL
+              AND (u.claimed_until IS NULL OR u.claimed_until < :now)
+              AND NOT EXISTS (SELECT 1 FROM telegram_update older
+                              WHERE older.chat_id = u.chat_id AND older.processed_at IS NULL AND older.update_id < u.update_id)
+            """, nativeQuery = true)
+    List<Long> findChatsWithUnclaimedUpdates(@Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE InboundTelegramUpdate u SET u.processedAt = :processedAt, u.claimedUntil = null WHERE u.updateId = :updateId")
+    int markProcessed(@Param("updateId") Long updateId, @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Query("DELETE FROM InboundTelegramUpdate u WHERE u.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,15 @@
+package org.sjsu.travelswarm.repository;
+
+import java.util.List;
+
+/**
+ * Projection of the stored Telegram rendering of an itinerary, read by /view instead of the full row.
+ */
+public interface ItineraryRendering {
+
+    String getUserId();
+
+    Integer getRenderVersion();
+
+    List<String> getRenderedChunks();
+}
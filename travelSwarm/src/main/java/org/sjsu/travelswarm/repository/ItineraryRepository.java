@@ -1,11 +1,47 @@
 package org.sjsu.travelswarm.repository;
 
 import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.model.entity.ItineraryDay;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItineraryRepository extends JpaRepository<Itinerary, Long> {
 
-    List<Itinerary> findByUserIdOrderByIdDesc(String userId); // Assuming userId is the String chatId
+    // Keyset-paged /history queries, all served by idx_itinerary_user_id_id
+    List<ItinerarySummary> findSummariesByUserIdOrderByIdDesc(String userId, Limit limit);
+
+    List<ItinerarySummary> findSummariesByUserIdAndIdLessThanOrderByIdDesc(String userId, Long id, Limit limit);
+
+    List<ItinerarySummary> findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(String userId, Long id, Limit limit);
+
+    // Most recent agent-generated itinerary for a canonical request key, if created after the given instant
+    Optional<Itinerary> findFirstByRequestKeyAndCreatedAtAfterOrderByCreatedAtDesc(String requestKey, Instant createdAfter);
+
+    Optional<ItineraryRendering> findRenderingById(Long id);
+
+    // Writes back a rebuilt rendering without loading the entity
+    @Transactional
+    @Modifying
+    @Query("UPDATE Itinerary i SET i.renderedChunks = :chunks, i.renderVersion = :renderVersion WHERE i.id = :id")
+    int updateRendering(@Param("id") Long id, @Param("chunks") List<String> chunks, @Param("renderVersion") int renderVersion);
+
+    // All days of an itinerary with their activities in one query, in display order (see ItineraryService.getItineraryDtoForView)
+    @Query("""
+            SELECT d FROM ItineraryDay d LEFT JOIN FETCH d.activities a
+            WHERE d.itinerary.id = :itineraryId
+            ORDER BY d.dayNumber, a.startTime, a.id
+            """)
+    List<ItineraryDay> findDaysWithActivitiesByItineraryId(@Param("itineraryId") Long itineraryId);
+
+    // Next ids (in id order) of itineraries stored before document mode existed
+    @Query("SELECT i.id FROM Itinerary i WHERE i.document IS NULL AND i.id > :afterId ORDER BY i.id")
+    List<Long> findIdsWithoutDocument(@Param("afterId") Long afterId, Limit limit);
 }
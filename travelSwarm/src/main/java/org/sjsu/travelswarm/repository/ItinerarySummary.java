@@ -0,0 +1,18 @@
+package org.sjsu.travelswarm.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Projection of the itinerary columns shown in /history. Selecting only these keeps the jsonb
+ * columns and the day/activity graph out of history queries.
+ */
+public interface ItinerarySummary {
+
+    Long getId();
+
+    String getTripTitle();
+
+    String getCity();
+
+    LocalDate getStartDate();
+}
@@ -0,0 +1,34 @@
+package org.sjsu.travelswarm.repository;
+
+import org.sjsu.travelswarm.model.entity.PlanningOutboxMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface PlanningOutboxRepository extends JpaRepository<PlanningOutboxMessage, Long> {
+
+    // Locks the oldest due message of each chat. A chat's later messages only become eligible once
+    // its older ones are gone, which keeps publishing in order per chat across relay instances.
+    @Query(value = """
+            SELECT * FROM planning_outbox o
+            WHERE o.next_attempt_at <= :now
+              AND NOT EXISTS (SELECT 1 FROM planning_outbox older WHERE older.chat_id = o.chat_id AND older.id < o.id)
+            ORDER BY o.id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<PlanningOutboxMessage> lockNextBatch(@Param("now") Instant now, @Param("limit") int limit);
+
+    boolean existsByCorrelationId(String correlationId);
+
+    @Modifying
+    @Query("UPDATE PlanningOutboxMessage m SET m.attempts = :attempts, m.nextAttemptAt = :nextAttemptAt WHERE m.id = :id")
+    int reschedule(@Param("id") Long id, @Param("attempts") int attempts, @Param("nextAttemptAt") Instant nextAttemptAt);
+
+}
@@ -1,10 +1,17 @@
 package org.sjsu.travelswarm.repository;
 
+import jakarta.persistence.LockModeType;
 import org.sjsu.travelswarm.model.entity.PlanningSession;
 import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +29,41 @@ public interface PlanningSessionRepository extends JpaRepository<PlanningSession
 
     Optional<PlanningSession> findByChatId(Long chatId);
 
+    @Query("SELECT s.status AS status, COUNT(s) AS total FROM PlanningSession s GROUP BY s.status")
+    List<SessionStatusCount> countByStatus();
+
+    // Sessions that attached to another session's in-flight planning request
+    List<PlanningSession> findByCoalescedCorrelationIdAndStatus(String coalescedCorrelationId, SessionStatus status);
+
+    // Locks the sessions that published these requests and the sessions coalesced onto them (in one of the
+    // given statuses; timed-out sessions may still take a late result). One query in id order, so concurrent
+    // deliveries of overlapping results lock in the same order.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT s FROM PlanningSession s
+            WHERE s.correlationId IN :correlationIds
+               OR (s.coalescedCorrelationId IN :correlationIds AND s.status IN :followerStatuses)
+            ORDER BY s.id
+            """)
+    List<PlanningSession> findResultRecipientsForUpdate(@Param("correlationIds") Collection<String> correlationIds,
+                                                        @Param("followerStatuses") Collection<SessionStatus> followerStatuses);
+
+    // PROCESSING sessions past their deadline; rows from before deadlines existed fall back to updatedAt
+    @Query("""
+            SELECT s FROM PlanningSession s
+            WHERE s.status = org.sjsu.travelswarm.model.enums.SessionStatus.PROCESSING
+              AND (s.processingDeadline <= :now OR (s.processingDeadline IS NULL AND s.updatedAt <= :legacyCutoff))
+            ORDER BY s.processingDeadline
+            """)
+    List<PlanningSession> findExpiredProcessing(@Param("now") Instant now, @Param("legacyCutoff") Instant legacyCutoff, Pageable page);
+
+    // Transaction-scoped, so it is released on commit or rollback even if the holder dies
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:key)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("key") long key);
+
+    // Locks the rows a write-behind flush is about to overwrite
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PlanningSession s WHERE s.id IN :ids")
+    List<PlanningSession> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,13 @@
+package org.sjsu.travelswarm.repository;
+
+import org.sjsu.travelswarm.model.enums.SessionStatus;
+
+/**
+ * Number of planning sessions in one status, for the session gauges.
+ */
+public interface SessionStatusCount {
+
+    SessionStatus getStatus();
+
+    long getTotal();
+}
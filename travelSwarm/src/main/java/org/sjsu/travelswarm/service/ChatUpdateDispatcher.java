@@ -0,0 +1,235 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hands incoming Telegram updates to worker threads so one slow chat never blocks the others.
+ * <p>
+ * Every chat gets its own serial mailbox: updates of one chat run strictly in arrival order,
+ * while mailboxes of different chats run concurrently on a bounded pool. Cheap read-only
+ * commands go through a separate fast lane so they are never queued behind an in-flight NLU
+ * call of the same chat. They run concurrently with the chat's mailbox, so they must never
+ * load, create or change the chat's planning session.
+ * <p>
+ * Work items return a {@link CompletionStage}; the mailbox stays closed until that stage
+ * completes, but the worker thread is released as soon as the work item returns. A turn that
+ * waits on a slow NLU call therefore keeps its chat's ordering without occupying the pool.
+ */
+@Service
+@Slf4j
+public class ChatUpdateDispatcher {
+
+    private static final Set<String> FAST_LANE_COMMANDS = Set.of("/history", "/help", "/view");
+
+    private final ConcurrentHashMap<Long, ChatMailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService mailboxExecutor;
+    private final ExecutorService fastLaneExecutor;
+    private final int maxPendingUpdates;
+
+    private final AtomicInteger pendingMailboxUpdates = new AtomicInteger();
+    private final AtomicInteger pendingFastLaneUpdates = new AtomicInteger();
+    private final Timer mailboxWaitTimer;
+    private final Timer fastLaneWaitTimer;
+
+    public ChatUpdateDispatcher(@Value("${app.dispatch.worker-threads:16}") int workerThreads,
+                                @Value("${app.dispatch.fast-lane-threads:4}") int fastLaneThreads,
+                                @Value("${app.dispatch.max-pending-updates:10000}") int maxPendingUpdates,
+                                MeterRegistry meterRegistry) {
+        this.mailboxExecutor = newPool("chat-mailbox-", workerThreads);
+        this.fastLaneExecutor = newPool("chat-fast-lane-", fastLaneThreads);
+        this.maxPendingUpdates = maxPendingUpdates;
+
+        this.mailboxWaitTimer = Timer.builder("telegram.dispatch.wait")
+                .description("Time an update waits before a worker starts processing it")
+                .tag("lane", "mailbox")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fastLaneWaitTimer = Timer.builder("telegram.dispatch.wait")
+                .description("Time an update waits before a worker starts processing it")
+                .tag("lane", "fast")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("telegram.dispatch.queue.depth", pendingMailboxUpdates, AtomicInteger::get)
+                .description("Updates accepted but not yet finished")
+                .tag("lane", "mailbox")
+                .register(meterRegistry);
+        Gauge.builder("telegram.dispatch.queue.depth", pendingFastLaneUpdates, AtomicInteger::get)
+                .description("Updates accepted but not yet finished")
+                .tag("lane", "fast")
+                .register(meterRegistry);
+        Gauge.builder("telegram.dispatch.mailboxes", mailboxes, ConcurrentHashMap::size)
+                .description("Chats with at least one queued or running update")
+                .register(meterRegistry);
+
+        log.info("ChatUpdateDispatcher initialized with {} mailbox workers, {} fast-lane workers, max {} pending updates",
+                workerThreads, fastLaneThreads, maxPendingUpdates);
+    }
+
+    /**
+     * Queues the work for the given chat.
+     *
+     * @param chatId The chat the update belongs to; work for one chat never runs concurrently
+     *               (fast-lane commands excepted).
+     * @param text   The raw message text, used to decide whether the fast lane applies.
+     * @param work   Starts the processing and returns a stage that completes when the update is fully handled.
+     * @return false if the dispatcher is saturated and the update was not accepted.
+     */
+    public boolean dispatch(Long chatId, String text, Supplier<? extends CompletionStage<?>> work) {
+        if (pendingMailboxUpdates.get() + pendingFastLaneUpdates.get() >= maxPendingUpdates) {
+            log.warn("Dispatcher saturated ({} pending updates). Rejecting update for chatId {}", maxPendingUpdates, chatId);
+            return false;
+        }
+
+        QueuedUpdate update = new QueuedUpdate(work, System.nanoTime());
+        if (isFastLane(text)) {
+            pendingFastLaneUpdates.incrementAndGet();
+            fastLaneExecutor.execute(() -> runUpdate(chatId, update, fastLaneWaitTimer)
+                    .whenComplete((ignored, error) -> pendingFastLaneUpdates.decrementAndGet()));
+            return true;
+        }
+
+        pendingMailboxUpdates.incrementAndGet();
+        ChatMailbox mailbox = mailboxes.compute(chatId, (id, existing) -> {
+            ChatMailbox target = existing != null ? existing : new ChatMailbox(id);
+            target.queue.add(update);
+            return target;
+        });
+        mailbox.trySchedule();
+        return true;
+    }
+
+    public int getPendingMailboxUpdates() {
+        return pendingMailboxUpdates.get();
+    }
+
+    public int getPendingFastLaneUpdates() {
+        return pendingFastLaneUpdates.get();
+    }
+
+    static boolean isFastLane(String text) {
+        if (text == null || !text.startsWith("/")) {
+            return false;
+        }
+        int end = text.indexOf(' ');
+        String command = (end < 0 ? text : text.substring(0, end)).toLowerCase(Locale.ROOT);
+        return FAST_LANE_COMMANDS.contains(command);
+    }
+
+    private CompletionStage<?> runUpdate(Long chatId, QueuedUpdate update, Timer waitTimer) {
+        waitTimer.record(System.nanoTime() - update.enqueuedAtNanos(), TimeUnit.NANOSECONDS);
+        CompletionStage<?> completion;
+        try {
+            completion = update.work().get();
+        } catch (Exception e) {
+            log.error("Unhandled error while processing update for chatId {}: {}", chatId, e.getMessage(), e);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (completion == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return completion.whenComplete((ignored, error) -> {
+            if (error != null) {
+                log.error("Unhandled error while processing update for chatId {}: {}", chatId, error.getMessage(), error);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("ChatUpdateDispatcher shutting down with {} mailbox and {} fast-lane updates pending.",
+                pendingMailboxUpdates.get(), pendingFastLaneUpdates.get());
+        mailboxExecutor.shutdown();
+        fastLaneExecutor.shutdown();
+        try {
+            if (!mailboxExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                mailboxExecutor.shutdownNow();
+            }
+            if (!fastLaneExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                fastLaneExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            mailboxExecutor.shutdownNow();
+            fastLaneExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ExecutorService newPool(String namePrefix, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Work is bounded by maxPendingUpdates, so the executor queue itself can stay unbounded.
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    private record QueuedUpdate(Supplier<? extends CompletionStage<?>> work, long enqueuedAtNanos) {
+    }
+
+    /**
+     * Serial queue for one chat. At most one update of the chat is in progress at a time; the
+     * mailbox processes a single update per turn and then yields, so a chatty user cannot starve
+     * the pool.
+     */
+    private final class ChatMailbox implements Runnable {
+
+        private final Long chatId;
+        private final Queue<QueuedUpdate> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private ChatMailbox(Long chatId) {
+            this.chatId = chatId;
+        }
+
+        private void trySchedule() {
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                mailboxExecutor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            QueuedUpdate update = queue.poll();
+            if (update == null) {
+                release();
+                return;
+            }
+            runUpdate(chatId, update, mailboxWaitTimer).whenComplete((ignored, error) -> {
+                pendingMailboxUpdates.decrementAndGet();
+                release();
+            });
+        }
+
+        private void release() {
+            scheduled.set(false);
+            // Drop the mailbox once idle; compute() on the same key serializes this with dispatch().
+            mailboxes.computeIfPresent(chatId, (id, mailbox) ->
+                    mailbox == this && queue.isEmpty() && !scheduled.get() ? null : mailbox);
+            trySchedule();
+        }
+    }
+}
@@ -1,144 +1,267 @@
 package org.sjsu.travelswarm.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.diagnostics.ConversationTurnEvent;
+import org.sjsu.travelswarm.diagnostics.PlanningRoundTrip;
 import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
-import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
-import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
 import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
 import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
 import org.sjsu.travelswarm.model.entity.Itinerary;
 import org.sjsu.travelswarm.model.entity.PlanningSession;
 import org.sjsu.travelswarm.model.enums.SessionStatus;
-import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.sjsu.travelswarm.repository.ItinerarySummary;
+import org.sjsu.travelswarm.service.RenderedItineraryCache.RenderedItinerary;
 import org.sjsu.travelswarm.repository.PlanningSessionRepository;
 import org.sjsu.travelswarm.service.client.NLUClient;
 import org.sjsu.travelswarm.util.MarkdownUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ConversationService {
 
     private final NLUClient nluClient;
-    private final PlanningRequestPublisher planningRequestPublisher;
+    private final PlanningOutboxService planningOutboxService;
     private final PlanningSessionRepository planningSessionRepository;
+    private final PlanningSessionCache sessionCache;
     private final ItineraryService itineraryService;
     private final TelegramBotService telegramBotService;
-    private final ItineraryRepository itineraryRepository;
+    private final ItineraryReuseService itineraryReuseService;
+    private final InFlightPlanningRegistry inFlightPlanningRegistry;
+    private final PendingPlanningRegistry pendingPlanningRegistry;
+    private final PlanningPipelineMetrics pipelineMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Timer turnPrepareTimer;
+    private final Timer turnCompleteTimer;
+
+    @Value("${app.history.page-size:10}")
+    private int historyPageSize;
+
+    // Statuses of sessions a planning result can be meant for: waiting, or timed out and possibly taking a late result
+    private static final List<SessionStatus> RESULT_STATUSES = List.of(SessionStatus.PROCESSING, SessionStatus.FAILED);
 
     @Autowired
     public ConversationService(NLUClient nluClient,
-                               PlanningRequestPublisher planningRequestPublisher,
+                               PlanningOutboxService planningOutboxService,
                                PlanningSessionRepository planningSessionRepository,
+                               PlanningSessionCache sessionCache,
                                ItineraryService itineraryService,
-                               ItineraryRepository itineraryRepository,
-                               @Lazy TelegramBotService telegramBotService) {
+                               ItineraryReuseService itineraryReuseService,
+                               InFlightPlanningRegistry inFlightPlanningRegistry,
+                               PendingPlanningRegistry pendingPlanningRegistry,
+                               PlanningPipelineMetrics pipelineMetrics,
+                               @Lazy TelegramBotService telegramBotService,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry) {
         this.nluClient = nluClient;
-        this.planningRequestPublisher = planningRequestPublisher;
+        this.planningOutboxService = planningOutboxService;
         this.planningSessionRepository = planningSessionRepository;
+        this.sessionCache = sessionCache;
         this.itineraryService = itineraryService;
         this.telegramBotService = telegramBotService;
-        this.itineraryRepository = itineraryRepository;
+        this.itineraryReuseService = itineraryReuseService;
+        this.inFlightPlanningRegistry = inFlightPlanningRegistry;
+        this.pendingPlanningRegistry = pendingPlanningRegistry;
+        this.pipelineMetrics = pipelineMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // The two transactions around the NLU call; the NLU call itself is timed by the client
+        this.turnPrepareTimer = PlanningPipelineMetrics.stageTimer("turn.prepare").register(meterRegistry);
+        this.turnCompleteTimer = PlanningPipelineMetrics.stageTimer("turn.complete").register(meterRegistry);
     }
 
     /**
-     * Main entry point to process text messages from the user (called by Telegram Bot).
+     * Main entry point to process text messages from the user (called by Telegram Bot through the update dispatcher).
+     * The session is loaded and saved in two short transactions; the NLU call in between runs
+     * without holding a thread or a DB connection.
+     *
+     * @return A future that completes once the turn has been fully handled. It never completes exceptionally.
      */
-    @Transactional
-    public void processTelegramUpdate(Long chatId, String message) {
+    public CompletableFuture<Void> processTelegramUpdateAsync(Long chatId, String message) {
+        ConversationTurnEvent turn = new ConversationTurnEvent();
+        turn.begin();
+        turn.chatId = chatId;
+        PlanningSession session;
+        Timer.Sample prepare = Timer.start();
         try {
-            log.info("Processing message from chatId {}: '{}'", chatId, message);
+            session = inTurnTransaction(chatId, () -> prepareTurn(chatId, message, turn));
+            turn.dbDuration = prepare.stop(turnPrepareTimer);
+        } catch (Exception e) {
+            turn.dbDuration = prepare.stop(turnPrepareTimer);
+            log.error("Error during message processing for chatId {}: {}", chatId, e.getMessage(), e);
+            turn.outcome = "error";
+            handleError(chatId, e, "Message processing failed");
+            turn.commit();
+            return CompletableFuture.completedFuture(null);
+        }
+        if (session == null) {
+            turn.commit();
+            return CompletableFuture.completedFuture(null);
+        }
 
-            Optional<PlanningSession> sessionOpt = planningSessionRepository.findByChatId(chatId);
+        Long sessionId = session.getId();
+        long nluStartNanos = System.nanoTime();
+        return nluClient.parseTextAsync(message, session)
+                .thenAccept(nluResult -> {
+                    turn.nluDuration = System.nanoTime() - nluStartNanos;
+                    Timer.Sample complete = Timer.start();
+                    try {
+                        inTurnTransaction(chatId, () -> {
+                            // Re-read the session: the copy loaded before the NLU call is detached by now
+                            PlanningSession current = sessionCache.findByChatId(chatId)
+                                    .filter(loaded -> loaded.getId().equals(sessionId))
+                                    .orElseThrow(() -> new IllegalStateException("Planning session " + sessionId + " disappeared during NLU call"));
+                            handleNluResult(current, nluResult);
+                            turn.statusAfter = current.getStatus().name();
+                            return null;
+                        });
+                    } finally {
+                        turn.dbDuration += complete.stop(turnCompleteTimer);
+                    }
+                })
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error("Error during NLU processing for chatId {}: {}", chatId, cause.getMessage(), cause);
+                    turn.outcome = "error";
+                    handleError(chatId, cause, "NLU processing failed");
+                    return null;
+                })
+                .whenComplete((ignored, error) -> turn.commit());
+    }
 
-            PlanningSession session;
-            if (sessionOpt.isPresent()) {
-                session = sessionOpt.get();
-                log.info("Found existing session ID {} for chatId {} with status {}", session.getId(), chatId, session.getStatus());
+    /**
+     * Runs one of a turn's transactions. A version conflict means the session came stale from the
+     * session cache (the result listener, the timeout sweeper or another instance wrote the row in the
+     * meantime). The cache has dropped the entry by then, so the transaction runs once more on the row.
+     */
+    private <T> T inTurnTransaction(Long chatId, Supplier<T> work) {
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Session of chatId {} changed during the turn; running it again on the current state", chatId);
+            return transactionTemplate.execute(status -> work.get());
+        }
+    }
 
-                // If it's already processing, tell user and exit
-                if (session.getStatus() == SessionStatus.PROCESSING) {
-                    telegramBotService.sendTextMessage(chatId,
-                            "⏳ *I'm still working on your previous request\\.* Please wait for the itinerary to be ready before sending new messages\\."); // Pre-escaped
-                    return;
-                }
+    /**
+     * Loads (or creates) the chat's session and handles everything that does not need the NLU service.
+     *
+     * @return The session to run NLU for, or null if the turn is already fully handled (commands, busy session).
+     */
+    private PlanningSession prepareTurn(Long chatId, String message, ConversationTurnEvent turn) {
+        log.info("Processing message from chatId {}: '{}'", chatId, message);
+
+        // Read-only commands run beside the chat's mailbox, so they must not load, create or change the session
+        if (ChatUpdateDispatcher.isFastLane(message)) {
+            handleCommand(chatId, message, null);
+            turn.outcome = "command";
+            return null;
+        }
 
-                // If it was COMPLETED or FAILED, reset it for a new conversation flow initiated by a non-command message.
-                // (Commands like /new handle their own reset logic within handleCommand)
-                // We only reset here if the user sends a regular message, implying they want to start over implicitly.
-                if (!message.startsWith("/") && (session.getStatus() == SessionStatus.COMPLETED || session.getStatus() == SessionStatus.FAILED)) {
-                    log.info("Resetting completed/failed session ID {} for chatId {} due to new user message.", session.getId(), chatId);
-                    session.setStatus(SessionStatus.STARTED);
-                    // Clear previous planning data
-                    session.setDestination(null);
-                    session.setDurationDays(null);
-                    session.setStartDate(null);
-                    session.setEndDate(null);
-                    session.setBudget(null);
-                    session.setInterests(null);
-                    session.setPreferences(null);
-                    session.setLastClarificationQuestion(null);
-                    session.setCorrelationId(null); // Clear correlation ID until a new request is published
-                    session.setFinalItineraryId(null);
-                    // Note: @PreUpdate in PlanningSession entity will handle updatedAt automatically on save
-                }
-                // If STARTED or WAITING_FOR_CLARIFICATION, just continue using it.
-                // updatedAt will be handled by @PreUpdate upon saving changes later in the flow.
-            } else {
-                // No session exists for this chatId, create a new one
-                log.info("No existing session found for chatId {}. Creating a new one.", chatId);
-                session = new PlanningSession();
-                session.setChatId(chatId);
-                session.setStatus(SessionStatus.STARTED);
-                // @PrePersist in PlanningSession entity will handle createdAt and updatedAt
-                // No need to set correlationId yet
+        Optional<PlanningSession> sessionOpt = sessionCache.findByChatId(chatId);
 
-                // Save immediately to get the ID and persist the new session
-                session = planningSessionRepository.save(session); // This is now safe as no prior session exists
-                log.info("Created and saved new session ID {} for chatId {}", session.getId(), chatId);
+        PlanningSession session;
+        if (sessionOpt.isPresent()) {
+            session = sessionOpt.get();
+            log.info("Found existing session ID {} for chatId {} with status {}", session.getId(), chatId, session.getStatus());
+            turn.statusBefore = session.getStatus().name();
+
+            // If it's already processing, tell user and exit
+            if (session.getStatus() == SessionStatus.PROCESSING) {
+                turn.outcome = "busy";
+                turn.statusAfter = session.getStatus().name();
+                telegramBotService.sendTextMessage(chatId,
+                        "⏳ *I'm still working on your previous request\\.* Please wait for the itinerary to be ready before sending new messages\\."); // Pre-escaped
+                return null;
             }
 
-            // --- IMPORTANT ---
-            // The original code saved the session *within* the `if (existingSession.isPresent())` block
-            // and also when creating a new one. The new logic saves when creating.
-            // We also need to ensure any modifications (like resetting, or later updates in handlers)
-            // are saved before the transaction commits. Saving explicitly here ensures the reset state persists.
-            // Or rely on subsequent saves within handleNluResult/handleCommand.
-            // Let's ensure the reset state is saved before proceeding:
-            if (sessionOpt.isPresent() && !message.startsWith("/") && (session.getStatus() == SessionStatus.COMPLETED || session.getStatus() == SessionStatus.FAILED)) {
-                session = planningSessionRepository.save(session); // Save the reset state explicitly
+            // If it was COMPLETED or FAILED, reset it for a new conversation flow initiated by a non-command message.
+            // (Commands like /new handle their own reset logic within handleCommand)
+            // We only reset here if the user sends a regular message, implying they want to start over implicitly.
+            if (!message.startsWith("/") && (session.getStatus() == SessionStatus.COMPLETED || session.getStatus() == SessionStatus.FAILED)) {
+                log.info("Resetting completed/failed session ID {} for chatId {} due to new user message.", session.getId(), chatId);
+                session.setStatus(SessionStatus.STARTED);
+                // Clear previous planning data
+                session.setDestination(null);
+                session.setDurationDays(null);
+                session.setStartDate(null);
+                session.setEndDate(null);
+                session.setBudget(null);
+                session.setInterests(null);
+                session.setPreferences(null);
+                session.setLastClarificationQuestion(null);
+                session.setCorrelationId(null); // Clear correlation ID until a new request is published
+                session.setCoalescedCorrelationId(null);
+                session.setTimedOutAt(null); // A late result for the abandoned request is not delivered any more
+                session.setFinalItineraryId(null);
+                // The session may be a detached copy from the session cache, so the reset must be saved explicitly
+                session = sessionCache.save(session);
             }
-            // --- End modification ---
+            // If STARTED or WAITING_FOR_CLARIFICATION, just continue using it.
+            // updatedAt will be handled by @PreUpdate upon saving changes later in the flow.
+        } else {
+            // No session exists for this chatId, create a new one
+            log.info("No existing session found for chatId {}. Creating a new one.", chatId);
+            session = new PlanningSession();
+            session.setChatId(chatId);
+            session.setStatus(SessionStatus.STARTED);
+            // @PrePersist in PlanningSession entity will handle createdAt and updatedAt
+            // No need to set correlationId yet
+
+            // Save immediately to get the ID and persist the new session
+            session = sessionCache.save(session); // This is now safe as no prior session exists
+            log.info("Created and saved new session ID {} for chatId {}", session.getId(), chatId);
+        }
 
-            // Process the message using the obtained/created/reset session
-            // Note: The 'session' object might have been modified (reset) or is the newly created one.
-            if (message.startsWith("/")) {
-                handleCommand(chatId, message, session);
-            } else {
-                handleUserMessage(chatId, message, session);
-            }
-        } catch (Exception e) {
-            log.error("Error during message processing for chatId {}: {}", chatId, e.getMessage(), e);
-            handleError(chatId, e, "Message processing failed");
+        // Process the message using the obtained/created/reset session
+        // Note: The 'session' object might have been modified (reset) or is the newly created one.
+        if (message.startsWith("/")) {
+            handleCommand(chatId, message, session);
+            turn.outcome = "command";
+            turn.statusAfter = session.getStatus().name();
+            return null;
         }
+        turn.outcome = "message";
+        return session;
     }
 
     private void handleCommand(Long chatId, String command, PlanningSession currentSession) {
         String commandBase = command.split(" ")[0].toLowerCase();
         String[] commandArgs = command.split(" ");
 
-        switch (command.toLowerCase()) {
+        switch (commandBase) {
             case "/start":
                 telegramBotService.sendTextMessage(chatId,
                         "🌟 *Welcome to TravelSwarm\\!* 🌟\n\n" + // Keep your \\!
@@ -157,7 +280,7 @@ public class ConversationService {
                 break;
             case "/new":
                 // Use the session object passed into handleCommand.
-                // The processTelegramUpdate method ensures 'currentSession' is the correct, unique session for this chatId.
+                // prepareTurn ensures 'currentSession' is the correct, unique session for this chatId.
                 // We just need to reset its state for the new request.
                 log.info("Handling /new command for chatId {}. Resetting session ID {}.", chatId, currentSession.getId());
                 currentSession.setStatus(SessionStatus.STARTED);
@@ -171,43 +294,19 @@ public class ConversationService {
                 currentSession.setPreferences(null);
                 currentSession.setLastClarificationQuestion(null);
                 currentSession.setCorrelationId(null); // Clear correlation ID
+                currentSession.setCoalescedCorrelationId(null);
+                currentSession.setTimedOutAt(null);
                 currentSession.setFinalItineraryId(null);
                 // @PreUpdate in PlanningSession entity handles updatedAt
 
-                planningSessionRepository.save(currentSession); // Save the reset state
+                sessionCache.save(currentSession); // Save the reset state
 
                 // Send response (ensure it's escaped using the util)
                 telegramBotService.sendTextMessage(chatId, MarkdownUtil.escapeMarkdownV2("🎒 *Let's plan your next adventure!* Where would you like to explore?"));
                 break;
             case "/history":
                 log.info("Handling /history command for chatId {}", chatId);
-                List<Itinerary> itineraries = itineraryService.getItinerariesForUser(chatId);
-
-                if (itineraries.isEmpty()) {
-                    telegramBotService.sendTextMessage(chatId, MarkdownUtil.escapeMarkdownV2("You don't have any saved itineraries yet\\. Use /new to create one\\!")); // Escaped . !
-                } else {
-                    StringBuilder historyMsg = new StringBuilder("*Your Past Itineraries:*\n\n");
-                    int count = 1;
-                    for (Itinerary itinerary : itineraries) {
-                        String title = MarkdownUtil.escapeMarkdownV2(itinerary.getTripTitle() != null ? itinerary.getTripTitle() : "Trip to " + itinerary.getCity());
-                        String dateStr = itinerary.getStartDate() != null ?
-                                itinerary.getStartDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "No Start Date";
-                        String escapedDateInfo = MarkdownUtil.escapeMarkdownV2(dateStr); // <<< --- ESCAPE THE DATE STRING HERE
-
-                        historyMsg.append(count).append("\\. ").append(title)
-                                .append(" \\(ID: `").append(itinerary.getId()).append("`, Start: ")
-                                .append(escapedDateInfo) // <<< --- APPEND THE ESCAPED DATE
-                                .append("\\)\n");
-                        count++;
-                        if (count > 10) {
-                            historyMsg.append("\\.\\.\\. (showing latest 10)\n");
-                            break;
-                        }
-                    }
-                    log.info("history message till now :: {}", historyMsg);
-                    historyMsg.append("\nType `/view <ID>` to see the details of an itinerary\\.");
-                    telegramBotService.sendTextMessage(chatId, historyMsg.toString());
-                }
+                sendHistoryPage(chatId, commandArgs);
                 break; // End of history case
 
             case "/view": // <<< --- ADD THIS CASE (for viewing details) ---
@@ -248,29 +347,85 @@ public class ConversationService {
         }
     }
 
+    /**
+     * Sends one page of the user's itineraries. Usage: {@code /history}, {@code /history next <ID>}
+     * (older than that ID) or {@code /history prev <ID>} (newer than that ID).
+     */
+    private void sendHistoryPage(Long chatId, String[] commandArgs) {
+        Long olderThanId = null;
+        Long newerThanId = null;
+        if (commandArgs.length > 2) {
+            try {
+                long cursor = Long.parseLong(commandArgs[2]);
+                if ("next".equalsIgnoreCase(commandArgs[1])) {
+                    olderThanId = cursor;
+                } else if ("prev".equalsIgnoreCase(commandArgs[1])) {
+                    newerThanId = cursor;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring invalid /history cursor '{}' for chatId {}", commandArgs[2], chatId);
+            }
+        }
+
+        ItineraryService.ItineraryPage page = itineraryService.getItineraryPage(chatId, olderThanId, newerThanId, historyPageSize);
+        if (page.items().isEmpty() && (olderThanId != null || newerThanId != null)) {
+            // Stale cursor (e.g. itineraries deleted); fall back to the newest page
+            page = itineraryService.getItineraryPage(chatId, null, null, historyPageSize);
+        }
+
+        if (page.items().isEmpty()) {
+            telegramBotService.sendTextMessage(chatId, MarkdownUtil.escapeMarkdownV2("You don't have any saved itineraries yet\\. Use /new to create one\\!")); // Escaped . !
+            return;
+        }
+
+        StringBuilder historyMsg = new StringBuilder("*Your Past Itineraries:*\n\n");
+        int count = 1;
+        for (ItinerarySummary itinerary : page.items()) {
+            String title = MarkdownUtil.escapeMarkdownV2(itinerary.getTripTitle() != null ? itinerary.getTripTitle() : "Trip to " + itinerary.getCity());
+            String dateStr = itinerary.getStartDate() != null ?
+                    itinerary.getStartDate().format(DateTimeFormatter.ISO_LOCAL_DATE) : "No Start Date";
+            String escapedDateInfo = MarkdownUtil.escapeMarkdownV2(dateStr);
+
+            historyMsg.append(count).append("\\. ").append(title)
+                    .append(" \\(ID: `").append(itinerary.getId()).append("`, Start: ")
+                    .append(escapedDateInfo)
+                    .append("\\)\n");
+            count++;
+        }
+        List<ItinerarySummary> items = page.items();
+        if (page.hasNewer()) {
+            historyMsg.append("\n⬅️ Newer: `/history prev ").append(items.get(0).getId()).append("`");
+        }
+        if (page.hasOlder()) {
+            historyMsg.append("\n➡️ Older: `/history next ").append(items.get(items.size() - 1).getId()).append("`");
+        }
+        historyMsg.append("\n\nType `/view <ID>` to see the details of an itinerary\\.");
+        telegramBotService.sendTextMessage(chatId, historyMsg.toString());
+    }
+
     private void viewSpecificItinerary(Long chatId, Long itineraryId) {
         log.info("Attempting to view itinerary ID {} for user {}", itineraryId, chatId);
-        Optional<Itinerary> itineraryOpt = itineraryRepository.findById(itineraryId);
+        Optional<RenderedItinerary> renderedOpt;
         String userId = String.valueOf(chatId);
+        try {
+            // Served from the rendered-itinerary cache or the stored rendering; no DTO rebuild in the common case
+            renderedOpt = itineraryService.getRenderedItinerary(itineraryId);
+        } catch (Exception e) {
+            log.error("Error loading itinerary ID {} for viewing: {}", itineraryId, e.getMessage(), e);
+            sendTelegramResponse(chatId, MarkdownUtil.escapeMarkdownV2("Sorry, there was an error retrieving the details for that itinerary\\."));
+            return;
+        }
 
-        itineraryOpt.ifPresentOrElse(itinerary -> {
+        renderedOpt.ifPresentOrElse(rendered -> {
             // Security check: Ensure the itinerary belongs to the requesting user
-            if (!itinerary.getUserId().equals(userId)) {
+            if (!rendered.userId().equals(userId)) {
                 log.warn("User {} attempted to view itinerary ID {} which belongs to another user.", userId, itineraryId);
                 telegramBotService.sendTextMessage(chatId, MarkdownUtil.escapeMarkdownV2("Sorry, you can only view your own itineraries."));
                 return;
             }
 
-            log.info("Found itinerary ID {}. Converting to DTO and formatting.", itineraryId);
-            try {
-                // --- Conversion step needed ---
-                FinalItineraryDto dto = itineraryService.convertEntityToDto(itinerary); // We need to implement this method
-                String formattedItinerary = formatItineraryForTelegram(dto);
-                sendTelegramResponse(chatId, formattedItinerary);
-            } catch (Exception e) {
-                log.error("Error converting or formatting itinerary ID {} for viewing: {}", itineraryId, e.getMessage(), e);
-                sendTelegramResponse(chatId, MarkdownUtil.escapeMarkdownV2("Sorry, there was an error retrieving the details for that itinerary\\."));
-            }
+            log.info("Found itinerary ID {}. Sending {} rendered message(s).", itineraryId, rendered.chunks().size());
+            sendTelegramChunks(chatId, rendered.chunks());
 
         }, () -> {
             // Itinerary ID not found
@@ -279,18 +434,6 @@ public class ConversationService {
         });
     }
 
-    private void handleUserMessage(Long chatId, String message, PlanningSession session) {
-        try {
-            // Process the message with NLU
-            NLUResultDto nluResult = nluClient.parseText(message, session);
-
-            handleNluResult(session, nluResult);
-        } catch (Exception e) {
-            log.error("Error during NLU processing for chatId {}: {}", chatId, e.getMessage(), e);
-            handleError(chatId, e, "NLU processing failed");
-        }
-    }
-
     /**
      * Handles the result received from the NLU service.
      * Now operates within a transaction to ensure session state is saved consistently.
@@ -315,11 +458,28 @@ public class ConversationService {
             log.info("NLU requires clarification for chatId {}. Question: {}", chatId, nluResult.getClarificationQuestion());
             session.setStatus(SessionStatus.WAITING_FOR_CLARIFICATION);
             session.setLastClarificationQuestion(nluResult.getClarificationQuestion());
-            planningSessionRepository.save(session); // Save updated state
+            sessionCache.save(session); // Save updated state
             sendTelegramResponse(chatId, nluResult.getClarificationQuestion());
 
         } else if ("COMPLETE".equals(nluResult.getStatus()) && session.getDestination() != null && (session.getDurationDays() != null || (session.getStartDate() != null && session.getEndDate() != null))) {
             log.info("NLU parsing complete for chatId {}. Preparing planning request.", chatId);
+
+            // Build the DTO from the session state
+            PlanningRequestDto planningRequest = buildPlanningRequest(session);
+
+            // An equivalent request may already have been answered recently; serve that instead of running the agent
+            Optional<ItineraryReuseService.ReusedItinerary> reused = itineraryReuseService.reuseFor(planningRequest);
+            if (reused.isPresent()) {
+                log.info("Serving reused itinerary ID {} to chatId {} without an agent run.", reused.get().itinerary().getId(), chatId);
+                session.setStatus(SessionStatus.COMPLETED);
+                session.setLastClarificationQuestion(null);
+                session.setCorrelationId(null);
+                session.setFinalItineraryId(reused.get().itinerary().getId());
+                sessionCache.save(session);
+                sendTelegramChunks(chatId, reused.get().itinerary().getRenderedChunks());
+                return;
+            }
+
             // Ensure all necessary fields are populated on the session object now
             session.setStatus(SessionStatus.PROCESSING); // Mark as request sent
             session.setLastClarificationQuestion(null); // Clear clarification question
@@ -327,24 +487,26 @@ public class ConversationService {
             String correlationId = UUID.randomUUID().toString();
             session.setCorrelationId(correlationId); // Store correlation ID in DB
 
-            // Save the session BEFORE publishing the message
-            planningSessionRepository.save(session);
+            // If an identical request is already with the agent, wait for its result instead of publishing again
+            String leaderCorrelationId = inFlightPlanningRegistry.claimOrAttach(PlanningRequestKey.of(planningRequest), correlationId);
+            session.setCoalescedCorrelationId(leaderCorrelationId);
+
+            // Give up on the agent after app.planning.timeout.duration (see PlanningTimeoutSweeper)
+            session.setProcessingDeadline(pendingPlanningRegistry.deadlineFromNow());
+            session.setTimedOutAt(null);
+            session.setTimeoutRepublishes(0);
+
+            // Save the session in the same transaction as the outbox message
+            sessionCache.save(session);
             log.info("Saved session for Correlation ID {} / Chat ID {}", correlationId, chatId);
+            pendingPlanningRegistry.register(leaderCorrelationId != null ? leaderCorrelationId : correlationId, session.getProcessingDeadline());
 
-            // Build the DTO from the session state
-            PlanningRequestDto planningRequest = PlanningRequestDto.builder()
-                    .userId(String.valueOf(chatId))
-                    .destination(session.getDestination())
-                    .durationDays(session.getDurationDays())
-                    .startDate(session.getStartDate())
-                    .endDate(session.getEndDate())
-                    .budget(session.getBudget())
-                    .interests(session.getInterests())
-                    .preferences(session.getPreferences()) // Pass preferences if stored
-                    .build();
-
-            // Publish the request to RabbitMQ
-            planningRequestPublisher.publishRequest(planningRequest, correlationId);
+            if (leaderCorrelationId == null) {
+                // Queue the request in the outbox; the relay publishes it to RabbitMQ after commit
+                planningOutboxService.publish(chatId, correlationId, planningRequest);
+            } else {
+                log.info("Chat ID {} attached to in-flight Correlation ID {}; not publishing.", chatId, leaderCorrelationId);
+            }
 
             String escapedDest = MarkdownUtil.escapeMarkdownV2(planningRequest.getDestination() != null ? planningRequest.getDestination() : "your destination");
             // Manually escape the dots and exclamation mark HERE
@@ -357,69 +519,325 @@ public class ConversationService {
                     ? nluResult.getClarificationQuestion()
                     : "I'm missing some key details (like destination or duration). Could you please provide them?";
             session.setLastClarificationQuestion(clarification);
-            planningSessionRepository.save(session);
+            sessionCache.save(session);
             sendTelegramResponse(chatId, clarification);
         }
     }
 
+    private PlanningRequestDto buildPlanningRequest(PlanningSession session) {
+        return PlanningRequestDto.builder()
+                .userId(String.valueOf(session.getChatId()))
+                .destination(session.getDestination())
+                .durationDays(session.getDurationDays())
+                .startDate(session.getStartDate())
+                .endDate(session.getEndDate())
+                .budget(session.getBudget())
+                .interests(session.getInterests())
+                .preferences(session.getPreferences()) // Pass preferences if stored
+                .build();
+    }
+
     /**
      * Handles the final itinerary result received from the results queue.
+     * The result is delivered to the session that published the request and to every session
+     * that was coalesced onto it while it was in flight; each user gets their own stored copy.
      */
     @Transactional
     public void handlePlanningResult(String correlationId, FinalItineraryDto itineraryDto) {
         log.info("Received final itinerary for Correlation ID: {}", correlationId);
+        deliverResults(Map.of(correlationId, itineraryDto));
+    }
 
-        Optional<PlanningSession> sessionOpt = planningSessionRepository.findByCorrelationId(correlationId);
+    /**
+     * Batch variant of {@link #handlePlanningResult}: the waiting sessions of all results are loaded
+     * with one query and every itinerary is stored in one transaction. Telegram messages go out
+     * after the commit.
+     *
+     * @param resultsByCorrelationId Results in delivery order, keyed by correlation ID.
+     */
+    @Transactional
+    public void handlePlanningResults(Map<String, FinalItineraryDto> resultsByCorrelationId) {
+        log.info("Received {} final itineraries in one batch", resultsByCorrelationId.size());
+        deliverResults(resultsByCorrelationId);
+    }
 
-        if (sessionOpt.isPresent()) {
-            PlanningSession session = sessionOpt.get();
-            long chatId = session.getChatId();
+    /**
+     * Locks the sessions waiting for these results before delivering them. A duplicate of a result
+     * (redelivered, or answered twice by the agent) waits for the first delivery to commit and then
+     * finds its sessions no longer PROCESSING, so it is counted as a duplicate instead of stored twice.
+     */
+    private void deliverResults(Map<String, FinalItineraryDto> resultsByCorrelationId) {
+        Set<String> correlationIds = resultsByCorrelationId.keySet();
+        Map<String, PlanningSession> sessionsByCorrelationId = new HashMap<>();
+        Map<String, List<PlanningSession>> followersByCorrelationId = new HashMap<>();
+        for (PlanningSession session : planningSessionRepository.findResultRecipientsForUpdate(correlationIds, RESULT_STATUSES)) {
+            // Null checks first: the key set of Map.of(...) rejects contains(null)
+            if (session.getCorrelationId() != null && correlationIds.contains(session.getCorrelationId())) {
+                sessionsByCorrelationId.put(session.getCorrelationId(), session);
+            }
+            if (session.getCoalescedCorrelationId() != null && correlationIds.contains(session.getCoalescedCorrelationId())
+                    && RESULT_STATUSES.contains(session.getStatus())) {
+                followersByCorrelationId.computeIfAbsent(session.getCoalescedCorrelationId(), key -> new ArrayList<>()).add(session);
+            }
+        }
+
+        resultsByCorrelationId.forEach((correlationId, itineraryDto) -> deliverToWaitingSessions(correlationId, itineraryDto,
+                Optional.ofNullable(sessionsByCorrelationId.get(correlationId)),
+                followersByCorrelationId.getOrDefault(correlationId, List.of())));
+    }
+
+    private void deliverToWaitingSessions(String correlationId, FinalItineraryDto itineraryDto,
+                                          Optional<PlanningSession> sessionOpt, List<PlanningSession> followers) {
+        inFlightPlanningRegistry.complete(correlationId);
+        pendingPlanningRegistry.complete(correlationId);
+
+        // The publishing session first, then every session coalesced onto it
+        List<PlanningSession> recipients = new ArrayList<>(followers.size() + 1);
+        sessionOpt.filter(session -> acceptsResult(session, correlationId)).ifPresent(session -> {
             log.info("ConversationService: Found PlanningSession ID {} for Chat ID {} (CorrID: {})",
-                    session.getId(), chatId, correlationId);
-
-            boolean processingError = false;
-            // Check if DTO indicates an error from Python side (e.g. if it's a raw string with "error")
-            if (itineraryDto.getDestination() == null && (itineraryDto.getDays() == null || itineraryDto.getDays().isEmpty())) {
-                if (itineraryDto.getSummary() != null && itineraryDto.getSummary().toLowerCase().contains("error")) {
-                    processingError = true;
-                } else if (itineraryDto.getGeneral_notes() != null && itineraryDto.getGeneral_notes().stream().anyMatch(s -> s.toLowerCase().contains("error"))) {
-                    processingError = true;
-                } else {
-                    // If critical fields are missing, assume it's an error structure rather than a valid itinerary
-                    log.warn("Itinerary DTO seems to be an error fallback for CorrID {}. DTO: {}", correlationId, itineraryDto);
-                    processingError = true; // Treat as error if key fields missing
+                    session.getId(), session.getChatId(), correlationId);
+            recipients.add(session);
+        });
+        int leaders = recipients.size();
+        followers.stream().filter(follower -> acceptsResult(follower, correlationId)).forEach(recipients::add);
+
+        if (recipients.isEmpty()) {
+            log.warn("Received itinerary result for unknown or already processed Correlation ID: {}. Ignoring.", correlationId);
+            return;
+        }
+        if (recipients.size() > leaders) {
+            log.info("Fanning out result for Correlation ID {} to {} coalesced session(s)", correlationId, recipients.size() - leaders);
+        }
+
+        boolean processingError = isErrorResult(correlationId, itineraryDto);
+        // Lets ItineraryService and the itinerary sends report into the result's JFR event, if one is recorded
+        PlanningRoundTrip roundTrip = PlanningRoundTrip.activate(correlationId);
+        try {
+            if (roundTrip != null) {
+                roundTrip.recipients(recipients.size());
+            }
+            Itinerary sourceItinerary = null;
+            for (PlanningSession recipient : recipients) {
+                Itinerary stored = deliverPlanningResult(recipient, itineraryDto, processingError, correlationId, sourceItinerary);
+                if (sourceItinerary == null) {
+                    sourceItinerary = stored;
                 }
             }
+        } finally {
+            PlanningRoundTrip.deactivate();
+        }
+    }
 
-            if (processingError) {
-                session.setStatus(SessionStatus.FAILED);
-                log.error("Itinerary generation reported failure for Correlation ID {}. DTO: {}", correlationId, itineraryDto);
-                sendTelegramResponse(chatId, "Sorry, I encountered an error while generating the details of your itinerary\\. Please try again\\.");
+    /**
+     * Sessions waiting for the result take it. A session the timeout sweeper already failed takes it only
+     * if late results are delivered ({@code app.planning.timeout.late-result}); any other session already
+     * has its answer and the result is a duplicate (e.g. the agent answered a re-published request twice).
+     */
+    private boolean acceptsResult(PlanningSession session, String correlationId) {
+        if (session.getStatus() == SessionStatus.PROCESSING) {
+            return true;
+        }
+        boolean timedOut = session.getStatus() == SessionStatus.FAILED && session.getTimedOutAt() != null;
+        return pendingPlanningRegistry.acceptLateResult(correlationId, session.getChatId(), timedOut);
+    }
+
+    /**
+     * The planning request never reached the broker, so no result will arrive. Fail the session
+     * and every session coalesced onto it instead of leaving them PROCESSING forever.
+     */
+    @EventListener
+    @Transactional
+    public void handlePublishFailure(PlanningPublishFailedEvent event) {
+        String correlationId = event.correlationId();
+        inFlightPlanningRegistry.complete(correlationId);
+        pendingPlanningRegistry.complete(correlationId);
+
+        List<PlanningSession> affected = new ArrayList<>(
+                planningSessionRepository.findByCoalescedCorrelationIdAndStatus(correlationId, SessionStatus.PROCESSING));
+        planningSessionRepository.findByCorrelationId(correlationId)
+                .filter(session -> session.getStatus() == SessionStatus.PROCESSING)
+                .ifPresent(affected::add);
+        log.error("Failing {} session(s) for unpublished Correlation ID {}: {}", affected.size(), correlationId, event.reason());
+
+        for (PlanningSession session : affected) {
+            session.setStatus(SessionStatus.FAILED);
+            session.setCoalescedCorrelationId(null);
+            sessionCache.save(session);
+            sendTelegramResponse(session.getChatId(), "Sorry, I couldn't start planning your trip right now\\. Please try again in a moment\\.");
+        }
+    }
+
+    /**
+     * Handles PROCESSING sessions whose deadline has passed. Sessions waiting on the same request are
+     * handled together: the request is published again while {@code app.planning.timeout.max-republishes}
+     * allows it, otherwise the sessions are failed and their users told. Failed sessions keep their
+     * correlation ids, so a result arriving later is recognised as late (see {@link #acceptsResult}).
+     * Called by {@link PlanningTimeoutSweeper} in the transaction that holds the sweep lock.
+     *
+     * @return The number of expired sessions handled.
+     */
+    @Transactional
+    public int handleExpiredSessions(Instant now, int limit) {
+        List<PlanningSession> expired = planningSessionRepository.findExpiredProcessing(
+                now, now.minus(pendingPlanningRegistry.timeout()), PageRequest.of(0, limit));
+        Map<String, List<PlanningSession>> byRequest = expired.stream().collect(Collectors.groupingBy(
+                session -> session.getCoalescedCorrelationId() != null ? session.getCoalescedCorrelationId() : session.getCorrelationId(),
+                LinkedHashMap::new, Collectors.toList()));
+
+        byRequest.forEach((requestCorrelationId, sessions) -> {
+            int republishes = sessions.stream()
+                    .mapToInt(session -> session.getTimeoutRepublishes() != null ? session.getTimeoutRepublishes() : 0)
+                    .max().orElse(0);
+            // A request still in the outbox never reached the agent; the relay fails it on its own
+            if (republishes < pendingPlanningRegistry.maxRepublishes() && !planningOutboxService.isQueued(requestCorrelationId)) {
+                republishExpired(requestCorrelationId, sessions, republishes + 1);
             } else {
-                try {
-                    Itinerary savedItinerary = itineraryService.storeItinerary(itineraryDto, String.valueOf(chatId));
-                    log.info("Itinerary DTO stored successfully with DB ID: {}", savedItinerary.getId());
-                    session.setFinalItineraryId(savedItinerary.getId());
-                    session.setStatus(SessionStatus.COMPLETED);
-                    log.info("Planning session COMPLETED for Correlation ID {}", correlationId);
-
-                    String formattedItinerary = formatItineraryForTelegram(itineraryDto);
-                    sendTelegramResponse(chatId, formattedItinerary);
-                } catch (Exception e) {
-                    log.error("Failed to store or send itinerary for Correlation ID: {}. Error: {}", correlationId, e.getMessage(), e);
-                    session.setStatus(SessionStatus.FAILED);
-                    sendTelegramResponse(chatId, "I found an itinerary, but there was an issue processing or saving it\\. Please try again\\.");
+                timeOutExpired(requestCorrelationId, sessions, now);
+            }
+        });
+        return expired.size();
+    }
+
+    private void republishExpired(String requestCorrelationId, List<PlanningSession> sessions, int republishes) {
+        Instant deadline = pendingPlanningRegistry.deadlineFromNow();
+        for (PlanningSession session : sessions) {
+            session.setTimeoutRepublishes(republishes);
+            session.setProcessingDeadline(deadline);
+            sessionCache.save(session);
+        }
+        // The same correlation id: whichever answer arrives first is delivered, the other one is a duplicate
+        PlanningSession publisher = sessions.stream()
+                .filter(session -> requestCorrelationId.equals(session.getCorrelationId()))
+                .findFirst().orElse(sessions.get(0));
+        planningOutboxService.publish(publisher.getChatId(), requestCorrelationId, buildPlanningRequest(publisher));
+        pendingPlanningRegistry.register(requestCorrelationId, deadline);
+        pendingPlanningRegistry.recordRepublished();
+        log.warn("No result for Correlation ID {} before its deadline; published it again (attempt {}) for {} session(s)",
+                requestCorrelationId, republishes + 1, sessions.size());
+    }
+
+    private void timeOutExpired(String requestCorrelationId, List<PlanningSession> sessions, Instant now) {
+        inFlightPlanningRegistry.complete(requestCorrelationId);
+        pendingPlanningRegistry.complete(requestCorrelationId);
+        String text = pendingPlanningRegistry.lateResultPolicy() == PendingPlanningRegistry.LateResultPolicy.DELIVER
+                ? "⌛ Planning your trip is taking much longer than expected, so I've stopped waiting\\. If the itinerary still arrives, I'll send it to you\\. You can also send me a new message to start over\\."
+                : "⌛ Sorry, planning your trip took too long\\. Please try again in a moment\\.";
+        for (PlanningSession session : sessions) {
+            session.setStatus(SessionStatus.FAILED);
+            session.setTimedOutAt(now);
+            sessionCache.save(session);
+            sendTelegramResponse(session.getChatId(), text);
+        }
+        pendingPlanningRegistry.recordTimedOut(sessions.size());
+        log.error("No result for Correlation ID {} before its deadline; failed {} session(s)", requestCorrelationId, sessions.size());
+    }
+
+    private boolean isErrorResult(String correlationId, FinalItineraryDto itineraryDto) {
+        boolean processingError = false;
+        // Check if DTO indicates an error from Python side (e.g. if it's a raw string with "error")
+        if (itineraryDto.getDestination() == null && (itineraryDto.getDays() == null || itineraryDto.getDays().isEmpty())) {
+            if (itineraryDto.getSummary() != null && itineraryDto.getSummary().toLowerCase().contains("error")) {
+                processingError = true;
+            } else if (itineraryDto.getGeneral_notes() != null && itineraryDto.getGeneral_notes().stream().anyMatch(s -> s.toLowerCase().contains("error"))) {
+                processingError = true;
+            } else {
+                // If critical fields are missing, assume it's an error structure rather than a valid itinerary
+                log.warn("Itinerary DTO seems to be an error fallback for CorrID {}. DTO: {}", correlationId, itineraryDto);
+                processingError = true; // Treat as error if key fields missing
+            }
+        }
+        return processingError;
+    }
+
+    /**
+     * Stores the itinerary for one waiting session and notifies its user.
+     *
+     * @param sourceItinerary The copy already stored for another session of the same request, or null
+     *                        if this session is the first to receive the result.
+     * @return The itinerary stored for this session, or null if nothing was stored.
+     */
+    private Itinerary deliverPlanningResult(PlanningSession session, FinalItineraryDto itineraryDto, boolean processingError,
+                                            String correlationId, Itinerary sourceItinerary) {
+        long chatId = session.getChatId();
+        Itinerary savedItinerary = null;
+        if (processingError) {
+            session.setStatus(SessionStatus.FAILED);
+            log.error("Itinerary generation reported failure for Correlation ID {} (chatId {}). DTO: {}", correlationId, chatId, itineraryDto);
+            sendTelegramResponse(chatId, "Sorry, I encountered an error while generating the details of your itinerary\\. Please try again\\.");
+        } else {
+            try {
+                if (sourceItinerary == null) {
+                    // The session was last updated when the request was published, so this approximates the agent run time
+                    Duration agentDuration = session.getUpdatedAt() != null ? Duration.between(session.getUpdatedAt(), Instant.now()) : null;
+                    savedItinerary = itineraryService.storeGeneratedItinerary(itineraryDto, String.valueOf(chatId),
+                            PlanningRequestKey.of(buildPlanningRequest(session)), agentDuration);
+                } else {
+                    savedItinerary = itineraryReuseService.copyFor(sourceItinerary, buildPlanningRequest(session)).itinerary();
                 }
+                log.info("Itinerary DTO stored successfully with DB ID: {}", savedItinerary.getId());
+                session.setFinalItineraryId(savedItinerary.getId());
+                session.setStatus(SessionStatus.COMPLETED);
+                log.info("Planning session COMPLETED for Correlation ID {} (chatId {})", correlationId, chatId);
+
+                // Rendered once when the itinerary was stored
+                sendTelegramChunks(chatId, savedItinerary.getRenderedChunks(), correlationId);
+            } catch (Exception e) {
+                log.error("Failed to store or send itinerary for Correlation ID: {}. Error: {}", correlationId, e.getMessage(), e);
+                session.setStatus(SessionStatus.FAILED);
+                sendTelegramResponse(chatId, "I found an itinerary, but there was an issue processing or saving it\\. Please try again\\.");
             }
-            planningSessionRepository.save(session);
+        }
+        session.setCoalescedCorrelationId(null);
+        session.setTimedOutAt(null);
+        sessionCache.save(session);
+        return savedItinerary;
+    }
+
+    private void sendTelegramChunks(long chatId, List<String> chunks) {
+        sendTelegramChunks(chatId, chunks, null);
+    }
 
+    /**
+     * @param correlationId The planning request the chunks answer, for the end-to-end timer; null for anything else.
+     */
+    private void sendTelegramChunks(long chatId, List<String> chunks, String correlationId) {
+        PlanningRoundTrip roundTrip = correlationId != null ? PlanningRoundTrip.active() : null;
+        Runnable send = () -> {
+            CompletableFuture<Void> sent = telegramBotService.sendMessageChunks(chatId, chunks);
+            if (correlationId != null) {
+                pipelineMetrics.delivering(correlationId, sent);
+            }
+            if (roundTrip != null) {
+                roundTrip.sending(sent, chunks.size());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
         } else {
-            log.warn("Received itinerary result for unknown or already processed Correlation ID: {}. Ignoring.", correlationId);
+            send.run();
         }
     }
 
+    /**
+     * Sends a message to the user. Inside a transaction the message is held back until the commit,
+     * so users are never told about state that is then rolled back.
+     */
     private void sendTelegramResponse(long chatId, String text) {
-        telegramBotService.sendTextMessage(chatId, text);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    telegramBotService.sendTextMessage(chatId, text);
+                }
+            });
+        } else {
+            telegramBotService.sendTextMessage(chatId, text);
+        }
     }
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
@@ -433,7 +851,7 @@ public class ConversationService {
                 .ifPresent(session -> {
                     session.setStatus(SessionStatus.FAILED);
                         session.setLastClarificationQuestion("Error: " + contextMessage);
-                    planningSessionRepository.save(session);
+                    sessionCache.save(session);
                 });
 
             // Send user-friendly error message
@@ -450,140 +868,4 @@ public class ConversationService {
             }
         }
     }
-
-    private String formatItineraryForTelegram(FinalItineraryDto dto) {
-        log.info("Formatting FinalItineraryDto for Telegram output for destination: {}",
-                dto.getDestination() != null ? MarkdownUtil.escapeMarkdownV2(dto.getDestination()) : "N/A"); // Log escaped
-        StringBuilder sb = new StringBuilder();
-
-        // Trip header
-        sb.append("✈️ *Trip to ").append(MarkdownUtil.escapeMarkdownV2(dto.getDestination() != null ? dto.getDestination() : "N/A")).append("*\n\n");
-
-        // Summary
-        if (dto.getSummary() != null && !dto.getSummary().isBlank()) {
-            sb.append("_").append(MarkdownUtil.escapeMarkdownV2(dto.getSummary())).append("_\n\n");
-        }
-
-        // Trip details
-        sb.append("⏱ *Duration:* ").append(MarkdownUtil.escapeMarkdownV2(dto.getDurationDays() != null ? dto.getDurationDays() + " days" : "Not specified")).append("\n");
-        if (dto.getStartDate() != null) sb.append("📅 *Start Date:* ").append(MarkdownUtil.escapeMarkdownV2(dto.getStartDate().toString())).append("\n"); // Assuming LocalDate or similar
-        if (dto.getEndDate() != null) sb.append("📅 *End Date:* ").append(MarkdownUtil.escapeMarkdownV2(dto.getEndDate().toString())).append("\n");
-        if (dto.getBudget() != null) sb.append("💰 *Budget:* ").append(MarkdownUtil.escapeMarkdownV2(dto.getBudget())).append("\n");
-        if (dto.getInterests() != null && !dto.getInterests().isEmpty()) {
-            // Escape each interest before joining
-            List<String> escapedInterests = dto.getInterests().stream().map(MarkdownUtil::escapeMarkdownV2).toList();
-            sb.append("🎯 *Interests:* ").append(String.join(", ", escapedInterests)).append("\n");
-        }
-        if (dto.getEstimatedTotalCost() != null) {
-            sb.append("💵 *Estimated Total Cost:* $").append(MarkdownUtil.escapeMarkdownV2(dto.getEstimatedTotalCost().toString())).append("\n");
-        }
-        sb.append("\n");
-        sb.append("\n");
-
-        // Daily itinerary
-        if (dto.getDays() != null) {
-            for (ItineraryDayDto day : dto.getDays()) {
-                sb.append("\n");
-                sb.append("📅 *Day ").append(MarkdownUtil.escapeMarkdownV2(String.valueOf(day.getDay()))).append(":* "); // day.getDay() is likely int/String
-                if (day.getTheme() != null) sb.append("_").append(MarkdownUtil.escapeMarkdownV2(day.getTheme())).append("_");
-                sb.append("\n");
-
-                if (day.getEvents() != null) {
-                    for (ItineraryEventDto event : day.getEvents()) {
-                        sb.append("\n");
-                        String eventEmoji = getEventEmoji(event.getType());
-                        sb.append("  ").append(eventEmoji).append(" *").append(MarkdownUtil.escapeMarkdownV2(event.getType() != null ? event.getType().toUpperCase() : "EVENT")).append(":* ");
-                        sb.append(MarkdownUtil.escapeMarkdownV2(event.getDescription()));
-
-                        if (event.getStartTime() != null) {
-                            sb.append("\n    🕒 *Time:* ").append(MarkdownUtil.escapeMarkdownV2(event.getStartTime()));
-                            if (event.getEndTime() != null) {
-                                sb.append(" \\- ").append(MarkdownUtil.escapeMarkdownV2(event.getEndTime())); // Escape the hyphen if it's literal content, or use \n if it's structure
-                            }
-                        }
-
-                        if (event.getLocation() != null) {
-                            sb.append("\n    📍 *Location:* ").append(MarkdownUtil.escapeMarkdownV2(event.getLocation()));
-                        }
-
-                        if (event.getCost() != null) {
-                            sb.append("\n    💰 *Cost:* ").append(MarkdownUtil.escapeMarkdownV2(event.getCost().toString())); // Assuming cost might be a number
-                        }
-
-                        if (event.getBookingInfo() != null) {
-                            sb.append("\n    🎫 *Booking:* ").append(MarkdownUtil.escapeMarkdownV2(event.getBookingInfo()));
-                        }
-
-                        if ("transport".equalsIgnoreCase(event.getType()) || "transportation".equalsIgnoreCase(event.getType())) {
-                            if (event.getTravelTime() != null) {
-                                sb.append("\n    ⏱ *Travel Time:* ").append(MarkdownUtil.escapeMarkdownV2(event.getTravelTime()));
-                            }
-                            if (event.getDistance() != null) {
-                                sb.append("\n    📏 *Distance:* ").append(MarkdownUtil.escapeMarkdownV2(event.getDistance()));
-                            }
-                            if (event.getTransportMode() != null) {
-                                sb.append("\n    🚌 *Mode:* ").append(MarkdownUtil.escapeMarkdownV2(event.getTransportMode()));
-                            }
-                        }
-
-                        if (StringUtils.hasText(event.getOpeningHours())) {
-                            sb.append("\n    ⏰ *Hours:* ").append(MarkdownUtil.escapeMarkdownV2(event.getOpeningHours()));
-                        }
-                        if (StringUtils.hasText(event.getWebsite())) {
-                            // Make it clickable if it's a valid URL (basic check)
-                            String url = event.getWebsite();
-                            String escapedUrl = MarkdownUtil.escapeMarkdownV2(url); // Escape URL content for display
-                            if (url.startsWith("http://") || url.startsWith("https://")) {
-                                // Ensure internal parentheses/special chars in URL are handled if needed for MarkdownV2 links
-                                // Basic link format: [display text](url) - URL needs escaping for MarkdownV2 link syntax '()'
-                                String linkUrl = url.replace(")", "\\)").replace("(", "\\("); // Basic escaping for link context
-                                sb.append("\n    🌐 *Website:* [Link](").append(linkUrl).append(")");
-                            } else {
-                                // Display as text if not a clear URL
-                                sb.append("\n    🌐 *Website:* ").append(escapedUrl);
-                            }
-                        }
-
-                        if (event.getDetails() != null && !event.getDetails().isBlank()) {
-                            // Escape then replace newlines for indented Markdown
-                            String escapedDetails = MarkdownUtil.escapeMarkdownV2(event.getDetails());
-                            sb.append("\n    ℹ️ *Details:* ").append(escapedDetails.replace("\n", "\n    "));
-                        }
-                        if (event.getNotes() != null && !event.getNotes().isBlank()) {
-                            String escapedNotes = MarkdownUtil.escapeMarkdownV2(event.getNotes());
-                            sb.append("\n    📝 *Notes:* ").append(escapedNotes.replace("\n", "\n    "));
-                        }
-                        sb.append("\n");
-                    }
-                }
-                sb.append("\n");
-            }
-        }
-
-        if (dto.getGeneral_notes() != null && !dto.getGeneral_notes().isEmpty()) {
-            sb.append("\n");
-            sb.append("📝 *General Notes:*\n");
-            for (String note : dto.getGeneral_notes()) {
-                sb.append("• ").append(MarkdownUtil.escapeMarkdownV2(note)).append("\n"); // Escape each note
-            }
-        }
-        return sb.toString();
-    }
-
-    private String getEventEmoji(String eventType) {
-        if (eventType == null) return "•";
-        return switch (eventType.toLowerCase()) {
-            case "attraction", "museum" -> "🏛";
-            case "food", "meal" -> "🍽";
-            case "accommodation", "stay" -> "🏨";
-            case "transportation", "transport" -> "🚗";
-            case "activity" -> "🎯";
-            case "shopping" -> "🛍";
-            case "entertainment" -> "🎭";
-            case "nature", "park" -> "🌳";
-            case "beach" -> "🏖";
-            case "nightlife" -> "🌃";
-            default -> "•";
-        };
-    }
-}
\ No newline at end of file
+}
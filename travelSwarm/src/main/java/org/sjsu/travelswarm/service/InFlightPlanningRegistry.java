@@ -0,0 +1,98 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks planning requests that have been published but not answered yet, keyed by {@link PlanningRequestKey}.
+ * <p>
+ * The first request for a key becomes the leader and is published; equivalent requests arriving
+ * within {@code app.planning.coalesce-window} attach to the leader's correlation id instead of
+ * publishing again. The registry is per instance: requests handled by different instances are not
+ * coalesced, but the fan-out of results works on any instance because followers are linked in the database.
+ */
+@Component
+@Slf4j
+public class InFlightPlanningRegistry {
+
+    private final ConcurrentHashMap<String, InFlight> byKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> keyByCorrelationId = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final Duration window;
+    private final Counter coalescedCounter;
+
+    public InFlightPlanningRegistry(@Value("${app.planning.coalesce.enabled:true}") boolean enabled,
+                                    @Value("${app.planning.coalesce.window:5m}") Duration window,
+                                    MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.window = window;
+        this.coalescedCounter = Counter.builder("planning.requests.coalesced")
+                .description("Planning requests attached to an identical in-flight request instead of being published")
+                .register(meterRegistry);
+        Gauge.builder("planning.requests.inflight.keys", byKey, ConcurrentHashMap::size)
+                .description("Distinct planning requests currently waiting for the agent")
+                .register(meterRegistry);
+    }
+
+    private record InFlight(String correlationId, Instant startedAt) {
+    }
+
+    /**
+     * Atomically either makes {@code correlationId} the leader for the key or returns the current leader.
+     * If called inside a transaction, a leader whose transaction rolls back is released again.
+     *
+     * @return The correlation id of an in-flight request to attach to, or null if the caller became the leader
+     *         (or coalescing does not apply) and must publish.
+     */
+    public String claimOrAttach(String requestKey, String correlationId) {
+        if (!enabled || requestKey == null) {
+            return null;
+        }
+        Instant now = Instant.now();
+        InFlight leader = byKey.compute(requestKey, (key, existing) ->
+                existing != null && existing.startedAt().plus(window).isAfter(now) ? existing : new InFlight(correlationId, now));
+
+        if (!leader.correlationId().equals(correlationId)) {
+            coalescedCounter.increment();
+            log.info("Coalescing planning request (key '{}') onto in-flight Correlation ID {}", requestKey, leader.correlationId());
+            return leader.correlationId();
+        }
+
+        keyByCorrelationId.put(correlationId, requestKey);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        complete(correlationId);
+                    }
+                }
+            });
+        }
+        return null;
+    }
+
+    /**
+     * Removes the request once its result (or failure) is known, so later requests publish again.
+     */
+    public void complete(String correlationId) {
+        if (correlationId == null) {
+            return;
+        }
+        String requestKey = keyByCorrelationId.remove(correlationId);
+        if (requestKey != null) {
+            byKey.computeIfPresent(requestKey, (key, existing) ->
+                    existing.correlationId().equals(correlationId) ? null : existing);
+        }
+    }
+}
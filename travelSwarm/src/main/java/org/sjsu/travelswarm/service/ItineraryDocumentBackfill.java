@@ -0,0 +1,70 @@
+package org.sjsu.travelswarm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * One-off job that fills the jsonb document of itineraries stored before document mode existed,
+ * built from their days and activities. Enable with {@code app.itinerary.document-backfill.enabled=true};
+ * it runs once at startup in batches of one transaction each, and can be re-run safely because it only
+ * picks up rows whose document is still empty.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "app.itinerary.document-backfill.enabled", havingValue = "true")
+public class ItineraryDocumentBackfill {
+
+    private final ItineraryRepository itineraryRepository;
+    private final ItineraryService itineraryService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public ItineraryDocumentBackfill(ItineraryRepository itineraryRepository,
+                                     ItineraryService itineraryService,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.itinerary.document-backfill.batch-size:200}") int batchSize) {
+        this.itineraryRepository = itineraryRepository;
+        this.itineraryService = itineraryService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        log.info("Starting itinerary document backfill (batch size {})", batchSize);
+        long lastId = 0;
+        int total = 0;
+        try {
+            while (true) {
+                final long afterId = lastId;
+                List<Long> ids = itineraryRepository.findIdsWithoutDocument(afterId, Limit.of(batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (Itinerary itinerary : itineraryRepository.findAllById(ids)) {
+                        itinerary.setDocument(itineraryService.convertRelationalToDto(itinerary));
+                    }
+                });
+                lastId = ids.get(ids.size() - 1);
+                total += ids.size();
+                log.info("Backfilled documents for {} itineraries so far (up to ID {})", total, lastId);
+            }
+        } catch (Exception e) {
+            log.error("Itinerary document backfill stopped after {} itineraries (last ID {}): {}", total, lastId, e.getMessage(), e);
+            return;
+        }
+        log.info("Itinerary document backfill finished: {} itineraries updated", total);
+    }
+}
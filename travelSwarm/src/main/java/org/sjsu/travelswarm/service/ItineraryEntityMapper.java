@@ -0,0 +1,180 @@
+package org.sjsu.travelswarm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.model.entity.Activity;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.model.entity.ItineraryDay;
+import org.sjsu.travelswarm.model.enums.ActivityType;
+import org.sjsu.travelswarm.util.TimeOfDayParser;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps the days and events of a {@code FinalItineraryDto} to the relational entity graph and back.
+ * Stateless apart from the set of event types already warned about, so it is safe to share.
+ */
+@Component
+@Slf4j
+public class ItineraryEntityMapper {
+
+    // Times are written back the way the agent usually sends them, e.g. "09:30 AM"
+    private static final DateTimeFormatter EVENT_TIME_FORMAT = DateTimeFormatter.ofPattern("hh:mm a", Locale.US);
+
+    // Unknown event types are logged once each, not once per event
+    private static final int MAX_REPORTED_UNKNOWN_TYPES = 256;
+    private final Set<String> reportedUnknownTypes = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return The day entities of {@code itinerary}, each with its activities, linked both ways.
+     */
+    public List<ItineraryDay> toDays(List<ItineraryDayDto> dayDtos, Itinerary itinerary) {
+        List<ItineraryDay> dayEntities = new ArrayList<>(dayDtos.size());
+        for (ItineraryDayDto dayDto : dayDtos) {
+            ItineraryDay dayEntity = new ItineraryDay();
+            dayEntity.setDayNumber(dayDto.getDay());
+            dayEntity.setTheme(dayDto.getTheme());
+            try {
+                if (StringUtils.hasText(dayDto.getDate())) {
+                    dayEntity.setDate(LocalDate.parse(dayDto.getDate()));
+                }
+            } catch (DateTimeParseException e) {
+                log.warn("Could not parse date for day {} for user {}: {}. Date will be null.", dayDto.getDay(), itinerary.getUserId(), e.getMessage());
+            }
+            dayEntity.setItinerary(itinerary);
+
+            List<ItineraryEventDto> eventDtos = dayDto.getEvents() != null ? dayDto.getEvents() : List.of();
+            List<Activity> activityEntities = new ArrayList<>(eventDtos.size());
+            for (ItineraryEventDto eventDto : eventDtos) {
+                Activity activityEntity = toActivity(eventDto, dayEntity.getDate());
+                activityEntity.setItineraryDay(dayEntity);
+                activityEntities.add(activityEntity);
+            }
+            dayEntity.setActivities(activityEntities);
+            dayEntities.add(dayEntity);
+        }
+        return dayEntities;
+    }
+
+    public Activity toActivity(ItineraryEventDto eventDto, LocalDate dayDate) {
+        Activity activity = new Activity();
+        activity.setName(eventDto.getDescription());
+
+        // A range in the start time ("9:00 AM - 11:00 AM") also provides a missing end time
+        activity.setStartTime(toDateTime(TimeOfDayParser.parse(eventDto.getStartTime()), eventDto.getStartTime(), dayDate));
+        if (StringUtils.hasText(eventDto.getEndTime())) {
+            activity.setEndTime(toDateTime(TimeOfDayParser.parse(eventDto.getEndTime()), eventDto.getEndTime(), dayDate));
+        } else if (dayDate != null && eventDto.getStartTime() != null) {
+            LocalTime rangeEnd = TimeOfDayParser.parseRangeEnd(eventDto.getStartTime());
+            activity.setEndTime(rangeEnd != null ? LocalDateTime.of(dayDate, rangeEnd) : null);
+        }
+
+        activity.setType(toActivityType(eventDto.getType()));
+
+        // Map all fields from DTO to Activity
+        activity.setLocation(eventDto.getLocation());
+        activity.setCost(eventDto.getCost());
+        activity.setBookingInfo(eventDto.getBookingInfo());
+        activity.setWebsite(eventDto.getWebsite());
+        activity.setNotes(eventDto.getNotes());
+        activity.setOpeningHours(eventDto.getOpeningHours());
+        activity.setDetails(eventDto.getDetails());
+
+        // Transport specific fields
+        if (activity.getType() == ActivityType.TRANSPORTATION) {
+            activity.setTravelTime(eventDto.getTravelTime());
+            activity.setTransportMode(eventDto.getTransportMode());
+            activity.setDistance(eventDto.getDistance());
+        }
+        return activity;
+    }
+
+    private LocalDateTime toDateTime(LocalTime time, String timeStr, LocalDate dayDate) {
+        if (dayDate == null || !StringUtils.hasText(timeStr)) {
+            return null;
+        }
+        if (time == null) {
+            log.warn("Could not parse time string '{}' with any known format.", timeStr);
+            return null;
+        }
+        return LocalDateTime.of(dayDate, time);
+    }
+
+    private ActivityType toActivityType(String eventType) {
+        if (!StringUtils.hasText(eventType)) {
+            return ActivityType.OTHER;
+        }
+        ActivityType type = ActivityType.fromEventType(eventType);
+        if (type != null) {
+            return type;
+        }
+        if (reportedUnknownTypes.size() < MAX_REPORTED_UNKNOWN_TYPES && reportedUnknownTypes.add(eventType)) {
+            log.warn("Unknown event type string: '{}'. Defaulting to OTHER.", eventType);
+        } else {
+            log.debug("Unknown event type string: '{}'. Defaulting to OTHER.", eventType);
+        }
+        return ActivityType.OTHER;
+    }
+
+    public List<ItineraryDayDto> toDayDtos(List<ItineraryDay> days) {
+        List<ItineraryDayDto> dayDtos = new ArrayList<>(days.size());
+        for (ItineraryDay day : days) {
+            dayDtos.add(toDayDto(day));
+        }
+        return dayDtos;
+    }
+
+    public ItineraryDayDto toDayDto(ItineraryDay dayEntity) {
+        if (dayEntity == null) {
+            return null;
+        }
+        ItineraryDayDto dayDto = new ItineraryDayDto();
+        dayDto.setDay(dayEntity.getDayNumber());
+        dayDto.setDate(dayEntity.getDate() != null ? dayEntity.getDate().toString() : null);
+        dayDto.setTheme(dayEntity.getTheme());
+
+        List<ItineraryEventDto> eventDtos = new ArrayList<>();
+        if (dayEntity.getActivities() != null) {
+            for (Activity activity : dayEntity.getActivities()) {
+                eventDtos.add(toEventDto(activity));
+            }
+        }
+        dayDto.setEvents(eventDtos);
+        return dayDto;
+    }
+
+    public ItineraryEventDto toEventDto(Activity activity) {
+        if (activity == null) {
+            return null;
+        }
+        ItineraryEventDto eventDto = new ItineraryEventDto();
+        eventDto.setType(activity.getType() != null ? activity.getType().name().toLowerCase(Locale.ROOT) : "other"); // Convert enum back to string
+        eventDto.setDescription(activity.getName()); // Use name as description
+        eventDto.setStartTime(activity.getStartTime() != null ? EVENT_TIME_FORMAT.format(activity.getStartTime()) : null);
+        eventDto.setEndTime(activity.getEndTime() != null ? EVENT_TIME_FORMAT.format(activity.getEndTime()) : null);
+
+        eventDto.setDetails(activity.getDetails());
+        eventDto.setLocation(activity.getLocation());
+        eventDto.setCost(activity.getCost()); // Already String
+        eventDto.setBookingInfo(activity.getBookingInfo());
+        eventDto.setTravelTime(activity.getTravelTime());
+        eventDto.setDistance(activity.getDistance());
+        eventDto.setTransportMode(activity.getTransportMode());
+        eventDto.setWebsite(activity.getWebsite());
+        eventDto.setNotes(activity.getNotes());
+        eventDto.setOpeningHours(activity.getOpeningHours());
+        return eventDto;
+    }
+}
@@ -0,0 +1,219 @@
+package org.sjsu.travelswarm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+import org.sjsu.travelswarm.util.MarkdownUtil;
+import org.sjsu.travelswarm.util.TelegramChunkSink;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Renders itineraries as Telegram MarkdownV2 messages.
+ * <p>
+ * Rendered output is stored with the itinerary and cached (see {@link RenderedItineraryCache}).
+ * Bump {@link #RENDER_VERSION} whenever the output of this class changes, so stored renders
+ * of older versions are re-rendered on their next view.
+ */
+@Component
+@Slf4j
+public class ItineraryFormatter {
+
+    // 2: messages are packed section by section by TelegramChunkSink
+    // 3: backslashes in website link targets are escaped
+    public static final int RENDER_VERSION = 3;
+
+    /**
+     * Renders the itinerary into messages that fit Telegram's length limit.
+     */
+    public List<String> render(FinalItineraryDto dto) {
+        return TelegramChunkSink.collect(sink -> renderTo(dto, sink));
+    }
+
+    /**
+     * Streams the itinerary into {@code sink} one section (trip header, day header, event, note) at a time.
+     * The caller closes the sink.
+     */
+    public void renderTo(FinalItineraryDto dto, TelegramChunkSink sink) {
+        writeSections(dto, sink::section);
+    }
+
+    /**
+     * Renders the whole itinerary as one MarkdownV2 text.
+     */
+    public String format(FinalItineraryDto dto) {
+        StringBuilder text = new StringBuilder();
+        writeSections(dto, text::append);
+        return text.toString();
+    }
+
+    /**
+     * Writes the itinerary as a sequence of sections. The builder handed to {@code out} is reused
+     * for the next section, so consumers must copy what they keep.
+     */
+    private void writeSections(FinalItineraryDto dto, Consumer<CharSequence> out) {
+        log.info("Formatting FinalItineraryDto for Telegram output for destination: {}",
+                dto.getDestination() != null ? dto.getDestination() : "N/A");
+        StringBuilder sb = new StringBuilder(256);
+
+        // Trip header
+        escaped(sb.append("✈️ *Trip to "), dto.getDestination() != null ? dto.getDestination() : "N/A").append("*\n\n");
+
+        // Summary
+        if (dto.getSummary() != null && !dto.getSummary().isBlank()) {
+            escaped(sb.append("_"), dto.getSummary()).append("_\n\n");
+        }
+
+        // Trip details
+        sb.append("⏱ *Duration:* ");
+        if (dto.getDurationDays() != null) {
+            sb.append(dto.getDurationDays()).append(" days\n"); // Digits need no escaping
+        } else {
+            sb.append("Not specified\n");
+        }
+        if (dto.getStartDate() != null) escaped(sb.append("📅 *Start Date:* "), dto.getStartDate()).append("\n");
+        if (dto.getEndDate() != null) escaped(sb.append("📅 *End Date:* "), dto.getEndDate()).append("\n");
+        if (dto.getBudget() != null) escaped(sb.append("💰 *Budget:* "), dto.getBudget()).append("\n");
+        if (dto.getInterests() != null && !dto.getInterests().isEmpty()) {
+            sb.append("🎯 *Interests:* ");
+            for (int i = 0; i < dto.getInterests().size(); i++) {
+                if (i > 0) sb.append(", ");
+                escaped(sb, dto.getInterests().get(i));
+            }
+            sb.append("\n");
+        }
+        if (dto.getEstimatedTotalCost() != null) {
+            escaped(sb.append("💵 *Estimated Total Cost:* $"), dto.getEstimatedTotalCost().toString()).append("\n");
+        }
+        sb.append("\n");
+        sb.append("\n");
+        emit(sb, out);
+
+        // Daily itinerary
+        if (dto.getDays() != null) {
+            for (ItineraryDayDto day : dto.getDays()) {
+                sb.append("\n");
+                escaped(sb.append("📅 *Day "), String.valueOf(day.getDay())).append(":* ");
+                if (day.getTheme() != null) escaped(sb.append("_"), day.getTheme()).append("_");
+                sb.append("\n");
+                emit(sb, out);
+
+                if (day.getEvents() != null) {
+                    for (ItineraryEventDto event : day.getEvents()) {
+                        sb.append("\n");
+                        String eventEmoji = getEventEmoji(event.getType());
+                        sb.append("  ").append(eventEmoji).append(" *");
+                        escaped(sb, event.getType() != null ? event.getType().toUpperCase() : "EVENT").append(":* ");
+                        escaped(sb, event.getDescription());
+
+                        if (event.getStartTime() != null) {
+                            escaped(sb.append("\n    🕒 *Time:* "), event.getStartTime());
+                            if (event.getEndTime() != null) {
+                                escaped(sb.append(" \\- "), event.getEndTime());
+                            }
+                        }
+
+                        if (event.getLocation() != null) {
+                            escaped(sb.append("\n    📍 *Location:* "), event.getLocation());
+                        }
+
+                        if (event.getCost() != null) {
+                            escaped(sb.append("\n    💰 *Cost:* "), event.getCost().toString());
+                        }
+
+                        if (event.getBookingInfo() != null) {
+                            escaped(sb.append("\n    🎫 *Booking:* "), event.getBookingInfo());
+                        }
+
+                        if ("transport".equalsIgnoreCase(event.getType()) || "transportation".equalsIgnoreCase(event.getType())) {
+                            if (event.getTravelTime() != null) {
+                                escaped(sb.append("\n    ⏱ *Travel Time:* "), event.getTravelTime());
+                            }
+                            if (event.getDistance() != null) {
+                                escaped(sb.append("\n    📏 *Distance:* "), event.getDistance());
+                            }
+                            if (event.getTransportMode() != null) {
+                                escaped(sb.append("\n    🚌 *Mode:* "), event.getTransportMode());
+                            }
+                        }
+
+                        if (StringUtils.hasText(event.getOpeningHours())) {
+                            escaped(sb.append("\n    ⏰ *Hours:* "), event.getOpeningHours());
+                        }
+                        if (StringUtils.hasText(event.getWebsite())) {
+                            String url = event.getWebsite();
+                            if (url.startsWith("http://") || url.startsWith("https://")) {
+                                // Link targets have their own escaping rules, see MarkdownUtil#appendLinkUrl
+                                MarkdownUtil.appendLinkUrl(sb.append("\n    🌐 *Website:* [Link]("), url).append(")");
+                            } else {
+                                // Display as text if not a clear URL
+                                escaped(sb.append("\n    🌐 *Website:* "), url);
+                            }
+                        }
+
+                        if (event.getDetails() != null && !event.getDetails().isBlank()) {
+                            escapedIndented(sb.append("\n    ℹ️ *Details:* "), event.getDetails());
+                        }
+                        if (event.getNotes() != null && !event.getNotes().isBlank()) {
+                            escapedIndented(sb.append("\n    📝 *Notes:* "), event.getNotes());
+                        }
+                        sb.append("\n");
+                        emit(sb, out);
+                    }
+                }
+                sb.append("\n");
+                emit(sb, out);
+            }
+        }
+
+        if (dto.getGeneral_notes() != null && !dto.getGeneral_notes().isEmpty()) {
+            sb.append("\n");
+            sb.append("📝 *General Notes:*\n");
+            for (String note : dto.getGeneral_notes()) {
+                escaped(sb.append("• "), note).append("\n");
+                emit(sb, out);
+            }
+        }
+    }
+
+    private static StringBuilder escaped(StringBuilder sb, String text) {
+        return MarkdownUtil.appendEscaped(sb, text);
+    }
+
+    // Multi-line text continues on the event's indentation
+    private static StringBuilder escapedIndented(StringBuilder sb, String text) {
+        int lineStart = 0;
+        for (int lineEnd = text.indexOf('\n'); lineEnd >= 0; lineEnd = text.indexOf('\n', lineStart)) {
+            MarkdownUtil.appendEscaped(sb, text, lineStart, lineEnd).append("\n    ");
+            lineStart = lineEnd + 1;
+        }
+        return MarkdownUtil.appendEscaped(sb, text, lineStart, text.length());
+    }
+
+    private static void emit(StringBuilder section, Consumer<CharSequence> out) {
+        out.accept(section);
+        section.setLength(0);
+    }
+
+
+    private String getEventEmoji(String eventType) {
+        if (eventType == null) return "•";
+        return switch (eventType.toLowerCase()) {
+            case "attraction", "museum" -> "🏛";
+            case "food", "meal" -> "🍽";
+            case "accommodation", "stay" -> "🏨";
+            case "transportation", "transport" -> "🚗";
+            case "activity" -> "🎯";
+            case "shopping" -> "🛍";
+            case "entertainment" -> "🎭";
+            case "nature", "park" -> "🌳";
+            case "beach" -> "🏖";
+            case "nightlife" -> "🌃";
+            default -> "•";
+        };
+    }
+}
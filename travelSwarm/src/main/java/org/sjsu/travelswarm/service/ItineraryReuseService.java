@@ -0,0 +1,139 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves planning requests from previously generated itineraries instead of running the agent again.
+ * <p>
+ * A request is answered from the most recent agent-generated itinerary with the same
+ * {@link PlanningRequestKey} that is younger than {@code app.itinerary-reuse.max-age}. The answer is
+ * stored as a copy owned by the new user, with its dates moved to the new request's dates.
+ */
+@Service
+@Slf4j
+public class ItineraryReuseService {
+
+    private final ItineraryRepository itineraryRepository;
+    private final ItineraryService itineraryService;
+    private final boolean enabled;
+    private final Duration maxAge;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Timer savedAgentTime;
+
+    public ItineraryReuseService(ItineraryRepository itineraryRepository,
+                                 ItineraryService itineraryService,
+                                 @Value("${app.itinerary-reuse.enabled:true}") boolean enabled,
+                                 @Value("${app.itinerary-reuse.max-age:7d}") Duration maxAge,
+                                 MeterRegistry meterRegistry) {
+        this.itineraryRepository = itineraryRepository;
+        this.itineraryService = itineraryService;
+        this.enabled = enabled;
+        this.maxAge = maxAge;
+
+        this.hitCounter = Counter.builder("itinerary.reuse.lookups")
+                .description("Planning requests checked against stored itineraries")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder("itinerary.reuse.lookups")
+                .description("Planning requests checked against stored itineraries")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.savedAgentTime = Timer.builder("itinerary.reuse.saved.agent.time")
+                .description("Agent run time of the original itinerary, recorded once per reuse")
+                .register(meterRegistry);
+    }
+
+    public record ReusedItinerary(Itinerary itinerary, FinalItineraryDto dto) {
+    }
+
+    /**
+     * Looks for a fresh itinerary answering an equivalent request and, if found, stores a copy for the requesting user.
+     *
+     * @return The stored copy and its DTO, or empty if nothing can be reused.
+     */
+    @Transactional
+    public Optional<ReusedItinerary> reuseFor(PlanningRequestDto request) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String requestKey = PlanningRequestKey.of(request);
+        if (requestKey == null) {
+            return Optional.empty();
+        }
+
+        Optional<Itinerary> sourceOpt = itineraryRepository
+                .findFirstByRequestKeyAndCreatedAtAfterOrderByCreatedAtDesc(requestKey, Instant.now().minus(maxAge));
+        if (sourceOpt.isEmpty()) {
+            missCounter.increment();
+            log.info("No reusable itinerary for request key '{}'", requestKey);
+            return Optional.empty();
+        }
+
+        Itinerary source = sourceOpt.get();
+        ReusedItinerary reused = copyFor(source, request);
+        Itinerary copy = reused.itinerary();
+
+        hitCounter.increment();
+        if (source.getAgentDurationMs() != null) {
+            savedAgentTime.record(source.getAgentDurationMs(), TimeUnit.MILLISECONDS);
+        }
+        log.info("Reused itinerary ID {} for user {} as ID {} (request key '{}')",
+                source.getId(), request.getUserId(), copy.getId(), requestKey);
+        return Optional.of(reused);
+    }
+
+    /**
+     * Stores a copy of {@code source} for the user of {@code request}, moved to the request's dates.
+     */
+    @Transactional
+    public ReusedItinerary copyFor(Itinerary source, PlanningRequestDto request) {
+        FinalItineraryDto dto = itineraryService.convertEntityToDto(source);
+        applyRequestDates(dto, request);
+        Itinerary copy = itineraryService.storeReusedItinerary(dto, request.getUserId(), source.getId());
+        return new ReusedItinerary(copy, dto);
+    }
+
+    /**
+     * The source itinerary was planned for someone else's dates. Shift every day onto the new
+     * request's start date. Without a start date only the trip-level dates are dropped: day dates
+     * are never shown to the user but anchor the activity times when the copy is stored.
+     */
+    private void applyRequestDates(FinalItineraryDto dto, PlanningRequestDto request) {
+        LocalDate startDate = null;
+        if (StringUtils.hasText(request.getStartDate())) {
+            try {
+                startDate = LocalDate.parse(request.getStartDate());
+            } catch (DateTimeParseException e) {
+                log.warn("Could not parse start date '{}' of reused request: {}", request.getStartDate(), e.getMessage());
+            }
+        }
+        dto.setStartDate(startDate != null ? startDate.toString() : null);
+        dto.setEndDate(startDate != null ? request.getEndDate() : null);
+        if (startDate != null && dto.getDays() != null) {
+            for (ItineraryDayDto day : dto.getDays()) {
+                day.setDate(startDate.plusDays(Math.max(day.getDay(), 1) - 1L).toString());
+            }
+        }
+    }
+}
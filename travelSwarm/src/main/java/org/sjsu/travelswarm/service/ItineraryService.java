@@ -1,38 +1,128 @@
 package org.sjsu.travelswarm.service;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.diagnostics.PlanningRoundTrip;
 import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
-import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
-import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
-import org.sjsu.travelswarm.model.entity.Activity;
-import org.sjsu.travelswarm.model.enums.ActivityType;
+import org.sjsu.travelswarm.model.enums.ItineraryStorageMode;
 import org.sjsu.travelswarm.model.entity.Itinerary;
 import org.sjsu.travelswarm.model.entity.ItineraryDay;
+import org.sjsu.travelswarm.repository.ItineraryRendering;
 import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.sjsu.travelswarm.repository.ItinerarySummary;
+import org.sjsu.travelswarm.service.RenderedItineraryCache.RenderedItinerary;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class ItineraryService {
 
     private final ItineraryRepository itineraryRepository;
+    private final ObjectMapper objectMapper;
+    private final ItineraryFormatter itineraryFormatter;
+    private final RenderedItineraryCache renderedItineraryCache;
+    private final ItineraryEntityMapper itineraryEntityMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Timer renderTimer;
+    private final Timer saveTimer;
+
+    @Value("${app.itinerary.storage-mode:both}")
+    private ItineraryStorageMode storageMode;
+
+    public ItineraryService(ItineraryRepository itineraryRepository,
+                            ObjectMapper objectMapper,
+                            ItineraryFormatter itineraryFormatter,
+                            RenderedItineraryCache renderedItineraryCache,
+                            ItineraryEntityMapper itineraryEntityMapper,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry) {
+        this.itineraryRepository = itineraryRepository;
+        this.objectMapper = objectMapper;
+        this.itineraryFormatter = itineraryFormatter;
+        this.renderedItineraryCache = renderedItineraryCache;
+        this.itineraryEntityMapper = itineraryEntityMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.renderTimer = PlanningPipelineMetrics.stageTimer("itinerary.render").register(meterRegistry);
+        // The insert; children the cascade leaves for the flush are written at commit
+        this.saveTimer = PlanningPipelineMetrics.stageTimer("itinerary.save").register(meterRegistry);
+    }
 
     @Transactional
     public Itinerary storeItinerary(FinalItineraryDto dto, String userId) {
+        Itinerary itineraryEntity = toEntity(dto, userId);
+        log.info("Saving Itinerary entity for user {}: {}", userId, itineraryEntity.getTripTitle());
+        return save(itineraryEntity);
+    }
+
+    /**
+     * Stores an itinerary produced by the agent, together with the canonical request it answers
+     * and how long the agent run took, so that equivalent requests can reuse it later.
+     */
+    @Transactional
+    public Itinerary storeGeneratedItinerary(FinalItineraryDto dto, String userId, String requestKey, Duration agentDuration) {
+        Itinerary itineraryEntity = toEntity(dto, userId);
+        itineraryEntity.setRequestKey(requestKey);
+        itineraryEntity.setAgentDurationMs(agentDuration != null ? agentDuration.toMillis() : null);
+        log.info("Saving generated Itinerary entity for user {} (request key '{}'): {}", userId, requestKey, itineraryEntity.getTripTitle());
+        return save(itineraryEntity);
+    }
+
+    /**
+     * Stores a copy of another itinerary for a new user. The copy keeps a link to its source but
+     * no request key, so reuse always points back at the original agent output.
+     */
+    @Transactional
+    public Itinerary storeReusedItinerary(FinalItineraryDto dto, String userId, Long sourceItineraryId) {
+        Itinerary itineraryEntity = toEntity(dto, userId);
+        itineraryEntity.setSourceItineraryId(sourceItineraryId);
+        log.info("Saving reused Itinerary entity for user {} (copied from ID {}): {}", userId, sourceItineraryId, itineraryEntity.getTripTitle());
+        return save(itineraryEntity);
+    }
+
+    private Itinerary save(Itinerary itineraryEntity) {
+        Timer.Sample sample = Timer.start();
+        Itinerary saved = itineraryRepository.save(itineraryEntity);
+        PlanningRoundTrip.addStoreTime(sample.stop(saveTimer));
+        RenderedItinerary rendered = new RenderedItinerary(saved.getUserId(), saved.getRenderedChunks());
+        // A rolled-back itinerary must not be served from the cache
+        afterCommit(() -> renderedItineraryCache.put(saved.getId(), rendered));
+        return saved;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    Itinerary toEntity(FinalItineraryDto dto, String userId) {
         if (dto == null) {
             log.error("Attempted to store a null FinalItineraryDto for user {}", userId);
             throw new IllegalArgumentException("Itinerary DTO cannot be null");
@@ -60,123 +150,136 @@ public class ItineraryService {
         itineraryEntity.setGeneralNotes(dto.getGeneral_notes() != null ? new ArrayList<>(dto.getGeneral_notes()) : new ArrayList<>());
         itineraryEntity.setEstimatedTotalCost(dto.getEstimatedTotalCost());
 
-        List<ItineraryDay> dayEntities = new ArrayList<>();
-        if (dto.getDays() != null) {
-            for (ItineraryDayDto dayDto : dto.getDays()) {
-                ItineraryDay dayEntity = new ItineraryDay();
-                dayEntity.setDayNumber(dayDto.getDay());
-                dayEntity.setTheme(dayDto.getTheme());
-                try {
-                    if (StringUtils.hasText(dayDto.getDate())) {
-                        dayEntity.setDate(LocalDate.parse(dayDto.getDate()));
-                    }
-                } catch (DateTimeParseException e) {
-                    log.warn("Could not parse date for day {} for user {}: {}. Date will be null.", dayDto.getDay(), userId, e.getMessage());
-                }
-                dayEntity.setItinerary(itineraryEntity);
-
-                List<Activity> activityEntities = new ArrayList<>();
-                if (dayDto.getEvents() != null) {
-                    for (ItineraryEventDto eventDto : dayDto.getEvents()) {
-                        Activity activityEntity = mapEventDtoToActivity(eventDto, dayEntity.getDate());
-                        activityEntity.setItineraryDay(dayEntity);
-                        activityEntities.add(activityEntity);
-                    }
-                }
-                dayEntity.setActivities(activityEntities);
-                dayEntities.add(dayEntity);
-            }
+        if (storageMode != ItineraryStorageMode.RELATIONAL) {
+            itineraryEntity.setDocument(copyOf(dto));
         }
+        // Stored itineraries never change, so render the Telegram messages once, here
+        Timer.Sample sample = Timer.start();
+        itineraryEntity.setRenderedChunks(itineraryFormatter.render(dto));
+        PlanningRoundTrip.addRenderTime(sample.stop(renderTimer));
+        itineraryEntity.setRenderVersion(ItineraryFormatter.RENDER_VERSION);
+
+        List<ItineraryDay> dayEntities = dto.getDays() != null && storageMode != ItineraryStorageMode.DOCUMENT
+                ? itineraryEntityMapper.toDays(dto.getDays(), itineraryEntity)
+                : new ArrayList<>();
         itineraryEntity.setDays(dayEntities);
-        log.info("Saving Itinerary entity for user {}: {}", userId, itineraryEntity.getTripTitle());
-        return itineraryRepository.save(itineraryEntity);
-    }
-
-    private Activity mapEventDtoToActivity(ItineraryEventDto eventDto, LocalDate dayDate) {
-        Activity activity = new Activity();
-        activity.setName(eventDto.getDescription());
-
-        // Time Parsing Logic
-        activity.setStartTime(parseToLocalDateTime(eventDto.getStartTime(), dayDate));
-        activity.setEndTime(parseToLocalDateTime(eventDto.getEndTime(), dayDate));
-
-        // Type Mapping Logic
-        String eventTypeStr = eventDto.getType() != null ? eventDto.getType().trim().toUpperCase(Locale.ROOT) : "OTHER";
-        switch (eventTypeStr) {
-            case "ATTRACTION": case "SIGHTSEEING":
-                activity.setType(ActivityType.ATTRACTION);
-                break;
-            case "ACTIVITY":
-                activity.setType(ActivityType.ACTIVITY);
-                break;
-            case "MEAL": case "FOOD": case "BREAKFAST": case "LUNCH": case "DINNER": case "CAFE":
-                activity.setType(ActivityType.FOOD);
-                break;
-            case "TRANSIT": case "TRANSPORT": case "TRANSPORTATION":
-                activity.setType(ActivityType.TRANSPORTATION);
-                break;
-            case "STAY": case "HOTEL": case "ACCOMMODATION":
-                activity.setType(ActivityType.ACCOMMODATION);
-                break;
-            default:
-                log.warn("Unknown event type string: '{}'. Defaulting to OTHER.", eventDto.getType());
-                activity.setType(ActivityType.OTHER);
-                break;
-        }
+        return itineraryEntity;
+    }
+
+    /** One page of /history: the summaries, and whether there are pages before and after it. */
+    public record ItineraryPage(List<ItinerarySummary> items, boolean hasOlder, boolean hasNewer) {
+    }
 
-        // Map all fields from DTO to Activity
-        activity.setLocation(eventDto.getLocation());
-        activity.setCost(eventDto.getCost());
-        activity.setBookingInfo(eventDto.getBookingInfo());
-        activity.setWebsite(eventDto.getWebsite());
-        activity.setNotes(eventDto.getNotes());
-        activity.setOpeningHours(eventDto.getOpeningHours());
-        activity.setDetails(eventDto.getDetails());
-
-        // Transport specific fields
-        if (activity.getType() == ActivityType.TRANSPORTATION) {
-            activity.setTravelTime(eventDto.getTravelTime());
-            activity.setTransportMode(eventDto.getTransportMode());
-            activity.setDistance(eventDto.getDistance());
+    /**
+     * One page of a user's itinerary history, newest first, using keyset pagination on the id.
+     *
+     * @param olderThanId If set, the page of itineraries just older than this id ("next").
+     * @param newerThanId If set (and olderThanId is not), the page just newer than this id ("previous").
+     */
+    @Transactional(readOnly = true)
+    public ItineraryPage getItineraryPage(Long chatId, Long olderThanId, Long newerThanId, int pageSize) {
+        String userId = String.valueOf(chatId);
+        // One extra row tells us whether there is another page in that direction
+        Limit limit = Limit.of(pageSize + 1);
+
+        if (olderThanId == null && newerThanId != null) {
+            List<ItinerarySummary> newer = new ArrayList<>(
+                    itineraryRepository.findSummariesByUserIdAndIdGreaterThanOrderByIdAsc(userId, newerThanId, limit));
+            boolean hasNewer = newer.size() > pageSize;
+            List<ItinerarySummary> page = new ArrayList<>(newer.subList(0, Math.min(pageSize, newer.size())));
+            Collections.reverse(page);
+            return new ItineraryPage(page, true, hasNewer);
         }
 
-        log.debug("Mapped eventDto to Activity: {}", activity.getName());
-        return activity;
+        List<ItinerarySummary> older = olderThanId == null
+                ? itineraryRepository.findSummariesByUserIdOrderByIdDesc(userId, limit)
+                : itineraryRepository.findSummariesByUserIdAndIdLessThanOrderByIdDesc(userId, olderThanId, limit);
+        boolean hasOlder = older.size() > pageSize;
+        return new ItineraryPage(older.subList(0, Math.min(pageSize, older.size())), hasOlder, olderThanId != null);
     }
 
-    private LocalDateTime parseToLocalDateTime(String timeStr, LocalDate dayDate) {
-        if (!StringUtils.hasText(timeStr) || dayDate == null) {
-            return null;
+    /**
+     * Read path for /view. Loads the itinerary row and, only if it has no document, all of its days
+     * and activities with a single fetch-join query: at most two queries regardless of the trip
+     * length, with days ordered by number and activities by start time.
+     *
+     * @return The itinerary together with its DTO, or empty if there is no itinerary with this id.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ItineraryView> getItineraryDtoForView(Long itineraryId) {
+        return itineraryRepository.findById(itineraryId).map(itinerary -> {
+            if (itinerary.getDocument() != null) {
+                return new ItineraryView(itinerary, copyOf(itinerary.getDocument()));
+            }
+            List<ItineraryDay> days = itineraryRepository.findDaysWithActivitiesByItineraryId(itineraryId);
+            return new ItineraryView(itinerary, convertRelationalToDto(itinerary, days));
+        });
+    }
+
+    /**
+     * Rendered Telegram messages for /view: from memory, else from the itinerary's rendered_chunks
+     * column. Renders that are missing or from an older {@link ItineraryFormatter#RENDER_VERSION}
+     * are rebuilt from a read-only load and written back with a single update; no transaction is
+     * held while rendering.
+     *
+     * @return The rendering, or empty if there is no itinerary with this id.
+     */
+    public Optional<RenderedItinerary> getRenderedItinerary(Long itineraryId) {
+        RenderedItinerary cached = renderedItineraryCache.get(itineraryId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        Optional<ItineraryRendering> stored = itineraryRepository.findRenderingById(itineraryId);
+        if (stored.isEmpty()) {
+            return Optional.empty();
         }
-        // Try common time formats
-        DateTimeFormatter[] formatters = {
-                DateTimeFormatter.ofPattern("h:mm a", Locale.US), // "09:00 AM"
-                DateTimeFormatter.ofPattern("HH:mm"),            // "09:00" or "21:00"
-                DateTimeFormatter.ISO_LOCAL_TIME                // Standard ISO time
-        };
-
-        for (DateTimeFormatter formatter : formatters) {
-            try {
-                LocalTime time = LocalTime.parse(timeStr.trim().toUpperCase(Locale.US), formatter);
-                return LocalDateTime.of(dayDate, time);
-            } catch (DateTimeParseException e) {
-                // Try next formatter
+        RenderedItinerary rendered;
+        if (Integer.valueOf(ItineraryFormatter.RENDER_VERSION).equals(stored.get().getRenderVersion())
+                && stored.get().getRenderedChunks() != null) {
+            rendered = new RenderedItinerary(stored.get().getUserId(), stored.get().getRenderedChunks());
+        } else {
+            log.info("Re-rendering itinerary ID {} (stored render version {})", itineraryId, stored.get().getRenderVersion());
+            // A self-call would bypass the proxy, so the read-only transaction is opened here
+            Optional<ItineraryView> view = readOnlyTransaction.execute(status -> getItineraryDtoForView(itineraryId));
+            if (view == null || view.isEmpty()) {
+                return Optional.empty();
             }
+            List<String> chunks = itineraryFormatter.render(view.get().dto());
+            itineraryRepository.updateRendering(itineraryId, chunks, ItineraryFormatter.RENDER_VERSION);
+            rendered = new RenderedItinerary(view.get().itinerary().getUserId(), chunks);
         }
-        log.warn("Could not parse time string '{}' with any known format.", timeStr);
-        return null;
+        renderedItineraryCache.put(itineraryId, rendered);
+        return Optional.of(rendered);
     }
 
-    public List<Itinerary> getItinerariesForUser(Long chatId) {
-        log.info("Fetching itineraries for chat ID: {}", chatId);
-        String userId = String.valueOf(chatId);
-        return itineraryRepository.findByUserIdOrderByIdDesc(userId);
+    public record ItineraryView(Itinerary itinerary, FinalItineraryDto dto) {
     }
 
+    /**
+     * Builds the DTO for a stored itinerary. Itineraries with a document are read from that single
+     * row; older ones are rebuilt from their days and activities. The result is always a fresh
+     * copy that callers may modify.
+     */
     public FinalItineraryDto convertEntityToDto(Itinerary itinerary) {
         if (itinerary == null) {
             return null;
         }
+        if (itinerary.getDocument() != null) {
+            log.debug("Reading Itinerary entity ID {} from its document", itinerary.getId());
+            return copyOf(itinerary.getDocument());
+        }
+        return convertRelationalToDto(itinerary);
+    }
+
+    /**
+     * Builds the DTO from the itinerary's days and activities, ignoring any document.
+     */
+    FinalItineraryDto convertRelationalToDto(Itinerary itinerary) {
+        return convertRelationalToDto(itinerary, itinerary.getDays());
+    }
+
+    private FinalItineraryDto convertRelationalToDto(Itinerary itinerary, List<ItineraryDay> days) {
         log.debug("Converting Itinerary entity ID {} to DTO", itinerary.getId());
 
         FinalItineraryDto dto = new FinalItineraryDto();
@@ -190,11 +293,8 @@ public class ItineraryService {
         dto.setEstimatedTotalCost(itinerary.getEstimatedTotalCost());
         dto.setGeneral_notes(itinerary.getGeneralNotes() != null ? new ArrayList<>(itinerary.getGeneralNotes()) : new ArrayList<>());
 
-        if (itinerary.getDays() != null) {
-            List<ItineraryDayDto> dayDtos = itinerary.getDays().stream()
-                    .map(this::convertDayEntityToDto) // Map each day entity
-                    .collect(Collectors.toList());
-            dto.setDays(dayDtos);
+        if (days != null) {
+            dto.setDays(itineraryEntityMapper.toDayDtos(days));
         } else {
             dto.setDays(new ArrayList<>());
         }
@@ -202,50 +302,7 @@ public class ItineraryService {
         return dto;
     }
 
-    private ItineraryDayDto convertDayEntityToDto(ItineraryDay dayEntity) {
-        if (dayEntity == null) {
-            return null;
-        }
-        ItineraryDayDto dayDto = new ItineraryDayDto();
-        dayDto.setDay(dayEntity.getDayNumber());
-        dayDto.setDate(dayEntity.getDate() != null ? dayEntity.getDate().toString() : null);
-        dayDto.setTheme(dayEntity.getTheme());
-
-        if (dayEntity.getActivities() != null) {
-            List<ItineraryEventDto> eventDtos = dayEntity.getActivities().stream()
-                    .map(this::convertActivityEntityToEventDto) // Map each activity entity
-                    .collect(Collectors.toList());
-            dayDto.setEvents(eventDtos);
-        } else {
-            dayDto.setEvents(new ArrayList<>());
-        }
-        return dayDto;
+    private FinalItineraryDto copyOf(FinalItineraryDto dto) {
+        return objectMapper.convertValue(dto, FinalItineraryDto.class);
     }
-
-    private ItineraryEventDto convertActivityEntityToEventDto(Activity activity) {
-        if (activity == null) {
-            return null;
-        }
-        ItineraryEventDto eventDto = new ItineraryEventDto();
-        eventDto.setType(activity.getType() != null ? activity.getType().name().toLowerCase() : "other"); // Convert enum back to string
-        eventDto.setDescription(activity.getName()); // Use name as description
-
-        // Format LocalDateTime back to String (use consistent format if possible)
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a"); // Example: 09:30 AM
-        eventDto.setStartTime(activity.getStartTime() != null ? activity.getStartTime().format(timeFormatter) : null);
-        eventDto.setEndTime(activity.getEndTime() != null ? activity.getEndTime().format(timeFormatter) : null);
-
-        eventDto.setDetails(activity.getDetails());
-        eventDto.setLocation(activity.getLocation());
-        eventDto.setCost(activity.getCost()); // Already String
-        eventDto.setBookingInfo(activity.getBookingInfo());
-        eventDto.setTravelTime(activity.getTravelTime());
-        eventDto.setDistance(activity.getDistance());
-        eventDto.setTransportMode(activity.getTransportMode());
-        eventDto.setWebsite(activity.getWebsite());
-        eventDto.setNotes(activity.getNotes());
-        eventDto.setOpeningHours(activity.getOpeningHours());
-
-        return eventDto;
-    }
-}
\ No newline at end of file
+}
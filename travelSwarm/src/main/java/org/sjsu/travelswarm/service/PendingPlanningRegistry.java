@@ -0,0 +1,173 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Deadlines of the planning requests this instance is waiting on, keyed by the correlation id the
+ * agent's result will carry (the leader's id for coalesced sessions).
+ * <p>
+ * The database is the source of truth: every PROCESSING session carries its own
+ * {@code processingDeadline}, which is what {@link PlanningTimeoutSweeper} acts on. This registry only
+ * lets the sweeper skip the database while none of the local requests is overdue; sessions of other or
+ * restarted instances are picked up by the periodic full sweep.
+ */
+@Component
+@Slf4j
+public class PendingPlanningRegistry {
+
+    /**
+     * What to do with a result that arrives after its session was timed out.
+     */
+    public enum LateResultPolicy {
+        DELIVER,  // store it and send it to the user anyway
+        DISCARD   // the user has been told to try again; drop it
+    }
+
+    private final ConcurrentHashMap<String, Instant> deadlines = new ConcurrentHashMap<>();
+    private final Duration timeout;
+    private final int maxRepublishes;
+    private final LateResultPolicy lateResultPolicy;
+
+    private final Counter timedOutCounter;
+    private final Counter republishedCounter;
+    private final Counter lateDeliveredCounter;
+    private final Counter lateDiscardedCounter;
+    private final Counter duplicateCounter;
+
+    public PendingPlanningRegistry(@Value("${app.planning.timeout.duration:10m}") Duration timeout,
+                                   @Value("${app.planning.timeout.max-republishes:0}") int maxRepublishes,
+                                   @Value("${app.planning.timeout.late-result:deliver}") LateResultPolicy lateResultPolicy,
+                                   MeterRegistry meterRegistry) {
+        this.timeout = timeout;
+        this.maxRepublishes = maxRepublishes;
+        this.lateResultPolicy = lateResultPolicy;
+
+        this.timedOutCounter = Counter.builder("planning.requests.timed.out")
+                .description("Planning sessions failed because the agent did not answer in time")
+                .register(meterRegistry);
+        this.republishedCounter = Counter.builder("planning.requests.republished")
+                .description("Planning requests published again after their deadline passed")
+                .register(meterRegistry);
+        this.lateDeliveredCounter = resultCounter(meterRegistry, "late-delivered");
+        this.lateDiscardedCounter = resultCounter(meterRegistry, "late-discarded");
+        this.duplicateCounter = resultCounter(meterRegistry, "duplicate");
+        Gauge.builder("planning.requests.pending", deadlines, ConcurrentHashMap::size)
+                .description("Planning requests this instance is waiting on")
+                .register(meterRegistry);
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("planning.results.unexpected")
+                .description("Planning results that arrived for a session that was no longer waiting")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return The deadline for a request published now.
+     */
+    public Instant deadlineFromNow() {
+        return Instant.now().plus(timeout);
+    }
+
+    public Duration timeout() {
+        return timeout;
+    }
+
+    public int maxRepublishes() {
+        return maxRepublishes;
+    }
+
+    public LateResultPolicy lateResultPolicy() {
+        return lateResultPolicy;
+    }
+
+    /**
+     * Starts tracking a request. Inside a transaction the request is only tracked once it commits.
+     * Registering a request again moves its deadline to the later of the two.
+     */
+    public void register(String correlationId, Instant deadline) {
+        if (correlationId == null || deadline == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deadlines.merge(correlationId, deadline, (existing, added) -> existing.isAfter(added) ? existing : added);
+                }
+            });
+        } else {
+            deadlines.merge(correlationId, deadline, (existing, added) -> existing.isAfter(added) ? existing : added);
+        }
+    }
+
+    /**
+     * Stops tracking a request whose result (or failure) is known.
+     */
+    public void complete(String correlationId) {
+        if (correlationId != null) {
+            deadlines.remove(correlationId);
+        }
+    }
+
+    /**
+     * @return True if any tracked request is past its deadline.
+     */
+    public boolean hasExpired(Instant now) {
+        for (Instant deadline : deadlines.values()) {
+            if (!deadline.isAfter(now)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drops local entries that are past their deadline. Called after a sweep has handled them in the database.
+     */
+    public void purgeExpired(Instant now) {
+        deadlines.values().removeIf(deadline -> !deadline.isAfter(now));
+    }
+
+    void recordTimedOut(int sessions) {
+        timedOutCounter.increment(sessions);
+    }
+
+    void recordRepublished() {
+        republishedCounter.increment();
+    }
+
+    /**
+     * Counts a result for a session that is not PROCESSING any more.
+     *
+     * @param timedOut Whether the session was failed by the sweeper (as opposed to a duplicate delivery).
+     * @return Whether the result should still be delivered to the session.
+     */
+    boolean acceptLateResult(String correlationId, long chatId, boolean timedOut) {
+        if (!timedOut) {
+            duplicateCounter.increment();
+            log.warn("Ignoring duplicate result for Correlation ID {} (chatId {}); the session already has its result.", correlationId, chatId);
+            return false;
+        }
+        if (lateResultPolicy == LateResultPolicy.DELIVER) {
+            lateDeliveredCounter.increment();
+            log.info("Delivering late result for timed-out Correlation ID {} (chatId {})", correlationId, chatId);
+            return true;
+        }
+        lateDiscardedCounter.increment();
+        log.info("Discarding late result for timed-out Correlation ID {} (chatId {})", correlationId, chatId);
+        return false;
+    }
+}
@@ -0,0 +1,197 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+import org.sjsu.travelswarm.model.entity.PlanningOutboxMessage;
+import org.sjsu.travelswarm.repository.PlanningOutboxRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transactional outbox for planning requests.
+ * <p>
+ * {@link #publish} only inserts a row, in the caller's transaction, so the request exists exactly
+ * when the PROCESSING session does and the user-facing transaction never waits on the broker.
+ * A scheduled relay claims batches of due rows in a short transaction, sends them over one channel
+ * and, once the broker has answered, deletes the confirmed rows and reschedules the others in a
+ * second one. No row lock or connection is held while waiting for confirms; a claim moves the row's
+ * next attempt {@code app.planning.outbox.claim-timeout} ahead instead, so a relay that dies mid-batch
+ * only delays its rows until the claim runs out. Only the oldest row of a chat is eligible at any time,
+ * so requests of one chat are published in order. Rows that keep failing are dropped after
+ * {@code app.planning.outbox.max-attempts} and their sessions are failed via {@link PlanningPublishFailedEvent}.
+ */
+@Service
+@Slf4j
+public class PlanningOutboxService {
+
+    private final PlanningOutboxRepository outboxRepository;
+    private final PlanningRequestPublisher planningRequestPublisher;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration claimTimeout;
+
+    private final Counter publishedCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public PlanningOutboxService(PlanningOutboxRepository outboxRepository,
+                                 PlanningRequestPublisher planningRequestPublisher,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${app.planning.outbox.enabled:true}") boolean enabled,
+                                 @Value("${app.planning.outbox.batch-size:100}") int batchSize,
+                                 @Value("${app.planning.outbox.max-attempts:5}") int maxAttempts,
+                                 @Value("${app.planning.outbox.retry-backoff:2s}") Duration retryBackoff,
+                                 @Value("${app.planning.outbox.claim-timeout:1m}") Duration claimTimeout,
+                                 MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.planningRequestPublisher = planningRequestPublisher;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.claimTimeout = claimTimeout;
+
+        this.publishedCounter = relayCounter(meterRegistry, "published");
+        this.retriedCounter = relayCounter(meterRegistry, "retried");
+        this.failedCounter = relayCounter(meterRegistry, "failed");
+    }
+
+    private static Counter relayCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("planning.outbox.relayed")
+                .description("Outbox messages handled by the relay")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues a planning request for publishing. Must be called in the transaction that marks the session PROCESSING.
+     * With the outbox disabled the request is handed straight to {@link PlanningRequestPublisher}.
+     */
+    public void publish(Long chatId, String correlationId, PlanningRequestDto requestDto) {
+        if (!enabled) {
+            planningRequestPublisher.publishRequest(requestDto, correlationId);
+            return;
+        }
+        outboxRepository.save(new PlanningOutboxMessage(chatId, correlationId, requestDto));
+        log.info("Queued planning request with Correlation ID {} in the outbox", correlationId);
+    }
+
+    /**
+     * @return True if the request is still waiting in the outbox, i.e. has not been confirmed by the broker yet.
+     */
+    public boolean isQueued(String correlationId) {
+        return enabled && outboxRepository.existsByCorrelationId(correlationId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.planning.outbox.poll-interval:200ms}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            log.error("Outbox relay run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Claims one batch, publishes it and settles the rows once every confirm is in. The claim and
+     * the settling are separate short transactions; nothing is locked while waiting for the broker.
+     *
+     * @return The number of rows handled.
+     */
+    private int relayBatch() {
+        List<PlanningOutboxMessage> batch = transactionTemplate.execute(status -> claimBatch(Instant.now()));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        log.debug("Relaying {} outbox message(s)", batch.size());
+
+        Map<String, PlanningRequestDto> requests = new LinkedHashMap<>();
+        batch.forEach(message -> requests.put(message.getCorrelationId(), message.getPayload()));
+        Map<String, CompletableFuture<Void>> confirms = planningRequestPublisher.publishAll(requests);
+
+        List<Long> confirmed = new ArrayList<>();
+        Map<PlanningOutboxMessage, Throwable> failed = new LinkedHashMap<>();
+        for (PlanningOutboxMessage message : batch) {
+            // The publisher bounds each future by its confirm timeout
+            Throwable error = confirms.get(message.getCorrelationId()).handle((ignored, e) -> e).join();
+            if (error == null) {
+                confirmed.add(message.getId());
+            } else {
+                failed.put(message, error);
+            }
+        }
+
+        List<PlanningOutboxMessage> dropped = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxRepository.deleteAllByIdInBatch(confirmed);
+            failed.forEach((message, error) -> {
+                if (!reschedule(message, error)) {
+                    dropped.add(message);
+                }
+            });
+        });
+
+        publishedCounter.increment(confirmed.size());
+        retriedCounter.increment(failed.size() - dropped.size());
+        failedCounter.increment(dropped.size());
+        for (PlanningOutboxMessage message : dropped) {
+            eventPublisher.publishEvent(new PlanningPublishFailedEvent(message.getCorrelationId(), failed.get(message).getMessage()));
+        }
+        return batch.size();
+    }
+
+    /**
+     * Locks the next due rows just long enough to push their next attempt past the claim timeout,
+     * which keeps other relay instances off them until this one has settled them.
+     */
+    private List<PlanningOutboxMessage> claimBatch(Instant now) {
+        List<PlanningOutboxMessage> batch = outboxRepository.lockNextBatch(now, batchSize);
+        batch.forEach(message -> message.setNextAttemptAt(now.plus(claimTimeout)));
+        return batch;
+    }
+
+    /**
+     * @return False if the message has used up its attempts and was deleted instead.
+     */
+    private boolean reschedule(PlanningOutboxMessage message, Throwable error) {
+        int attempts = message.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            log.error("Dropping outbox message for Correlation ID {} after {} attempt(s): {}",
+                    message.getCorrelationId(), attempts, error.getMessage());
+            outboxRepository.deleteAllByIdInBatch(List.of(message.getId()));
+            return false;
+        }
+        Duration delay = retryBackoff.multipliedBy(attempts);
+        log.warn("Publishing outbox message for Correlation ID {} failed ({}). Retrying in {}.",
+                message.getCorrelationId(), error.getMessage(), delay);
+        outboxRepository.reschedule(message.getId(), attempts, Instant.now().plus(delay));
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.util.LruCache;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the planning pipeline, one {@code planning.stage} timer per stage (tagged {@code stage}),
+ * plus the end-to-end {@code planning.end.to.end} timer from publishing a request to its itinerary
+ * having been sent to the user.
+ * <p>
+ * The publisher stamps {@value #PUBLISHED_AT_HEADER} on every request. The agent echoes it on the
+ * result together with the times it picked the request up and finished it, which gives the stages
+ * spent at the agent. Those stages mix this host's clock with the agent's, so they are only as
+ * accurate as the clock sync; negative values are dropped. The publish time is also remembered here
+ * per correlation id, so the end-to-end timer still works with an agent that does not echo it.
+ */
+@Component
+@Slf4j
+public class PlanningPipelineMetrics {
+
+    public static final String PUBLISHED_AT_HEADER = "x-published-at";
+    public static final String AGENT_RECEIVED_AT_HEADER = "x-agent-received-at";
+    public static final String AGENT_COMPLETED_AT_HEADER = "x-agent-completed-at";
+
+    // Agent runs and queue backlogs are minutes, not the 30 s the default histogram buckets stop at
+    private static final Duration LONG_STAGE_MAX = Duration.ofMinutes(30);
+    private static final int MAX_TRACKED_REQUESTS = 10_000;
+
+    private final LruCache<String, Long> publishedAtByCorrelationId = LruCache.ofEntries(MAX_TRACKED_REQUESTS, Duration.ofHours(1));
+    private final Timer agentQueueWaitTimer;
+    private final Timer agentRunTimer;
+    private final Timer resultQueueWaitTimer;
+    private final Timer endToEndTimer;
+
+    public PlanningPipelineMetrics(MeterRegistry meterRegistry) {
+        this.agentQueueWaitTimer = stageTimer("agent.queue.wait").maximumExpectedValue(LONG_STAGE_MAX).register(meterRegistry);
+        this.agentRunTimer = stageTimer("agent.run").maximumExpectedValue(LONG_STAGE_MAX).register(meterRegistry);
+        this.resultQueueWaitTimer = stageTimer("result.queue.wait").maximumExpectedValue(LONG_STAGE_MAX).register(meterRegistry);
+        this.endToEndTimer = Timer.builder("planning.end.to.end")
+                .description("Time from a planning request being published to its itinerary being sent to the user")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(LONG_STAGE_MAX)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The timer for one stage of the pipeline, for the caller to add tags to and register.
+     */
+    public static Timer.Builder stageTimer(String stage) {
+        return Timer.builder("planning.stage")
+                .description("Time spent in one stage of the planning pipeline")
+                .tag("stage", stage)
+                .publishPercentileHistogram();
+    }
+
+    /**
+     * A request was handed to the broker. Only the first publish of a correlation id counts, so
+     * re-published requests are timed from the original.
+     */
+    public void published(String correlationId, long publishedAtMillis) {
+        publishedAtByCorrelationId.putIfAbsent(correlationId, publishedAtMillis);
+    }
+
+    /**
+     * A result arrived: records the agent stages from its timing headers.
+     */
+    public void resultReceived(String correlationId, MessageProperties properties) {
+        if (correlationId == null || properties == null) {
+            return;
+        }
+        Long publishedAt = header(properties, PUBLISHED_AT_HEADER);
+        Long receivedAt = header(properties, AGENT_RECEIVED_AT_HEADER);
+        Long completedAt = header(properties, AGENT_COMPLETED_AT_HEADER);
+        record(agentQueueWaitTimer, publishedAt, receivedAt);
+        record(agentRunTimer, receivedAt, completedAt);
+        record(resultQueueWaitTimer, completedAt, System.currentTimeMillis());
+        if (publishedAt != null) {
+            // Requests published by another instance are only known from the header
+            publishedAtByCorrelationId.putIfAbsent(correlationId, publishedAt);
+        }
+    }
+
+    /**
+     * The itinerary for the request is being sent; the end-to-end time is recorded once every part
+     * has been sent. Only the first delivery per request counts: sessions coalesced onto it joined later.
+     */
+    public void delivering(String correlationId, CompletableFuture<?> sent) {
+        Long publishedAt = publishedAtByCorrelationId.peek(correlationId);
+        if (publishedAt == null) {
+            return;
+        }
+        publishedAtByCorrelationId.invalidate(correlationId);
+        sent.thenRun(() -> record(endToEndTimer, publishedAt, System.currentTimeMillis()));
+    }
+
+    private static void record(Timer timer, Long fromMillis, Long toMillis) {
+        if (fromMillis != null && toMillis != null && toMillis >= fromMillis) {
+            timer.record(toMillis - fromMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Long header(MessageProperties properties, String name) {
+        Object value = properties.getHeaders().get(name);
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring unparseable {} header: {}", name, value);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,8 @@
+package org.sjsu.travelswarm.service;
+
+/**
+ * Raised by {@link PlanningRequestPublisher} when a planning request could not be handed to the
+ * broker after all attempts.
+ */
+public record PlanningPublishFailedEvent(String correlationId, String reason) {
+}
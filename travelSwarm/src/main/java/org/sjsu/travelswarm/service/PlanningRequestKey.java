@@ -0,0 +1,114 @@
+package org.sjsu.travelswarm.service;
+
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Canonical form of a planning request, used to recognise requests the agent would answer the same way.
+ * <p>
+ * Two requests share a key when they have the same destination, trip length, budget band and set
+ * of interests, regardless of case, whitespace or interest order. Concrete dates and the requesting
+ * user are deliberately not part of the key.
+ */
+public final class PlanningRequestKey {
+
+    private PlanningRequestKey() {
+    }
+
+    /**
+     * @return The canonical key, or null if the request lacks a destination or a trip length.
+     */
+    public static String of(PlanningRequestDto request) {
+        if (request == null || normalize(request.getDestination()) == null) {
+            return null;
+        }
+        Integer days = tripLength(request);
+        if (days == null) {
+            return null;
+        }
+        String interests = request.getInterests() == null ? "" : request.getInterests().stream()
+                .map(PlanningRequestKey::normalize)
+                .filter(Objects::nonNull)
+                .distinct()
+                .sorted()
+                .collect(Collectors.joining(","));
+        return "dest=" + normalize(request.getDestination())
+                + "|days=" + days
+                + "|budget=" + budgetBand(request.getBudget(), days)
+                + "|interests=" + interests;
+    }
+
+    private static Integer tripLength(PlanningRequestDto request) {
+        if (request.getDurationDays() != null && request.getDurationDays() > 0) {
+            return request.getDurationDays();
+        }
+        if (request.getStartDate() != null && request.getEndDate() != null) {
+            try {
+                long days = ChronoUnit.DAYS.between(LocalDate.parse(request.getStartDate()), LocalDate.parse(request.getEndDate())) + 1;
+                return days > 0 ? (int) days : null;
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps free-form budget text ("cheap", "mid-range", "$1500") onto a coarse band.
+     * Amounts are compared per day; unrecognised text is kept as-is.
+     */
+    static String budgetBand(String budget, int days) {
+        String normalized = normalize(budget);
+        if (normalized == null) {
+            return "any";
+        }
+        for (String word : List.of("luxury", "high", "expensive", "premium")) {
+            if (normalized.contains(word)) return "high";
+        }
+        for (String word : List.of("low", "cheap", "budget", "backpack", "shoestring")) {
+            if (normalized.contains(word)) return "low";
+        }
+        for (String word : List.of("mid", "medium", "moderate", "average")) {
+            if (normalized.contains(word)) return "medium";
+        }
+        long amount = leadingAmount(normalized);
+        if (amount > 0) {
+            long perDay = amount / Math.max(days, 1);
+            if (perDay < 100) return "low";
+            if (perDay < 300) return "medium";
+            return "high";
+        }
+        return normalized;
+    }
+
+    private static long leadingAmount(String text) {
+        long amount = 0;
+        boolean seenDigit = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                amount = amount * 10 + (c - '0');
+                seenDigit = true;
+                if (amount > 10_000_000) break;
+            } else if (seenDigit && c != ',') {
+                break;
+            }
+        }
+        return amount;
+    }
+
+    private static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String normalized = value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+}
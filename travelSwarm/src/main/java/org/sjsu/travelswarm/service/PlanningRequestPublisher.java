@@ -1,15 +1,35 @@
 package org.sjsu.travelswarm.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
-import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
@@ -18,19 +38,85 @@ public class PlanningRequestPublisher {
     @Autowired
     private RabbitTemplate rabbitTemplate;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlanningPipelineMetrics pipelineMetrics;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Value("${app.rabbitmq.planning-request-queue}")
     private String planningRequestQueueName;
 
+    @Value("${app.rabbitmq.publisher.confirm-timeout:10s}")
+    private Duration confirmTimeout;
+
+    @Value("${app.rabbitmq.publisher.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${app.rabbitmq.publisher.retry-backoff:1s}")
+    private Duration retryBackoff;
+
+    @Value("${app.rabbitmq.publisher.batch.enabled:false}")
+    private boolean batchEnabled;
+
+    @Value("${app.rabbitmq.publisher.batch.size:50}")
+    private int batchSize;
+
+    @Value("${app.rabbitmq.publisher.batch.interval:20ms}")
+    private Duration batchInterval;
+
+    private ScheduledExecutorService scheduler;
+    private Timer confirmTimer;
+    private final LinkedBlockingQueue<PendingPublish> batchBuffer = new LinkedBlockingQueue<>();
+
+    private static final class PendingPublish {
+        private final PlanningRequestDto requestDto;
+        private final String correlationId;
+        private final int maxAttempts;
+        private final CompletableFuture<Void> confirmed = new CompletableFuture<>();
+        private int attempt;
+
+        private PendingPublish(PlanningRequestDto requestDto, String correlationId, int maxAttempts) {
+            this.requestDto = requestDto;
+            this.correlationId = correlationId;
+            this.maxAttempts = maxAttempts;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        confirmTimer = PlanningPipelineMetrics.stageTimer("publish.confirm").register(meterRegistry);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "planning-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (batchEnabled) {
+            scheduler.scheduleWithFixedDelay(this::flushBatch, batchInterval.toMillis(), batchInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        log.info("PlanningRequestPublisher initialized (batching {}, confirm timeout {}, max attempts {})",
+                batchEnabled ? "every " + batchSize + " messages or " + batchInterval : "disabled", confirmTimeout, maxAttempts);
+    }
+
     /**
      * Publishes a planning request to the RabbitMQ queue.
+     * <p>
+     * If called inside a transaction the message is only sent after the transaction commits.
+     * Sending is asynchronous: the broker confirm is awaited off the caller thread, unconfirmed or
+     * returned messages are retried, and if every attempt fails a {@link PlanningPublishFailedEvent}
+     * is raised so the session can be marked FAILED.
      *
      * @param requestDto    The planning request data.
      * @param correlationId A unique ID to track the request and its corresponding result.
+     * @return A future that completes once the broker has confirmed the message.
      */
-    public void publishRequest(PlanningRequestDto requestDto, String correlationId) {
+    public CompletableFuture<Void> publishRequest(PlanningRequestDto requestDto, String correlationId) {
         if (requestDto == null) {
             log.warn("Attempted to publish a null PlanningRequestDto. Aborting.");
-            return;
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Planning request cannot be null"));
         }
 
         if (correlationId == null || correlationId.isBlank()) {
@@ -39,22 +125,157 @@ public class PlanningRequestPublisher {
         }
 
         final String finalCorrelationId = correlationId; // Variable used in lambda needs to be final
+        PendingPublish pending = new PendingPublish(requestDto, finalCorrelationId, maxAttempts);
+        pending.confirmed.whenComplete((ignored, error) -> {
+            if (error != null && !(error instanceof CancellationException)) {
+                log.error("Giving up on planning request with Correlation ID: {}. Error: {}", finalCorrelationId, error.getMessage());
+                eventPublisher.publishEvent(new PlanningPublishFailedEvent(finalCorrelationId, error.getMessage()));
+            }
+        });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Don't let the agent see a request whose session state may still roll back
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit(pending);
+                }
 
-        log.info("Publishing planning request to queue '{}' with Correlation ID: {}", planningRequestQueueName, finalCorrelationId);
-        log.debug("Request Payload: {}", requestDto);
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        log.info("Transaction rolled back; dropping planning request with Correlation ID: {}", finalCorrelationId);
+                        pending.confirmed.cancel(false);
+                    }
+                }
+            });
+        } else {
+            submit(pending);
+        }
+        return pending.confirmed;
+    }
 
+    /**
+     * Sends the given requests right away over a single channel, one attempt each, in iteration order.
+     * Used by the outbox relay, which does its own retrying and failure handling.
+     *
+     * @param requestsByCorrelationId The requests to send, keyed by correlation ID.
+     * @return One future per correlation ID, completed once the broker has confirmed that message.
+     */
+    public Map<String, CompletableFuture<Void>> publishAll(Map<String, PlanningRequestDto> requestsByCorrelationId) {
+        Map<String, CompletableFuture<Void>> results = new LinkedHashMap<>();
+        List<PendingPublish> batch = new ArrayList<>(requestsByCorrelationId.size());
+        requestsByCorrelationId.forEach((correlationId, requestDto) -> {
+            PendingPublish pending = new PendingPublish(requestDto, correlationId, 1);
+            batch.add(pending);
+            results.put(correlationId, pending.confirmed);
+        });
+        sendBatch(batch);
+        return results;
+    }
+
+    private void submit(PendingPublish pending) {
+        if (batchEnabled) {
+            batchBuffer.add(pending);
+            if (batchBuffer.size() >= batchSize) {
+                scheduler.execute(this::flushBatch);
+            }
+        } else {
+            send(rabbitTemplate, pending);
+        }
+    }
+
+    /**
+     * Sends everything buffered so far over a single channel. Confirms still arrive per message.
+     */
+    private synchronized void flushBatch() {
+        List<PendingPublish> batch = new ArrayList<>(batchSize);
+        while (batchBuffer.drainTo(batch, batchSize) > 0) {
+            log.debug("Flushing batch of {} planning request(s)", batch.size());
+            sendBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void sendBatch(List<PendingPublish> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
         try {
-            rabbitTemplate.convertAndSend(planningRequestQueueName, requestDto, message -> {
-                message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
-                message.getMessageProperties().setCorrelationId(finalCorrelationId);
-                return message;
+            rabbitTemplate.invoke(operations -> {
+                batch.forEach(pending -> send(operations, pending));
+                return null;
             });
-            log.info("Successfully published request with Correlation ID: {}", finalCorrelationId);
-        } catch (AmqpException e) {
-            log.error("Failed to publish planning request with Correlation ID: {}. Error: {}", finalCorrelationId, e.getMessage(), e);
         } catch (Exception e) {
-            log.error("An unexpected error occurred during publishing for Correlation ID: {}. Error: {}", finalCorrelationId, e.getMessage(), e);
+            // Messages not handed to the channel yet are retried individually
+            log.error("Batch publish failed: {}", e.getMessage(), e);
+            batch.stream().filter(pending -> pending.attempt == 0).forEach(pending -> {
+                pending.attempt++;
+                retryOrFail(pending, e.getMessage());
+            });
+        }
+    }
+
+    private void send(RabbitOperations operations, PendingPublish pending) {
+        pending.attempt++;
+        CorrelationData correlationData = new CorrelationData(pending.correlationId + "#" + pending.attempt);
+        long publishedAt = System.currentTimeMillis();
+        MessagePostProcessor postProcessor = message -> {
+            message.getMessageProperties().setDeliveryMode(MessageDeliveryMode.PERSISTENT);
+            message.getMessageProperties().setCorrelationId(pending.correlationId);
+            // Echoed back by the agent on the result, for the end-to-end timer
+            message.getMessageProperties().setHeader(PlanningPipelineMetrics.PUBLISHED_AT_HEADER, publishedAt);
+            return message;
+        };
+
+        log.info("Publishing planning request to queue '{}' with Correlation ID: {} (attempt {})",
+                planningRequestQueueName, pending.correlationId, pending.attempt);
+        log.debug("Request Payload: {}", pending.requestDto);
+
+        try {
+            operations.convertAndSend("", planningRequestQueueName, pending.requestDto, postProcessor, correlationData);
+        } catch (Exception e) {
+            log.error("Failed to publish planning request with Correlation ID: {}. Error: {}", pending.correlationId, e.getMessage(), e);
+            retryOrFail(pending, e.getMessage());
+            return;
+        }
+        pipelineMetrics.published(pending.correlationId, publishedAt);
+
+        long sentAtNanos = System.nanoTime();
+        correlationData.getFuture()
+                .orTimeout(confirmTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((confirm, error) -> {
+                    if (error != null) {
+                        retryOrFail(pending, "no broker confirm within " + confirmTimeout);
+                    } else if (correlationData.getReturned() != null) {
+                        retryOrFail(pending, "returned by broker: " + correlationData.getReturned().getReplyText());
+                    } else if (!confirm.isAck()) {
+                        retryOrFail(pending, "nacked by broker: " + confirm.getReason());
+                    } else {
+                        confirmTimer.record(System.nanoTime() - sentAtNanos, TimeUnit.NANOSECONDS);
+                        log.info("Successfully published request with Correlation ID: {}", pending.correlationId);
+                        pending.confirmed.complete(null);
+                    }
+                });
+    }
+
+    private void retryOrFail(PendingPublish pending, String reason) {
+        if (pending.attempt >= pending.maxAttempts) {
+            pending.confirmed.completeExceptionally(new IllegalStateException(
+                    "Publishing failed after " + pending.attempt + " attempt(s): " + reason));
+            return;
+        }
+        long delay = retryBackoff.toMillis() * Math.max(pending.attempt, 1);
+        log.warn("Publish of Correlation ID {} not confirmed ({}). Retrying in {} ms.", pending.correlationId, reason, delay);
+        scheduler.schedule(() -> send(rabbitTemplate, pending), delay, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (batchEnabled) {
+            flushBatch();
         }
+        scheduler.shutdown();
     }
 
 }
@@ -0,0 +1,138 @@
+package org.sjsu.travelswarm.service;
+
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.diagnostics.PlanningRoundTrip;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch counterpart of {@link PlanningResultListener}, active when {@code app.rabbitmq.results.batch-enabled=true}.
+ * <p>
+ * A batch is stored in one transaction and acknowledged with a single multiple-ack after the commit.
+ * If the batch transaction fails, its results are retried one by one so a single bad result
+ * cannot hold back the rest.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "app.rabbitmq.results.batch-enabled", havingValue = "true")
+public class PlanningResultBatchListener {
+
+    private final ConversationService conversationService;
+    private final MessageConverter messageConverter;
+    private final PlanningPipelineMetrics pipelineMetrics;
+    private final Timer handleBatchTimer;
+
+    public PlanningResultBatchListener(ConversationService conversationService, MessageConverter jsonMessageConverter,
+                                       PlanningPipelineMetrics pipelineMetrics, MeterRegistry meterRegistry) {
+        this.conversationService = conversationService;
+        this.messageConverter = jsonMessageConverter;
+        this.pipelineMetrics = pipelineMetrics;
+        this.handleBatchTimer = PlanningPipelineMetrics.stageTimer("result.handle.batch").register(meterRegistry);
+    }
+
+    private record Result(Message message, String correlationId, FinalItineraryDto itineraryDto) {
+    }
+
+    @RabbitListener(queues = "${app.rabbitmq.results-queue}", containerFactory = "planningResultContainerFactory")
+    public void handlePlanningResults(List<Message> messages, Channel channel) throws IOException {
+        log.info("Received batch of {} itinerary message(s)", messages.size());
+
+        List<Result> results = new ArrayList<>(messages.size());
+        Map<String, FinalItineraryDto> resultsByCorrelationId = new LinkedHashMap<>();
+        for (Message message : messages) {
+            String correlationId = message.getMessageProperties().getCorrelationId();
+            FinalItineraryDto itineraryDto = convert(message, correlationId);
+            pipelineMetrics.resultReceived(correlationId, message.getMessageProperties());
+            results.add(new Result(message, correlationId, itineraryDto));
+            if (itineraryDto == null || correlationId == null) {
+                log.error("Skipping unusable itinerary message (Correlation ID: {})", correlationId);
+                continue;
+            }
+            // A redelivered duplicate would only hit an already completed session
+            resultsByCorrelationId.putIfAbsent(correlationId, itineraryDto);
+        }
+
+        try {
+            if (!resultsByCorrelationId.isEmpty()) {
+                Timer.Sample sample = Timer.start();
+                beginRoundTrips(results);
+                try {
+                    conversationService.handlePlanningResults(resultsByCorrelationId);
+                } finally {
+                    endRoundTrips(results);
+                }
+                sample.stop(handleBatchTimer);
+            }
+            channel.basicAck(lastDeliveryTag(messages), true);
+            return;
+        } catch (Exception e) {
+            log.error("Batch of {} result(s) failed, retrying them one by one. Error: {}", resultsByCorrelationId.size(), e.getMessage(), e);
+        }
+
+        for (Result result : results) {
+            long deliveryTag = result.message().getMessageProperties().getDeliveryTag();
+            if (result.itineraryDto() == null || result.correlationId() == null) {
+                channel.basicAck(deliveryTag, false);
+                continue;
+            }
+            try {
+                PlanningRoundTrip.begin(result.correlationId(), result.message().getBody().length);
+                try {
+                    conversationService.handlePlanningResult(result.correlationId(), result.itineraryDto());
+                } finally {
+                    PlanningRoundTrip.end(result.correlationId());
+                }
+                channel.basicAck(deliveryTag, false);
+            } catch (Exception e) {
+                log.error("Failed to handle result for Correlation ID {}: {}", result.correlationId(), e.getMessage(), e);
+                PlanningResultListener.rejectResult(channel, result.message(), deliveryTag);
+            }
+        }
+    }
+
+    private FinalItineraryDto convert(Message message, String correlationId) {
+        try {
+            // The agent sends no type header; convert the way the single-message listener's parameter type does
+            message.getMessageProperties().setInferredArgumentType(FinalItineraryDto.class);
+            Object payload = messageConverter.fromMessage(message);
+            if (payload instanceof FinalItineraryDto dto) {
+                return dto;
+            }
+            log.error("Unexpected payload type {} for Correlation ID {}", payload == null ? null : payload.getClass(), correlationId);
+        } catch (Exception e) {
+            log.error("Could not deserialize itinerary for Correlation ID {}: {}", correlationId, e.getMessage());
+        }
+        return null;
+    }
+
+    private static void beginRoundTrips(List<Result> results) {
+        for (Result result : results) {
+            if (result.itineraryDto() != null) {
+                PlanningRoundTrip.begin(result.correlationId(), result.message().getBody().length);
+            }
+        }
+    }
+
+    private static void endRoundTrips(List<Result> results) {
+        for (Result result : results) {
+            PlanningRoundTrip.end(result.correlationId());
+        }
+    }
+
+    private static long lastDeliveryTag(List<Message> messages) {
+        return messages.get(messages.size() - 1).getMessageProperties().getDeliveryTag();
+    }
+}
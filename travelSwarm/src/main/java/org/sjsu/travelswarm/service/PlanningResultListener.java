@@ -1,30 +1,45 @@
 package org.sjsu.travelswarm.service;
 
+import com.rabbitmq.client.Channel;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.diagnostics.PlanningRoundTrip;
 import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+
 @Service
 @Slf4j
+@ConditionalOnProperty(name = "app.rabbitmq.results.batch-enabled", havingValue = "false", matchIfMissing = true)
 public class PlanningResultListener {
 
     private final ConversationService conversationService;
+    private final PlanningPipelineMetrics pipelineMetrics;
+    private final Timer handleTimer;
 
     @Autowired
-    public PlanningResultListener(ConversationService conversationService) {
+    public PlanningResultListener(ConversationService conversationService, PlanningPipelineMetrics pipelineMetrics,
+                                  MeterRegistry meterRegistry) {
         this.conversationService = conversationService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.handleTimer = PlanningPipelineMetrics.stageTimer("result.handle").register(meterRegistry);
     }
 
-    @RabbitListener(queues = "${app.rabbitmq.results-queue}")
+    @RabbitListener(queues = "${app.rabbitmq.results-queue}", containerFactory = "planningResultContainerFactory")
     public void handlePlanningResult(
             FinalItineraryDto itineraryDto,
             Message message,
-            @Header(AmqpHeaders.CORRELATION_ID) String correlationId) {
+            Channel channel,
+            @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+            @Header(AmqpHeaders.CORRELATION_ID) String correlationId) throws IOException {
 
         if (correlationId == null && message.getMessageProperties() != null) {
             correlationId = message.getMessageProperties().getCorrelationId();
@@ -32,18 +47,39 @@ public class PlanningResultListener {
 
         log.info("Received itinerary DTO from queue '{}' with Correlation ID: {}",
                 message.getMessageProperties().getConsumerQueue(), correlationId);
+        pipelineMetrics.resultReceived(correlationId, message.getMessageProperties());
 
         if (itineraryDto == null) {
             log.error("Deserialized itinerary DTO is null for Correlation ID: {}. Payload might be incompatible or empty.", correlationId);
+            channel.basicAck(deliveryTag, false);
             return;
         }
 
         try {
             log.info("Deserialized Itinerary DTO: {}", itineraryDto);
-            conversationService.handlePlanningResult(correlationId, itineraryDto);
+            // Returns once the transaction has committed, so the ack never gets ahead of the database
+            Timer.Sample sample = Timer.start();
+            PlanningRoundTrip.begin(correlationId, message.getBody().length);
+            try {
+                conversationService.handlePlanningResult(correlationId, itineraryDto);
+            } finally {
+                PlanningRoundTrip.end(correlationId);
+            }
+            sample.stop(handleTimer);
+            channel.basicAck(deliveryTag, false);
         } catch (Exception e) {
             log.error("Unexpected error during delegation to ConversationService for Correlation ID: {}. Error: {}",
                     correlationId, e.getMessage(), e);
+            rejectResult(channel, message, deliveryTag);
         }
     }
+
+    /**
+     * Gives a failed result one more delivery, then drops it so a poison message cannot loop forever.
+     */
+    static void rejectResult(Channel channel, Message message, long deliveryTag) throws IOException {
+        boolean requeue = !message.getMessageProperties().isRedelivered();
+        log.warn("Rejecting result message (delivery tag {}), requeue: {}", deliveryTag, requeue);
+        channel.basicNack(deliveryTag, false, requeue);
+    }
 }
@@ -0,0 +1,333 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.sjsu.travelswarm.model.entity.PlanningSession;
+import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.sjsu.travelswarm.repository.PlanningSessionRepository;
+import org.sjsu.travelswarm.util.LruCache;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-memory cache of planning sessions keyed by chat ID, in front of {@link PlanningSessionRepository}.
+ * <p>
+ * Every turn of a chat starts by loading its session; with the cache that lookup no longer hits the
+ * database. Copies go in and out, so callers may modify and {@link #save} what they get back. Saving
+ * a copy re-attaches it, which costs one UPDATE where a merge would read the row first. The row's
+ * version guards the update: if the copy is stale (the result listener, the timeout sweeper or another
+ * instance wrote the row meanwhile), the transaction fails with an {@link OptimisticLockingFailureException}
+ * and the chat's entry is dropped, so the next read sees the row. The cache only learns about committed
+ * state: entries are updated after the saving transaction commits.
+ * <p>
+ * By default every save is written through. With {@code write-mode=write-behind}, changes that stay
+ * within the conversation statuses (STARTED, WAITING_FOR_CLARIFICATION), which only the chat's own
+ * turns read, are kept as dirty entries and flushed in one batch every {@code flush-interval}. Anything
+ * the planning pipeline depends on (PROCESSING with its correlation ID, results, failures) is always
+ * written through. Write-behind trades up to one flush interval of conversation state on a crash for
+ * fewer writes; dirty entries are never evicted before they are flushed.
+ * <p>
+ * In webhook mode the cache is only used together with {@code invalidation.enabled} (see
+ * {@link PlanningSessionCacheInvalidation}), since any instance may receive a chat's next update.
+ */
+@Service
+@Slf4j
+public class PlanningSessionCache {
+
+    public enum WriteMode {
+        WRITE_THROUGH,
+        WRITE_BEHIND
+    }
+
+    private static final Set<SessionStatus> CONVERSATION_STATUSES =
+            EnumSet.of(SessionStatus.STARTED, SessionStatus.WAITING_FOR_CLARIFICATION);
+
+    private final PlanningSessionRepository repository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final WriteMode writeMode;
+
+    private final LruCache<Long, PlanningSession> cache;
+    // Written-behind changes not flushed yet, by chat ID; consulted before the LRU cache
+    private final Map<Long, PlanningSession> dirty = new ConcurrentHashMap<>();
+    private final LongAdder dirtyHits = new LongAdder();
+
+    private final Counter flushedCounter;
+    private final Counter staleCounter;
+
+    public PlanningSessionCache(PlanningSessionRepository repository,
+                                EntityManager entityManager,
+                                ApplicationEventPublisher eventPublisher,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.session-cache.enabled:true}") boolean enabled,
+                                @Value("${app.session-cache.max-entries:10000}") long maxEntries,
+                                @Value("${app.session-cache.ttl:30m}") Duration ttl,
+                                @Value("${app.session-cache.write-mode:write-through}") WriteMode writeMode,
+                                @Value("${telegram.bot.mode:polling}") String botMode,
+                                @Value("${app.session-cache.invalidation.enabled:false}") boolean invalidationEnabled,
+                                MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (enabled && "webhook".equalsIgnoreCase(botMode) && !invalidationEnabled) {
+            // Webhook deployments may run several instances, and each would keep serving its own old copies
+            log.warn("Planning session cache disabled: telegram.bot.mode=webhook requires app.session-cache.invalidation.enabled=true");
+            enabled = false;
+        }
+        this.enabled = enabled;
+        this.writeMode = writeMode;
+        this.cache = LruCache.ofEntries(maxEntries, ttl);
+
+        FunctionCounter.builder("cache.gets", this, c -> c.cache.hitCount() + c.dirtyHits.sum())
+                .tag("cache", "planning-session").tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, LruCache::missCount)
+                .tag("cache", "planning-session").tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.evictionCount() + c.expirationCount())
+                .tag("cache", "planning-session")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", cache, LruCache::size)
+                .tag("cache", "planning-session")
+                .register(meterRegistry);
+        Gauge.builder("cache.hit.ratio", this, PlanningSessionCache::hitRatio)
+                .tag("cache", "planning-session")
+                .register(meterRegistry);
+        Gauge.builder("planning.session.cache.dirty", dirty, Map::size)
+                .description("Written-behind session changes waiting for the next flush")
+                .register(meterRegistry);
+        this.flushedCounter = Counter.builder("planning.session.cache.flushed")
+                .description("Written-behind session changes by flush outcome")
+                .tag("result", "written")
+                .register(meterRegistry);
+        this.staleCounter = Counter.builder("planning.session.cache.flushed")
+                .description("Written-behind session changes by flush outcome")
+                .tag("result", "stale")
+                .register(meterRegistry);
+
+        log.info("Planning session cache {} (max {} entries, ttl {}, {})", enabled ? "enabled" : "disabled", maxEntries, ttl, writeMode);
+    }
+
+    /**
+     * @return A copy of the chat's session, from the cache if possible.
+     */
+    public Optional<PlanningSession> findByChatId(Long chatId) {
+        if (!enabled) {
+            return repository.findByChatId(chatId);
+        }
+        PlanningSession cached = dirty.get(chatId);
+        if (cached != null) {
+            dirtyHits.increment();
+        } else {
+            cached = cache.get(chatId);
+        }
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        Optional<PlanningSession> loaded = repository.findByChatId(chatId);
+        loaded.ifPresent(session -> cache.put(chatId, copyOf(session)));
+        return loaded;
+    }
+
+    /**
+     * Saves the session and refreshes the cache once the surrounding transaction (if any) commits,
+     * or drops the chat's entry if it rolls back.
+     *
+     * @return The saved session; callers continue with it as they would with {@code repository.save}.
+     */
+    public PlanningSession save(PlanningSession session) {
+        if (!enabled) {
+            return repository.save(session);
+        }
+        Long chatId = session.getChatId();
+        if (writeMode == WriteMode.WRITE_BEHIND && isConversationOnly(session)) {
+            PlanningSession snapshot = copyOf(session);
+            afterCommit(() -> {
+                dirty.put(chatId, snapshot);
+                cache.put(chatId, snapshot);
+            });
+            return session;
+        }
+
+        PlanningSession saved = write(session);
+        afterCompletion(committed -> {
+            if (committed) {
+                // The row now holds the latest state, including any change still waiting to be written behind
+                dirty.remove(chatId);
+                cache.put(chatId, copyOf(saved));
+                eventPublisher.publishEvent(new PlanningSessionChangedEvent(chatId));
+            } else {
+                // Possibly a version conflict: the cached session is older than the row. A dirty entry
+                // stays; the flush discards it if it is stale too.
+                cache.invalidate(chatId);
+            }
+        });
+        return saved;
+    }
+
+    @SuppressWarnings("deprecation") // Session.update: JPA has no way to re-attach without a read
+    private PlanningSession write(PlanningSession session) {
+        if (session.getId() == null || entityManager.contains(session)) {
+            return repository.save(session);
+        }
+        // A copy from the cache. merge() would SELECT the row before updating it; re-attaching only
+        // schedules the UPDATE, whose version check rejects a copy older than the row.
+        entityManager.unwrap(Session.class).update(session);
+        return session;
+    }
+
+    /**
+     * Drops the chat's entry, e.g. because another instance changed the session.
+     */
+    public void evict(Long chatId) {
+        if (dirty.remove(chatId) != null) {
+            log.warn("Dropped unflushed session change of chatId {}: the session was changed elsewhere", chatId);
+        }
+        cache.invalidate(chatId);
+    }
+
+    /**
+     * Writes all dirty entries in one transaction. Rows are locked first; a row whose version moved
+     * since the entry was cached was written by someone else in the meantime and is not overwritten.
+     */
+    @Scheduled(fixedDelayString = "${app.session-cache.flush-interval:1s}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        Map<Long, PlanningSession> pendingById = new HashMap<>();
+        dirty.values().forEach(snapshot -> pendingById.put(snapshot.getId(), snapshot));
+
+        List<PlanningSession> written = new ArrayList<>();
+        List<PlanningSession> stale = new ArrayList<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PlanningSession current : repository.findAllByIdInForUpdate(pendingById.keySet())) {
+                    PlanningSession pending = pendingById.get(current.getId());
+                    if (Objects.equals(current.getVersion(), pending.getVersion())) {
+                        BeanUtils.copyProperties(pending, current, "id", "chatId", "createdAt", "updatedAt", "version");
+                        written.add(current);
+                    } else {
+                        stale.add(pending);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Flushing {} session change(s) failed; retrying with the next flush: {}", pendingById.size(), e.getMessage(), e);
+            return;
+        }
+
+        for (PlanningSession session : written) {
+            Long chatId = session.getChatId();
+            PlanningSession flushedSnapshot = pendingById.get(session.getId());
+            if (!dirty.remove(chatId, flushedSnapshot)) {
+                // Changed again during the flush: that change is now based on the row just written
+                dirty.computeIfPresent(chatId, (id, newer) -> {
+                    newer.setUpdatedAt(session.getUpdatedAt());
+                    newer.setVersion(session.getVersion());
+                    return newer;
+                });
+                continue;
+            }
+            cache.put(chatId, copyOf(session));
+            eventPublisher.publishEvent(new PlanningSessionChangedEvent(chatId));
+        }
+        for (PlanningSession pending : stale) {
+            log.warn("Discarding stale session change of chatId {}: the row was updated elsewhere", pending.getChatId());
+            dirty.remove(pending.getChatId(), pending);
+            cache.invalidate(pending.getChatId());
+        }
+        flushedCounter.increment(written.size());
+        staleCounter.increment(stale.size());
+        log.debug("Flushed {} session change(s), discarded {} stale", written.size(), stale.size());
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private boolean isConversationOnly(PlanningSession session) {
+        if (session.getId() == null || session.getCorrelationId() != null || !CONVERSATION_STATUSES.contains(session.getStatus())) {
+            return false;
+        }
+        // The committed state must be conversational too, otherwise the change ends a planning run
+        PlanningSession committed = dirty.getOrDefault(session.getChatId(), cache.peek(session.getChatId()));
+        return committed != null && Objects.equals(committed.getId(), session.getId())
+                && CONVERSATION_STATUSES.contains(committed.getStatus());
+    }
+
+    private static void afterCompletion(Consumer<Boolean> action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.accept(status == STATUS_COMMITTED);
+                }
+            });
+        } else {
+            action.accept(true);
+        }
+    }
+
+    private double hitRatio() {
+        double hits = cache.hitCount() + dirtyHits.sum();
+        double total = hits + cache.missCount();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static PlanningSession copyOf(PlanningSession source) {
+        PlanningSession copy = new PlanningSession();
+        BeanUtils.copyProperties(source, copy);
+        copy.setInterests(source.getInterests() != null ? new ArrayList<>(source.getInterests()) : null);
+        copy.setPreferences(source.getPreferences() != null ? new HashMap<>(source.getPreferences()) : null);
+        return copy;
+    }
+}
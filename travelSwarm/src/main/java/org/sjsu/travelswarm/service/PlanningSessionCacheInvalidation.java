@@ -0,0 +1,66 @@
+package org.sjsu.travelswarm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link PlanningSessionCache}s of several instances consistent. Every committed session
+ * change is announced on a fanout exchange; each instance listens on its own exclusive queue and
+ * evicts the chat, ignoring its own announcements.
+ * <p>
+ * Eviction is asynchronous, so another instance may serve its old copy for a moment. Route a chat's
+ * updates to one instance where possible and keep write-behind off when they are not.
+ */
+@Component
+@ConditionalOnProperty(name = "app.session-cache.invalidation.enabled", havingValue = "true")
+@Slf4j
+public class PlanningSessionCacheInvalidation {
+
+    static final String INSTANCE_HEADER = "x-instance-id";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final RabbitTemplate rabbitTemplate;
+    private final PlanningSessionCache sessionCache;
+    private final String exchange;
+
+    public PlanningSessionCacheInvalidation(RabbitTemplate rabbitTemplate,
+                                            PlanningSessionCache sessionCache,
+                                            @Value("${app.session-cache.invalidation.exchange}") String exchange) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.sessionCache = sessionCache;
+        this.exchange = exchange;
+        log.info("Planning session cache invalidation over exchange '{}' (instance {})", exchange, instanceId);
+    }
+
+    @EventListener
+    public void onSessionChanged(PlanningSessionChangedEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(exchange, "", event.chatId(), message -> {
+                message.getMessageProperties().setHeader(INSTANCE_HEADER, instanceId);
+                return message;
+            });
+        } catch (Exception e) {
+            // Other instances fall back on the cache ttl for this chat
+            log.warn("Could not announce session change of chatId {}: {}", event.chatId(), e.getMessage());
+        }
+    }
+
+    @RabbitListener(queues = "#{sessionCacheInvalidationQueue.name}")
+    public void onRemoteChange(Message message) {
+        if (instanceId.equals(message.getMessageProperties().getHeader(INSTANCE_HEADER))) {
+            return;
+        }
+        Long chatId = Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8).trim());
+        log.debug("Session of chatId {} changed on another instance; evicting", chatId);
+        sessionCache.evict(chatId);
+    }
+}
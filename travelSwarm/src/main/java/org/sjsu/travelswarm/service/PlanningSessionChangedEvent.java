@@ -0,0 +1,8 @@
+package org.sjsu.travelswarm.service;
+
+/**
+ * Raised by {@link PlanningSessionCache} after a change to a chat's session has been committed.
+ * Other instances caching the same chat must drop their copy (see {@link PlanningSessionCacheInvalidation}).
+ */
+public record PlanningSessionChangedEvent(Long chatId) {
+}
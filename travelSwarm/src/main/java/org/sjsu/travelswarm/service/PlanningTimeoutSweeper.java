@@ -0,0 +1,91 @@
+package org.sjsu.travelswarm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.repository.PlanningSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Times out planning sessions the agent never answered.
+ * <p>
+ * Every {@code app.planning.timeout.sweep-interval} the sweeper checks {@link PendingPlanningRegistry}
+ * for overdue local requests and, every {@code app.planning.timeout.full-sweep-interval} regardless,
+ * looks for overdue PROCESSING sessions in the database, which also covers requests of other or
+ * restarted instances. Each batch runs in a transaction that first takes a Postgres advisory lock,
+ * so only one instance sweeps at a time; the others skip the run.
+ */
+@Service
+@Slf4j
+public class PlanningTimeoutSweeper {
+
+    // Arbitrary application-wide key of the sweep lock in pg_advisory locks
+    private static final long SWEEP_LOCK_KEY = 0x54535F54494D454FL;
+
+    private final ConversationService conversationService;
+    private final PlanningSessionRepository planningSessionRepository;
+    private final PendingPlanningRegistry pendingPlanningRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Duration fullSweepInterval;
+    private final int batchSize;
+
+    private volatile Instant lastFullSweep = Instant.EPOCH;
+
+    public PlanningTimeoutSweeper(ConversationService conversationService,
+                                  PlanningSessionRepository planningSessionRepository,
+                                  PendingPlanningRegistry pendingPlanningRegistry,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.planning.timeout.enabled:true}") boolean enabled,
+                                  @Value("${app.planning.timeout.full-sweep-interval:1m}") Duration fullSweepInterval,
+                                  @Value("${app.planning.timeout.batch-size:100}") int batchSize) {
+        this.conversationService = conversationService;
+        this.planningSessionRepository = planningSessionRepository;
+        this.pendingPlanningRegistry = pendingPlanningRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.fullSweepInterval = fullSweepInterval;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.planning.timeout.sweep-interval:10s}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        if (!pendingPlanningRegistry.hasExpired(now) && lastFullSweep.plus(fullSweepInterval).isAfter(now)) {
+            return;
+        }
+        try {
+            int total = 0;
+            Integer handled;
+            do {
+                handled = transactionTemplate.execute(status -> {
+                    if (!planningSessionRepository.tryAdvisoryXactLock(SWEEP_LOCK_KEY)) {
+                        return null;
+                    }
+                    return conversationService.handleExpiredSessions(now, batchSize);
+                });
+                total += handled != null ? handled : 0;
+            } while (handled != null && handled == batchSize);
+
+            if (handled == null) {
+                log.debug("Another instance holds the planning timeout sweep lock; skipping this run");
+                return;
+            }
+            lastFullSweep = now;
+            pendingPlanningRegistry.purgeExpired(now);
+            if (total > 0) {
+                log.info("Planning timeout sweep handled {} expired session(s)", total);
+            }
+        } catch (Exception e) {
+            log.error("Planning timeout sweep failed: {}", e.getMessage(), e);
+        }
+    }
+}
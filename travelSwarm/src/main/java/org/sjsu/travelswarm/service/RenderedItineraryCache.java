@@ -0,0 +1,75 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+/**
+ * In-memory tier of the rendered itinerary cache, keyed by itinerary id and bounded by the
+ * approximate heap size of the cached text rather than by entry count. The persistent tier is the
+ * itinerary row itself (rendered_chunks / render_version).
+ */
+@Component
+@Slf4j
+public class RenderedItineraryCache {
+
+    /**
+     * The rendered messages of one itinerary and the user it belongs to (needed for the /view ownership check).
+     */
+    public record RenderedItinerary(String userId, List<String> chunks) {
+    }
+
+    // Rough per-entry overhead: map entry, record, list and string headers
+    private static final long ENTRY_OVERHEAD_BYTES = 128;
+
+    private final LruCache<Long, RenderedItinerary> cache;
+
+    public RenderedItineraryCache(@Value("${app.itinerary.render-cache.max-size:32MB}") DataSize maxSize,
+                                  MeterRegistry meterRegistry) {
+        this.cache = new LruCache<>(maxSize.toBytes(), null, (id, rendered) -> weigh(rendered));
+
+        FunctionCounter.builder("cache.gets", cache, LruCache::hitCount)
+                .tag("cache", "rendered-itinerary").tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, LruCache::missCount)
+                .tag("cache", "rendered-itinerary").tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, LruCache::evictionCount)
+                .tag("cache", "rendered-itinerary")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", cache, LruCache::size)
+                .tag("cache", "rendered-itinerary")
+                .register(meterRegistry);
+        Gauge.builder("cache.weight", cache, LruCache::weight)
+                .tag("cache", "rendered-itinerary")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        log.info("Rendered itinerary cache bounded to {}", maxSize);
+    }
+
+    public RenderedItinerary get(Long itineraryId) {
+        return cache.get(itineraryId);
+    }
+
+    public void put(Long itineraryId, RenderedItinerary rendered) {
+        if (itineraryId != null && rendered != null && rendered.chunks() != null) {
+            cache.put(itineraryId, rendered);
+        }
+    }
+
+    private static long weigh(RenderedItinerary rendered) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        for (String chunk : rendered.chunks()) {
+            bytes += 2L * chunk.length(); // UTF-16 in memory
+        }
+        return bytes;
+    }
+}
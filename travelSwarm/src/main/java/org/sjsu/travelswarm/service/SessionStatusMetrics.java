@@ -0,0 +1,55 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.sjsu.travelswarm.repository.PlanningSessionRepository;
+import org.sjsu.travelswarm.repository.SessionStatusCount;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gauges of the number of planning sessions per {@link SessionStatus} ({@code planning.sessions}).
+ * <p>
+ * The counts come from one GROUP BY query every {@code app.metrics.session-status.refresh-interval}
+ * rather than on every scrape. They cover the whole database, so every instance reports the same values.
+ */
+@Component
+@Slf4j
+public class SessionStatusMetrics {
+
+    private final PlanningSessionRepository planningSessionRepository;
+    private final Map<SessionStatus, AtomicLong> counts = new EnumMap<>(SessionStatus.class);
+
+    public SessionStatusMetrics(PlanningSessionRepository planningSessionRepository, MeterRegistry meterRegistry) {
+        this.planningSessionRepository = planningSessionRepository;
+        for (SessionStatus status : SessionStatus.values()) {
+            AtomicLong count = new AtomicLong();
+            counts.put(status, count);
+            Gauge.builder("planning.sessions", count, AtomicLong::get)
+                    .description("Planning sessions in the database, by status")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.metrics.session-status.refresh-interval:30s}")
+    public void refresh() {
+        Map<SessionStatus, Long> current = new EnumMap<>(SessionStatus.class);
+        try {
+            for (SessionStatusCount count : planningSessionRepository.countByStatus()) {
+                current.put(count.getStatus(), count.getTotal());
+            }
+        } catch (Exception e) {
+            // Keep the last known values rather than dropping to zero
+            log.warn("Could not refresh session status counts: {}", e.getMessage());
+            return;
+        }
+        counts.forEach((status, count) -> count.set(current.getOrDefault(status, 0L)));
+    }
+}
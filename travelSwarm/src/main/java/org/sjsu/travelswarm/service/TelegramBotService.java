@@ -1,21 +1,35 @@
 package org.sjsu.travelswarm.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.util.TelegramMessageSplitter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import static org.sjsu.travelswarm.util.MarkdownUtil.escapeMarkdownV2;
@@ -24,24 +38,88 @@ import static org.sjsu.travelswarm.util.MarkdownUtil.escapeMarkdownV2;
 @Slf4j
 public class TelegramBotService extends TelegramLongPollingBot {
 
+    private static final String FALLBACK_TEXT = "Sorry, there was an error formatting the message. Please try again.";
+
     private final String botUsername;
     private final ConversationService conversationService;
+    private final ChatUpdateDispatcher updateDispatcher;
+    private final TelegramSendQueue sendQueue;
+    private final String botMode;
+
+    private final Timer updateLagTimer;
+    private final DistributionSummary updatesPerPoll;
+    private final Map<TelegramSendQueue.Priority, Timer> sendTimers = new EnumMap<>(TelegramSendQueue.Priority.class);
+
+    @Value("${telegram.bot.webhook.public-url:}")
+    private String webhookPublicUrl;
+
+    @Value("${telegram.bot.webhook.path:/telegram/webhook}")
+    private String webhookPath;
+
+    @Value("${telegram.bot.webhook.secret-token:}")
+    private String webhookSecretToken;
+
+    @Value("${telegram.bot.webhook.max-connections:40}")
+    private int webhookMaxConnections;
 
-    private static final int MAX_MESSAGE_LENGTH = 4000; // Using 4000 for MarkdownV2
     private static final Pattern MARKDOWN_PATTERN = Pattern.compile("[_*\\[\\]()~`>#+\\-=|{}.!]");
 
     @Autowired
     public TelegramBotService(@Value("${telegram.bot.token}") String botToken,
                                 @Value("${telegram.bot.username}") String botUsername,
-                                @Lazy ConversationService conversationService) {
-        super(botToken);
+                                @Value("${telegram.bot.mode:polling}") String botMode,
+                                DefaultBotOptions botOptions,
+                                @Lazy ConversationService conversationService,
+                                ChatUpdateDispatcher updateDispatcher,
+                                TelegramSendQueue sendQueue,
+                                MeterRegistry meterRegistry) {
+        super(botOptions, botToken);
         this.botUsername = botUsername;
+        this.botMode = botMode;
         this.conversationService = conversationService;
+        this.updateDispatcher = updateDispatcher;
+        this.sendQueue = sendQueue;
+
+        // Message dates have one-second resolution, so lag below a second reads as 0 or 1 s
+        this.updateLagTimer = Timer.builder("telegram.updates.lag")
+                .description("Time between a message being sent by the user and the bot receiving it")
+                .tag("mode", botMode.toLowerCase())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.updatesPerPoll = DistributionSummary.builder("telegram.polling.updates.per.poll")
+                .description("Updates returned by a getUpdates call that returned any")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        // Includes the wait in the send queue, which is where rate limiting shows up
+        for (TelegramSendQueue.Priority priority : TelegramSendQueue.Priority.values()) {
+            sendTimers.put(priority, PlanningPipelineMetrics.stageTimer("telegram.send")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
         log.info("TelegramBotComponent initialized with username: {}", this.botUsername);
     }
 
+    @Override
+    public void onUpdatesReceived(List<Update> updates) {
+        updatesPerPoll.record(updates.size());
+        updates.forEach(this::onUpdateReceived);
+    }
+
     @Override
     public void onUpdateReceived(Update update) {
+        handleUpdate(update);
+    }
+
+    /**
+     * Answers /start directly and hands other text messages to the chat's mailbox.
+     *
+     * @return A future completed once the update has been handled or turned away; it never fails.
+     */
+    public CompletableFuture<Void> handleUpdate(Update update) {
+        if (update.hasMessage() && update.getMessage().getDate() != null) {
+            long lagMillis = System.currentTimeMillis() - update.getMessage().getDate() * 1000L;
+            updateLagTimer.record(Math.max(lagMillis, 0), TimeUnit.MILLISECONDS);
+        }
         if (update.hasMessage() && update.getMessage().hasText()) {
             String userText = update.getMessage().getText();
             Long chatId = update.getMessage().getChatId();
@@ -63,16 +141,28 @@ public class TelegramBotService extends TelegramLongPollingBot {
                                 "• Your budget 💰\n\n" +
                                 "You can either type /new to start planning, or simply tell me where you'd like to go\\! For example: \"I want to visit Paris for 3 days\" or \"Plan a trip to Tokyo\"\\!"
                 );
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
-            try {
-                conversationService.processTelegramUpdate(chatId, userText);
-            } catch (Exception e) {
-                log.error("Error processing update for chatId {}: {}", chatId, e.getMessage(), e);
-                sendTextMessage(chatId, "😅 Oops\\! Something went wrong while processing your request\\. Please try again\\!");
+            // Hand off to the per-chat mailbox so the receiving thread is free for the next update
+            CompletableFuture<Void> handled = new CompletableFuture<>();
+            boolean accepted = updateDispatcher.dispatch(chatId, userText, () ->
+                    // thenCompose turns an exception thrown before the turn starts into a failed turn
+                    CompletableFuture.completedFuture(null)
+                            .thenCompose(ignored -> conversationService.processTelegramUpdateAsync(chatId, userText))
+                            .exceptionally(e -> {
+                                log.error("Error processing update for chatId {}: {}", chatId, e.getMessage(), e);
+                                sendTextMessage(chatId, "😅 Oops\\! Something went wrong while processing your request\\. Please try again\\!");
+                                return null;
+                            })
+                            .whenComplete((ignored, error) -> handled.complete(null)));
+            if (!accepted) {
+                sendTextMessage(chatId, "🚦 I'm handling a lot of requests right now\\. Please try again in a moment\\.");
+                handled.complete(null);
             }
+            return handled;
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
@@ -80,134 +170,90 @@ public class TelegramBotService extends TelegramLongPollingBot {
         return this.botUsername;
     }
 
-    public void sendTextMessage(Long chatId, String text) {
-        try {
-            // Split message if it's too long
-            if (text.length() > MAX_MESSAGE_LENGTH) {
-                List<String> parts = splitMessage(text);
-                for (String part : parts) {
-                    try {
-                        executeSendMessage(chatId, part);
-                    } catch (TelegramApiException e) {
-                        log.error("Error sending message part to chat {}: {}", chatId, e.getMessage(), e);
-                        sendFallbackMessage(chatId);
-                    }
-                }
-            } else {
-                try {
-                    executeSendMessage(chatId, text);
-                } catch (TelegramApiException e) {
-                    log.error("Error sending message to chat {}: {}", chatId, e.getMessage(), e);
-                    sendFallbackMessage(chatId);
+    /**
+     * Queues a reply to the user, split to fit Telegram's length limit. Replies go ahead of bulk output.
+     *
+     * @return A future completed once every part was sent, or failed if any part could not be sent.
+     */
+    public CompletableFuture<Void> sendTextMessage(Long chatId, String text) {
+        return sendMessageChunks(chatId, TelegramMessageSplitter.split(text), TelegramSendQueue.Priority.INTERACTIVE);
+    }
+
+    /**
+     * Queues messages that were already split to fit Telegram's length limit as bulk output, in order.
+     */
+    public CompletableFuture<Void> sendMessageChunks(Long chatId, List<String> chunks) {
+        return sendMessageChunks(chatId, chunks, TelegramSendQueue.Priority.BULK);
+    }
+
+    public CompletableFuture<Void> sendMessageChunks(Long chatId, List<String> chunks, TelegramSendQueue.Priority priority) {
+        long startNanos = System.nanoTime();
+        List<SendMessage> messages = chunks.stream().map(chunk -> markdownMessage(chatId, chunk)).toList();
+        List<CompletableFuture<Message>> sent = sendQueue.enqueue(chatId, messages, priority);
+        for (CompletableFuture<Message> part : sent) {
+            part.exceptionally(e -> {
+                if (!isDropped(e)) {
+                    log.error("Error sending message part to chat {}: {}", chatId, e.getMessage(), e);
                 }
-            }
-        } catch (Exception e) {
-            log.error("Error processing message for chat {}: {}", chatId, e.getMessage(), e);
-            sendFallbackMessage(chatId);
+                return null;
+            });
         }
+        CompletableFuture<Void> allSent = CompletableFuture.allOf(sent.toArray(CompletableFuture[]::new));
+        allSent.whenComplete((ignored, error) -> {
+            if (error == null) {
+                sendTimers.get(priority).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            } else if (!isDropped(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error)) {
+                // One apology for the whole message, however many of its parts failed
+                sendFallbackMessage(chatId);
+            }
+        });
+        return allSent;
     }
 
-    private void executeSendMessage(Long chatId, String text) throws TelegramApiException {
+    // Dropped by a full or stopped send queue rather than refused by Telegram; a fallback would be dropped too
+    private static boolean isDropped(Throwable e) {
+        return e instanceof CancellationException || e instanceof RejectedExecutionException;
+    }
+
+    private static SendMessage markdownMessage(Long chatId, String text) {
         SendMessage message = new SendMessage();
         message.setChatId(chatId.toString());
         message.setText(text);
         message.enableMarkdownV2(true);
         message.setParseMode("MarkdownV2");
-        execute(message);
-    }
-
-    private List<String> splitMessage(String text) {
-        List<String> parts = new ArrayList<>();
-        int maxLength = MAX_MESSAGE_LENGTH;
-        
-        // Split by double newlines to preserve formatting
-        String[] sections = text.split("\\n\\n");
-        StringBuilder currentPart = new StringBuilder();
-        
-        for (String section : sections) {
-            if (currentPart.length() + section.length() + 2 > maxLength) {
-                if (currentPart.length() > 0) {
-                    parts.add(currentPart.toString());
-                    currentPart = new StringBuilder();
-                }
-                // If a single section is too long, split it by single newlines
-                if (section.length() > maxLength) {
-                    String[] lines = section.split("\\n");
-                    StringBuilder currentLine = new StringBuilder();
-                    for (String line : lines) {
-                        if (currentLine.length() + line.length() + 1 > maxLength) {
-                            if (currentLine.length() > 0) {
-                                parts.add(currentLine.toString());
-                                currentLine = new StringBuilder();
-                            }
-                            // If a single line is too long, split it by words
-                            if (line.length() > maxLength) {
-                                String[] words = line.split(" ");
-                                StringBuilder currentWord = new StringBuilder();
-                                for (String word : words) {
-                                    if (currentWord.length() + word.length() + 1 > maxLength) {
-                                        if (currentWord.length() > 0) {
-                                            parts.add(currentWord.toString());
-                                            currentWord = new StringBuilder();
-                                        }
-                                        // If a single word is too long, split it by characters
-                                        if (word.length() > maxLength) {
-                                            for (int i = 0; i < word.length(); i += maxLength) {
-                                                parts.add(word.substring(i, Math.min(i + maxLength, word.length())));
-                                            }
-                                        } else {
-                                            currentWord.append(word);
-                                        }
-                                    } else {
-                                        if (currentWord.length() > 0) currentWord.append(" ");
-                                        currentWord.append(word);
-                                    }
-                                }
-                                if (currentWord.length() > 0) {
-                                    parts.add(currentWord.toString());
-                                }
-                            } else {
-                                currentLine.append(line);
-                            }
-                        } else {
-                            if (currentLine.length() > 0) currentLine.append("\n");
-                            currentLine.append(line);
-                        }
-                    }
-                    if (currentLine.length() > 0) {
-                        parts.add(currentLine.toString());
-                    }
-                } else {
-                    currentPart.append(section);
-                }
-            } else {
-                if (currentPart.length() > 0) currentPart.append("\n\n");
-                currentPart.append(section);
-            }
-        }
-        
-        if (currentPart.length() > 0) {
-            parts.add(currentPart.toString());
-        }
-        
-        return parts;
+        return message;
     }
 
     private void sendFallbackMessage(Long chatId) {
-        try {
-            SendMessage message = new SendMessage();
-            message.setChatId(chatId.toString());
-            message.setText("Sorry, there was an error formatting the message. Please try again.");
-            message.disableWebPagePreview();
-            execute(message);
-        } catch (TelegramApiException ex) {
-            log.error("Failed to send fallback message to chat {}: {}", chatId, ex.getMessage(), ex);
-        }
+        SendMessage message = new SendMessage();
+        message.setChatId(chatId.toString());
+        message.setText(FALLBACK_TEXT);
+        message.disableWebPagePreview();
+        sendQueue.enqueue(chatId, message, TelegramSendQueue.Priority.INTERACTIVE)
+                .exceptionally(ex -> {
+                    log.error("Failed to send fallback message to chat {}: {}", chatId, ex.getMessage(), ex);
+                    return null;
+                });
     }
 
+    /**
+     * Starts receiving updates: long polling (the default, handy for local development) or, with
+     * {@code telegram.bot.mode=webhook}, pushes to {@code TelegramWebhookController}. Only one long-polling
+     * instance can run per bot token; webhook mode lets several instances share the load. With
+     * {@code offline} nothing is received from Telegram (the load test calls {@link #onUpdateReceived}).
+     */
     @PostConstruct
     public void registerBot() {
+        if ("offline".equalsIgnoreCase(botMode)) {
+            log.info("Offline mode: not connecting to Telegram; updates are handed to onUpdateReceived in-process.");
+            return;
+        }
+        if ("webhook".equalsIgnoreCase(botMode)) {
+            registerWebhook();
+            return;
+        }
         try {
+            // Registering a long-polling session also removes any webhook set for the token
             TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
             telegramBotsApi.registerBot(this);
             log.info("TelegramBotComponent registered successfully!");
@@ -216,6 +262,28 @@ public class TelegramBotService extends TelegramLongPollingBot {
         }
     }
 
+    private void registerWebhook() {
+        if (!StringUtils.hasText(webhookPublicUrl)) {
+            log.warn("Webhook mode without telegram.bot.webhook.public-url; assuming the webhook is registered externally.");
+            return;
+        }
+        if (!StringUtils.hasText(webhookSecretToken)) {
+            // Anyone who finds the public URL could otherwise push updates in any user's name
+            throw new IllegalStateException("telegram.bot.webhook.secret-token must be set when telegram.bot.webhook.public-url is");
+        }
+        String url = webhookPublicUrl.replaceAll("/+$", "") + webhookPath;
+        SetWebhook setWebhook = new SetWebhook(url);
+        setWebhook.setAllowedUpdates(List.of("message")); // The only update type handled
+        setWebhook.setMaxConnections(webhookMaxConnections);
+        setWebhook.setSecretToken(webhookSecretToken);
+        try {
+            execute(setWebhook);
+            log.info("Telegram webhook registered at {}", url);
+        } catch (TelegramApiException e) {
+            log.error("Error registering Telegram webhook at {}: {}", url, e.getMessage(), e);
+        }
+    }
+
     @PreDestroy
     public void cleanUp() {
         log.info("TelegramBotComponent shutting down.");
@@ -0,0 +1,137 @@
+package org.sjsu.travelswarm.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends messages to the Bot API over a pooled, keep-alive HTTP client.
+ * <p>
+ * The bot's built-in client allows only two connections to api.telegram.org and can't be
+ * configured, which would cap {@link TelegramSendQueue} far below Telegram's own limits. This
+ * transport sizes the pool and its sender threads with {@code telegram.bot.http.max-connections}
+ * and keeps idle connections for {@code telegram.bot.http.keep-alive}. Request and response
+ * (de)serialization is the library's, so API errors surface as the same {@code TelegramApiRequestException}.
+ */
+@Component
+@Slf4j
+public class TelegramHttpTransport implements TelegramTransport {
+
+    private final String apiUrl;
+    private final CloseableHttpClient httpClient;
+    private final ExecutorService senders;
+    private final RequestConfig requestConfig;
+    // The telegrambots objects carry their own Jackson annotations; Spring's mapper settings don't apply
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public TelegramHttpTransport(@Value("${telegram.bot.token}") String botToken,
+                                 DefaultBotOptions botOptions,
+                                 @Value("${telegram.bot.http.max-connections:8}") int maxConnections,
+                                 @Value("${telegram.bot.http.keep-alive:60s}") Duration keepAlive,
+                                 @Value("${telegram.bot.http.connect-timeout:5s}") Duration connectTimeout,
+                                 @Value("${telegram.bot.http.request-timeout:30s}") Duration requestTimeout) {
+        this.apiUrl = botOptions.getBaseUrl() + botToken + "/";
+
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager(keepAlive.toMillis(), TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections); // Every request goes to the same host
+        connectionManager.setValidateAfterInactivity(2000);
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy((response, context) -> keepAlive.toMillis())
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setConnectionRequestTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) requestTimeout.toMillis())
+                .build();
+
+        AtomicInteger counter = new AtomicInteger();
+        // One sender thread per connection: requests block on the socket while in flight
+        this.senders = Executors.newFixedThreadPool(maxConnections, runnable -> {
+            Thread thread = new Thread(runnable, "telegram-http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        log.info("TelegramHttpTransport initialized with {} pooled connection(s), keep-alive {}", maxConnections, keepAlive);
+    }
+
+    @Override
+    public CompletableFuture<Message> send(SendMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return execute(message);
+            } catch (TelegramApiException e) {
+                throw new CompletionException(e);
+            }
+        }, senders);
+    }
+
+    private Message execute(SendMessage message) throws TelegramApiException {
+        HttpPost post = new HttpPost(apiUrl + message.getMethod());
+        post.setConfig(requestConfig);
+        try {
+            post.setEntity(new StringEntity(objectMapper.writeValueAsString(message), ContentType.APPLICATION_JSON));
+        } catch (JsonProcessingException e) {
+            throw new TelegramApiException("Unable to serialize " + message.getMethod(), e);
+        }
+        String responseBody;
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            responseBody = EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+        } catch (ConnectTimeoutException | ConnectException | UnknownHostException e) {
+            // Includes waiting for a pooled connection (ConnectionPoolTimeoutException): nothing was written yet
+            throw new NotSentException("Unable to connect for " + message.getMethod() + " method", e);
+        } catch (IOException e) {
+            // E.g. a read timeout: the request may have been processed, so it must not be sent again
+            throw new TelegramApiException("Unable to execute " + message.getMethod() + " method", e);
+        }
+        // Throws TelegramApiRequestException with the error code and retry_after for API errors
+        return message.deserializeResponse(responseBody);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(5, TimeUnit.SECONDS)) {
+                senders.shutdownNow();
+            }
+            httpClient.close();
+        } catch (InterruptedException e) {
+            senders.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Error closing Telegram HTTP client: {}", e.getMessage());
+        }
+    }
+}
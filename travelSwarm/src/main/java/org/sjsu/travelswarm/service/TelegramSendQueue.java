@@ -0,0 +1,376 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Outbound queue for Telegram messages that keeps the bot within the Bot API rate limits.
+ * <p>
+ * A single dispatcher thread hands messages to the {@link TelegramTransport} asynchronously, drawing
+ * from a global token bucket ({@code global-rate} messages per second) and allowing one message per
+ * chat every {@code per-chat-interval}. Each chat has one queue per {@link Priority}; interactive
+ * replies go before bulk itinerary chunks, and within a priority messages of a chat are sent strictly
+ * in order, one at a time. Once the first part of a bulk enqueue has been sent, its remaining parts go
+ * before interactive replies, so an itinerary is never interleaved with other messages. A 429 answer
+ * pauses the chat for the {@code retry_after} Telegram asks for and puts the message back at the head
+ * of its queue. A message that could not be sent at all (no connection) is retried the same way;
+ * other failures are not, since the message may already have been delivered.
+ */
+@Service
+@Slf4j
+public class TelegramSendQueue {
+
+    public enum Priority {
+        /** Replies to something the user just did. */
+        INTERACTIVE,
+        /** Itinerary chunks and other long output. */
+        BULK
+    }
+
+    private final TelegramTransport transport;
+    private final TokenBucket globalBucket;
+    private final long perChatIntervalNanos;
+    private final int maxAttempts;
+    private final int maxQueuedMessages;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Chats with queued messages or a send in flight, guarded by lock
+    private final Map<Long, ChatQueue> chats = new LinkedHashMap<>();
+    private final AtomicInteger[] queuedByPriority = {new AtomicInteger(), new AtomicInteger()};
+    private long sequence;
+    private volatile boolean running = true;
+    private Thread dispatcher;
+
+    private final Counter sentCounter;
+    private final Counter failedCounter;
+    private final Counter throttledCounter;
+    private final Timer waitTimer;
+
+    public TelegramSendQueue(TelegramTransport transport,
+                             @Value("${app.telegram.outbound.global-rate:30}") int globalRate,
+                             @Value("${app.telegram.outbound.per-chat-interval:1s}") Duration perChatInterval,
+                             @Value("${app.telegram.outbound.max-attempts:3}") int maxAttempts,
+                             @Value("${app.telegram.outbound.max-queued-messages:10000}") int maxQueuedMessages,
+                             MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.globalBucket = new TokenBucket(globalRate, TimeUnit.SECONDS.toNanos(1) / globalRate);
+        this.perChatIntervalNanos = perChatInterval.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.maxQueuedMessages = maxQueuedMessages;
+
+        this.sentCounter = Counter.builder("telegram.outbound.messages")
+                .description("Outbound Telegram messages by outcome")
+                .tag("result", "sent")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("telegram.outbound.messages")
+                .description("Outbound Telegram messages by outcome")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        this.throttledCounter = Counter.builder("telegram.outbound.throttled")
+                .description("Sends answered with 429 Too Many Requests")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("telegram.outbound.wait")
+                .description("Time a message waits in the queue before it is handed to the Bot API")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("telegram.outbound.queued", queuedByPriority[priority.ordinal()], AtomicInteger::get)
+                    .description("Outbound Telegram messages waiting to be sent")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        dispatcher = new Thread(this::dispatchLoop, "telegram-sender");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        log.info("TelegramSendQueue started ({} msg/s globally, one message per chat every {} ms, max {} queued)",
+                globalBucket.capacity, TimeUnit.NANOSECONDS.toMillis(perChatIntervalNanos), maxQueuedMessages);
+    }
+
+    /**
+     * Queues messages for one chat. They are sent in the given order and, once the first has been sent,
+     * without other messages for the chat in between.
+     *
+     * @return One future per message, completed with the sent message or failed once it is given up on.
+     */
+    public List<CompletableFuture<Message>> enqueue(Long chatId, List<SendMessage> messages, Priority priority) {
+        List<CompletableFuture<Message>> results = new ArrayList<>(messages.size());
+        lock.lock();
+        try {
+            if (!running || queuedByPriority[0].get() + queuedByPriority[1].get() + messages.size() > maxQueuedMessages) {
+                log.warn("Outbound queue full or stopped; dropping {} message(s) for chat {}", messages.size(), chatId);
+                for (int i = 0; i < messages.size(); i++) {
+                    results.add(CompletableFuture.failedFuture(new RejectedExecutionException("Telegram send queue is full")));
+                }
+                return results;
+            }
+            ChatQueue chat = chats.computeIfAbsent(chatId, id -> new ChatQueue());
+            for (int i = 0; i < messages.size(); i++) {
+                OutboundMessage outbound = new OutboundMessage(chatId, messages.get(i), priority, i > 0, sequence++, System.nanoTime());
+                chat.queue(priority).addLast(outbound);
+                results.add(outbound.result);
+            }
+            queuedByPriority[priority.ordinal()].addAndGet(messages.size());
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        return results;
+    }
+
+    public CompletableFuture<Message> enqueue(Long chatId, SendMessage message, Priority priority) {
+        return enqueue(chatId, List.of(message), priority).get(0);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            OutboundMessage next;
+            lock.lock();
+            try {
+                next = takeNext();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            if (next != null) {
+                send(next);
+            }
+        }
+    }
+
+    /**
+     * Waits until a message may be sent and takes it off its queue, or returns null to re-check after a wake-up.
+     */
+    private OutboundMessage takeNext() throws InterruptedException {
+        long now = System.nanoTime();
+        long globalWait = globalBucket.nanosUntilToken(now);
+        if (globalWait > 0) {
+            changed.awaitNanos(globalWait);
+            return null;
+        }
+
+        ChatQueue best = null;
+        OutboundMessage bestHead = null;
+        long wait = Long.MAX_VALUE;
+        for (Iterator<ChatQueue> it = chats.values().iterator(); it.hasNext(); ) {
+            ChatQueue chat = it.next();
+            OutboundMessage head = chat.head();
+            if (head == null && chat.isIdle(now)) {
+                it.remove(); // Its rate limit no longer matters
+                continue;
+            }
+            if (head == null || chat.inFlight) {
+                continue;
+            }
+            if (chat.nextSendAt - now > 0) {
+                wait = Math.min(wait, chat.nextSendAt - now);
+                continue;
+            }
+            if (bestHead == null || head.priority.ordinal() < bestHead.priority.ordinal()
+                    || (head.priority == bestHead.priority && head.sequence < bestHead.sequence)) {
+                best = chat;
+                bestHead = head;
+            }
+        }
+        if (best == null) {
+            if (wait == Long.MAX_VALUE) {
+                changed.await();
+            } else {
+                changed.awaitNanos(wait);
+            }
+            return null;
+        }
+
+        best.queue(bestHead.priority).pollFirst();
+        queuedByPriority[bestHead.priority.ordinal()].decrementAndGet();
+        best.inFlight = true;
+        best.nextSendAt = now + perChatIntervalNanos;
+        globalBucket.take();
+        return bestHead;
+    }
+
+    private void send(OutboundMessage outbound) {
+        if (++outbound.attempts == 1) {
+            waitTimer.record(System.nanoTime() - outbound.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+        }
+        CompletableFuture<Message> sent;
+        try {
+            sent = transport.send(outbound.message);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((message, error) -> onSendCompleted(outbound, message, error));
+    }
+
+    private void onSendCompleted(OutboundMessage outbound, Message message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        boolean retry = false;
+        lock.lock();
+        try {
+            // A chat with a send in flight is only removed when the queue stops
+            ChatQueue chat = chats.get(outbound.chatId);
+            if (chat != null) {
+                chat.inFlight = false;
+            }
+            if (chat != null && cause instanceof TelegramApiRequestException requestError && requestError.getErrorCode() != null
+                    && requestError.getErrorCode() == 429 && outbound.attempts < maxAttempts && running) {
+                Integer retryAfter = requestError.getParameters() != null ? requestError.getParameters().getRetryAfter() : null;
+                long pauseNanos = TimeUnit.SECONDS.toNanos(retryAfter != null ? retryAfter : 1);
+                log.warn("Telegram rate limit hit for chat {}; pausing it for {} s", outbound.chatId, TimeUnit.NANOSECONDS.toSeconds(pauseNanos));
+                throttledCounter.increment();
+                chat.nextSendAt = Math.max(chat.nextSendAt, System.nanoTime() + pauseNanos);
+                chat.queue(outbound.priority).addFirst(outbound);
+                queuedByPriority[outbound.priority.ordinal()].incrementAndGet();
+                retry = true;
+            } else if (chat != null && cause instanceof TelegramTransport.NotSentException && outbound.attempts < maxAttempts && running) {
+                // Other failures (connection reset, read timeout) may have reached Telegram; resending could duplicate the message
+                log.warn("Could not send to chat {} ({}); retrying", outbound.chatId, cause.getMessage());
+                chat.queue(outbound.priority).addFirst(outbound);
+                queuedByPriority[outbound.priority.ordinal()].incrementAndGet();
+                retry = true;
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+
+        if (retry) {
+            return;
+        }
+        if (cause == null) {
+            sentCounter.increment();
+            outbound.result.complete(message);
+        } else {
+            failedCounter.increment();
+            outbound.result.completeExceptionally(cause);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<OutboundMessage> dropped = new ArrayList<>();
+        lock.lock();
+        try {
+            running = false;
+            for (Iterator<ChatQueue> it = chats.values().iterator(); it.hasNext(); ) {
+                ChatQueue chat = it.next();
+                dropped.addAll(chat.interactive);
+                dropped.addAll(chat.bulk);
+                it.remove();
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        log.info("TelegramSendQueue shutting down; {} unsent message(s) dropped.", dropped.size());
+        dropped.forEach(outbound -> outbound.result.completeExceptionally(new CancellationException("Telegram send queue stopped")));
+    }
+
+    private static final class OutboundMessage {
+        private final Long chatId;
+        private final SendMessage message;
+        private final Priority priority;
+        // Not the first of the messages queued together: its predecessors have been taken off the queue first
+        private final boolean continuation;
+        private final long sequence;
+        private final long enqueuedAtNanos;
+        private final CompletableFuture<Message> result = new CompletableFuture<>();
+        private int attempts;
+
+        private OutboundMessage(Long chatId, SendMessage message, Priority priority, boolean continuation, long sequence,
+                                long enqueuedAtNanos) {
+            this.chatId = chatId;
+            this.message = message;
+            this.priority = priority;
+            this.continuation = continuation;
+            this.sequence = sequence;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+    }
+
+    private static final class ChatQueue {
+        private final Deque<OutboundMessage> interactive = new ArrayDeque<>();
+        private final Deque<OutboundMessage> bulk = new ArrayDeque<>();
+        private boolean inFlight;
+        private long nextSendAt = System.nanoTime();
+
+        private Deque<OutboundMessage> queue(Priority priority) {
+            return priority == Priority.INTERACTIVE ? interactive : bulk;
+        }
+
+        private OutboundMessage head() {
+            OutboundMessage bulkHead = bulk.peekFirst();
+            if (bulkHead != null && bulkHead.continuation) {
+                return bulkHead; // Finish the itinerary that is being sent before replying
+            }
+            OutboundMessage head = interactive.peekFirst();
+            return head != null ? head : bulkHead;
+        }
+
+        private boolean isIdle(long now) {
+            return !inFlight && interactive.isEmpty() && bulk.isEmpty() && nextSendAt - now <= 0;
+        }
+    }
+
+    /**
+     * Classic token bucket: refills one token every {@code nanosPerToken}, holds at most {@code capacity}.
+     */
+    static final class TokenBucket {
+        private final int capacity;
+        private final long nanosPerToken;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int capacity, long nanosPerToken) {
+            this.capacity = capacity;
+            this.nanosPerToken = nanosPerToken;
+            this.tokens = capacity;
+        }
+
+        long nanosUntilToken(long now) {
+            tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+            return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * nanosPerToken);
+        }
+
+        void take() {
+            tokens -= 1;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.sjsu.travelswarm.service;
+
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Delivers a single message to the Telegram Bot API without blocking the caller.
+ * {@link TelegramSendQueue} decides when a message may go out; implementations only send it.
+ */
+public interface TelegramTransport {
+
+    /**
+     * @return A future completed with the sent message, or failed with the Bot API error
+     *         (a {@code TelegramApiRequestException} carries the error code and {@code retry_after}).
+     *         A failure that happened before the request was sent is a {@link NotSentException}.
+     */
+    CompletableFuture<Message> send(SendMessage message);
+
+    /**
+     * The request never left this host, e.g. no connection could be opened, so sending it again
+     * cannot duplicate the message. Any other failure may have reached Telegram.
+     */
+    class NotSentException extends TelegramApiException {
+
+        public NotSentException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
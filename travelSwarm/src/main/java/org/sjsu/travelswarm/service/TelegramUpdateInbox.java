@@ -0,0 +1,161 @@
+package org.sjsu.travelswarm.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.entity.InboundTelegramUpdate;
+import org.sjsu.travelswarm.repository.InboundTelegramUpdateRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbox for webhook updates, shared by every instance through the {@code telegram_update} table.
+ * <p>
+ * {@link #receive} stores the update unless its id is already there, so an update Telegram redelivers
+ * to any instance is processed once. Updates of a chat are then processed one at a time in update id
+ * order, whichever instance received them: an instance claims the chat's oldest unprocessed update for
+ * {@code telegram.bot.webhook.inbox.claim-timeout}, and only after it has been handled does the next one
+ * become eligible. A claim that runs out, e.g. because its instance went away, is picked up by the
+ * poller of any instance. Fast-lane commands and updates without a chat skip the queue; they are stored
+ * as processed only to recognise redeliveries.
+ */
+@Service
+@ConditionalOnProperty(name = "telegram.bot.mode", havingValue = "webhook")
+@Slf4j
+public class TelegramUpdateInbox {
+
+    // Telegram keeps undelivered updates for 24 hours, so it never redelivers anything older
+    private static final Duration RETENTION = Duration.ofHours(24);
+
+    private final InboundTelegramUpdateRepository updateRepository;
+    private final TelegramBotService telegramBotService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration claimTimeout;
+
+    public TelegramUpdateInbox(InboundTelegramUpdateRepository updateRepository,
+                               TelegramBotService telegramBotService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${telegram.bot.webhook.inbox.claim-timeout:2m}") Duration claimTimeout) {
+        this.updateRepository = updateRepository;
+        this.telegramBotService = telegramBotService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.claimTimeout = claimTimeout;
+    }
+
+    /**
+     * Stores the update and starts processing its chat's queue. Returns once the update is stored;
+     * processing continues asynchronously.
+     *
+     * @return false if the update had been received before.
+     * @throws org.springframework.dao.DataAccessException If the update could not be stored; Telegram should redeliver it.
+     */
+    public boolean receive(Update update) throws JsonProcessingException {
+        if (update.getUpdateId() == null) {
+            telegramBotService.handleUpdate(update); // Nothing to deduplicate by
+            return true;
+        }
+        Long chatId = update.hasMessage() ? update.getMessage().getChatId() : null;
+        boolean queued = chatId != null
+                && !(update.getMessage().hasText() && ChatUpdateDispatcher.isFastLane(update.getMessage().getText()));
+        String payload = objectMapper.writeValueAsString(update);
+        Instant now = Instant.now();
+
+        Integer inserted = transactionTemplate.execute(status -> updateRepository.insertIfAbsent(
+                update.getUpdateId().longValue(), chatId, payload, now, queued ? null : now));
+        if (inserted == null || inserted == 0) {
+            return false;
+        }
+        if (queued) {
+            processNext(chatId, null);
+        } else {
+            telegramBotService.handleUpdate(update);
+        }
+        return true;
+    }
+
+    /**
+     * Marks {@code finishedUpdateId} processed, if given, and starts on the chat's next update unless
+     * another instance is already working on the chat.
+     */
+    private void processNext(Long chatId, Long finishedUpdateId) {
+        InboundTelegramUpdate claimed;
+        try {
+            claimed = transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                if (finishedUpdateId != null) {
+                    updateRepository.markProcessed(finishedUpdateId, now);
+                }
+                InboundTelegramUpdate oldest = updateRepository.lockOldestUnprocessed(chatId).orElse(null);
+                if (oldest == null || (oldest.getClaimedUntil() != null && oldest.getClaimedUntil().isAfter(now))) {
+                    return null; // Nothing to do, or in progress elsewhere
+                }
+                oldest.setClaimedUntil(now.plus(claimTimeout));
+                return oldest;
+            });
+        } catch (Exception e) {
+            // Whatever was left unmarked or unclaimed is picked up by the poller
+            log.error("Could not claim the next update of chat {}: {}", chatId, e.getMessage(), e);
+            return;
+        }
+        if (claimed == null) {
+            return;
+        }
+
+        Update update;
+        try {
+            update = objectMapper.readValue(claimed.getPayload(), Update.class);
+        } catch (JsonProcessingException e) {
+            log.error("Dropping unreadable update {} of chat {}: {}", claimed.getUpdateId(), chatId, e.getMessage(), e);
+            processNext(chatId, claimed.getUpdateId());
+            return;
+        }
+        CompletableFuture<Void> handled;
+        try {
+            handled = telegramBotService.handleUpdate(update);
+        } catch (Exception e) {
+            log.error("Error handling update {} of chat {}: {}", claimed.getUpdateId(), chatId, e.getMessage(), e);
+            handled = CompletableFuture.completedFuture(null);
+        }
+        handled.whenComplete((ignored, error) -> processNext(chatId, claimed.getUpdateId()));
+    }
+
+    @Scheduled(fixedDelayString = "${telegram.bot.webhook.inbox.poll-interval:5s}")
+    public void pollUnclaimed() {
+        List<Long> chatIds;
+        try {
+            chatIds = updateRepository.findChatsWithUnclaimedUpdates(Instant.now());
+        } catch (Exception e) {
+            log.error("Could not look for unclaimed updates: {}", e.getMessage(), e);
+            return;
+        }
+        if (!chatIds.isEmpty()) {
+            log.info("Picking up unclaimed updates of {} chat(s)", chatIds.size());
+        }
+        chatIds.forEach(chatId -> processNext(chatId, null));
+    }
+
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void purgeProcessed() {
+        try {
+            Integer deleted = transactionTemplate.execute(status ->
+                    updateRepository.deleteProcessedBefore(Instant.now().minus(RETENTION)));
+            log.debug("Purged {} processed update(s)", deleted);
+        } catch (Exception e) {
+            log.error("Could not purge processed updates: {}", e.getMessage(), e);
+        }
+    }
+}
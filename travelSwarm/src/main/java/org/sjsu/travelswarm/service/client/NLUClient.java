@@ -3,6 +3,8 @@ package org.sjsu.travelswarm.service.client;
 import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
 import org.sjsu.travelswarm.model.entity.PlanningSession;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface NLUClient {
 
     /**
@@ -11,4 +13,13 @@ public interface NLUClient {
      * @return NluResultDto containing parsed parameters, or a fallback DTO if the call fails.
      */
     NLUResultDto parseText(String userText, PlanningSession currentSession);
+
+    /**
+     * Non-blocking variant of {@link #parseText}. The returned future never completes exceptionally:
+     * errors, deadline expiry and overload all resolve to the same fallback DTO as the blocking call.
+     * @param userText The raw text input from the user.
+     * @param currentSession The session whose state is sent along as context. It is read before this method returns.
+     * @return A future with the parsed parameters, or a fallback DTO if the call fails or times out.
+     */
+    CompletableFuture<NLUResultDto> parseTextAsync(String userText, PlanningSession currentSession);
 }
@@ -1,10 +1,15 @@
 package org.sjsu.travelswarm.service.client;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.sjsu.travelswarm.model.dto.nlu.NLURequestDto;
 import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
 import org.sjsu.travelswarm.model.entity.PlanningSession;
 import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.sjsu.travelswarm.service.PlanningPipelineMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import jakarta.annotation.PostConstruct;
@@ -16,21 +21,61 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
 public class NLUClientImpl implements NLUClient {
 
     private final RestTemplate restTemplate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final NluResultCache nluResultCache;
     private final String nluServiceFullUrl;
+    private final Duration callTimeout;
+
+    // Caps concurrent NLU calls; calls beyond the cap wait in `waitingCalls` (their deadline keeps running)
+    private final Semaphore inFlightPermits;
+    private final Queue<PendingCall> waitingCalls = new ConcurrentLinkedQueue<>();
+
+    private final Timer okTimer;
+    private final Timer errorTimer;
+    private final Timer timeoutTimer;
+    private final Timer cachedTimer;
 
     @Autowired
-    public NLUClientImpl(RestTemplate restTemplate, @Value("${agent.service.nlu.url}") String injectedNluServiceBaseUrl) {
+    public NLUClientImpl(RestTemplate restTemplate,
+                         HttpClient agentHttpClient,
+                         ObjectMapper objectMapper,
+                         NluResultCache nluResultCache,
+                         @Value("${agent.service.nlu.url}") String injectedNluServiceBaseUrl,
+                         @Value("${agent.service.nlu.timeout:20s}") Duration callTimeout,
+                         @Value("${agent.service.nlu.max-in-flight:32}") int maxInFlight,
+                         MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.httpClient = agentHttpClient;
+        this.objectMapper = objectMapper;
+        this.nluResultCache = nluResultCache;
+        this.callTimeout = callTimeout;
+        this.inFlightPermits = new Semaphore(maxInFlight);
+        this.okTimer = nluTimer(meterRegistry, "ok");
+        this.errorTimer = nluTimer(meterRegistry, "error");
+        this.timeoutTimer = nluTimer(meterRegistry, "timeout");
+        this.cachedTimer = nluTimer(meterRegistry, "cached");
 
         if (injectedNluServiceBaseUrl == null || injectedNluServiceBaseUrl.isBlank()) {
             log.error("NLUClientImpl Constructor: NLU Service Base URL IS NULL OR BLANK. Check 'agent.service.nlu.url' property.");
@@ -41,6 +86,11 @@ public class NLUClientImpl implements NLUClient {
         }
     }
 
+    // Async calls are timed from the moment they are queued, so waiting for an in-flight permit counts
+    private static Timer nluTimer(MeterRegistry meterRegistry, String result) {
+        return PlanningPipelineMetrics.stageTimer("nlu").tag("result", result).register(meterRegistry);
+    }
+
     @PostConstruct
     public void postConstructCheck() {
         log.info("NLUClientImpl @PostConstruct - Effective nluServiceFullUrl stored: '{}'", this.nluServiceFullUrl);
@@ -61,20 +111,14 @@ public class NLUClientImpl implements NLUClient {
         log.info("NLUClientImpl.parseText - Preparing NLU request for text: '{}' with context from session ID: {}",
                 userText, currentSession != null ? currentSession.getId() : "null");
 
-        // Create the request DTO, populating context from the session
-        NLURequestDto requestDto = new NLURequestDto();
-        requestDto.setUserText(userText);
+        long startNanos = System.nanoTime();
+        NLURequestDto requestDto = buildRequestDto(userText, currentSession);
 
-        if (currentSession != null) {
-            requestDto.setCurrentDestination(currentSession.getDestination());
-            requestDto.setCurrentDurationDays(currentSession.getDurationDays());
-            requestDto.setCurrentStartDate(currentSession.getStartDate());
-            requestDto.setCurrentEndDate(currentSession.getEndDate());
-            requestDto.setCurrentBudget(currentSession.getBudget());
-            requestDto.setCurrentInterests(currentSession.getInterests());
-            requestDto.setCurrentStatus(currentSession.getStatus().name());
-        } else {
-            requestDto.setCurrentStatus(SessionStatus.STARTED.name());
+        NLUResultDto cachedResult = nluResultCache.get(requestDto);
+        if (cachedResult != null) {
+            log.info("NLU cache hit for text '{}': Status='{}', Dest='{}'", userText, cachedResult.getStatus(), cachedResult.getDestination());
+            record(cachedTimer, startNanos);
+            return cachedResult;
         }
 
         HttpHeaders headers = new HttpHeaders();
@@ -95,9 +139,12 @@ public class NLUClientImpl implements NLUClient {
 
             if (responseEntity.getStatusCode().is2xxSuccessful() && responseEntity.getBody() != null) {
                 NLUResultDto nluResult = responseEntity.getBody();
+                nluResultCache.put(requestDto, nluResult);
+                record(okTimer, startNanos);
                 log.info("Received NLU Result (RestTemplate): Status='{}', Dest='{}'", nluResult.getStatus(), nluResult.getDestination());
                 return nluResult;
             } else {
+                record(errorTimer, startNanos);
                 log.error("NLU request (RestTemplate) to {} returned status: {} with body: {}",
                         this.nluServiceFullUrl, responseEntity.getStatusCode(), responseEntity.getBody());
                 return createFallbackNluResult("NLU service error: " + responseEntity.getStatusCode());
@@ -106,6 +153,7 @@ public class NLUClientImpl implements NLUClient {
             log.error("Invalid URI syntax for NLU service URL: {}. Error: {}", this.nluServiceFullUrl, e.getMessage(), e);
             return createFallbackNluResult("Invalid NLU service URL configured: " + e.getMessage());
         } catch (RestClientException e) {
+            record(errorTimer, startNanos);
             log.error("NLU request (RestTemplate) to {} FAILED: {}", this.nluServiceFullUrl, e.getMessage(), e);
             return createFallbackNluResult(e.getMessage());
         } catch (Exception e) {
@@ -114,6 +162,144 @@ public class NLUClientImpl implements NLUClient {
         }
     }
 
+    @Override
+    public CompletableFuture<NLUResultDto> parseTextAsync(String userText, PlanningSession currentSession) {
+        if (this.nluServiceFullUrl == null || this.nluServiceFullUrl.isBlank()) {
+            log.error("NLUClientImpl.parseTextAsync - Aborting call: NLU Service Full URL was not configured properly at startup.");
+            return CompletableFuture.completedFuture(createFallbackNluResult("NLU service URL not configured. Critical error."));
+        }
+
+        if (userText == null || userText.isBlank()) {
+            log.warn("parseTextAsync called with empty userText.");
+            return CompletableFuture.completedFuture(createFallbackNluResult("Empty input received."));
+        }
+
+        log.info("NLUClientImpl.parseTextAsync - Preparing NLU request for text: '{}' with context from session ID: {}",
+                userText, currentSession != null ? currentSession.getId() : "null");
+
+        long startNanos = System.nanoTime();
+        NLURequestDto requestDto = buildRequestDto(userText, currentSession);
+        NLUResultDto cachedResult = nluResultCache.get(requestDto);
+        if (cachedResult != null) {
+            log.info("NLU cache hit for text '{}': Status='{}', Dest='{}'", userText, cachedResult.getStatus(), cachedResult.getDestination());
+            record(cachedTimer, startNanos);
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(new URI(this.nluServiceFullUrl))
+                    .timeout(callTimeout)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(requestDto)))
+                    .build();
+        } catch (URISyntaxException e) {
+            log.error("Invalid URI syntax for NLU service URL: {}. Error: {}", this.nluServiceFullUrl, e.getMessage(), e);
+            return CompletableFuture.completedFuture(createFallbackNluResult("Invalid NLU service URL configured: " + e.getMessage()));
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize NLU request for text '{}': {}", userText, e.getMessage(), e);
+            return CompletableFuture.completedFuture(createFallbackNluResult("Unexpected error: " + e.getMessage()));
+        }
+
+        // The deadline covers time spent waiting for a permit as well as the call itself
+        CompletableFuture<NLUResultDto> result = new CompletableFuture<>();
+        waitingCalls.add(new PendingCall(requestDto, request, result, startNanos));
+        startWaitingCalls();
+
+        return result
+                .orTimeout(callTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TimeoutException) {
+                        record(timeoutTimer, startNanos);
+                        log.error("NLU request (async) to {} exceeded its {} ms deadline", this.nluServiceFullUrl, callTimeout.toMillis());
+                        return createFallbackNluResult("NLU service timed out");
+                    }
+                    log.error("NLU request (async) to {} FAILED: {}", this.nluServiceFullUrl, cause.getMessage(), cause);
+                    return createFallbackNluResult(cause.getMessage());
+                });
+    }
+
+    private void startWaitingCalls() {
+        while (!waitingCalls.isEmpty() && inFlightPermits.tryAcquire()) {
+            PendingCall call = waitingCalls.poll();
+            if (call == null || call.result().isDone()) {
+                // Raced with another starter, or the deadline already expired while queued
+                inFlightPermits.release();
+                continue;
+            }
+            CompletableFuture<HttpResponse<byte[]>> response =
+                    httpClient.sendAsync(call.request(), HttpResponse.BodyHandlers.ofByteArray());
+            // Stop the HTTP exchange if the caller's deadline fires first
+            call.result().whenComplete((ignored, error) -> response.cancel(true));
+            response.whenComplete((httpResponse, error) -> {
+                inFlightPermits.release();
+                startWaitingCalls();
+                if (!call.result().isDone()) {
+                    // Not after the deadline fired: that was recorded as a timeout
+                    record(error == null && isSuccessful(httpResponse) ? okTimer : errorTimer, call.startNanos());
+                }
+                if (error != null) {
+                    call.result().completeExceptionally(error);
+                } else {
+                    call.result().complete(toNluResult(call.requestDto(), httpResponse));
+                }
+            });
+        }
+    }
+
+    private NLUResultDto toNluResult(NLURequestDto requestDto, HttpResponse<byte[]> httpResponse) {
+        int statusCode = httpResponse.statusCode();
+        byte[] body = httpResponse.body();
+        if (isSuccessful(httpResponse)) {
+            try {
+                NLUResultDto nluResult = objectMapper.readValue(body, NLUResultDto.class);
+                log.info("Received NLU Result (async): Status='{}', Dest='{}'", nluResult.getStatus(), nluResult.getDestination());
+                nluResultCache.put(requestDto, nluResult);
+                return nluResult;
+            } catch (IOException e) {
+                log.error("Could not parse NLU response from {}: {}", this.nluServiceFullUrl, e.getMessage(), e);
+                return createFallbackNluResult("Unexpected error: " + e.getMessage());
+            }
+        }
+        log.error("NLU request (async) to {} returned status: {} with body: {}",
+                this.nluServiceFullUrl, statusCode, body != null ? new String(body) : null);
+        return createFallbackNluResult("NLU service error: " + statusCode);
+    }
+
+    private static boolean isSuccessful(HttpResponse<byte[]> httpResponse) {
+        int statusCode = httpResponse.statusCode();
+        return statusCode >= 200 && statusCode < 300 && httpResponse.body() != null && httpResponse.body().length > 0;
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private NLURequestDto buildRequestDto(String userText, PlanningSession currentSession) {
+        // Create the request DTO, populating context from the session
+        NLURequestDto requestDto = new NLURequestDto();
+        requestDto.setUserText(userText);
+
+        if (currentSession != null) {
+            requestDto.setCurrentDestination(currentSession.getDestination());
+            requestDto.setCurrentDurationDays(currentSession.getDurationDays());
+            requestDto.setCurrentStartDate(currentSession.getStartDate());
+            requestDto.setCurrentEndDate(currentSession.getEndDate());
+            requestDto.setCurrentBudget(currentSession.getBudget());
+            requestDto.setCurrentInterests(currentSession.getInterests());
+            requestDto.setCurrentStatus(currentSession.getStatus().name());
+        } else {
+            requestDto.setCurrentStatus(SessionStatus.STARTED.name());
+        }
+        return requestDto;
+    }
+
+    private record PendingCall(NLURequestDto requestDto, HttpRequest request, CompletableFuture<NLUResultDto> result,
+                               long startNanos) {
+    }
+
     private NLUResultDto createFallbackNluResult(String errorDetails) {
         // ... (keep this method as before) ...
         NLUResultDto fallback = new NLUResultDto();
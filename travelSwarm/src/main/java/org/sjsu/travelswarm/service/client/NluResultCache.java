@@ -0,0 +1,156 @@
+package org.sjsu.travelswarm.service.client;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.sjsu.travelswarm.model.dto.nlu.NLURequestDto;
+import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
+import org.sjsu.travelswarm.util.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bounded LRU cache of NLU results, keyed on the normalized user text plus the session context sent with it.
+ * <p>
+ * Only results parsed from a successful NLU response are stored; fallback results produced for
+ * transport errors or timeouts never reach {@link #put}. Values are copied in and out, so callers
+ * may modify what they get back.
+ */
+@Component
+@Slf4j
+public class NluResultCache {
+
+    private final boolean enabled;
+    private final LruCache<Key, NLUResultDto> cache;
+
+    public NluResultCache(@Value("${agent.service.nlu.cache.enabled:true}") boolean enabled,
+                          @Value("${agent.service.nlu.cache.max-entries:10000}") long maxEntries,
+                          @Value("${agent.service.nlu.cache.ttl:10m}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = LruCache.ofEntries(maxEntries, ttl);
+
+        FunctionCounter.builder("cache.gets", cache, LruCache::hitCount)
+                .tag("cache", "nlu").tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.gets", cache, LruCache::missCount)
+                .tag("cache", "nlu").tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("cache.evictions", cache, c -> c.evictionCount() + c.expirationCount())
+                .tag("cache", "nlu")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", cache, LruCache::size)
+                .tag("cache", "nlu")
+                .register(meterRegistry);
+
+        log.info("NLU result cache {} (max {} entries, ttl {})", enabled ? "enabled" : "disabled", maxEntries, ttl);
+    }
+
+    /**
+     * @return A copy of the cached result for this request, or null.
+     */
+    public NLUResultDto get(NLURequestDto request) {
+        if (!enabled) {
+            return null;
+        }
+        NLUResultDto cached = cache.get(Key.of(request));
+        return cached != null ? copyOf(cached) : null;
+    }
+
+    /**
+     * Caches a result parsed from a successful NLU response. Never call this with a fallback result.
+     */
+    public void put(NLURequestDto request, NLUResultDto result) {
+        if (!enabled || result == null) {
+            return;
+        }
+        cache.put(Key.of(request), copyOf(result));
+    }
+
+    private static NLUResultDto copyOf(NLUResultDto source) {
+        NLUResultDto copy = new NLUResultDto();
+        copy.setDestination(source.getDestination());
+        copy.setDurationDays(source.getDurationDays());
+        copy.setStartDate(source.getStartDate());
+        copy.setEndDate(source.getEndDate());
+        copy.setBudget(source.getBudget());
+        copy.setInterests(source.getInterests() != null ? new ArrayList<>(source.getInterests()) : null);
+        copy.setStatus(source.getStatus());
+        copy.setClarificationQuestion(source.getClarificationQuestion());
+        copy.setModificationDetails(source.getModificationDetails());
+        return copy;
+    }
+
+    /**
+     * Cache key. Text values are trimmed, lower-cased and whitespace-collapsed; interests are
+     * compared as a sorted list, since their order does not change what the NLU service extracts.
+     */
+    record Key(String userText,
+               String destination,
+               Integer durationDays,
+               String startDate,
+               String endDate,
+               String budget,
+               List<String> interests,
+               String status) {
+
+        static Key of(NLURequestDto request) {
+            List<String> interests = null;
+            if (request.getCurrentInterests() != null) {
+                interests = request.getCurrentInterests().stream()
+                        .map(Key::normalize)
+                        .sorted()
+                        .toList();
+            }
+            return new Key(
+                    normalizeUtterance(request.getUserText()),
+                    normalize(request.getCurrentDestination()),
+                    request.getCurrentDurationDays(),
+                    normalize(request.getCurrentStartDate()),
+                    normalize(request.getCurrentEndDate()),
+                    normalize(request.getCurrentBudget()),
+                    interests,
+                    request.getCurrentStatus());
+        }
+
+        private static String normalize(String value) {
+            if (value == null) {
+                return null;
+            }
+            StringBuilder sb = new StringBuilder(value.length());
+            boolean pendingSpace = false;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    pendingSpace = sb.length() > 0;
+                    continue;
+                }
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+            return sb.toString().toLowerCase(Locale.ROOT);
+        }
+
+        private static String normalizeUtterance(String userText) {
+            String normalized = normalize(userText);
+            if (normalized == null) {
+                return null;
+            }
+            // "Plan a trip to Tokyo!" and "plan a trip to tokyo" are the same request
+            int end = normalized.length();
+            while (end > 0 && ".!?".indexOf(normalized.charAt(end - 1)) >= 0) {
+                end--;
+            }
+            return normalized.substring(0, end).stripTrailing();
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package org.sjsu.travelswarm.util;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Small thread-safe LRU cache with optional time-to-live, bounded by total weight.
+ * <p>
+ * With the default weigher every entry weighs 1, so the bound is an entry count; pass a custom
+ * weigher to bound by e.g. bytes. Expired entries are dropped lazily on access and when the cache
+ * needs room. Hit, miss and eviction counts are kept for sizing.
+ */
+public class LruCache<K, V> {
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private final long ttlNanos;
+    private final ToLongBiFunction<K, V> weigher;
+
+    private long totalWeight;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public LruCache(long maxWeight, Duration ttl, ToLongBiFunction<K, V> weigher) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl == null || ttl.isZero() || ttl.isNegative() ? 0 : ttl.toNanos();
+        this.weigher = weigher;
+    }
+
+    /** Creates a cache bounded by entry count. A null or zero ttl means entries never expire. */
+    public static <K, V> LruCache<K, V> ofEntries(long maxEntries, Duration ttl) {
+        return new LruCache<>(maxEntries, ttl, (key, value) -> 1);
+    }
+
+    /**
+     * @return The cached value, or null if absent or expired. Counts as a hit or a miss.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(entry, System.nanoTime())) {
+            remove(key, entry);
+            expirations.increment();
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Stores the value, evicting least recently used entries until the weight bound holds.
+     * A value heavier than the whole cache is not stored.
+     */
+    public synchronized void put(K key, V value) {
+        long weight = weigher.applyAsLong(key, value);
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            totalWeight -= previous.weight;
+        }
+        if (weight > maxWeight) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, weight, System.nanoTime()));
+        totalWeight += weight;
+        evictIfNeeded();
+    }
+
+    /**
+     * @return The cached value, or null if absent or expired. Not counted as a hit or a miss.
+     */
+    public synchronized V peek(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null || isExpired(entry, System.nanoTime()) ? null : entry.value;
+    }
+
+    /**
+     * Stores the value unless a live entry exists for the key. Does not count as a hit or a miss.
+     *
+     * @return The value already cached, or null if {@code value} was stored.
+     */
+    public synchronized V putIfAbsent(K key, V value) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !isExpired(entry, System.nanoTime())) {
+            return entry.value;
+        }
+        put(key, value);
+        return null;
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            totalWeight -= entry.weight;
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long weight() {
+        return totalWeight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    private void evictIfNeeded() {
+        if (totalWeight <= maxWeight) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Drop expired entries first, then the least recently used ones (iteration order is LRU first)
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && totalWeight > maxWeight && ttlNanos > 0) {
+            Entry<V> entry = iterator.next().getValue();
+            if (isExpired(entry, now)) {
+                iterator.remove();
+                totalWeight -= entry.weight;
+                expirations.increment();
+            }
+        }
+        iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && totalWeight > maxWeight) {
+            Entry<V> entry = iterator.next().getValue();
+            iterator.remove();
+            totalWeight -= entry.weight;
+            evictions.increment();
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return ttlNanos > 0 && now - entry.createdAtNanos > ttlNanos;
+    }
+
+    private void remove(K key, Entry<V> entry) {
+        entries.remove(key);
+        totalWeight -= entry.weight;
+    }
+
+    private record Entry<V>(V value, long weight, long createdAtNanos) {
+    }
+}
@@ -1,22 +1,79 @@
 package org.sjsu.travelswarm.util;
 
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
-
 public class MarkdownUtil {
-    private static final Pattern MARKDOWN_V2_ESCAPE_PATTERN =
-            Pattern.compile("([_*()\\[\\]~`>#+\\-=|{}.!])"); // Note: added \\ before - to make it literal in regex
+
+    // Characters that must be escaped in MarkdownV2 text, looked up by code point (all are ASCII)
+    private static final boolean[] TEXT_SPECIALS = table("_*()[]~`>#+-=|{}.!");
+    // Inside the (...) part of an inline link only ')' and '\' must be escaped; '(' is escaped for symmetry
+    private static final boolean[] LINK_URL_SPECIALS = table("()\\");
+
+    private static boolean[] table(String chars) {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < chars.length(); i++) {
+            table[chars.charAt(i)] = true;
+        }
+        return table;
+    }
 
     public static String escapeMarkdownV2(String text) {
         if (text == null || text.isEmpty()) {
             return "";
         }
-        Matcher matcher = MARKDOWN_V2_ESCAPE_PATTERN.matcher(text);
-        StringBuffer sb = new StringBuffer();
-        while (matcher.find()) {
-            matcher.appendReplacement(sb, Matcher.quoteReplacement("\\" + matcher.group(1)));
+        return escape(text, TEXT_SPECIALS);
+    }
+
+    /**
+     * Appends {@code text} escaped for MarkdownV2 to {@code out}, without intermediate strings.
+     * A null text appends nothing.
+     */
+    public static StringBuilder appendEscaped(StringBuilder out, CharSequence text) {
+        return text == null ? out : appendEscaped(out, text, 0, text.length());
+    }
+
+    /**
+     * Appends {@code text[start, end)} escaped for MarkdownV2 to {@code out}.
+     */
+    public static StringBuilder appendEscaped(StringBuilder out, CharSequence text, int start, int end) {
+        return append(out, text, start, end, TEXT_SPECIALS);
+    }
+
+    /**
+     * Appends {@code url} escaped for the target part of an inline link, {@code [text](url)}.
+     * Unlike text, dots, dashes etc. must stay as they are there.
+     */
+    public static StringBuilder appendLinkUrl(StringBuilder out, CharSequence url) {
+        return url == null ? out : append(out, url, 0, url.length(), LINK_URL_SPECIALS);
+    }
+
+    private static String escape(String text, boolean[] specials) {
+        int first = firstSpecial(text, 0, text.length(), specials);
+        if (first < 0) {
+            return text; // Nothing to escape: no copy
+        }
+        StringBuilder sb = new StringBuilder(text.length() + 16);
+        sb.append(text, 0, first);
+        return append(sb, text, first, text.length(), specials).toString();
+    }
+
+    private static StringBuilder append(StringBuilder out, CharSequence text, int start, int end, boolean[] specials) {
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 128 && specials[c]) {
+                out.append(text, runStart, i).append('\\').append(c);
+                runStart = i + 1;
+            }
+        }
+        return out.append(text, runStart, end);
+    }
+
+    private static int firstSpecial(CharSequence text, int start, int end, boolean[] specials) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < 128 && specials[c]) {
+                return i;
+            }
         }
-        matcher.appendTail(sb);
-        return sb.toString();
+        return -1;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,164 @@
+package org.sjsu.travelswarm.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Packs MarkdownV2 text into Telegram-sized messages as it is written.
+ * <p>
+ * Writers hand over whole sections (a header, a day, an event). Sections are never split as long
+ * as one fits into a message; a message is closed before the section that would overflow it.
+ * Oversized sections are cut at the last paragraph break, line break or space that lies outside
+ * any bold, italic, code or link entity and not inside an escape sequence. Only the message being
+ * filled is held in memory; completed messages go straight to the downstream consumer.
+ */
+public final class TelegramChunkSink {
+
+    private final int maxLength;
+    private final Consumer<String> downstream;
+    private final StringBuilder current;
+
+    public TelegramChunkSink(int maxLength, Consumer<String> downstream) {
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("maxLength must be positive");
+        }
+        this.maxLength = maxLength;
+        this.downstream = downstream;
+        this.current = new StringBuilder(Math.min(maxLength, 1024));
+    }
+
+    /**
+     * Runs {@code writer} against a sink with Telegram's message limit and returns the messages it produced.
+     */
+    public static List<String> collect(Consumer<TelegramChunkSink> writer) {
+        List<String> chunks = new ArrayList<>();
+        TelegramChunkSink sink = new TelegramChunkSink(TelegramMessageSplitter.MAX_MESSAGE_LENGTH, chunks::add);
+        writer.accept(sink);
+        sink.close();
+        return chunks;
+    }
+
+    /**
+     * Appends a section that should stay in one message if at all possible.
+     */
+    public void section(CharSequence section) {
+        if (section == null || section.isEmpty()) {
+            return;
+        }
+        if (current.length() + section.length() <= maxLength) {
+            current.append(section);
+            return;
+        }
+        flush();
+        if (section.length() <= maxLength) {
+            appendAtMessageStart(section, 0, section.length());
+            return;
+        }
+        splitOversized(section);
+    }
+
+    /**
+     * Emits the message being filled, if it has any content.
+     */
+    public void close() {
+        flush();
+    }
+
+    private void flush() {
+        int end = current.length();
+        while (end > 0 && Character.isWhitespace(current.charAt(end - 1))) {
+            end--;
+        }
+        if (end > 0) {
+            downstream.accept(current.substring(0, end));
+        }
+        current.setLength(0);
+    }
+
+    // Leading blank lines of a section only separate it from the previous one; drop them at a message start
+    private void appendAtMessageStart(CharSequence text, int start, int end) {
+        while (start < end && (text.charAt(start) == '\n' || text.charAt(start) == '\r')) {
+            start++;
+        }
+        current.append(text, start, end);
+    }
+
+    private void splitOversized(CharSequence section) {
+        int start = 0;
+        while (section.length() - start > maxLength) {
+            int cut = safeCut(section, start, start + maxLength);
+            appendAtMessageStart(section, start, cut);
+            flush();
+            start = cut;
+        }
+        appendAtMessageStart(section, start, section.length());
+    }
+
+    /**
+     * @return The end (exclusive) of the longest prefix of {@code text[start, limit)} that can be sent as one message.
+     */
+    static int safeCut(CharSequence text, int start, int limit) {
+        boolean escaped = false;
+        boolean bold = false;
+        boolean italic = false;
+        boolean code = false;
+        int link = 0; // 0 none, 1 in [text], 2 right after ']', 3 in (url)
+        int lastParagraph = -1;
+        int lastLine = -1;
+        int lastSpace = -1;
+
+        for (int i = start; i < limit; i++) {
+            char c = text.charAt(i);
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+            if (link == 2 && c != '(') {
+                link = 0;
+            }
+            switch (c) {
+                case '\\' -> escaped = true;
+                case '`' -> code = !code;
+                case '*' -> bold = code ? bold : !bold;
+                case '_' -> italic = code ? italic : !italic;
+                case '[' -> link = code || link != 0 ? link : 1;
+                case ']' -> link = link == 1 ? 2 : link;
+                case '(' -> link = link == 2 ? 3 : link;
+                case ')' -> link = link == 3 ? 0 : link;
+                default -> {
+                }
+            }
+            boolean outside = !bold && !italic && !code && link == 0 && !escaped;
+            if (outside && c == '\n') {
+                if (i > start && text.charAt(i - 1) == '\n') {
+                    lastParagraph = i + 1;
+                }
+                lastLine = i + 1;
+            } else if (outside && c == ' ') {
+                lastSpace = i + 1;
+            }
+        }
+
+        // Don't settle for a paragraph break that would leave most of the message empty
+        int minUseful = start + (limit - start) / 2;
+        if (lastParagraph > minUseful) return lastParagraph;
+        if (lastLine > start) return lastLine;
+        if (lastSpace > start) return lastSpace;
+
+        // No safe boundary at all: hard cut, but never between a backslash and the character it escapes
+        // or inside a surrogate pair
+        int cut = limit;
+        if (Character.isLowSurrogate(text.charAt(cut)) && cut - 1 > start) {
+            cut--;
+        }
+        int backslashes = 0;
+        for (int i = cut - 1; i >= start && text.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        if (backslashes % 2 == 1 && cut - 1 > start) {
+            cut--;
+        }
+        return cut;
+    }
+}
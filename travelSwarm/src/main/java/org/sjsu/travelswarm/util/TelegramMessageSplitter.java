@@ -0,0 +1,23 @@
+package org.sjsu.travelswarm.util;
+
+import java.util.List;
+
+public final class TelegramMessageSplitter {
+
+    public static final int MAX_MESSAGE_LENGTH = 4000; // Using 4000 for MarkdownV2
+
+    private TelegramMessageSplitter() {
+    }
+
+    /**
+     * Splits a message into parts of at most {@link #MAX_MESSAGE_LENGTH} characters, preferring
+     * paragraph breaks, then line breaks, then spaces, and never cutting through a MarkdownV2 entity
+     * (see {@link TelegramChunkSink}). Text that already fits is returned as one part.
+     */
+    public static List<String> split(String text) {
+        if (text.length() <= MAX_MESSAGE_LENGTH) {
+            return List.of(text);
+        }
+        return TelegramChunkSink.collect(sink -> sink.section(text));
+    }
+}
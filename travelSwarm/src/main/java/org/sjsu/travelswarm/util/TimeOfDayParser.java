@@ -0,0 +1,230 @@
+package org.sjsu.travelswarm.util;
+
+import java.time.LocalTime;
+
+/**
+ * Parses the times of day the agent puts into itinerary events, without exceptions or intermediate strings.
+ * <p>
+ * Accepted, case-insensitively and with surrounding whitespace:
+ * <ul>
+ *     <li>12-hour clock: {@code 9:00 AM}, {@code 09:30pm}, {@code 9 a.m.}</li>
+ *     <li>24-hour clock: {@code 9:00}, {@code 21:00}, {@code 21:00:30}</li>
+ *     <li>ISO local time or date-time: {@code 09:00:00.5}, {@code 2025-06-01T09:00}</li>
+ *     <li>ranges of the above: {@code 9:00 AM - 11:00 AM}, {@code 09:00–11:00}, {@code 9 AM to 1 PM}</li>
+ * </ul>
+ * A bare hour without AM/PM ({@code 9}) is ambiguous and rejected.
+ */
+public final class TimeOfDayParser {
+
+    private static final long FAILED = -1;
+    // A scan result packs the position after the time (upper bits) and the nano of day (lower 47 bits)
+    private static final int NANO_BITS = 47;
+    private static final long NANO_MASK = (1L << NANO_BITS) - 1;
+    private static final int MAX_POSITION = (1 << (63 - NANO_BITS)) - 1;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long NANOS_PER_MINUTE = 60 * NANOS_PER_SECOND;
+    private static final long NANOS_PER_HOUR = 60 * NANOS_PER_MINUTE;
+
+    private TimeOfDayParser() {
+    }
+
+    /**
+     * @return The time, or the start of a range; null if {@code text} is blank or not a time.
+     */
+    public static LocalTime parse(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        long start = scanTime(text, skipSpaces(text, 0));
+        if (start == FAILED) {
+            return null;
+        }
+        int end = skipSpaces(text, position(start));
+        if (end < text.length() && scanRangeEnd(text, end) == FAILED) {
+            return null; // Trailing garbage
+        }
+        return LocalTime.ofNanoOfDay(start & NANO_MASK);
+    }
+
+    /**
+     * @return The end of a range such as {@code 9:00 AM - 11:00 AM}; null if {@code text} is not a range.
+     */
+    public static LocalTime parseRangeEnd(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        long start = scanTime(text, skipSpaces(text, 0));
+        if (start == FAILED) {
+            return null;
+        }
+        long end = scanRangeEnd(text, skipSpaces(text, position(start)));
+        return end == FAILED ? null : LocalTime.ofNanoOfDay(end & NANO_MASK);
+    }
+
+    // A separator and a second time that ends the text
+    private static long scanRangeEnd(CharSequence text, int pos) {
+        int next = skipSeparator(text, pos);
+        if (next == pos) {
+            return FAILED;
+        }
+        long end = scanTime(text, skipSpaces(text, next));
+        if (end == FAILED || skipSpaces(text, position(end)) != text.length()) {
+            return FAILED;
+        }
+        return end;
+    }
+
+    private static int skipSeparator(CharSequence text, int pos) {
+        if (pos >= text.length()) {
+            return pos;
+        }
+        char c = text.charAt(pos);
+        if (c == '-' || c == '–' || c == '—') {
+            return pos + 1;
+        }
+        if (matchesWord(text, pos, "to")) {
+            return pos + 2;
+        }
+        return pos;
+    }
+
+    private static long scanTime(CharSequence text, int pos) {
+        pos = skipIsoDate(text, pos);
+
+        int hourEnd = digitsEnd(text, pos, 2);
+        if (hourEnd == pos) {
+            return FAILED;
+        }
+        int hour = number(text, pos, hourEnd);
+        pos = hourEnd;
+
+        int minute = 0;
+        int second = 0;
+        int nano = 0;
+        boolean hasMinutes = false;
+        if (pos < text.length() && text.charAt(pos) == ':') {
+            if (digitsEnd(text, pos + 1, 2) != pos + 3) {
+                return FAILED;
+            }
+            minute = number(text, pos + 1, pos + 3);
+            pos += 3;
+            hasMinutes = true;
+            if (pos < text.length() && text.charAt(pos) == ':') {
+                if (digitsEnd(text, pos + 1, 2) != pos + 3) {
+                    return FAILED;
+                }
+                second = number(text, pos + 1, pos + 3);
+                pos += 3;
+                if (pos < text.length() && text.charAt(pos) == '.') {
+                    int fractionEnd = digitsEnd(text, pos + 1, 9);
+                    if (fractionEnd == pos + 1) {
+                        return FAILED;
+                    }
+                    nano = number(text, pos + 1, fractionEnd);
+                    for (int i = fractionEnd - pos - 1; i < 9; i++) {
+                        nano *= 10;
+                    }
+                    pos = fractionEnd;
+                }
+            }
+        }
+        int meridiemStart = skipSpaces(text, pos);
+        int meridiemEnd = meridiemEnd(text, meridiemStart);
+        if (meridiemEnd > 0) {
+            if (hour < 1 || hour > 12) {
+                return FAILED;
+            }
+            boolean pm = Character.toLowerCase(text.charAt(meridiemStart)) == 'p';
+            hour = hour % 12 + (pm ? 12 : 0);
+            pos = meridiemEnd;
+        } else if (!hasMinutes || hour > 23) {
+            return FAILED;
+        } else if (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) {
+            return FAILED; // "9:001", "9:00h"
+        }
+        if (minute > 59 || second > 59 || pos > MAX_POSITION) {
+            return FAILED;
+        }
+
+        long nanoOfDay = hour * NANOS_PER_HOUR + minute * NANOS_PER_MINUTE + second * NANOS_PER_SECOND + nano;
+        return ((long) pos << NANO_BITS) | nanoOfDay;
+    }
+
+    // "2025-06-01T" or "2025-06-01 " in front of an ISO date-time
+    private static int skipIsoDate(CharSequence text, int pos) {
+        if (pos + 11 > text.length()
+                || digitsEnd(text, pos, 4) != pos + 4 || text.charAt(pos + 4) != '-'
+                || digitsEnd(text, pos + 5, 2) != pos + 7 || text.charAt(pos + 7) != '-'
+                || digitsEnd(text, pos + 8, 2) != pos + 10) {
+            return pos;
+        }
+        char separator = text.charAt(pos + 10);
+        return separator == 'T' || separator == 't' || separator == ' ' ? pos + 11 : pos;
+    }
+
+    // "am", "pm", "a.m." or "p.m." not followed by a letter
+    private static int meridiemEnd(CharSequence text, int pos) {
+        if (pos + 1 >= text.length()) {
+            return -1;
+        }
+        char first = Character.toLowerCase(text.charAt(pos));
+        if (first != 'a' && first != 'p') {
+            return -1;
+        }
+        int end;
+        if (Character.toLowerCase(text.charAt(pos + 1)) == 'm') {
+            end = pos + 2;
+        } else if (pos + 3 < text.length() && text.charAt(pos + 1) == '.'
+                && Character.toLowerCase(text.charAt(pos + 2)) == 'm' && text.charAt(pos + 3) == '.') {
+            end = pos + 4;
+        } else {
+            return -1;
+        }
+        return end < text.length() && Character.isLetter(text.charAt(end)) ? -1 : end;
+    }
+
+    private static boolean matchesWord(CharSequence text, int pos, String word) {
+        int end = pos + word.length();
+        if (end > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(text.charAt(pos + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return end == text.length() || !Character.isLetter(text.charAt(end));
+    }
+
+    private static int digitsEnd(CharSequence text, int pos, int maxDigits) {
+        int end = pos;
+        while (end < text.length() && end - pos < maxDigits && isAsciiDigit(text.charAt(end))) {
+            end++;
+        }
+        return end;
+    }
+
+    private static int number(CharSequence text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(CharSequence text, int pos) {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int position(long scanned) {
+        return (int) (scanned >>> NANO_BITS);
+    }
+}
@@ -0,0 +1,23 @@
+-- Itinerary, itinerary_day and activity move from IDENTITY to sequence-generated ids
+-- (allocationSize 50, pooled optimizer) so Hibernate can batch their inserts.
+--
+-- Flyway runs before Hibernate's ddl-auto=update, so on a fresh database the tables do not exist
+-- yet. Existing identity columns keep working: they accept the explicit ids Hibernate now sends.
+
+CREATE SEQUENCE IF NOT EXISTS itinerary_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS itinerary_day_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS activity_seq INCREMENT BY 50;
+
+-- Start every sequence a full block above the ids already handed out by the identity columns
+DO $$
+BEGIN
+    IF to_regclass('itinerary') IS NOT NULL THEN
+        PERFORM setval('itinerary_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM itinerary));
+    END IF;
+    IF to_regclass('itinerary_day') IS NOT NULL THEN
+        PERFORM setval('itinerary_day_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM itinerary_day));
+    END IF;
+    IF to_regclass('activity') IS NOT NULL THEN
+        PERFORM setval('activity_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM activity));
+    END IF;
+END $$;
@@ -0,0 +1,16 @@
+-- Keyset paging of /history (user_id = ? AND id < ? ORDER BY id DESC) and the foreign keys used
+-- when loading an itinerary's days and activities. Same names as the @Index annotations, so
+-- ddl-auto does not create them a second time.
+
+DO $$
+BEGIN
+    IF to_regclass('itinerary') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_itinerary_user_id_id ON itinerary (user_id, id DESC);
+    END IF;
+    IF to_regclass('itinerary_day') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_itinerary_day_itinerary_id ON itinerary_day (itinerary_id);
+    END IF;
+    IF to_regclass('activity') IS NOT NULL THEN
+        CREATE INDEX IF NOT EXISTS idx_activity_itinerary_day_id ON activity (itinerary_day_id);
+    END IF;
+END $$;
@@ -0,0 +1,9 @@
+-- Optimistic locking of planning_session (@Version). ddl-auto would add the column empty, but every
+-- existing row needs a version before Hibernate can check it.
+
+DO $$
+BEGIN
+    IF to_regclass('planning_session') IS NOT NULL THEN
+        ALTER TABLE planning_session ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+    END IF;
+END $$;
@@ -0,0 +1,109 @@
+package org.sjsu.travelswarm;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeAll;
+import org.sjsu.travelswarm.service.client.NLUClient;
+import org.springframework.amqp.rabbit.config.AbstractRabbitListenerContainerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base class for tests that run the application against PostgreSQL: the database named by
+ * {@code test.database.url} (with {@code test.database.username} and {@code test.database.password}),
+ * or else an embedded one started once per test JVM. PostgreSQL refuses to run as root, so as root
+ * these tests are skipped unless a url is given.
+ * <p>
+ * Telegram is replaced by a {@link RecordingTelegramTransport}, the NLU service by a mock, and the
+ * RabbitMQ listeners are never started. All subclasses share one application context and one database,
+ * so tests use their own chat ids rather than clean up.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Import(DatabaseTest.Infrastructure.class)
+public abstract class DatabaseTest {
+
+    private static EmbeddedPostgres embeddedPostgres;
+
+    @MockitoBean
+    protected NLUClient nluClient;
+
+    @Autowired
+    protected RecordingTelegramTransport telegram;
+
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(StringUtils.hasText(System.getProperty("test.database.url")) || !"root".equals(System.getProperty("user.name")),
+                "PostgreSQL does not run as root; pass -Ptest.database.url to run database tests");
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        String url = System.getProperty("test.database.url");
+        if (StringUtils.hasText(url)) {
+            registry.add("spring.datasource.url", () -> url);
+            registry.add("spring.datasource.username", () -> System.getProperty("test.database.username", "postgres"));
+            registry.add("spring.datasource.password", () -> System.getProperty("test.database.password", ""));
+            return;
+        }
+        EmbeddedPostgres postgres = embeddedPostgres();
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    private static synchronized EmbeddedPostgres embeddedPostgres() {
+        if (embeddedPostgres == null) {
+            try {
+                embeddedPostgres = EmbeddedPostgres.start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not start embedded PostgreSQL", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    embeddedPostgres.close();
+                } catch (IOException ignored) {
+                    // The JVM is exiting anyway
+                }
+            }));
+        }
+        return embeddedPostgres;
+    }
+
+    @TestConfiguration
+    static class Infrastructure {
+
+        @Bean
+        @Primary
+        RecordingTelegramTransport recordingTelegramTransport() {
+            return new RecordingTelegramTransport();
+        }
+
+        @Bean
+        static BeanPostProcessor listenerContainersNotStarted() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                    if (bean instanceof AbstractRabbitListenerContainerFactory<?> factory) {
+                        factory.setAutoStartup(false);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+}
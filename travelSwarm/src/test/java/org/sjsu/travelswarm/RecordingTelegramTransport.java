@@ -0,0 +1,47 @@
+package org.sjsu.travelswarm;
+
+import org.sjsu.travelswarm.service.TelegramTransport;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for the Bot API in tests: every message is sent at once and kept per chat.
+ */
+public class RecordingTelegramTransport implements TelegramTransport {
+
+    private final List<SendMessage> sent = new ArrayList<>();
+    private final AtomicInteger messageIds = new AtomicInteger();
+
+    @Override
+    public CompletableFuture<Message> send(SendMessage message) {
+        synchronized (sent) {
+            sent.add(message);
+        }
+        Chat chat = new Chat();
+        chat.setId(Long.parseLong(message.getChatId()));
+        chat.setType("private");
+        Message delivered = new Message();
+        delivered.setMessageId(messageIds.incrementAndGet());
+        delivered.setChat(chat);
+        delivered.setText(message.getText());
+        return CompletableFuture.completedFuture(delivered);
+    }
+
+    /**
+     * @return The texts sent to the chat so far, in send order.
+     */
+    public List<String> texts(long chatId) {
+        synchronized (sent) {
+            return sent.stream()
+                    .filter(message -> message.getChatId().equals(String.valueOf(chatId)))
+                    .map(SendMessage::getText)
+                    .toList();
+        }
+    }
+}
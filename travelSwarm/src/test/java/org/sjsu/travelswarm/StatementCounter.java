@@ -0,0 +1,44 @@
+package org.sjsu.travelswarm;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Records the SQL statements Hibernate prepares on the current thread. Unlike Hibernate's statistics,
+ * which are global, this leaves out what the scheduled jobs run meanwhile. A batch is prepared once,
+ * so with JDBC batching on each batch counts as one statement. Registered in application-test.properties.
+ */
+public class StatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    /**
+     * @return Statements prepared on this thread since the last {@link #reset()}.
+     */
+    public static int count() {
+        return STATEMENTS.get().size();
+    }
+
+    /**
+     * @return Statements prepared on this thread since the last {@link #reset()} that start with the keyword.
+     */
+    public static int count(String keyword) {
+        String prefix = keyword.toLowerCase(Locale.ROOT);
+        return (int) STATEMENTS.get().stream()
+                .filter(sql -> sql.stripLeading().toLowerCase(Locale.ROOT).startsWith(prefix))
+                .count();
+    }
+}
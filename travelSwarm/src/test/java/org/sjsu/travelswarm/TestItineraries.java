@@ -0,0 +1,55 @@
+package org.sjsu.travelswarm;
+
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.dto.ItineraryDayDto;
+import org.sjsu.travelswarm.model.dto.ItineraryEventDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Small itineraries shaped like agent output, for tests.
+ */
+public final class TestItineraries {
+
+    private TestItineraries() {
+    }
+
+    public static FinalItineraryDto itinerary(String destination, int days, int eventsPerDay) {
+        LocalDate start = LocalDate.of(2025, 6, 1);
+        FinalItineraryDto dto = new FinalItineraryDto();
+        dto.setDestination(destination);
+        dto.setDurationDays(days);
+        dto.setStartDate(start.toString());
+        dto.setEndDate(start.plusDays(days - 1L).toString());
+        dto.setBudget("medium");
+        dto.setInterests(List.of("food", "museums"));
+        dto.setSummary(days + " days in " + destination);
+        dto.setEstimatedTotalCost(1200.0);
+        dto.setGeneral_notes(List.of("Buy a transit pass."));
+
+        List<ItineraryDayDto> dayDtos = new ArrayList<>(days);
+        for (int d = 1; d <= days; d++) {
+            ItineraryDayDto day = new ItineraryDayDto();
+            day.setDay(d);
+            day.setDate(start.plusDays(d - 1L).toString());
+            day.setTheme("Day " + d + " in " + destination);
+            List<ItineraryEventDto> events = new ArrayList<>(eventsPerDay);
+            for (int e = 0; e < eventsPerDay; e++) {
+                ItineraryEventDto event = new ItineraryEventDto();
+                event.setType(e % 2 == 0 ? "attraction" : "food");
+                event.setDescription("Stop " + (e + 1) + " of day " + d);
+                event.setStartTime(String.format("%02d:00 AM", 8 + e));
+                event.setEndTime(String.format("%02d:45 AM", 8 + e));
+                event.setLocation("Old town");
+                event.setCost("$" + (10 + e));
+                events.add(event);
+            }
+            day.setEvents(events);
+            dayDtos.add(day);
+        }
+        dto.setDays(dayDtos);
+        return dto;
+    }
+}
@@ -0,0 +1,34 @@
+package org.sjsu.travelswarm.config;
+
+import org.apache.http.client.config.RequestConfig;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelegramBotConfigTest {
+
+    @Test
+    void pollingPropertiesMapToBotOptions() {
+        DefaultBotOptions options = new TelegramBotConfig().telegramBotOptions(
+                25, Duration.ofSeconds(40), List.of("message", "callback_query"), Duration.ofSeconds(3));
+
+        assertThat(options.getGetUpdatesLimit()).isEqualTo(25);
+        assertThat(options.getGetUpdatesTimeout()).isEqualTo(40);
+        assertThat(options.getAllowedUpdates()).containsExactly("message", "callback_query");
+    }
+
+    @Test
+    void socketTimeoutOutlastsTheLongPoll() {
+        RequestConfig requestConfig = new TelegramBotConfig().telegramBotOptions(
+                100, Duration.ofSeconds(50), List.of("message"), Duration.ofSeconds(5)).getRequestConfig();
+
+        assertThat(requestConfig.getConnectTimeout()).isEqualTo(5000);
+        assertThat(requestConfig.getConnectionRequestTimeout()).isEqualTo(5000);
+        // A getUpdates call that waits the full 50 s must not be cut off by the socket timeout
+        assertThat(requestConfig.getSocketTimeout()).isEqualTo(65_000);
+    }
+}
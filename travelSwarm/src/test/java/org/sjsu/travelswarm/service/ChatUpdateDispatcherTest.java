@@ -0,0 +1,23 @@
+package org.sjsu.travelswarm.service;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatUpdateDispatcherTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/history", "/help", "/view", "/view 12", "/HISTORY", "/History 2"})
+    void readOnlyCommandsTakeTheFastLane(String text) {
+        assertThat(ChatUpdateDispatcher.isFastLane(text)).isTrue();
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "/new", "/start", "/historyx", "history", " /history", "show /history", "Paris for 3 days"})
+    void everythingElseGoesThroughTheMailbox(String text) {
+        assertThat(ChatUpdateDispatcher.isFastLane(text)).isFalse();
+    }
+}
@@ -0,0 +1,121 @@
+package org.sjsu.travelswarm.service;
+
+import org.junit.jupiter.api.Test;
+import org.sjsu.travelswarm.DatabaseTest;
+import org.sjsu.travelswarm.StatementCounter;
+import org.sjsu.travelswarm.TestItineraries;
+import org.sjsu.travelswarm.model.dto.nlu.NLUResultDto;
+import org.sjsu.travelswarm.model.entity.PlanningSession;
+import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.sjsu.travelswarm.repository.PlanningSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class ConversationServiceTest extends DatabaseTest {
+
+    @Autowired
+    private ConversationService conversationService;
+
+    @Autowired
+    private PlanningSessionRepository sessionRepository;
+
+    @Test
+    void resultIsDeliveredToTheSessionThatRequestedIt() {
+        // The database outlives test runs; unique destinations keep earlier itineraries from being reused
+        long chatId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        String destination = "Resultville " + chatId;
+        answer("trip", complete(destination, 2, null, null));
+
+        conversationService.processTelegramUpdateAsync(chatId, "trip").join();
+        PlanningSession waiting = session(chatId);
+        assertThat(waiting.getStatus()).isEqualTo(SessionStatus.PROCESSING);
+        assertThat(waiting.getCoalescedCorrelationId()).isNull();
+
+        conversationService.handlePlanningResult(waiting.getCorrelationId(), TestItineraries.itinerary(destination, 2, 2));
+
+        PlanningSession completed = session(chatId);
+        assertThat(completed.getStatus()).isEqualTo(SessionStatus.COMPLETED);
+        assertThat(completed.getFinalItineraryId()).isNotNull();
+    }
+
+    @Test
+    void tripRequestAfterCompletedTripStartsAFreshRequest() {
+        long chatId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        String firstDestination = "Firstville " + chatId;
+        String secondDestination = "Secondville " + chatId;
+        answer("first trip", complete(firstDestination, 3, "cheap", List.of("food")));
+        answer("second trip", complete(secondDestination, 5, null, null));
+
+        conversationService.processTelegramUpdateAsync(chatId, "first trip").join();
+        PlanningSession first = session(chatId);
+        assertThat(first.getStatus()).isEqualTo(SessionStatus.PROCESSING);
+        conversationService.handlePlanningResult(first.getCorrelationId(), TestItineraries.itinerary(firstDestination, 3, 2));
+        assertThat(session(chatId).getStatus()).isEqualTo(SessionStatus.COMPLETED);
+
+        conversationService.processTelegramUpdateAsync(chatId, "second trip").join();
+
+        PlanningSession second = session(chatId);
+        assertThat(second.getStatus()).isEqualTo(SessionStatus.PROCESSING);
+        assertThat(second.getCorrelationId()).isNotNull().isNotEqualTo(first.getCorrelationId());
+        assertThat(second.getDestination()).isEqualTo(secondDestination);
+        assertThat(second.getDurationDays()).isEqualTo(5);
+        // Nothing of the first trip carries over
+        assertThat(second.getBudget()).isNull();
+        assertThat(second.getInterests()).isNullOrEmpty();
+        assertThat(second.getFinalItineraryId()).isNull();
+    }
+
+    @Test
+    void turnOnCachedSessionTakesOneStatement() {
+        long chatId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        answer("hello", clarify("Where to?"));
+        answer("somewhere warm", clarify("For how long?"));
+        answer("not sure yet", clarify("Roughly how many days?"));
+        conversationService.processTelegramUpdateAsync(chatId, "hello").join();
+
+        for (String message : List.of("somewhere warm", "not sure yet")) {
+            StatementCounter.reset();
+            conversationService.processTelegramUpdateAsync(chatId, message).join();
+
+            // The session comes from the cache and is written back without being read first
+            assertThat(StatementCounter.count()).as("statements for '%s'", message).isEqualTo(1);
+            assertThat(StatementCounter.count("update")).isEqualTo(1);
+        }
+        PlanningSession session = session(chatId);
+        assertThat(session.getStatus()).isEqualTo(SessionStatus.WAITING_FOR_CLARIFICATION);
+        assertThat(session.getLastClarificationQuestion()).isEqualTo("Roughly how many days?");
+    }
+
+    private PlanningSession session(long chatId) {
+        return sessionRepository.findByChatId(chatId).orElseThrow();
+    }
+
+    private void answer(String text, NLUResultDto result) {
+        when(nluClient.parseTextAsync(eq(text), any())).thenReturn(CompletableFuture.completedFuture(result));
+    }
+
+    private static NLUResultDto clarify(String question) {
+        NLUResultDto result = new NLUResultDto();
+        result.setStatus("NEEDS_CLARIFICATION");
+        result.setClarificationQuestion(question);
+        return result;
+    }
+
+    private static NLUResultDto complete(String destination, int days, String budget, List<String> interests) {
+        NLUResultDto result = new NLUResultDto();
+        result.setStatus("COMPLETE");
+        result.setDestination(destination);
+        result.setDurationDays(days);
+        result.setBudget(budget);
+        result.setInterests(interests);
+        return result;
+    }
+}
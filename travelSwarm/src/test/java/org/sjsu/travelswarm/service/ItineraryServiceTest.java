@@ -0,0 +1,126 @@
+package org.sjsu.travelswarm.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.sjsu.travelswarm.DatabaseTest;
+import org.sjsu.travelswarm.StatementCounter;
+import org.sjsu.travelswarm.TestItineraries;
+import org.sjsu.travelswarm.model.dto.FinalItineraryDto;
+import org.sjsu.travelswarm.model.entity.Itinerary;
+import org.sjsu.travelswarm.repository.ItineraryRepository;
+import org.sjsu.travelswarm.service.RenderedItineraryCache.RenderedItinerary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ItineraryServiceTest extends DatabaseTest {
+
+    @Autowired
+    private ItineraryService itineraryService;
+
+    @Autowired
+    private ItineraryRepository itineraryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private RenderedItineraryCache renderedItineraryCache;
+
+    @Test
+    void storingBatchesDayAndActivityInserts() {
+        // 1 itinerary, 7 days and 42 activities
+        FinalItineraryDto itinerary = TestItineraries.itinerary("Seville", 7, 6);
+
+        int batched = insertsToStore(itinerary, null);
+        int unbatched = insertsToStore(itinerary, 1);
+
+        // One per table with batching, one per row without (id sequence calls are not counted)
+        assertThat(unbatched).as("inserts without batching").isEqualTo(50);
+        assertThat(batched).as("inserts with batching").isEqualTo(3);
+    }
+
+    /**
+     * @param jdbcBatchSize The session's JDBC batch size; null for hibernate.jdbc.batch_size, 1 to turn batching off.
+     * @return The INSERT statements prepared.
+     */
+    private int insertsToStore(FinalItineraryDto itinerary, Integer jdbcBatchSize) {
+        Integer statements = new TransactionTemplate(transactionManager).execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            StatementCounter.reset();
+            itineraryService.storeItinerary(itinerary, "1004");
+            entityManager.flush();
+            return StatementCounter.count("insert");
+        });
+        return statements != null ? statements : 0;
+    }
+
+    @Test
+    void viewOfItineraryWithDocumentTakesOneQuery() {
+        Itinerary stored = itineraryService.storeItinerary(TestItineraries.itinerary("Lisbon", 5, 4), "1001");
+
+        StatementCounter.reset();
+        Optional<ItineraryService.ItineraryView> view = itineraryService.getItineraryDtoForView(stored.getId());
+
+        assertThat(view).isPresent();
+        assertThat(view.get().dto().getDays()).hasSize(5);
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void viewOfRelationalItineraryTakesTwoQueries() {
+        Itinerary stored = itineraryService.storeItinerary(TestItineraries.itinerary("Porto", 5, 4), "1002");
+        // As stored before document mode existed
+        jdbcTemplate.update("UPDATE itinerary SET document = NULL WHERE id = ?", stored.getId());
+
+        StatementCounter.reset();
+        Optional<ItineraryService.ItineraryView> view = itineraryService.getItineraryDtoForView(stored.getId());
+
+        assertThat(view).isPresent();
+        assertThat(view.get().dto().getDays()).hasSize(5)
+                .allSatisfy(day -> assertThat(day.getEvents()).hasSize(4));
+        assertThat(StatementCounter.count()).isEqualTo(2);
+    }
+
+    @Test
+    void outdatedRenderingIsRebuiltAndWrittenBack() {
+        // Saved directly, so the rendering is not in the rendered-itinerary cache
+        Itinerary stored = itineraryRepository.save(itineraryService.toEntity(TestItineraries.itinerary("Faro", 3, 3), "1003"));
+        jdbcTemplate.update("UPDATE itinerary SET render_version = 0, rendered_chunks = NULL WHERE id = ?", stored.getId());
+
+        Optional<RenderedItinerary> rendered = itineraryService.getRenderedItinerary(stored.getId());
+
+        assertThat(rendered).isPresent();
+        assertThat(rendered.get().userId()).isEqualTo("1003");
+        assertThat(rendered.get().chunks()).isEqualTo(stored.getRenderedChunks());
+        assertThat(jdbcTemplate.queryForObject("SELECT render_version FROM itinerary WHERE id = ?", Integer.class, stored.getId()))
+                .isEqualTo(ItineraryFormatter.RENDER_VERSION);
+        assertThat(jdbcTemplate.queryForObject("SELECT rendered_chunks IS NOT NULL FROM itinerary WHERE id = ?", Boolean.class, stored.getId()))
+                .isTrue();
+    }
+
+    @Test
+    void renderingIsCachedOnlyOnceTheItineraryIsCommitted() {
+        Long rolledBack = new TransactionTemplate(transactionManager).execute(status -> {
+            Itinerary stored = itineraryService.storeItinerary(TestItineraries.itinerary("Braga", 2, 2), "1005");
+            status.setRollbackOnly();
+            return stored.getId();
+        });
+        Itinerary committed = itineraryService.storeItinerary(TestItineraries.itinerary("Braga", 2, 2), "1005");
+
+        assertThat(renderedItineraryCache.get(rolledBack)).isNull();
+        assertThat(renderedItineraryCache.get(committed.getId())).isNotNull();
+    }
+}
@@ -0,0 +1,79 @@
+package org.sjsu.travelswarm.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.sjsu.travelswarm.model.dto.PlanningRequestDto;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlanningRequestKeyTest {
+
+    @Test
+    void canonicalisesCaseWhitespaceAndInterestOrder() {
+        PlanningRequestDto request = PlanningRequestDto.builder()
+                .userId("42")
+                .destination("  New   York ")
+                .durationDays(3)
+                .budget("Cheap")
+                .interests(List.of("Museums", " food ", "museums"))
+                .build();
+
+        assertThat(PlanningRequestKey.of(request)).isEqualTo("dest=new york|days=3|budget=low|interests=food,museums");
+    }
+
+    @Test
+    void ignoresUserAndDates() {
+        PlanningRequestDto first = PlanningRequestDto.builder().userId("1").destination("Lisbon").durationDays(4)
+                .startDate("2025-06-01").endDate("2025-06-04").interests(List.of("food", "history")).build();
+        PlanningRequestDto second = PlanningRequestDto.builder().userId("2").destination("lisbon").durationDays(4)
+                .startDate("2025-09-10").endDate("2025-09-13").interests(List.of("History", "Food")).build();
+
+        assertThat(PlanningRequestKey.of(first)).isEqualTo(PlanningRequestKey.of(second));
+    }
+
+    @Test
+    void takesTripLengthFromDatesWithoutDuration() {
+        PlanningRequestDto request = PlanningRequestDto.builder().destination("Rome")
+                .startDate("2025-06-01").endDate("2025-06-03").build();
+
+        assertThat(PlanningRequestKey.of(request)).isEqualTo("dest=rome|days=3|budget=any|interests=");
+    }
+
+    @Test
+    void isNullWithoutDestinationOrLength() {
+        assertThat(PlanningRequestKey.of(null)).isNull();
+        assertThat(PlanningRequestKey.of(PlanningRequestDto.builder().destination(" ").durationDays(3).build())).isNull();
+        assertThat(PlanningRequestKey.of(PlanningRequestDto.builder().destination("Rome").build())).isNull();
+        assertThat(PlanningRequestKey.of(PlanningRequestDto.builder().destination("Rome")
+                .startDate("June 1").endDate("June 3").build())).isNull();
+        assertThat(PlanningRequestKey.of(PlanningRequestDto.builder().destination("Rome")
+                .startDate("2025-06-03").endDate("2025-06-01").build())).isNull();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+            "null|3|any",
+            "Luxury hotels|3|high",
+            "backpacker|3|low",
+            "Mid-range|3|medium",
+            "$250|5|low",
+            "$1,000|5|medium",
+            "1500 USD|5|high",
+            "whatever   works|3|whatever works"
+    })
+    void mapsBudgetsToBands(String budget, int days, String band) {
+        assertThat(PlanningRequestKey.budgetBand(budget, days)).isEqualTo(band);
+    }
+
+    @Test
+    void interestsMayContainNulls() {
+        PlanningRequestDto request = PlanningRequestDto.builder().destination("Oslo").durationDays(2)
+                .interests(Arrays.asList("hiking", null, " ")).build();
+
+        assertThat(PlanningRequestKey.of(request)).isEqualTo("dest=oslo|days=2|budget=any|interests=hiking");
+    }
+}
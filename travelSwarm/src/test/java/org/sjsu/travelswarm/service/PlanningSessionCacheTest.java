@@ -0,0 +1,72 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.sjsu.travelswarm.DatabaseTest;
+import org.sjsu.travelswarm.model.entity.PlanningSession;
+import org.sjsu.travelswarm.model.enums.SessionStatus;
+import org.sjsu.travelswarm.repository.PlanningSessionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PlanningSessionCacheTest extends DatabaseTest {
+
+    @Autowired
+    private PlanningSessionCache sessionCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void staleCopyDoesNotOverwriteANewerRow() {
+        long chatId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> sessionCache.save(new PlanningSession(chatId)));
+        PlanningSession stale = sessionCache.findByChatId(chatId).orElseThrow();
+
+        // E.g. the timeout sweeper on another instance
+        jdbcTemplate.update("UPDATE planning_session SET status = 'FAILED', version = version + 1 WHERE chat_id = ?", chatId);
+        stale.setStatus(SessionStatus.WAITING_FOR_CLARIFICATION);
+
+        assertThatThrownBy(() -> transaction.executeWithoutResult(status -> sessionCache.save(stale)))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM planning_session WHERE chat_id = ?", String.class, chatId))
+                .isEqualTo("FAILED");
+        // The stale entry is gone, so the next turn starts from the row
+        assertThat(sessionCache.findByChatId(chatId)).get()
+                .extracting(PlanningSession::getStatus).isEqualTo(SessionStatus.FAILED);
+    }
+
+    @Test
+    void webhookModeWithoutInvalidationReadsTheRowEveryTime() {
+        PlanningSessionRepository repository = mock(PlanningSessionRepository.class);
+        when(repository.findByChatId(1L)).thenReturn(Optional.of(new PlanningSession(1L)));
+        PlanningSessionCache cache = new PlanningSessionCache(repository, mock(EntityManager.class), mock(ApplicationEventPublisher.class),
+                transactionManager, true, 100, Duration.ofMinutes(30), PlanningSessionCache.WriteMode.WRITE_THROUGH,
+                "webhook", false, new SimpleMeterRegistry());
+
+        cache.findByChatId(1L);
+        cache.findByChatId(1L);
+
+        verify(repository, times(2)).findByChatId(1L);
+    }
+}
@@ -0,0 +1,147 @@
+package org.sjsu.travelswarm.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelegramHttpTransportTest {
+
+    private static final String TOKEN = "123:test";
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private HttpServer botApi;
+    private volatile int status;
+    private volatile String answer;
+    private volatile long delayMillis;
+
+    private TelegramHttpTransport transport;
+
+    @BeforeEach
+    void startBotApi() throws IOException {
+        botApi = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        botApi.setExecutor(Executors.newCachedThreadPool());
+        botApi.createContext("/", this::handle);
+        botApi.start();
+    }
+
+    @AfterEach
+    void stop() {
+        if (transport != null) {
+            transport.shutdown();
+        }
+        botApi.stop(0);
+    }
+
+    @Test
+    void sendsTheMessageAndReturnsTelegramsAnswer() throws Exception {
+        answer(200, "{\"ok\":true,\"result\":{\"message_id\":42,\"date\":0,\"chat\":{\"id\":7,\"type\":\"private\"},\"text\":\"hi\"}}");
+        transport = transport(botApiUrl(), Duration.ofSeconds(5));
+
+        Message message = transport.send(new SendMessage("7", "hi")).get(5, TimeUnit.SECONDS);
+
+        assertThat(message.getMessageId()).isEqualTo(42);
+        assertThat(requests).singleElement().satisfies(request -> assertThat(request)
+                .startsWith("/bot" + TOKEN + "/sendmessage ")
+                .contains("\"chat_id\":\"7\"", "\"text\":\"hi\""));
+    }
+
+    @Test
+    void apiErrorCarriesErrorCodeAndRetryAfter() throws Exception {
+        answer(429, "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests: retry after 7\",\"parameters\":{\"retry_after\":7}}");
+        transport = transport(botApiUrl(), Duration.ofSeconds(5));
+
+        Throwable cause = failureOf(transport.send(new SendMessage("7", "hi")));
+
+        assertThat(cause).isInstanceOfSatisfying(TelegramApiRequestException.class, error -> {
+            assertThat(error.getErrorCode()).isEqualTo(429);
+            assertThat(error.getParameters().getRetryAfter()).isEqualTo(7);
+        });
+    }
+
+    @Test
+    void failureToConnectIsReportedAsNotSent() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        transport = transport("http://127.0.0.1:" + closedPort + "/bot", Duration.ofSeconds(5));
+
+        assertThat(failureOf(transport.send(new SendMessage("7", "hi")))).isInstanceOf(TelegramTransport.NotSentException.class);
+    }
+
+    @Test
+    void readTimeoutIsNotReportedAsNotSent() throws Exception {
+        answer(200, "{\"ok\":true,\"result\":{\"message_id\":42,\"date\":0,\"chat\":{\"id\":7,\"type\":\"private\"}}}");
+        delayMillis = 2000;
+        transport = transport(botApiUrl(), Duration.ofMillis(200));
+
+        Throwable cause = failureOf(transport.send(new SendMessage("7", "hi")));
+
+        // The request reached the Bot API, so it may have been delivered
+        assertThat(requests).hasSize(1);
+        assertThat(cause).isInstanceOf(TelegramApiException.class).isNotInstanceOf(TelegramTransport.NotSentException.class);
+    }
+
+    private void answer(int status, String body) {
+        this.status = status;
+        this.answer = body;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.add(exchange.getRequestURI().getPath() + " " + new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        } catch (IOException ignored) {
+            // The client gave up waiting
+        }
+    }
+
+    private String botApiUrl() {
+        return "http://127.0.0.1:" + botApi.getAddress().getPort() + "/bot";
+    }
+
+    private static TelegramHttpTransport transport(String baseUrl, Duration requestTimeout) {
+        DefaultBotOptions options = new DefaultBotOptions();
+        options.setBaseUrl(baseUrl);
+        return new TelegramHttpTransport(TOKEN, options, 2, Duration.ofSeconds(60), Duration.ofSeconds(1), requestTimeout);
+    }
+
+    private static Throwable failureOf(CompletableFuture<Message> sent) throws Exception {
+        try {
+            sent.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        throw new AssertionError("Sending should have failed");
+    }
+}
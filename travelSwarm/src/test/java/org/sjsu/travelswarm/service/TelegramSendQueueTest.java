@@ -0,0 +1,157 @@
+package org.sjsu.travelswarm.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TelegramSendQueueTest {
+
+    private static final long CHAT_ID = 1L;
+
+    private final HeldTransport transport = new HeldTransport();
+    private TelegramSendQueue queue;
+
+    @BeforeEach
+    void startQueue() {
+        queue = new TelegramSendQueue(transport, 1000, Duration.ZERO, 3, 100, new SimpleMeterRegistry());
+        queue.start();
+    }
+
+    @AfterEach
+    void stopQueue() {
+        queue.shutdown();
+    }
+
+    @Test
+    void replyWaitsForTheRestOfAnItineraryBeingSent() throws Exception {
+        List<CompletableFuture<Message>> itinerary = queue.enqueue(CHAT_ID, messages("day 1", "day 2", "day 3"), TelegramSendQueue.Priority.BULK);
+        transport.awaitSends(1);
+
+        CompletableFuture<Message> reply = queue.enqueue(CHAT_ID, message("reply"), TelegramSendQueue.Priority.INTERACTIVE);
+        transport.releaseFirst();
+
+        CompletableFuture.allOf(itinerary.get(2), reply).get(5, TimeUnit.SECONDS);
+        assertThat(transport.texts()).containsExactly("day 1", "day 2", "day 3", "reply");
+    }
+
+    @Test
+    void replyGoesBeforeAnItineraryNotStartedYet() throws Exception {
+        CompletableFuture<Message> first = queue.enqueue(CHAT_ID, message("first"), TelegramSendQueue.Priority.INTERACTIVE);
+        transport.awaitSends(1);
+
+        List<CompletableFuture<Message>> itinerary = queue.enqueue(CHAT_ID, messages("day 1", "day 2"), TelegramSendQueue.Priority.BULK);
+        CompletableFuture<Message> reply = queue.enqueue(CHAT_ID, message("reply"), TelegramSendQueue.Priority.INTERACTIVE);
+        transport.releaseFirst();
+
+        CompletableFuture.allOf(first, itinerary.get(1), reply).get(5, TimeUnit.SECONDS);
+        assertThat(transport.texts()).containsExactly("first", "reply", "day 1", "day 2");
+    }
+
+    @Test
+    void messageThatWasNotSentIsSentAgain() throws Exception {
+        CompletableFuture<Message> sent = queue.enqueue(CHAT_ID, message("hello"), TelegramSendQueue.Priority.INTERACTIVE);
+        transport.awaitSends(1);
+
+        transport.failFirst(new TelegramTransport.NotSentException("no connection", new ConnectException()));
+
+        sent.get(5, TimeUnit.SECONDS);
+        assertThat(transport.texts()).containsExactly("hello", "hello");
+    }
+
+    @Test
+    void failureAfterSendingIsNotRetried() throws Exception {
+        CompletableFuture<Message> sent = queue.enqueue(CHAT_ID, message("hello"), TelegramSendQueue.Priority.INTERACTIVE);
+        transport.awaitSends(1);
+
+        // Telegram may have delivered the message before the answer timed out
+        TelegramApiException readTimeout = new TelegramApiException("read timed out", new SocketTimeoutException());
+        transport.failFirst(readTimeout);
+
+        assertThatThrownBy(() -> sent.get(5, TimeUnit.SECONDS)).hasCause(readTimeout);
+        assertThat(transport.texts()).containsExactly("hello");
+    }
+
+    @Test
+    void tokenBucketAllowsBurstThenOneTokenPerInterval() {
+        long nanosPerToken = TimeUnit.MILLISECONDS.toNanos(100);
+        TelegramSendQueue.TokenBucket bucket = new TelegramSendQueue.TokenBucket(2, nanosPerToken);
+        long now = System.nanoTime();
+
+        assertThat(bucket.nanosUntilToken(now)).isZero();
+        bucket.take();
+        assertThat(bucket.nanosUntilToken(now)).isZero();
+        bucket.take();
+        assertThat(bucket.nanosUntilToken(now)).isEqualTo(nanosPerToken);
+        assertThat(bucket.nanosUntilToken(now + nanosPerToken / 4)).isEqualTo(nanosPerToken * 3 / 4);
+        assertThat(bucket.nanosUntilToken(now + nanosPerToken)).isZero();
+        bucket.take();
+        // Idle time refills at most to capacity
+        assertThat(bucket.nanosUntilToken(now + nanosPerToken * 100)).isZero();
+        bucket.take();
+        bucket.take();
+        assertThat(bucket.nanosUntilToken(now + nanosPerToken * 100)).isEqualTo(nanosPerToken);
+    }
+
+    private static List<SendMessage> messages(String... texts) {
+        List<SendMessage> messages = new ArrayList<>();
+        for (String text : texts) {
+            messages.add(message(text));
+        }
+        return messages;
+    }
+
+    private static SendMessage message(String text) {
+        return new SendMessage(String.valueOf(CHAT_ID), text);
+    }
+
+    /**
+     * Records sends; the first one stays in flight until released, later ones complete at once.
+     */
+    private static final class HeldTransport implements TelegramTransport {
+
+        private final List<String> texts = new ArrayList<>();
+        private final CompletableFuture<Message> first = new CompletableFuture<>();
+
+        @Override
+        public synchronized CompletableFuture<Message> send(SendMessage message) {
+            texts.add(message.getText());
+            notifyAll();
+            return texts.size() == 1 ? first : CompletableFuture.completedFuture(new Message());
+        }
+
+        synchronized void awaitSends(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (texts.size() < count && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            assertThat(texts).hasSizeGreaterThanOrEqualTo(count);
+        }
+
+        void releaseFirst() {
+            first.complete(new Message());
+        }
+
+        void failFirst(Throwable error) {
+            first.completeExceptionally(error);
+        }
+
+        synchronized List<String> texts() {
+            return List.copyOf(texts);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.sjsu.travelswarm.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.sjsu.travelswarm.DatabaseTest;
+import org.sjsu.travelswarm.repository.InboundTelegramUpdateRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.telegram.telegrambots.meta.api.objects.Chat;
+import org.telegram.telegrambots.meta.api.objects.Message;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two inboxes over the same table stand in for two instances behind the webhook.
+ */
+class TelegramUpdateInboxTest extends DatabaseTest {
+
+    @Autowired
+    private InboundTelegramUpdateRepository updateRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+    // Updates stay in progress until the test completes their future
+    private final Map<String, CompletableFuture<Void>> inProgress = new ConcurrentHashMap<>();
+    private TelegramUpdateInbox instanceA;
+    private TelegramUpdateInbox instanceB;
+    private long chatId;
+    private int nextUpdateId;
+
+    @BeforeEach
+    void setUp() {
+        TelegramBotService bot = mock(TelegramBotService.class);
+        when(bot.handleUpdate(any())).thenAnswer(invocation -> {
+            String text = invocation.<Update>getArgument(0).getMessage().getText();
+            handled.add(text);
+            return inProgress.computeIfAbsent(text, key -> new CompletableFuture<>());
+        });
+        instanceA = new TelegramUpdateInbox(updateRepository, bot, objectMapper, transactionManager, Duration.ofMinutes(2));
+        instanceB = new TelegramUpdateInbox(updateRepository, bot, objectMapper, transactionManager, Duration.ofMinutes(2));
+        // The database outlives test runs
+        chatId = ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        nextUpdateId = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE - 1000);
+    }
+
+    @Test
+    void redeliveredUpdateIsProcessedOnce() throws Exception {
+        Update update = update("Paris for 3 days");
+        inProgress.put("Paris for 3 days", CompletableFuture.completedFuture(null));
+
+        assertThat(instanceA.receive(update)).isTrue();
+        assertThat(instanceB.receive(update)).isFalse();
+
+        assertThat(handled).containsExactly("Paris for 3 days");
+    }
+
+    @Test
+    void updatesOfAChatRunInOrderAcrossInstances() throws Exception {
+        instanceA.receive(update("first"));
+        instanceB.receive(update("second"));
+        instanceB.receive(update("third"));
+
+        assertThat(handled).containsExactly("first");
+
+        inProgress.get("first").complete(null);
+        assertThat(handled).containsExactly("first", "second");
+
+        inProgress.get("second").complete(null);
+        assertThat(handled).containsExactly("first", "second", "third");
+    }
+
+    @Test
+    void fastLaneCommandDoesNotWaitForTheChat() throws Exception {
+        instanceA.receive(update("Rome for a week"));
+        instanceB.receive(update("/history"));
+
+        assertThat(handled).containsExactly("Rome for a week", "/history");
+        assertThat(instanceA.receive(update("/history", nextUpdateId - 1))).isFalse();
+    }
+
+    private Update update(String text) {
+        return update(text, nextUpdateId++);
+    }
+
+    private Update update(String text, int updateId) {
+        Chat chat = new Chat();
+        chat.setId(chatId);
+        chat.setType("private");
+        Message message = new Message();
+        message.setMessageId(updateId);
+        message.setChat(chat);
+        message.setText(text);
+        message.setDate((int) (System.currentTimeMillis() / 1000));
+        Update update = new Update();
+        update.setUpdateId(updateId);
+        update.setMessage(message);
+        return update;
+    }
+}
@@ -0,0 +1,56 @@
+package org.sjsu.travelswarm.service.client;
+
+import org.junit.jupiter.api.Test;
+import org.sjsu.travelswarm.model.dto.nlu.NLURequestDto;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NluResultCacheTest {
+
+    @Test
+    void keyIgnoresCaseWhitespaceAndTrailingPunctuation() {
+        NLURequestDto first = request("  Plan a trip to   Tokyo!! ", "Japan", List.of("Food", "temples"));
+        NLURequestDto second = request("plan a trip to tokyo", "  japan", List.of("temples", "food"));
+
+        assertThat(NluResultCache.Key.of(first)).isEqualTo(NluResultCache.Key.of(second));
+        assertThat(NluResultCache.Key.of(first).userText()).isEqualTo("plan a trip to tokyo");
+    }
+
+    @Test
+    void keyKeepsPunctuationInsideTheText() {
+        assertThat(NluResultCache.Key.of(request("3 days? maybe 4.", null, null)).userText()).isEqualTo("3 days? maybe 4");
+    }
+
+    @Test
+    void keyDistinguishesSessionContext() {
+        NLURequestDto planning = request("3 days", "Paris", null);
+        NLURequestDto completed = request("3 days", "Paris", null);
+        completed.setCurrentStatus("COMPLETED");
+
+        assertThat(NluResultCache.Key.of(planning)).isNotEqualTo(NluResultCache.Key.of(completed));
+        assertThat(NluResultCache.Key.of(planning)).isNotEqualTo(NluResultCache.Key.of(request("3 days", "Rome", null)));
+        assertThat(NluResultCache.Key.of(request("3 days", "Paris", List.of())))
+                .isNotEqualTo(NluResultCache.Key.of(planning));
+    }
+
+    @Test
+    void keyAcceptsMissingValues() {
+        NluResultCache.Key key = NluResultCache.Key.of(request(null, null, null));
+
+        assertThat(key.userText()).isNull();
+        assertThat(key.interests()).isNull();
+        assertThat(NluResultCache.Key.of(request("!!", null, null)).userText()).isEmpty();
+    }
+
+    private static NLURequestDto request(String text, String destination, List<String> interests) {
+        NLURequestDto request = new NLURequestDto();
+        request.setUserText(text);
+        request.setCurrentDestination(destination);
+        request.setCurrentDurationDays(3);
+        request.setCurrentInterests(interests);
+        request.setCurrentStatus("GATHERING_DETAILS");
+        return request;
+    }
+}
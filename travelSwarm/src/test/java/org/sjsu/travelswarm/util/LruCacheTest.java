@@ -0,0 +1,112 @@
+package org.sjsu.travelswarm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LruCacheTest {
+
+    @Test
+    void entriesExpireAfterTtl() throws InterruptedException {
+        LruCache<String, String> cache = LruCache.ofEntries(10, Duration.ofMillis(50));
+        cache.put("a", "1");
+        assertThat(cache.get("a")).isEqualTo("1");
+
+        Thread.sleep(120);
+
+        assertThat(cache.peek("a")).isNull();
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.expirationCount()).isEqualTo(1);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.putIfAbsent("a", "2")).isNull();
+        assertThat(cache.get("a")).isEqualTo("2");
+    }
+
+    @Test
+    void zeroTtlNeverExpires() throws InterruptedException {
+        LruCache<String, String> cache = LruCache.ofEntries(10, Duration.ZERO);
+        cache.put("a", "1");
+        Thread.sleep(20);
+        assertThat(cache.get("a")).isEqualTo("1");
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        LruCache<String, String> cache = LruCache.ofEntries(2, null);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a"); // b is now the least recently used
+
+        cache.put("c", "3");
+
+        assertThat(cache.peek("a")).isEqualTo("1");
+        assertThat(cache.peek("b")).isNull();
+        assertThat(cache.peek("c")).isEqualTo("3");
+        assertThat(cache.evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void evictsUntilWeightFits() {
+        LruCache<String, String> cache = new LruCache<>(10, null, (key, value) -> value.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.put("c", "cc");
+        assertThat(cache.weight()).isEqualTo(10);
+
+        cache.put("d", "ddd");
+
+        assertThat(cache.peek("a")).isNull();
+        assertThat(cache.weight()).isEqualTo(9);
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    void valueHeavierThanTheCacheIsNotStoredAndReplacesNothing() {
+        LruCache<String, String> cache = new LruCache<>(10, null, (key, value) -> value.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "b");
+
+        cache.put("a", "a".repeat(11));
+
+        assertThat(cache.peek("a")).isNull();
+        assertThat(cache.peek("b")).isEqualTo("b");
+        assertThat(cache.weight()).isEqualTo(1);
+        assertThat(cache.evictionCount()).isZero();
+    }
+
+    @Test
+    void countsHitsAndMissesButNotPeeks() {
+        LruCache<String, String> cache = LruCache.ofEntries(10, null);
+        cache.put("a", "1");
+
+        cache.get("a");
+        cache.get("b");
+        cache.peek("a");
+        assertThat(cache.putIfAbsent("a", "2")).isEqualTo("1");
+
+        assertThat(cache.hitCount()).isEqualTo(1);
+        assertThat(cache.missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateRemovesWeight() {
+        LruCache<String, String> cache = new LruCache<>(10, null, (key, value) -> value.length());
+        cache.put("a", "aaa");
+        cache.put("b", "bb");
+
+        cache.invalidate("a");
+        assertThat(cache.weight()).isEqualTo(2);
+
+        cache.invalidateAll();
+        assertThat(cache.size()).isZero();
+        assertThat(cache.weight()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveBound() {
+        assertThatThrownBy(() -> LruCache.ofEntries(0, null)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
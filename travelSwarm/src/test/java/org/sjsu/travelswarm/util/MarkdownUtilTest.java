@@ -0,0 +1,94 @@
+package org.sjsu.travelswarm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The table-driven escaper must produce exactly what the regex it replaced produced.
+ */
+class MarkdownUtilTest {
+
+    // The escaping MarkdownUtil used before it became table-driven
+    private static final Pattern LEGACY_PATTERN = Pattern.compile("([_*()\\[\\]~`>#+\\-=|{}.!])");
+
+    private static final String ALPHABET = "ab _*()[]~`>#+-=|{}.!\\\n¥é😀";
+
+    private static String legacyEscape(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        Matcher matcher = LEGACY_PATTERN.matcher(text);
+        StringBuffer sb = new StringBuffer();
+        while (matcher.find()) {
+            matcher.appendReplacement(sb, Matcher.quoteReplacement("\\" + matcher.group(1)));
+        }
+        matcher.appendTail(sb);
+        return sb.toString();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "", " ", "plain text", "_*()[]~`>#+-=|{}.!", "\\", "\\\\.", "a\\_b", "end.", ".start",
+            "Café 12.50€ (approx.)", "¥1,000 - ¥2,000", "😀", "😀.😀", "[link](https://example.com/a_b?c=d#e)",
+            "line one\nline two!", "tab\there", "*bold* _italic_ `code` ~strike~ ||spoiler||"
+    })
+    void escapesEdgeCasesLikeTheRegex(String text) {
+        assertAllApisMatchLegacy(text);
+    }
+
+    @Test
+    void nullEscapesToEmpty() {
+        assertThat(MarkdownUtil.escapeMarkdownV2(null)).isEmpty();
+        assertThat(MarkdownUtil.appendEscaped(new StringBuilder("x"), null).toString()).isEqualTo("x");
+    }
+
+    @Test
+    void textWithoutSpecialsIsNotCopied() {
+        String text = "Nothing to escape here";
+        assertThat(MarkdownUtil.escapeMarkdownV2(text)).isSameAs(text);
+    }
+
+    @Test
+    void escapesRandomTextLikeTheRegex() {
+        Random random = new Random(20250601L);
+        int[] codePoints = ALPHABET.codePoints().toArray();
+        StringBuilder text = new StringBuilder();
+        for (int n = 0; n < 200_000; n++) {
+            text.setLength(0);
+            int length = random.nextInt(24);
+            for (int i = 0; i < length; i++) {
+                text.appendCodePoint(codePoints[random.nextInt(codePoints.length)]);
+            }
+            assertAllApisMatchLegacy(text.toString());
+        }
+    }
+
+    @Test
+    void escapesRangeOnly() {
+        String text = "a.b.c.d";
+        assertThat(MarkdownUtil.appendEscaped(new StringBuilder(">"), text, 2, 5).toString()).isEqualTo(">b\\.c");
+    }
+
+    @Test
+    void escapesOnlyClosingSpecialsInLinkUrls() {
+        assertThat(MarkdownUtil.appendLinkUrl(new StringBuilder("<"), "https://example.com/a_b-c.d?(x)\\y").toString())
+                .isEqualTo("<https://example.com/a_b-c.d?\\(x\\)\\\\y");
+        assertThat(MarkdownUtil.appendLinkUrl(new StringBuilder("x"), null).toString()).isEqualTo("x");
+    }
+
+    private static void assertAllApisMatchLegacy(String text) {
+        String expected = legacyEscape(text);
+        assertThat(MarkdownUtil.escapeMarkdownV2(text)).as("escapeMarkdownV2(%s)", text).isEqualTo(expected);
+        assertThat(MarkdownUtil.appendEscaped(new StringBuilder("<"), text).toString())
+                .as("appendEscaped(StringBuilder, %s)", text).isEqualTo("<" + expected);
+        assertThat(MarkdownUtil.appendEscaped(new StringBuilder(), "##" + text + "##", 2, text.length() + 2).toString())
+                .as("appendEscaped(StringBuilder, %s, start, end)", text).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,94 @@
+package org.sjsu.travelswarm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelegramChunkSinkTest {
+
+    @Test
+    void prefersParagraphBreakPastTheMiddle() {
+        String text = "a".repeat(30) + "\n\n" + "b".repeat(10) + "\n" + "c".repeat(5) + " " + "d".repeat(20);
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, 50)).isEqualTo(text.indexOf('b'));
+    }
+
+    @Test
+    void ignoresParagraphBreakInTheFirstHalfForALineBreak() {
+        String text = "a\n\n" + "b".repeat(30) + "\n" + "c".repeat(5) + " " + "d".repeat(20);
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, 50)).isEqualTo(text.indexOf('c'));
+    }
+
+    @Test
+    void fallsBackToASpace() {
+        String text = "a".repeat(20) + " " + "b".repeat(40);
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, 50)).isEqualTo(21);
+    }
+
+    @Test
+    void cutsRelativeToStart() {
+        String text = "x".repeat(10) + "a".repeat(20) + " " + "b".repeat(40);
+
+        assertThat(TelegramChunkSink.safeCut(text, 10, 60)).isEqualTo(31);
+    }
+
+    @Test
+    void doesNotCutInsideBold() {
+        String text = "aaaa *bb cc dd ee ff*";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, text.length() - 1)).isEqualTo(5);
+    }
+
+    @Test
+    void doesNotCutInsideALink() {
+        String text = "see the [old town map](https://example.com/map) now";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, text.indexOf("now") - 3)).isEqualTo(text.indexOf('['));
+    }
+
+    @Test
+    void doesNotCutInsideCode() {
+        String text = "use `a b c d` please";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, text.indexOf('d'))).isEqualTo(4);
+    }
+
+    @Test
+    void escapedMarkersDoNotOpenEntities() {
+        String text = "price \\*approx\\* is 12 euros";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, text.length() - 2)).isEqualTo(text.indexOf("euros"));
+    }
+
+    @Test
+    void hardCutKeepsBackslashWithTheCharacterItEscapes() {
+        String text = "abcd\\.efgh";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, 5)).isEqualTo(4);
+    }
+
+    @Test
+    void hardCutKeepsSurrogatePairsTogether() {
+        String text = "ab😀cd";
+
+        assertThat(TelegramChunkSink.safeCut(text, 0, 3)).isEqualTo(2);
+    }
+
+    @Test
+    void keepsSectionsWholeWhenTheyFit() {
+        List<String> messages = new ArrayList<>();
+        TelegramChunkSink sink = new TelegramChunkSink(20, messages::add);
+
+        sink.section("first part\n");
+        sink.section("second part\n");
+        sink.section("\n\nthird part\n");
+        sink.close();
+
+        assertThat(messages).containsExactly("first part", "second part", "third part");
+    }
+}
@@ -0,0 +1,192 @@
+package org.sjsu.travelswarm.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sjsu.travelswarm.util.TelegramMessageSplitter.MAX_MESSAGE_LENGTH;
+
+/**
+ * Splitting must keep every character of the text (only whitespace at the cuts may go), respect the
+ * message limit and never leave a MarkdownV2 entity or escape open at the end of a message.
+ */
+class TelegramMessageSplitterTest {
+
+    private static final String[] WORDS = {
+            "Museum", "tapas", "12.50€", "(approx.)", "old-town", "Café", "¥1,000", "a_b", "#1", "😀", "!", "walk"
+    };
+
+    @Test
+    void textThatFitsIsReturnedAsIs() {
+        String text = "*Day 1*\n\nWalk\\. \n\n";
+        assertThat(TelegramMessageSplitter.split(text)).containsExactly(text);
+    }
+
+    @Test
+    void randomMarkdownIsSplitWithoutLosingTextOrBreakingEntities() {
+        Random random = new Random(42L);
+        for (int n = 0; n < 300; n++) {
+            String text = markdown(random, 4_000 + random.nextInt(30_000), true);
+
+            List<String> parts = TelegramMessageSplitter.split(text);
+
+            assertThat(parts).hasSizeGreaterThan(1);
+            for (String part : parts) {
+                assertThat(part.length()).isLessThanOrEqualTo(MAX_MESSAGE_LENGTH);
+                assertEntitiesClosed(part);
+            }
+            assertThat(withoutWhitespace(String.join("", parts))).isEqualTo(withoutWhitespace(text));
+        }
+    }
+
+    @Test
+    void keepsTheSameTextAsTheLegacySplitter() {
+        Random random = new Random(7L);
+        for (int n = 0; n < 300; n++) {
+            String text = markdown(random, 4_000 + random.nextInt(30_000), false);
+
+            List<String> parts = TelegramMessageSplitter.split(text);
+            List<String> legacyParts = legacySplit(text);
+
+            assertThat(parts).allSatisfy(part -> assertThat(part.length()).isLessThanOrEqualTo(MAX_MESSAGE_LENGTH));
+            assertThat(withoutWhitespace(String.join("", parts)))
+                    .isEqualTo(withoutWhitespace(String.join("", legacyParts)));
+        }
+    }
+
+    @Test
+    void hardCutDoesNotSplitSurrogatePairs() {
+        String text = "😀".repeat(MAX_MESSAGE_LENGTH);
+
+        List<String> parts = TelegramMessageSplitter.split(text);
+
+        assertThat(parts).allSatisfy(part -> {
+            assertThat(part.length()).isLessThanOrEqualTo(MAX_MESSAGE_LENGTH);
+            assertThat(Character.isHighSurrogate(part.charAt(part.length() - 1))).isFalse();
+            assertThat(Character.isLowSurrogate(part.charAt(0))).isFalse();
+        });
+        assertThat(String.join("", parts)).isEqualTo(text);
+    }
+
+    @Test
+    void hardCutDoesNotSplitEscapes() {
+        String text = "x" + "\\.".repeat(MAX_MESSAGE_LENGTH);
+
+        List<String> parts = TelegramMessageSplitter.split(text);
+
+        assertThat(parts).allSatisfy(TelegramMessageSplitterTest::assertEntitiesClosed);
+        assertThat(String.join("", parts)).isEqualTo(text);
+    }
+
+    /**
+     * Itinerary-like text: paragraphs of lines of escaped words, with bold, italic, code and link entities
+     * when {@code entities} is set.
+     */
+    private static String markdown(Random random, int length, boolean entities) {
+        StringBuilder text = new StringBuilder(length + 200);
+        while (text.length() < length) {
+            int lines = 1 + random.nextInt(6);
+            for (int l = 0; l < lines; l++) {
+                int words = 1 + random.nextInt(14);
+                for (int w = 0; w < words; w++) {
+                    if (w > 0) {
+                        text.append(' ');
+                    }
+                    String word = MarkdownUtil.escapeMarkdownV2(WORDS[random.nextInt(WORDS.length)]);
+                    int kind = entities ? random.nextInt(12) : 0;
+                    switch (kind) {
+                        case 1 -> text.append('*').append(word).append(' ').append(word).append('*');
+                        case 2 -> text.append('_').append(word).append('_');
+                        case 3 -> text.append('`').append("code ").append(w).append('`');
+                        case 4 -> MarkdownUtil.appendLinkUrl(text.append('[').append(word).append(" map](https://maps.example.com/?q="), "a(b)c")
+                                .append(')');
+                        default -> text.append(word);
+                    }
+                }
+                text.append('\n');
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void assertEntitiesClosed(String part) {
+        boolean escaped = false;
+        boolean bold = false;
+        boolean italic = false;
+        boolean code = false;
+        int link = 0; // 0 none, 1 in [text], 2 right after ']', 3 in (url)
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            if (escaped) {
+                escaped = false;
+                continue;
+            }
+            if (link == 2 && c != '(') {
+                link = 0;
+            }
+            switch (c) {
+                case '\\' -> escaped = true;
+                case '`' -> code = !code;
+                case '*' -> bold = code ? bold : !bold;
+                case '_' -> italic = code ? italic : !italic;
+                case '[' -> link = code || link != 0 ? link : 1;
+                case ']' -> link = link == 1 ? 2 : link;
+                case '(' -> link = link == 2 ? 3 : link;
+                case ')' -> link = link == 3 ? 0 : link;
+                default -> {
+                }
+            }
+        }
+        assertThat(escaped).as("dangling backslash at the end of %s", part).isFalse();
+        assertThat(bold || italic || code || link == 1 || link == 3).as("open entity at the end of %s", part).isFalse();
+    }
+
+    private static String withoutWhitespace(String text) {
+        return text.replaceAll("\\s+", "");
+    }
+
+    // The nested String.split splitting TelegramBotService used before TelegramChunkSink
+    private static List<String> legacySplit(String text) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder currentPart = new StringBuilder();
+        for (String section : text.split("\\n\\n")) {
+            if (currentPart.length() + section.length() + 2 > MAX_MESSAGE_LENGTH) {
+                if (currentPart.length() > 0) {
+                    parts.add(currentPart.toString());
+                    currentPart = new StringBuilder();
+                }
+                if (section.length() > MAX_MESSAGE_LENGTH) {
+                    StringBuilder currentLine = new StringBuilder();
+                    for (String line : section.split("\\n")) {
+                        if (currentLine.length() + line.length() + 1 > MAX_MESSAGE_LENGTH) {
+                            if (currentLine.length() > 0) {
+                                parts.add(currentLine.toString());
+                                currentLine = new StringBuilder();
+                            }
+                            currentLine.append(line);
+                        } else {
+                            if (currentLine.length() > 0) currentLine.append("\n");
+                            currentLine.append(line);
+                        }
+                    }
+                    if (currentLine.length() > 0) {
+                        parts.add(currentLine.toString());
+                    }
+                } else {
+                    currentPart.append(section);
+                }
+            } else {
+                if (currentPart.length() > 0) currentPart.append("\n\n");
+                currentPart.append(section);
+            }
+        }
+        if (currentPart.length() > 0) {
+            parts.add(currentPart.toString());
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,65 @@
+package org.sjsu.travelswarm.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOfDayParserTest {
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "9:00 AM|09:00",
+            "09:30pm|21:30",
+            "9 a.m.|09:00",
+            "9 PM|21:00",
+            "12:00 AM|00:00",
+            "12 pm|12:00",
+            "9:00|09:00",
+            "21:00|21:00",
+            "21:00:30|21:00:30",
+            "09:00:00.5|09:00:00.500",
+            "2025-06-01T09:00|09:00",
+            "'  10:15 AM  '|10:15",
+            "9:00 AM - 11:00 AM|09:00",
+            "09:00–11:00|09:00",
+            "9 AM to 1 PM|09:00"
+    })
+    void parsesTimes(String text, LocalTime expected) {
+        assertThat(TimeOfDayParser.parse(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "  ", "9", "9:001", "9:00h", "25:00", "13 PM", "0 AM", "9:60", "noon", "9:00 AM later", "9:00 AM -"})
+    void rejectsNonTimes(String text) {
+        assertThat(TimeOfDayParser.parse(text)).isNull();
+    }
+
+    @Test
+    void rejectsNull() {
+        assertThat(TimeOfDayParser.parse(null)).isNull();
+        assertThat(TimeOfDayParser.parseRangeEnd(null)).isNull();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "9:00 AM - 11:00 AM|11:00",
+            "09:00–11:30|11:30",
+            "09:00 — 11:30|11:30",
+            "9 AM to 1 PM|13:00",
+            "9 am TO 1 pm|13:00"
+    })
+    void parsesRangeEnds(String text, LocalTime expected) {
+        assertThat(TimeOfDayParser.parseRangeEnd(text)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"9:00 AM", "9:00 AM - ", "9:00 AM - noon", "9:00 AM to 11:00 AM extra"})
+    void rangeEndIsNullWithoutARange(String text) {
+        assertThat(TimeOfDayParser.parseRangeEnd(text)).isNull();
+    }
+}